@@ -0,0 +1,127 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.model.AccountViews;
+import com.josediaz.springframework7.service.AccountJsonCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.JsonEncoding;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Respuesta de GET /accounts/{id} por versión: serializar en cada petición frente a copiar el
+ * JSON precalculado de AccountJsonCache
+ *
+ * Los métodos que serializan reproducen lo que hace el conversor Jackson de Spring en cada
+ * petición (mapper.writer(), generador y escritura) sobre un buffer reutilizado, así que los B/op
+ * de -prof gc son la asignación por respuesta
+ *
+ * - dtoV1_0: la versión anterior, copia sin teléfono (el constructor llama a LocalDateTime.now())
+ * - v1_1: la cuenta almacenada serializada en cada petición (referencia)
+ * - dtoV2_0: la versión anterior, copia a AccountResponseV2
+ * - cachedV1_0 / cachedV1_1: lo que hace ahora el controlador, copiar los bytes de AccountJsonCache
+ *   (acierto) a la respuesta; v2.0 sirve las mismas entradas que v1.1
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AccountMapping -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountMappingBenchmark {
+
+    private Account account;
+    private JsonMapper jsonMapper;
+    private ByteArrayOutputStream body;
+    private AccountJsonCache jsonCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        account = new Account(42L, "Juan Pérez", "juan@example.com", "+34 600 123 456");
+        jsonMapper = JsonMapper.builder().build();
+        body = new ByteArrayOutputStream(512);
+        jsonCache = new AccountJsonCache(jsonMapper, 16);
+    }
+
+    @Benchmark
+    public int dtoV1_0() {
+        return write(jsonMapper.writer(), new Account(account.getId(), account.getName(), account.getEmail(), null));
+    }
+
+    @Benchmark
+    public int v1_1() {
+        return write(jsonMapper.writer(), account);
+    }
+
+    @Benchmark
+    public int dtoV2_0() {
+        return write(jsonMapper.writer(), new AccountResponseV2(account.getId(), account.getName(),
+                account.getEmail(), account.getPhone(), account.getCreatedAt()));
+    }
+
+    @Benchmark
+    public int cachedV1_0() {
+        return copy(jsonCache.get(account, AccountViews.V1_0.class));
+    }
+
+    @Benchmark
+    public int cachedV1_1() {
+        return copy(jsonCache.get(account, AccountViews.V1_1.class));
+    }
+
+    private int copy(AccountJsonCache.CachedJson json) {
+        body.reset();
+        body.writeBytes(json.body());
+        return body.size();
+    }
+
+    private int write(ObjectWriter writer, Object value) {
+        body.reset();
+        try (JsonGenerator generator = writer.createGenerator(body, JsonEncoding.UTF8)) {
+            writer.writeValue(generator, value);
+        }
+        return body.size();
+    }
+
+    /**
+     * Copia del DTO que devolvía la versión 2.0 antes de usar la cuenta almacenada
+     */
+    public static class AccountResponseV2 {
+        private final Long id;
+        private final String name;
+        private final String email;
+        private final String phone;
+        private final LocalDateTime createdAt;
+
+        public AccountResponseV2(Long id, String name, String email, String phone, LocalDateTime createdAt) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+            this.createdAt = createdAt;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public String getPhone() { return phone; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+}
@@ -0,0 +1,100 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.repository.AccountRepository;
+import com.josediaz.springframework7.repository.LogAccountStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tiempo de arranque de AccountRepository sobre un LogAccountStorage con millones de cuentas
+ *
+ * recovery:
+ * - checkpoint: tras un cierre limpio, el índice mapeado ya está al día y no se lee el log
+ * - rebuild: sin índice (perdido o de otra generación), se reconstruye recorriendo el log completo
+ *
+ * Cada invocación abre el almacenamiento, crea el repositorio y lee una cuenta (la primera lectura
+ * de cada id va al log a través del índice). El log se genera una vez por trial en un directorio
+ * temporal; el cierre de cada invocación (checkpoint del índice) no se mide
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AccountRecoveryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountRecoveryBenchmark {
+
+    @Param({"1000000", "5000000"})
+    public int accounts;
+
+    @Param({"checkpoint", "rebuild"})
+    public String recovery;
+
+    private Path directory;
+    private LogAccountStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("account-recovery-benchmark");
+        try (LogAccountStorage initial = new LogAccountStorage(directory, 0, Long.MAX_VALUE)) {
+            long sequence = 0;
+            for (long id = 1; id <= accounts; id++) {
+                sequence = initial.append(new Account(id, "Account " + id, "account" + id + "@example.com",
+                        id % 2 == 0 ? "+34 600 123 456" : null));
+            }
+            initial.sync(sequence);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() throws IOException {
+        if ("rebuild".equals(recovery)) {
+            Files.delete(directory.resolve("accounts.idx"));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeStorage() throws IOException {
+        storage.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public Account open() throws IOException {
+        storage = new LogAccountStorage(directory, 0, Long.MAX_VALUE);
+        return new AccountRepository(storage).findById(accounts / 2);
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
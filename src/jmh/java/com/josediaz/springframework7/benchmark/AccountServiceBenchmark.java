@@ -0,0 +1,67 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.repository.AccountRepository;
+import com.josediaz.springframework7.service.AccountJsonCache;
+import com.josediaz.springframework7.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountService.getAccountById con almacenes de 1k a 10M cuentas
+ *
+ * Las cuentas comparten nombre y email para que 10M quepan en el heap del fork;
+ * la búsqueda solo depende del id
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AccountServiceBenchmark -t 4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountServiceBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    private AccountService accountService;
+    private long[] ids;
+    private long[] missingIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // El constructor crea las 3 cuentas de ejemplo
+        accountService = new AccountService(new AccountRepository(),
+                new AccountJsonCache(JsonMapper.builder().build(), 4096));
+        for (int i = 3; i < size; i++) {
+            accountService.createAccount("Account", "account@example.com", null);
+        }
+        ids = LookupKeys.randomIds(1, size);
+        missingIds = LookupKeys.randomIds(size + 1L, size);
+    }
+
+    @Benchmark
+    public Account getAccountById(LookupKeys.Cursor cursor) {
+        return accountService.getAccountById(ids[cursor.next()]);
+    }
+
+    @Benchmark
+    public Account getAccountByIdMissing(LookupKeys.Cursor cursor) {
+        return accountService.getAccountById(missingIds[cursor.next()]);
+    }
+}
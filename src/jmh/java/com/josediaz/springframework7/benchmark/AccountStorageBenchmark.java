@@ -0,0 +1,94 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.repository.AccountRepository;
+import com.josediaz.springframework7.repository.LogAccountStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escrituras de AccountRepository con y sin almacenamiento persistente
+ *
+ * - memory: solo en memoria (referencia)
+ * - log: LogAccountStorage, cada operación espera a que su registro sea durable; con varios
+ *   hilos (-t) los registros comparten fsync (group commit) y el throughput crece con ellos
+ *
+ * update modifica cuentas aleatorias de un almacén con PRELOADED cuentas. El log se crea en un
+ * directorio temporal con la compactación desactivada, para medir solo la escritura
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="AccountStorageBenchmark -t 4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountStorageBenchmark {
+
+    private static final int PRELOADED = 100_000;
+
+    @Param({"memory", "log"})
+    public String storage;
+
+    private Path directory;
+    private LogAccountStorage logStorage;
+    private AccountRepository repository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("log".equals(storage)) {
+            directory = Files.createTempDirectory("account-storage-benchmark");
+            logStorage = new LogAccountStorage(directory, 0, Long.MAX_VALUE);
+            // Carga inicial con un solo sync
+            long sequence = 0;
+            for (long id = 1; id <= PRELOADED; id++) {
+                sequence = logStorage.append(new Account(id, "Account", "account@example.com", null));
+            }
+            logStorage.sync(sequence);
+            repository = new AccountRepository(logStorage);
+        } else {
+            repository = new AccountRepository();
+            for (int i = 0; i < PRELOADED; i++) {
+                repository.create(id -> new Account(id, "Account", "account@example.com", null));
+            }
+        }
+        ids = LookupKeys.randomIds(1, PRELOADED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (logStorage != null) {
+            logStorage.close();
+            AccountRecoveryBenchmark.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public Account create() {
+        return repository.create(id -> new Account(id, "Account", "account@example.com", "+34 600 123 456"));
+    }
+
+    @Benchmark
+    public Account update(LookupKeys.Cursor cursor) {
+        return repository.update(ids[cursor.next()],
+                current -> new Account(current.getId(), "Updated", current.getEmail(), current.getPhone()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.config.ApiVersioningConfig;
+import com.josediaz.springframework7.config.VersionDispatchHandlerMapping;
+import com.josediaz.springframework7.controller.AccountController;
+import com.josediaz.springframework7.repository.AccountRepository;
+import com.josediaz.springframework7.service.AccountJsonCache;
+import com.josediaz.springframework7.service.AccountService;
+import org.jspecify.annotations.NonNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.config.annotation.ApiVersionConfigurer;
+import org.springframework.web.servlet.config.annotation.DelegatingWebMvcConfiguration;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Enrutado por versión de GET /accounts/{id} (header X-API-Version) según crece el número
+ * de handlers versionados
+ *
+ * - resolveHandler: solo RequestMappingHandlerMapping (resolver la versión y elegir el método)
+ * - dispatch: la petición completa por DispatcherServlet, incluida la respuesta JSON
+ *
+ * mapping:
+ * - spring: la configuración anterior, búsqueda estándar de Spring y parser semántico
+ * - dispatch-table: ApiVersioningConfig con VersionDispatchHandlerMapping y versiones internadas
+ *
+ * handlers añade mappings GET /resource{n}/{id} repartidos entre las versiones 1.0, 1.1 y 2.0,
+ * como una API con muchos recursos versionados
+ *
+ * Se levanta un contexto Spring MVC mínimo sin servidor: mide el enrutado, no la red
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ApiVersionRouting -p version=2.0"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiVersionRoutingBenchmark {
+
+    private static final String VERSION_HEADER = "X-API-Version";
+    private static final String[] VERSIONS = {"1.0", "1.1", "2.0"};
+
+    @Param({"spring", "dispatch-table"})
+    public String mapping;
+
+    @Param({"0", "100", "1000"})
+    public int handlers;
+
+    @Param({"1.0", "2.0"})
+    public String version;
+
+    private AnnotationConfigWebApplicationContext context;
+    private RequestMappingHandlerMapping handlerMapping;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register("dispatch-table".equals(mapping) ? DispatchTableRouting.class : SpringRouting.class);
+        context.refresh();
+        handlerMapping = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+
+        Method handle = ResourceHandler.class.getMethod("handle");
+        ResourceHandler handler = new ResourceHandler();
+        for (int i = 0; i < handlers; i++) {
+            RequestMappingInfo info = RequestMappingInfo.paths("/resource" + i / VERSIONS.length + "/{id}")
+                    .methods(RequestMethod.GET)
+                    .version(VERSIONS[i % VERSIONS.length])
+                    .produces(MediaType.TEXT_PLAIN_VALUE)
+                    .options(handlerMapping.getBuilderConfiguration())
+                    .build();
+            handlerMapping.registerMapping(info, handler, handle);
+        }
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HandlerExecutionChain resolveHandler() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/accounts/1");
+        request.addHeader(VERSION_HEADER, version);
+        ServletRequestPathUtils.parseAndCache(request);
+        return handlerMapping.getHandler(request);
+    }
+
+    @Benchmark
+    public int dispatch() throws Exception {
+        return mockMvc.perform(get("/accounts/1").header(VERSION_HEADER, version))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @ResponseBody
+    public static class ResourceHandler {
+
+        public String handle() {
+            return "resource";
+        }
+    }
+
+    @Configuration
+    @Import({AccountController.class, AccountService.class, AccountRepository.class, AccountJsonCache.class})
+    static class AccountBeans {
+
+        @Bean
+        JsonMapper jsonMapper() {
+            return JsonMapper.builder().build();
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import(AccountBeans.class)
+    static class SpringRouting implements WebMvcConfigurer {
+
+        @Override
+        public void configureApiVersioning(@NonNull ApiVersionConfigurer configurer) {
+            configurer.useRequestHeader(VERSION_HEADER);
+        }
+    }
+
+    @Configuration
+    @Import({AccountBeans.class, ApiVersioningConfig.class})
+    static class DispatchTableRouting extends DelegatingWebMvcConfiguration {
+
+        @Override
+        protected RequestMappingHandlerMapping createRequestMappingHandlerMapping() {
+            return new VersionDispatchHandlerMapping();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.josediaz.springframework7.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Compara dos resultados JMH en JSON (-rf json) y señala las regresiones
+ *
+ * Cada resultado se identifica por benchmark, parámetros e hilos. Es una regresión
+ * si empeora más de threshold % y la diferencia supera la suma de los márgenes
+ * de error de ambas ejecuciones (en thrpt empeorar es bajar, en el resto subir)
+ *
+ * mvn -Pbenchmark test-compile exec:exec@compare -Dbenchmark.baseline=baseline.json
+ *     -Dbenchmark.result=target/jmh-result.json -Dbenchmark.threshold=10
+ */
+public final class BenchmarkReport {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private BenchmarkReport() {
+    }
+
+    public static void main(String[] args) {
+        String baseline = System.getProperty("benchmark.baseline", "");
+        String current = System.getProperty("benchmark.result", "target/jmh-result.json");
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+        if (baseline.isBlank()) {
+            System.err.println("benchmark.baseline is required");
+            System.exit(2);
+        }
+        int regressions = compare(new File(baseline), new File(current), threshold, System.out);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Imprime la tabla comparativa
+     *
+     * @return Número de regresiones
+     */
+    static int compare(File baselineFile, File currentFile, double threshold, PrintStream out) {
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(currentFile);
+
+        out.printf("%n%-90s %28s %28s %9s%n", "Benchmark", "Baseline", "Current", "Delta");
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                out.printf("%-90s %28s %28s %9s%n", entry.getKey(), "-", now.format(), "new");
+                continue;
+            }
+            double delta = (now.value() - before.value()) / before.value() * 100;
+            double worsening = now.higherIsBetter() ? -delta : delta;
+            boolean significant = Math.abs(now.value() - before.value()) > before.error() + now.error();
+            String verdict = "";
+            if (significant && worsening > threshold) {
+                verdict = "  REGRESSION";
+                regressions++;
+            } else if (significant && worsening < -threshold) {
+                verdict = "  improved";
+            }
+            out.printf("%-90s %28s %28s %+8.1f%%%s%n", entry.getKey(), before.format(), now.format(), delta, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                out.printf("%-90s %28s %28s %9s%n", key, baseline.get(key).format(), "-", "missing");
+            }
+        }
+        out.printf("%n%d regression(s) over %.1f%%%n", regressions, threshold);
+        return regressions;
+    }
+
+    private static Map<String, Score> read(File file) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : JSON.readTree(file)) {
+            String benchmark = result.get("benchmark").asString();
+            StringJoiner key = new StringJoiner(" ");
+            key.add(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            Map<String, String> params = new TreeMap<>();
+            JsonNode paramsNode = result.path("params");
+            for (Map.Entry<String, JsonNode> param : paramsNode.properties()) {
+                params.put(param.getKey(), param.getValue().asString());
+            }
+            params.forEach((name, value) -> key.add(name + "=" + value));
+            key.add("threads=" + result.get("threads").asInt());
+            key.add(result.get("mode").asString());
+
+            JsonNode metric = result.get("primaryMetric");
+            JsonNode error = metric.path("scoreError");
+            scores.put(key.toString(), new Score(
+                    metric.get("score").asDouble(),
+                    error.isNumber() && !Double.isNaN(error.doubleValue()) ? error.doubleValue() : 0,
+                    metric.get("scoreUnit").asString(),
+                    "thrpt".equals(result.get("mode").asString())));
+        }
+        return scores;
+    }
+
+    private record Score(double value, double error, String unit, boolean higherIsBetter) {
+
+        String format() {
+            return String.format("%.3f +- %.3f %s", value, error, unit);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.josediaz.springframework7.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta los benchmarks de las rutas calientes con varios números de hilos,
+ * guarda todos los resultados en un único JSON y, si hay una línea base, los compara
+ *
+ * - benchmark.include: regex de benchmarks (por defecto servicios, mapeo y enrutado por versión)
+ * - benchmark.threads: hilos separados por comas, una ejecución JMH por valor
+ * - benchmark.params: parámetros JMH, p. ej. "size=1000,100000;version=2.0"
+ * - benchmark.result: JSON de salida
+ * - benchmark.baseline: JSON de una ejecución anterior (opcional)
+ * - benchmark.threshold: % de empeoramiento que se considera regresión
+ *
+ * El resto de opciones JMH (iteraciones, profilers...) se pasan en jmh.args
+ *
+ * La ejecución termina con código 1 si hay regresiones, para usarla antes de publicar
+ *
+ * mvn -Pbenchmark test-compile exec:exec@suite -Dbenchmark.threads=1,4 -Dbenchmark.baseline=baseline.json
+ */
+public final class BenchmarkSuite {
+
+    private BenchmarkSuite() {
+    }
+
+    public static void main(String[] args)
+            throws RunnerException, FileNotFoundException, CommandLineOptionException {
+        CommandLineOptions jmhOptions = new CommandLineOptions(args);
+        String include = System.getProperty("benchmark.include",
+                "AccountServiceBenchmark|UserServiceBenchmark|AccountMappingBenchmark|ApiVersionRoutingBenchmark");
+        String threads = System.getProperty("benchmark.threads", "1");
+        String params = System.getProperty("benchmark.params", "");
+        File result = new File(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        String baseline = System.getProperty("benchmark.baseline", "");
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threadCount : threads.split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(jmhOptions)
+                    .include(include)
+                    .threads(Integer.parseInt(threadCount.trim()))
+                    .shouldFailOnError(true);
+            for (String param : params.split(";")) {
+                if (param.isBlank()) {
+                    continue;
+                }
+                String[] nameAndValues = param.split("=", 2);
+                options.param(nameAndValues[0].trim(), nameAndValues[1].trim().split(","));
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        File parent = result.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (PrintStream out = new PrintStream(result)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("Results written to " + result);
+
+        if (!baseline.isBlank()) {
+            int regressions = BenchmarkReport.compare(new File(baseline), result, threshold, System.out);
+            System.exit(regressions > 0 ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.SpringFramework7SamplesApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Importación de altas por HTTP: una petición POST por elemento frente a POST /{resource}/bulk
+ *
+ * - single: `operations` POST /accounts o POST /users repartidos entre `clients` clientes concurrentes
+ * - bulk: un solo POST /{resource}/bulk con las mismas altas en NDJSON
+ * - storage: memory, o disk con accounts.storage y users.journal activos en un directorio temporal
+ *   (cada escritura confirmada espera a su fsync, compartido entre escrituras concurrentes)
+ *
+ * El score es el tiempo de cada importación: throughput = operations / score
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="BulkImport"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class BulkImportBenchmark {
+
+    @Param({"accounts", "users"})
+    public String resource;
+
+    @Param({"memory", "disk"})
+    public String storage;
+
+    @Param({"single", "bulk"})
+    public String mode;
+
+    @Param({"5000"})
+    public int operations;
+
+    @Param({"16"})
+    public int clients;
+
+    private Path directory;
+    private ConfigurableApplicationContext application;
+    private ExecutorService loadExecutor;
+    private HttpClient loadClient;
+    private String baseUrl;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bulk-import-benchmark");
+        boolean disk = "disk".equals(storage);
+        application = new SpringApplicationBuilder(SpringFramework7SamplesApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--accounts.storage.enabled=" + disk,
+                        "--accounts.storage.directory=" + directory.resolve("accounts"),
+                        "--users.journal.enabled=" + disk,
+                        "--users.journal.directory=" + directory.resolve("users"),
+                        "--quotes.pool.enabled=false",
+                        "--quotes.categories.cache.warm-up=false",
+                        "--logging.level.com.josediaz.springframework7=WARN");
+        int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/" + resource;
+        loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        loadClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(loadExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loadClient.close();
+        loadExecutor.shutdownNow();
+        application.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int importAll() {
+        // Emails nuevos en cada invocación: users rechaza los repetidos
+        String prefix = "r" + round++ + "-";
+        return "bulk".equals(mode) ? bulk(prefix) : single(prefix);
+    }
+
+    private int single(String prefix) {
+        List<CompletableFuture<Integer>> workers = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            workers.add(CompletableFuture.supplyAsync(() -> {
+                int created = 0;
+                for (int i = client; i < operations; i += clients) {
+                    String query = "?name=User%20" + i + "&email=" + prefix + i + "@example.com";
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query))
+                            .header("X-API-Version", "1.0")
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    if (send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201) {
+                        created++;
+                    }
+                }
+                return created;
+            }, loadExecutor));
+        }
+        return check(workers.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    private int bulk(String prefix) {
+        StringBuilder body = new StringBuilder(operations * 80);
+        for (int i = 0; i < operations; i++) {
+            body.append("{\"op\":\"create\",\"name\":\"User ").append(i)
+                    .append("\",\"email\":\"").append(prefix).append(i).append("@example.com\"}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/bulk"))
+                .header("X-API-Version", "1.0")
+                .header("Content-Type", "application/x-ndjson")
+                .header("Accept", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        try (Stream<String> lines = send(request, HttpResponse.BodyHandlers.ofLines()).body()) {
+            return check((int) lines.filter(line -> line.contains("\"created\"")).count());
+        }
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        try {
+            return loadClient.send(request, handler);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int check(int created) {
+        if (created != operations) {
+            throw new IllegalStateException((operations - created) + " of " + operations + " creates failed");
+        }
+        return created;
+    }
+}
@@ -0,0 +1,117 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.config.AsyncConfiguration;
+import com.josediaz.springframework7.config.EventBatchProperties;
+import com.josediaz.springframework7.config.EventExecutorProperties;
+import com.josediaz.springframework7.config.TaskDecoratorConfiguration;
+import com.josediaz.springframework7.event.BatchEventListener;
+import com.josediaz.springframework7.event.EventBatcher;
+import com.josediaz.springframework7.event.HelloWorldEvent;
+import com.josediaz.springframework7.metrics.TaskMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coste por evento de entregar HelloWorldEvent uno a uno (una tarea del executor por evento)
+ * frente a micro-lotes de EventBatcher, con el mismo executor y la misma cadena de TaskDecorator
+ *
+ * Cada invocación publica EVENTS eventos y espera a que el listener los reciba todos;
+ * el resultado es el tiempo medio por evento
+ *
+ * El logging se limita a WARN para medir el cambio de hilo y los decoradores, no la consola
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="EventDispatch"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    private static final int EVENTS = 1000;
+
+    @Param({"per-event", "batched"})
+    public String dispatch;
+
+    @Param({"256"})
+    public int maxBatchSize;
+
+    private final LongAdder delivered = new LongAdder();
+    private final HelloWorldEvent event = new HelloWorldEvent("benchmark");
+
+    private ThreadPoolTaskExecutor executor;
+    private BatchEventListener<HelloWorldEvent> listener;
+    private EventBatcher<HelloWorldEvent> batcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        TaskDecoratorConfiguration decorators = new TaskDecoratorConfiguration();
+        Map<String, Object> beans = new LinkedHashMap<>();
+        beans.put("measuringTaskDecorator", decorators.measuringTaskDecorator(new TaskMetrics()));
+        beans.put("loggingTaskDecorator", decorators.loggingTaskDecorator(0.0));
+        EventExecutorProperties properties = new EventExecutorProperties(4, 4, 100_000, Duration.ofSeconds(60),
+                EventExecutorProperties.RejectionPolicy.CALLER_RUNS);
+        executor = new AsyncConfiguration().eventTaskExecutor(properties,
+                new EventBatchProperties("batched".equals(dispatch), maxBatchSize, Duration.ofMillis(1), 100_000),
+                new StaticListableBeanFactory(beans).getBeanProvider(TaskDecorator.class), false,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        executor.initialize();
+
+        listener = events -> delivered.add(events.size());
+        batcher = "batched".equals(dispatch)
+                ? new EventBatcher<>(HelloWorldEvent.class, () -> List.of(listener), executor,
+                        maxBatchSize, Duration.ofMillis(1), 100_000, EventExecutorProperties.RejectionPolicy.CALLER_RUNS)
+                : EventBatcher.unbatched(HelloWorldEvent.class, () -> List.of(listener), executor,
+                        EventExecutorProperties.RejectionPolicy.CALLER_RUNS);
+        batcher.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batcher.stop();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long publish() {
+        long target = delivered.sum() + EVENTS;
+        for (int i = 0; i < EVENTS; i++) {
+            batcher.publish(event);
+        }
+        while (delivered.sum() < target) {
+            LockSupport.parkNanos(1_000);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,95 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.SpringFramework7SamplesApplication;
+import com.josediaz.springframework7.StubQuoteServer;
+import com.josediaz.springframework7.client.QuoteClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de QuoteClient.getRandomJoke() con y sin @Hedged contra un servidor local con
+ * latencia de cola larga
+ *
+ * El servidor responde en upstreamLatencyMillis, salvo una fracción tailRate de peticiones que
+ * tardan entre 10 y 50 veces más. Los percentiles p0.99 y p0.999 de SampleTime muestran la cola;
+ * el circuit breaker se desactiva para que las respuestas lentas no lo abran
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="Hedging"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class HedgingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean hedging;
+
+    @Param({"0.02"})
+    public double tailRate;
+
+    @Param({"10"})
+    public long upstreamLatencyMillis;
+
+    private StubQuoteServer upstream;
+    private ConfigurableApplicationContext application;
+    private QuoteClient quoteClient;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        upstream = StubQuoteServer.start();
+        upstream.latency(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return random.nextDouble() < tailRate
+                    ? upstreamLatencyMillis * random.nextLong(10, 51)
+                    : upstreamLatencyMillis;
+        });
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        application = new SpringApplicationBuilder(SpringFramework7SamplesApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--chucknorris.api.base-url=" + upstream.baseUrl(),
+                        "--quotes.pool.enabled=false",
+                        "--quotes.categories.cache.warm-up=false",
+                        "--quotes.circuit-breaker.enabled=false",
+                        "--quotes.hedging.enabled=" + hedging,
+                        "--quotes.random.concurrency-limit=64",
+                        "--quotes.random.max-concurrency-limit=64",
+                        "--quotes.random.max-queue-wait=60s",
+                        "--quotes.http.max-connections-per-route=64",
+                        "--quotes.http.acquire-timeout=60s",
+                        "--logging.level.com.josediaz.springframework7=WARN");
+        quoteClient = application.getBean(QuoteClient.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+        upstream.close();
+    }
+
+    @Benchmark
+    public String randomJoke() {
+        return quoteClient.getRandomJoke().getValue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.josediaz.springframework7.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * Claves aleatorias precalculadas para los benchmarks de búsqueda
+ *
+ * Las búsquedas recorren KEYS claves repartidas por todo el almacén: con tamaños grandes
+ * cada acceso sale de la caché, como en producción, y generar la clave no cuenta en la medida
+ */
+public final class LookupKeys {
+
+    static final int KEYS = 1 << 16;
+
+    private static final long SEED = 42;
+
+    private LookupKeys() {
+    }
+
+    /**
+     * KEYS ids uniformes en [firstId, firstId + size)
+     */
+    static long[] randomIds(long firstId, int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] ids = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            ids[i] = firstId + random.nextInt(size);
+        }
+        return ids;
+    }
+
+    /**
+     * Posición en el array de claves, propia de cada hilo del benchmark
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position = (int) Thread.currentThread().threadId() * 7919;
+
+        int next() {
+            return position++ & (KEYS - 1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.SpringFramework7SamplesApplication;
+import com.josediaz.springframework7.StubQuoteServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de GET /quotes/random/per-category según quotes.fan-out.max-parallel
+ *
+ * El servidor local tiene 6 categorías y responde cada chiste en upstreamLatencyMillis.
+ * maxParallel=1 equivale a un bucle secuencial; con 6, todas las categorías van a la vez
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="QuoteFanOut"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class QuoteFanOutBenchmark {
+
+    @Param({"1", "3", "6"})
+    public int maxParallel;
+
+    @Param({"50"})
+    public long upstreamLatencyMillis;
+
+    private StubQuoteServer upstream;
+    private ConfigurableApplicationContext application;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        upstream = StubQuoteServer.start();
+        upstream.latency(upstreamLatencyMillis);
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        application = new SpringApplicationBuilder(SpringFramework7SamplesApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--chucknorris.api.base-url=" + upstream.baseUrl(),
+                        "--quotes.pool.enabled=false",
+                        "--quotes.fan-out.max-parallel=" + maxParallel,
+                        "--quotes.fan-out.deadline=10s",
+                        "--logging.level.com.josediaz.springframework7=WARN");
+        int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/quotes/random/per-category"))
+                .header("X-API-Version", "1.0")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        application.close();
+        upstream.close();
+    }
+
+    @Benchmark
+    public String perCategory() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,131 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.SpringFramework7SamplesApplication;
+import com.josediaz.springframework7.StubQuoteServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de GET /quotes/random con hilos de plataforma y con hilos virtuales
+ *
+ * Cada invocación lanza `concurrency` peticiones simultáneas contra la aplicación, que a su vez
+ * llama a un servidor local con latencia fija. El pool de chistes se desactiva para que cada
+ * petición bloquee su hilo en la llamada remota. El score es el tiempo de cada ráfaga:
+ * throughput = concurrency / score
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="QuoteLoad"
+ *
+ * Con 10000 peticiones el proceso necesita unos 40000 descriptores de fichero
+ * (cliente, Tomcat, QuoteClient y servidor local en la misma JVM): ulimit -n 65536,
+ * o bien reducir la carga con -p concurrency=2000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class QuoteLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"10000"})
+    public int concurrency;
+
+    @Param({"100"})
+    public long upstreamLatencyMillis;
+
+    private StubQuoteServer upstream;
+    private ConfigurableApplicationContext application;
+    private ExecutorService loadExecutor;
+    private HttpClient loadClient;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        upstream = StubQuoteServer.start();
+        upstream.latency(upstreamLatencyMillis);
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        application = new SpringApplicationBuilder(SpringFramework7SamplesApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.max-connections=" + (concurrency * 2),
+                        "--server.tomcat.accept-count=" + concurrency,
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--chucknorris.api.base-url=" + upstream.baseUrl(),
+                        "--quotes.pool.enabled=false",
+                        "--quotes.categories.cache.warm-up=false",
+                        "--quotes.random.concurrency-limit=" + concurrency,
+                        "--quotes.random.max-concurrency-limit=" + concurrency,
+                        "--quotes.random.max-queue-wait=60s",
+                        "--quotes.http.max-connections-per-route=" + concurrency,
+                        "--quotes.http.acquire-timeout=60s",
+                        "--quotes.http.read-timeout=60s",
+                        "--logging.level.com.josediaz.springframework7=WARN");
+        int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+        uri = URI.create("http://localhost:" + port + "/quotes/random");
+        loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        loadClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(loadExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadClient.close();
+        loadExecutor.shutdownNow();
+        application.close();
+        upstream.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("X-API-Version", "1.0")
+                .timeout(Duration.ofSeconds(120))
+                .build();
+        List<CompletableFuture<HttpResponse<Void>>> calls = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            calls.add(loadClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> call : calls) {
+            if (call.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != concurrency) {
+            throw new IllegalStateException((concurrency - ok) + " of " + concurrency + " requests failed");
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,84 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.StubQuoteServer;
+import com.josediaz.springframework7.client.RouteConcurrencyInterceptor;
+import com.josediaz.springframework7.config.HttpClientConfig;
+import com.josediaz.springframework7.config.QuoteHttpProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el transporte HTTP de QuoteClient contra un servidor local con latencia fija
+ *
+ * - simple: HttpURLConnection (SimpleClientHttpRequestFactory)
+ * - jdk-default: JDK HttpClient sin ajustes
+ * - jdk-tuned: transporte de HttpClientConfig (timeouts, pool y límite por ruta)
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="QuoteTransport -t 16"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class QuoteTransportBenchmark {
+
+    @Param({"simple", "jdk-default", "jdk-tuned"})
+    public String transport;
+
+    @Param({"5"})
+    public long upstreamLatencyMillis;
+
+    private StubQuoteServer upstream;
+    private RestClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        upstream = StubQuoteServer.start();
+        upstream.latency(upstreamLatencyMillis);
+        RestClient.Builder builder = RestClient.builder().baseUrl(upstream.baseUrl());
+        switch (transport) {
+            case "simple" -> builder.requestFactory(new SimpleClientHttpRequestFactory());
+            case "jdk-default" -> builder.requestFactory(new JdkClientHttpRequestFactory());
+            case "jdk-tuned" -> {
+                QuoteHttpProperties properties = new QuoteHttpProperties(Duration.ofSeconds(2), Duration.ofSeconds(5),
+                        true, 64, Duration.ofSeconds(1));
+                builder.requestFactory(HttpClientConfig.quoteRequestFactory(properties))
+                        .requestInterceptor(new RouteConcurrencyInterceptor(
+                                properties.maxConnectionsPerRoute(), properties.acquireTimeout()));
+            }
+            default -> throw new IllegalArgumentException("Unknown transport: " + transport);
+        }
+        client = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        upstream.close();
+    }
+
+    @Benchmark
+    public String randomJoke() {
+        return client.get().uri("/jokes/random").retrieve().body(String.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.SpringFramework7SamplesApplication;
+import com.josediaz.springframework7.StubQuoteServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Amplificación de carga sobre la API remota durante una degradación, con y sin presupuesto
+ * de reintentos
+ *
+ * Cada invocación lanza `concurrency` peticiones simultáneas a GET /resilient-quotes/random,
+ * que reintenta en QuoteClient (un solo nivel): sin presupuesto cada petición hace hasta
+ * 1 + maxRetries llamadas. El servidor local falla con probabilidad failureRate. El pool de
+ * chistes y el circuit breaker se desactivan para medir solo los reintentos
+ *
+ * Además del tiempo de cada ráfaga, los contadores auxiliares dan las peticiones, las llamadas
+ * que llegaron a la API remota y las peticiones fallidas:
+ * amplificación = upstreamCalls / requests
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="RetryAmplification"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class RetryAmplificationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean retryBudget;
+
+    @Param({"0.5", "0.9"})
+    public double failureRate;
+
+    @Param({"100"})
+    public int concurrency;
+
+    @Param({"20"})
+    public long upstreamLatencyMillis;
+
+    private StubQuoteServer upstream;
+    private ConfigurableApplicationContext application;
+    private ExecutorService loadExecutor;
+    private HttpClient loadClient;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        upstream = StubQuoteServer.start();
+        upstream.latency(upstreamLatencyMillis);
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        application = new SpringApplicationBuilder(SpringFramework7SamplesApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=true",
+                        "--chucknorris.api.base-url=" + upstream.baseUrl(),
+                        "--quotes.pool.enabled=false",
+                        "--quotes.categories.cache.warm-up=false",
+                        "--quotes.circuit-breaker.enabled=false",
+                        "--quotes.adaptive-limit.enabled=false",
+                        "--quotes.retry-budget.enabled=" + retryBudget,
+                        "--quotes.http.max-connections-per-route=" + (concurrency * 4),
+                        "--quotes.http.acquire-timeout=60s",
+                        "--logging.level.com.josediaz.springframework7=WARN",
+                        "--logging.level.org.apache.catalina.core=OFF");
+        int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+        uri = URI.create("http://localhost:" + port + "/resilient-quotes/random");
+        loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        loadClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(loadExecutor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        // El presupuesto se llena con tráfico sano antes de la degradación
+        burst(new Calls());
+        upstream.failureRate(failureRate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadClient.close();
+        loadExecutor.shutdownNow();
+        application.close();
+        upstream.close();
+    }
+
+    @Benchmark
+    public int burst(Calls calls) {
+        int hitsBefore = upstream.hits("/jokes/random");
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("X-API-Version", "1.0")
+                .timeout(Duration.ofSeconds(120))
+                .build();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(loadClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        calls.requests += concurrency;
+        calls.failedRequests += concurrency - ok;
+        calls.upstreamCalls += upstream.hits("/jokes/random") - hitsBefore;
+        return ok;
+    }
+
+    /**
+     * Contadores auxiliares: JMH los suma por iteración junto al tiempo de cada ráfaga
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Calls {
+
+        public long requests;
+        public long upstreamCalls;
+        public long failedRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+            upstreamCalls = 0;
+            failedRequests = 0;
+        }
+    }
+}
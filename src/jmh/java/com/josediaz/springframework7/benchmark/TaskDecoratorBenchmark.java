@@ -0,0 +1,121 @@
+package com.josediaz.springframework7.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.josediaz.springframework7.config.TaskDecoratorConfiguration;
+import com.josediaz.springframework7.metrics.TaskMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por tarea de la cadena de TaskDecorator, sin executor: decorar y ejecutar una tarea vacía
+ *
+ * - none: sin decoradores
+ * - log-per-task: la cadena anterior (currentTimeMillis y tres líneas INFO por tarea)
+ * - histogram: TaskDecoratorConfiguration con el logging desactivado
+ * - histogram-sampled: TaskDecoratorConfiguration registrando el 1% de las tareas
+ *
+ * Los logs se formatean con un patrón real y se descartan: el coste de E/S de un appender
+ * de consola o fichero se sumaría a log-per-task
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="TaskDecorator -t 4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskDecoratorBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskDecoratorBenchmark.class);
+
+    @Param({"none", "log-per-task", "histogram", "histogram-sampled"})
+    public String chain;
+
+    private TaskDecorator decorator;
+    private Runnable task;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        discardLogOutput();
+        TaskDecoratorConfiguration configuration = new TaskDecoratorConfiguration();
+        TaskMetrics taskMetrics = new TaskMetrics();
+        decorator = switch (chain) {
+            case "none" -> runnable -> runnable;
+            case "log-per-task" -> new CompositeTaskDecorator(List.of(legacyMeasuring(), legacyLogging()));
+            case "histogram" -> new CompositeTaskDecorator(List.of(
+                    configuration.measuringTaskDecorator(taskMetrics), configuration.loggingTaskDecorator(0.0)));
+            case "histogram-sampled" -> new CompositeTaskDecorator(List.of(
+                    configuration.measuringTaskDecorator(taskMetrics), configuration.loggingTaskDecorator(0.01)));
+            default -> throw new IllegalArgumentException("Unknown chain: " + chain);
+        };
+        task = () -> blackhole.consume(1);
+    }
+
+    @Benchmark
+    public void decorateAndRun() {
+        decorator.decorate(task).run();
+    }
+
+    private static void discardLogOutput() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} %5level [%thread] %logger{36} : %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        root.addAppender(appender);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+    }
+
+    private static TaskDecorator legacyLogging() {
+        return runnable -> () -> {
+            log.info("Running Task: {}", runnable);
+            try {
+                runnable.run();
+            } finally {
+                log.info("Finished Task: {}", runnable);
+            }
+        };
+    }
+
+    private static TaskDecorator legacyMeasuring() {
+        return runnable -> () -> {
+            final var startTime = System.currentTimeMillis();
+            try {
+                runnable.run();
+            } finally {
+                final var endTime = System.currentTimeMillis();
+                log.info("Finished within {}ms (Task: {})", endTime - startTime, runnable);
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.service.UserJournal;
+import com.josediaz.springframework7.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo de arranque de UserService sobre un UserJournal con un millón de usuarios
+ *
+ * Historial: users altas seguidas de updates actualizaciones y, al final, tail actualizaciones más
+ *
+ * recovery:
+ * - snapshot: snapshot tomado antes de las últimas tail actualizaciones, que son el WAL posterior
+ * - wal: sin snapshots, se reaplica el historial completo
+ *
+ * Cada invocación abre el journal y crea el servicio, que carga el snapshot, reaplica el WAL y
+ * reconstruye el índice por email. Los ficheros se generan una vez por trial en un directorio
+ * temporal; el cierre de cada invocación no se mide
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserRecoveryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserRecoveryBenchmark {
+
+    @Param({"1000000"})
+    public int users;
+
+    @Param({"3000000"})
+    public int updates;
+
+    @Param({"100000"})
+    public int tail;
+
+    @Param({"snapshot", "wal"})
+    public String recovery;
+
+    private Path directory;
+    private UserJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("user-recovery-benchmark");
+        try (UserJournal initial = new UserJournal(directory, 0)) {
+            // Crea los tres usuarios de ejemplo; el resto se escribe directamente en el WAL
+            new UserService(initial);
+            long sequence = 0;
+            for (long id = 4; id < 4 + users; id++) {
+                sequence = initial.appendPut(id, "User " + id, "user" + id + "@example.com",
+                        id % 2 == 0 ? "555-0100" : null);
+            }
+            sequence = appendUpdates(initial, updates, sequence);
+            initial.sync(sequence);
+        }
+        try (UserJournal initial = new UserJournal(directory, 0)) {
+            UserService userService = new UserService(initial);
+            if ("snapshot".equals(recovery)) {
+                userService.snapshot();
+            }
+            initial.sync(appendUpdates(initial, tail, 0));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeJournal() throws IOException {
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        AccountRecoveryBenchmark.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public UserService.User open() throws IOException {
+        journal = new UserJournal(directory, 0);
+        return new UserService(journal).getUserById(users / 2L);
+    }
+
+    private long appendUpdates(UserJournal journal, int count, long sequence) {
+        for (long i = 0; i < count; i++) {
+            long id = 4 + i * 7 % users;
+            sequence = journal.appendPut(id, "Updated " + i, "updated" + i + "@example.com", null);
+        }
+        return sequence;
+    }
+}
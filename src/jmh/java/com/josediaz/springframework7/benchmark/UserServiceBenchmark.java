@@ -0,0 +1,77 @@
+package com.josediaz.springframework7.benchmark;
+
+import com.josediaz.springframework7.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.findByEmail (índice secundario) y getUserById con 1k a 10M usuarios
+ *
+ * Los emails ya vienen normalizados, como la mayoría de peticiones reales:
+ * normalize() no reserva memoria en ese caso
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserServiceBenchmark -p size=1000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    private UserService userService;
+    private long[] ids;
+    private String[] emails;
+    private String[] missingEmails;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // El constructor crea los 3 usuarios de ejemplo con los ids 1, 2 y 3
+        userService = new UserService();
+        for (int i = 4; i <= size; i++) {
+            userService.createUser("User", email(i), null);
+        }
+        ids = LookupKeys.randomIds(4, size - 3);
+        emails = new String[LookupKeys.KEYS];
+        missingEmails = new String[LookupKeys.KEYS];
+        for (int i = 0; i < LookupKeys.KEYS; i++) {
+            emails[i] = email(ids[i]);
+            missingEmails[i] = email(size + ids[i]);
+        }
+    }
+
+    @Benchmark
+    public UserService.User findByEmail(LookupKeys.Cursor cursor) {
+        return userService.findByEmail(emails[cursor.next()]);
+    }
+
+    @Benchmark
+    public UserService.User findByEmailMissing(LookupKeys.Cursor cursor) {
+        return userService.findByEmail(missingEmails[cursor.next()]);
+    }
+
+    @Benchmark
+    public UserService.User getUserById(LookupKeys.Cursor cursor) {
+        return userService.getUserById(ids[cursor.next()]);
+    }
+
+    private static String email(long id) {
+        return "user" + id + "@example.com";
+    }
+}
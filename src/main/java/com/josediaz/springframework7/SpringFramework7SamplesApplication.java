@@ -6,8 +6,21 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class SpringFramework7SamplesApplication {
 
+    /**
+     * Antes de arrancar fija el pool keep-alive del HttpClient del JDK (usado por QuoteClient):
+     * jdk.httpclient.connectionPoolSize y jdk.httpclient.keepalive.timeout son propiedades de
+     * sistema de toda la JVM que se leen al crear el primer HttpClient. Los valores pasados con
+     * -D tienen prioridad
+     */
     public static void main(String[] args) {
+        setIfAbsent("jdk.httpclient.connectionPoolSize", "50");
+        setIfAbsent("jdk.httpclient.keepalive.timeout", "30");
         SpringApplication.run(SpringFramework7SamplesApplication.class, args);
     }
-}
 
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
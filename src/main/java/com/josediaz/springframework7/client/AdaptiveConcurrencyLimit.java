@@ -0,0 +1,58 @@
+package com.josediaz.springframework7.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Límite de llamadas concurrentes que se ajusta con la latencia observada (AdaptiveLimiter)
+ *
+ * Alternativa a @ConcurrencyLimit, cuyo límite es fijo: el límite sube mientras la latencia
+ * se mantiene cerca de la mínima observada y el método se usa cerca del límite, y baja en
+ * cuanto la latencia crece o las llamadas fallan (AIMD). Una llamada sin hueco espera como
+ * mucho maxQueueWait y después falla con ConcurrencyLimitExceededException
+ *
+ * Se aplica lo más cerca posible del método (AdaptiveConcurrencyLimitBeanPostProcessor): con
+ * @RetryWithBudget cada intento ocupa un hueco y mide su propia latencia; conviene excluir
+ * ConcurrencyLimitExceededException de los reintentos para que el rechazo sea inmediato
+ *
+ * Los atributos *String admiten placeholders y tienen prioridad sobre los numéricos
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdaptiveConcurrencyLimit {
+
+    /**
+     * Nombre del limitador en las métricas; los métodos con el mismo nombre comparten límite.
+     * Por defecto Clase.método
+     */
+    String name() default "";
+
+    int initialLimit() default 10;
+
+    String initialLimitString() default "";
+
+    int minLimit() default 1;
+
+    int maxLimit() default 100;
+
+    String maxLimitString() default "";
+
+    /**
+     * Espera máxima por un hueco, en milisegundos
+     */
+    long maxQueueWait() default 50;
+
+    /**
+     * Espera máxima por un hueco como duración ("100ms", "1s")
+     */
+    String maxQueueWaitString() default "";
+
+    /**
+     * Cuántas veces la latencia mínima reciente se considera normal; por encima el límite baja
+     */
+    double tolerance() default 2.0;
+}
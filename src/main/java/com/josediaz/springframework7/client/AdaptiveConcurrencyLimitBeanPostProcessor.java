@@ -0,0 +1,130 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aplica @AdaptiveConcurrencyLimit a los beans con métodos anotados (también en sus interfaces)
+ *
+ * El advisor se añade después de los existentes, lo más cerca del método: detrás de
+ * @SingleFlight (las llamadas agrupadas no ocupan hueco) y de @RetryWithBudget (cada intento se
+ * mide por separado y los reintentos no cuentan como latencia de la API remota) y de @Hedged
+ * (cada intento ocupa su hueco y el que se cancela lo libera sin ajustar el límite)
+ *
+ * Los limitadores se crean en la primera llamada a cada método y se comparten por nombre
+ */
+public class AdaptiveConcurrencyLimitBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor implements MeterBinder {
+
+    private final Map<Method, AdaptiveLimiter> limitersByMethod = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private @Nullable ConfigurableBeanFactory beanFactory;
+    private volatile @Nullable MeterRegistry registry;
+
+    public AdaptiveConcurrencyLimitBeanPostProcessor() {
+        setBeforeExistingAdvisors(false);
+        this.advisor = new DefaultPointcutAdvisor(
+                ResilientMethodPointcut.forAnnotation(AdaptiveConcurrencyLimit.class), new AdaptiveLimitInterceptor());
+    }
+
+    @Override
+    public void setBeanFactory(@NonNull BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory instanceof ConfigurableBeanFactory configurable ? configurable : null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        // Los limitadores creados después se registran al crearse
+        limiters.values().forEach(limiter -> limiter.bindTo(registry));
+    }
+
+    /**
+     * Limitador con ese nombre, null si su método aún no se ha llamado
+     */
+    public @Nullable AdaptiveLimiter limiter(@NonNull String name) {
+        return limiters.get(name);
+    }
+
+    private AdaptiveLimiter limiterFor(Method method) {
+        AdaptiveLimiter limiter = limitersByMethod.get(method);
+        if (limiter != null) {
+            return limiter;
+        }
+        return limitersByMethod.computeIfAbsent(method, this::createLimiter);
+    }
+
+    private AdaptiveLimiter createLimiter(Method method) {
+        AdaptiveConcurrencyLimit annotation = AnnotatedElementUtils.findMergedAnnotation(method, AdaptiveConcurrencyLimit.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @AdaptiveConcurrencyLimit on " + method);
+        }
+        String name = annotation.name().isEmpty()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : annotation.name();
+        return limiters.computeIfAbsent(name, key -> {
+            AdaptiveLimiter limiter = new AdaptiveLimiter(key,
+                    resolveInt(annotation.initialLimitString(), annotation.initialLimit()),
+                    annotation.minLimit(),
+                    resolveInt(annotation.maxLimitString(), annotation.maxLimit()),
+                    resolveDuration(annotation.maxQueueWaitString(), annotation.maxQueueWait()),
+                    annotation.tolerance());
+            MeterRegistry current = registry;
+            if (current != null) {
+                limiter.bindTo(current);
+            }
+            return limiter;
+        });
+    }
+
+    private int resolveInt(String value, int defaultValue) {
+        return value.isEmpty() ? defaultValue : Integer.parseInt(resolve(value).trim());
+    }
+
+    private Duration resolveDuration(String value, long defaultMillis) {
+        return value.isEmpty() ? Duration.ofMillis(defaultMillis) : DurationStyle.detectAndParse(resolve(value).trim(), ChronoUnit.MILLIS);
+    }
+
+    private String resolve(String value) {
+        String resolved = beanFactory != null ? beanFactory.resolveEmbeddedValue(value) : value;
+        return resolved != null ? resolved : value;
+    }
+
+    private final class AdaptiveLimitInterceptor implements MethodInterceptor {
+
+        @Override
+        public @Nullable Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            AdaptiveLimiter limiter = limiterFor(invocation.getMethod());
+            AdaptiveLimiter.Permit permit = limiter.acquire();
+            boolean success = false;
+            try {
+                Object result = invocation.proceed();
+                success = true;
+                return result;
+            } finally {
+                // Interrumpida y sin resultado: cancelada por @Hedged, no es una muestra
+                if (!success && Thread.currentThread().isInterrupted()) {
+                    limiter.cancel(permit);
+                } else {
+                    limiter.release(permit, success);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de concurrencia adaptativo (AIMD guiado por latencia)
+ *
+ * Cada llamada terminada es una muestra con su latencia y las llamadas en curso al empezar:
+ * - Si falla o su latencia supera tolerance veces la mínima reciente (y en más de 1 ms), el
+ *   límite se multiplica por 0.9: la API remota se está saturando
+ * - Si no, y la llamada empezó con al menos la mitad del límite ocupado, el límite sube en 1;
+ *   con poco tráfico el límite no crece sin haberse probado
+ *
+ * La latencia mínima es la menor de las dos últimas ventanas de 100 muestras, así que sigue
+ * a la API remota si su latencia base cambia
+ *
+ * Las llamadas sin hueco esperan como mucho maxQueueWait y después fallan con
+ * ConcurrencyLimitExceededException. Se usa ReentrantLock y no synchronized para no fijar
+ * el hilo portador de los hilos virtuales mientras esperan
+ *
+ * Métricas (tag name): concurrency.adaptive.limit, concurrency.adaptive.in-flight,
+ * concurrency.adaptive.queue.wait y concurrency.adaptive.rejected
+ */
+public final class AdaptiveLimiter implements MeterBinder {
+
+    private static final double BACKOFF = 0.9;
+    private static final int WINDOW = 100;
+    private static final long MIN_RTT_INCREASE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxQueueWaitNanos;
+    private final double tolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private long previousMinRtt = Long.MAX_VALUE;
+    private int windowSamples;
+
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveLimiter(@NonNull String name, int initialLimit, int minLimit, int maxLimit,
+                           @NonNull Duration maxQueueWait, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits for " + name + ": min " + minLimit + ", max " + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.tolerance = tolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Ocupa un hueco, esperando como mucho maxQueueWait
+     *
+     * @throws ConcurrencyLimitExceededException si no hay hueco a tiempo
+     */
+    public @NonNull Permit acquire() {
+        long start = System.nanoTime();
+        int current;
+        lock.lock();
+        try {
+            long remaining = maxQueueWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    recordWait(start);
+                    throw new ConcurrencyLimitExceededException(name, (int) limit);
+                }
+                try {
+                    remaining = released.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    throw new ConcurrencyLimitExceededException(name, (int) limit);
+                }
+            }
+            current = ++inFlight;
+        } finally {
+            lock.unlock();
+        }
+        recordWait(start);
+        return new Permit(System.nanoTime(), current);
+    }
+
+    /**
+     * Libera el hueco de una llamada cancelada (el intento que pierde en @Hedged) sin ajustar
+     * el límite: su latencia está cortada y su fallo no dice nada de la API remota
+     */
+    public void cancel(@NonNull Permit permit) {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera el hueco y ajusta el límite con la muestra
+     *
+     * @param success false si la llamada falló, que cuenta como señal de saturación
+     */
+    public void release(@NonNull Permit permit, boolean success) {
+        long rtt = System.nanoTime() - permit.startNanos();
+        lock.lock();
+        try {
+            inFlight--;
+            long minRtt = sample(rtt);
+            if (!success || (rtt > minRtt * tolerance && rtt - minRtt > MIN_RTT_INCREASE_NANOS)) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (permit.inFlight() * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("concurrency.adaptive.limit", this, AdaptiveLimiter::limit)
+                .tag("name", name)
+                .description("Límite de concurrencia actual")
+                .register(registry);
+        Gauge.builder("concurrency.adaptive.in-flight", this, AdaptiveLimiter::inFlight)
+                .tag("name", name)
+                .description("Llamadas en curso")
+                .register(registry);
+        FunctionTimer.builder("concurrency.adaptive.queue.wait", this,
+                        limiter -> limiter.waits.sum(), limiter -> limiter.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("name", name)
+                .description("Espera por un hueco, también de las llamadas rechazadas")
+                .register(registry);
+        FunctionCounter.builder("concurrency.adaptive.rejected", rejected, LongAdder::sum)
+                .tag("name", name)
+                .description("Llamadas rechazadas por falta de hueco")
+                .register(registry);
+    }
+
+    /**
+     * Añade la latencia a la ventana actual y devuelve la mínima reciente
+     */
+    private long sample(long rtt) {
+        windowMinRtt = Math.min(windowMinRtt, rtt);
+        long minRtt = Math.min(windowMinRtt, previousMinRtt);
+        if (++windowSamples == WINDOW) {
+            previousMinRtt = windowMinRtt;
+            windowMinRtt = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        return minRtt;
+    }
+
+    private void recordWait(long start) {
+        waits.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Hueco ocupado: cuándo empezó la llamada y cuántas había en curso contándola
+     */
+    public record Permit(long startNanos, int inFlight) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Variantes asíncronas de QuoteClient: cada método devuelve un CompletableFuture enseguida y
+ * la llamada remota se hace en un hilo de quoteTaskExecutor
+ *
+ * Delega en el bean QuoteClient, así que las llamadas pasan por la caché de categorías y por
+ * las anotaciones de resiliencia igual que las síncronas
+ *
+ * cancel() sobre un CompletableFuture devuelto interrumpe la llamada en curso, lo que aborta
+ * la petición HTTP y libera su conexión; los CompletableFuture derivados (thenApply, etc.) no
+ * propagan la cancelación
+ */
+public class AsyncQuoteClient {
+
+    private final QuoteClient quoteClient;
+    private final AsyncTaskExecutor executor;
+
+    public AsyncQuoteClient(@NonNull QuoteClient quoteClient, @NonNull AsyncTaskExecutor executor) {
+        this.quoteClient = quoteClient;
+        this.executor = executor;
+    }
+
+    public @NonNull CompletableFuture<QuoteClient.ChuckNorrisJoke> getRandomJoke() {
+        return submit(quoteClient::getRandomJoke);
+    }
+
+    public @NonNull CompletableFuture<QuoteClient.ChuckNorrisJoke> getRandomJokeByCategory(@NonNull String category) {
+        return submit(() -> quoteClient.getRandomJokeByCategory(category));
+    }
+
+    public @NonNull CompletableFuture<String[]> getCategories() {
+        return submit(quoteClient::getCategories);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                future.complete(call.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.task = task;
+        // Cancelado antes de conocer la tarea
+        if (future.isCancelled()) {
+            task.cancel(true);
+        }
+        return future;
+    }
+
+    /**
+     * CompletableFuture que al cancelarse interrumpe la tarea que lo completa
+     */
+    private static final class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+        volatile @Nullable Future<?> task;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> current = task;
+            if (cancelled && current != null) {
+                current.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+}
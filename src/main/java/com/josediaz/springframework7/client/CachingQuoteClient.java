@@ -0,0 +1,169 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorador de QuoteClient que cachea getCategories()
+ *
+ * La lista de categorías casi nunca cambia, así que se guarda en memoria:
+ * - ttl: tiempo máximo que se sirve una respuesta sin volver a la API remota
+ * - refreshAfter: pasado este tiempo, el siguiente acceso sirve la copia en caché
+ *   y lanza un refresco en segundo plano (refresh-ahead), así nadie espera a la API
+ *   mientras haya tráfico
+ * - warmUp(): carga inicial asíncrona para que la primera petición no encuentre la caché fría
+ *
+ * Las anotaciones de resiliencia de QuoteClient no se aplican a este decorador sino al cliente
+ * que envuelve (ResilientMethodPointcut): los aciertos no pasan por el circuito ni el single-flight
+ *
+ * Expone contadores de aciertos, fallos y refrescos como métricas de Micrometer
+ */
+public class CachingQuoteClient implements QuoteClient, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingQuoteClient.class);
+
+    private final QuoteClient delegate;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile @Nullable Entry categories;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public CachingQuoteClient(@NonNull QuoteClient delegate, @NonNull Duration ttl,
+                              @NonNull Duration refreshAfter, @NonNull Executor refreshExecutor) {
+        if (refreshAfter.compareTo(ttl) > 0) {
+            throw new IllegalArgumentException("refreshAfter (" + refreshAfter + ") must not exceed ttl (" + ttl + ")");
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public ChuckNorrisJoke getRandomJoke() {
+        return delegate.getRandomJoke();
+    }
+
+    @Override
+    public ChuckNorrisJoke getRandomJokeByCategory(String category) {
+        return delegate.getRandomJokeByCategory(category);
+    }
+
+    @Override
+    public String[] getCategories() {
+        Entry entry = categories;
+        long now = System.nanoTime();
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            if (now - entry.loadedAt() >= refreshAfterNanos) {
+                refreshInBackground();
+            }
+            return entry.value().clone();
+        }
+        misses.increment();
+        return load().value().clone();
+    }
+
+    /**
+     * Lanza la carga inicial en segundo plano; si falla solo se registra y la primera
+     * petición carga la caché
+     */
+    public void warmUp() {
+        refreshInBackground();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("quotes.categories.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Accesos a la caché de categorías")
+                .register(registry);
+        FunctionCounter.builder("quotes.categories.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Accesos a la caché de categorías")
+                .register(registry);
+        FunctionCounter.builder("quotes.categories.cache.refreshes", refreshes, LongAdder::sum)
+                .tag("result", "success")
+                .description("Refrescos en segundo plano de la caché de categorías")
+                .register(registry);
+        FunctionCounter.builder("quotes.categories.cache.refreshes", refreshFailures, LongAdder::sum)
+                .tag("result", "failure")
+                .description("Refrescos en segundo plano de la caché de categorías")
+                .register(registry);
+    }
+
+    /**
+     * Carga síncrona: solo un hilo llama a la API, el resto espera y reutiliza su resultado
+     * 
+     * Se usa ReentrantLock y no synchronized: con hilos virtuales, bloquearse en I/O
+     * dentro de un monitor fija (pin) el hilo portador en JDK 21
+     */
+    private Entry load() {
+        loadLock.lock();
+        try {
+            Entry entry = categories;
+            if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos) {
+                return entry;
+            }
+            entry = new Entry(delegate.getCategories(), System.nanoTime());
+            categories = entry;
+            return entry;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    categories = new Entry(delegate.getCategories(), System.nanoTime());
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    // Se sigue sirviendo la copia actual hasta que expire el ttl
+                    refreshFailures.increment();
+                    log.warn("Background refresh of joke categories failed: {}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            log.warn("Background refresh of joke categories rejected: {}", e.getMessage());
+        }
+    }
+
+    private record Entry(String[] value, long loadedAt) {
+    }
+}
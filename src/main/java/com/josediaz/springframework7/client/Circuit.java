@@ -0,0 +1,271 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado de un circuit breaker (cerrado, abierto o semiabierto) con ventana por número de llamadas
+ *
+ * - Cerrado: cada llamada terminada entra en una ventana circular de windowSize resultados
+ *   (correcta, lenta o fallida); con al menos minimumCalls, si la fracción de fallos o de
+ *   lentas supera su umbral, se abre
+ * - Abierto: tryAcquire() devuelve REJECTED hasta que pasa openDuration
+ * - Semiabierto: deja pasar halfOpenCalls llamadas; si todas son correctas y rápidas se
+ *   cierra con la ventana vacía, y a la primera fallida o lenta se abre otra vez
+ *
+ * tryAcquire() devuelve un permiso con la generación del estado (cambia en cada transición):
+ * el resultado de una llamada solo cuenta si termina en la misma generación en que empezó.
+ * Así, en semiabierto solo deciden las llamadas de prueba, no las que empezaron cerrado
+ *
+ * Se usa ReentrantLock y no synchronized, como en AdaptiveLimiter: la sección crítica es
+ * corta y no bloquea, pero así no fija el hilo portador de los hilos virtuales
+ *
+ * Métricas (tag name): circuit-breaker.state (1 en el estado actual, tag state),
+ * circuit-breaker.transitions (tag to) y circuit-breaker.calls (tag result: success, slow,
+ * failure o rejected)
+ */
+public final class Circuit implements MeterBinder {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * tryAcquire() sin permiso: el circuito está abierto o no quedan llamadas de prueba
+     */
+    public static final long REJECTED = -1;
+
+    private static final byte SUCCESS = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILURE = 2;
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final byte[] window;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+    private int windowSlow;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder[] transitions = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public Circuit(@NonNull String name, double failureRateThreshold, double slowCallRateThreshold,
+                   @NonNull Duration slowCallDuration, int windowSize, int minimumCalls,
+                   @NonNull Duration openDuration, int halfOpenCalls) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker " + name + ": window " + windowSize
+                    + ", minimum calls " + minimumCalls + ", half-open calls " + halfOpenCalls);
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.window = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Pide permiso para una llamada; si lo da, hay que terminarla con record() o release()
+     *
+     * @return el permiso (0 o más) o REJECTED
+     */
+    public long tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return generation;
+            }
+            if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+                halfOpenPermits++;
+                return generation;
+            }
+            rejected.increment();
+            return REJECTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra el resultado de una llamada permitida
+     *
+     * @param permit el que devolvió tryAcquire()
+     * @param failed true si falló con una excepción que cuenta como fallo
+     */
+    public void record(long permit, long durationNanos, boolean failed) {
+        byte outcome = failed ? FAILURE : durationNanos >= slowCallNanos ? SLOW : SUCCESS;
+        if (outcome == FAILURE) {
+            failures.increment();
+        } else if (outcome == SLOW) {
+            slowCalls.increment();
+        } else {
+            successes.increment();
+        }
+        lock.lock();
+        try {
+            if (permit != generation) {
+                // Empezó en otro estado: una llamada de antes de abrirse o una prueba de una
+                // generación anterior ya no cambian nada
+                return;
+            }
+            switch (state) {
+                case CLOSED -> {
+                    add(outcome);
+                    if (windowCount >= minimumCalls
+                            && (windowFailures >= failureRateThreshold * windowCount
+                            || windowSlow >= slowCallRateThreshold * windowCount)) {
+                        transition(State.OPEN);
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (outcome != SUCCESS) {
+                        transition(State.OPEN);
+                    } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                        transition(State.CLOSED);
+                    }
+                }
+                // Abierto no da permisos, así que no hay llamadas de esta generación
+                case OPEN -> {
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera el permiso de una llamada sin registrar resultado (excepciones ignoradas): ni
+     * cuenta como fallo ni como llamada correcta
+     */
+    public void release(long permit) {
+        lock.lock();
+        try {
+            if (permit == generation && state == State.HALF_OPEN && halfOpenPermits > halfOpenSuccesses) {
+                halfOpenPermits--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public @NonNull State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public @NonNull String name() {
+        return name;
+    }
+
+    public long transitionCount(@NonNull State to) {
+        return transitions[to.ordinal()].sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (State value : State.values()) {
+            String tag = value.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("circuit-breaker.state", this, circuit -> circuit.state() == value ? 1 : 0)
+                    .tag("name", name)
+                    .tag("state", tag)
+                    .description("1 en el estado actual del circuito, 0 en el resto")
+                    .register(registry);
+            FunctionCounter.builder("circuit-breaker.transitions", transitions[value.ordinal()], LongAdder::sum)
+                    .tag("name", name)
+                    .tag("to", tag)
+                    .description("Cambios de estado del circuito")
+                    .register(registry);
+        }
+        registerCalls(registry, successes, "success");
+        registerCalls(registry, slowCalls, "slow");
+        registerCalls(registry, failures, "failure");
+        registerCalls(registry, rejected, "rejected");
+    }
+
+    private void registerCalls(MeterRegistry registry, LongAdder counter, String result) {
+        FunctionCounter.builder("circuit-breaker.calls", counter, LongAdder::sum)
+                .tag("name", name)
+                .tag("result", result)
+                .description("Llamadas a través del circuito")
+                .register(registry);
+    }
+
+    private void add(byte outcome) {
+        if (windowCount == window.length) {
+            remove(window[windowNext]);
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = outcome;
+        windowNext = (windowNext + 1) % window.length;
+        if (outcome == FAILURE) {
+            windowFailures++;
+        } else if (outcome == SLOW) {
+            windowSlow++;
+        }
+    }
+
+    private void remove(byte outcome) {
+        if (outcome == FAILURE) {
+            windowFailures--;
+        } else if (outcome == SLOW) {
+            windowSlow--;
+        }
+    }
+
+    private void transition(State to) {
+        state = to;
+        generation++;
+        transitions[to.ordinal()].increment();
+        switch (to) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = 0;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                windowCount = 0;
+                windowNext = 0;
+                windowFailures = 0;
+                windowSlow = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.josediaz.springframework7.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Circuit breaker para un método (Circuit)
+ *
+ * Mientras está cerrado cuenta las últimas windowSize llamadas; con al menos minimumCalls,
+ * se abre si la fracción de fallos llega a failureRateThreshold o la de llamadas lentas
+ * (slowCallDuration o más) llega a slowCallRateThreshold. Abierto, las llamadas fallan
+ * enseguida con CircuitBreakerOpenException sin llegar al método. Pasado openDuration deja
+ * pasar halfOpenCalls llamadas de prueba: si todas van bien se cierra, si no vuelve a abrirse
+ *
+ * Se aplica por fuera de @RetryWithBudget (CircuitBreakerBeanPostProcessor): una llamada con sus
+ * reintentos cuenta como una sola y, abierto, no se hace ningún intento
+ *
+ * Los atributos *String admiten placeholders y tienen prioridad sobre los numéricos
+ *
+ * Requiere quotes.circuit-breaker.enabled (activo por defecto)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CircuitBreaker {
+
+    /**
+     * Nombre del circuito en las métricas; los métodos con el mismo nombre comparten estado
+     * (y la configuración del primero que se llama). Por defecto Clase.método
+     */
+    String name() default "";
+
+    double failureRateThreshold() default 0.5;
+
+    double slowCallRateThreshold() default 0.5;
+
+    /**
+     * A partir de esta duración, en milisegundos, una llamada cuenta como lenta
+     */
+    long slowCallDuration() default 2000;
+
+    String slowCallDurationString() default "";
+
+    int windowSize() default 20;
+
+    int minimumCalls() default 10;
+
+    /**
+     * Tiempo abierto antes de probar de nuevo, en milisegundos
+     */
+    long openDuration() default 10000;
+
+    String openDurationString() default "";
+
+    int halfOpenCalls() default 3;
+
+    /**
+     * Excepciones que no cuentan ni como fallo ni como llamada correcta (por ejemplo, un 404
+     * de la API remota o el rechazo de @AdaptiveConcurrencyLimit, que es local)
+     */
+    Class<? extends Throwable>[] ignore() default {};
+}
@@ -0,0 +1,151 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aplica @CircuitBreaker a los beans con métodos anotados (también en sus interfaces)
+ *
+ * Con orden LOWEST_PRECEDENCE - 1 se procesa después del post-processor de @RetryWithBudget
+ * (LOWEST_PRECEDENCE - 2) y se inserta delante de su advisor: con el circuito abierto no se hace ningún intento ni reintento.
+ * SingleFlightBeanPostProcessor (LOWEST_PRECEDENCE) queda por delante, así que las llamadas
+ * agrupadas cuentan una sola vez
+ *
+ * Los circuitos se crean en la primera llamada a cada método y se comparten por nombre
+ */
+public class CircuitBreakerBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor implements MeterBinder {
+
+    private final Map<Method, Guard> guards = new ConcurrentHashMap<>();
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private @Nullable ConfigurableBeanFactory beanFactory;
+    private volatile @Nullable MeterRegistry registry;
+
+    public CircuitBreakerBeanPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        this.advisor = new DefaultPointcutAdvisor(
+                ResilientMethodPointcut.forAnnotation(CircuitBreaker.class), new CircuitBreakerInterceptor());
+    }
+
+    @Override
+    public void setBeanFactory(@NonNull BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory instanceof ConfigurableBeanFactory configurable ? configurable : null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        // Los circuitos creados después se registran al crearse
+        circuits.values().forEach(circuit -> circuit.bindTo(registry));
+    }
+
+    /**
+     * Circuito con ese nombre, null si ninguno de sus métodos se ha llamado aún
+     */
+    public @Nullable Circuit circuit(@NonNull String name) {
+        return circuits.get(name);
+    }
+
+    private Guard guardFor(Method method) {
+        Guard guard = guards.get(method);
+        if (guard != null) {
+            return guard;
+        }
+        return guards.computeIfAbsent(method, this::createGuard);
+    }
+
+    private Guard createGuard(Method method) {
+        CircuitBreaker annotation = AnnotatedElementUtils.findMergedAnnotation(method, CircuitBreaker.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @CircuitBreaker on " + method);
+        }
+        String name = annotation.name().isEmpty()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : annotation.name();
+        Circuit circuit = circuits.computeIfAbsent(name, key -> {
+            Circuit created = new Circuit(key,
+                    annotation.failureRateThreshold(),
+                    annotation.slowCallRateThreshold(),
+                    resolveDuration(annotation.slowCallDurationString(), annotation.slowCallDuration()),
+                    annotation.windowSize(),
+                    annotation.minimumCalls(),
+                    resolveDuration(annotation.openDurationString(), annotation.openDuration()),
+                    annotation.halfOpenCalls());
+            MeterRegistry current = registry;
+            if (current != null) {
+                created.bindTo(current);
+            }
+            return created;
+        });
+        return new Guard(circuit, annotation.ignore());
+    }
+
+    private Duration resolveDuration(String value, long defaultMillis) {
+        if (value.isEmpty()) {
+            return Duration.ofMillis(defaultMillis);
+        }
+        String resolved = beanFactory != null ? beanFactory.resolveEmbeddedValue(value) : value;
+        return DurationStyle.detectAndParse((resolved != null ? resolved : value).trim(), ChronoUnit.MILLIS);
+    }
+
+    private final class CircuitBreakerInterceptor implements MethodInterceptor {
+
+        @Override
+        public @Nullable Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            Guard guard = guardFor(invocation.getMethod());
+            Circuit circuit = guard.circuit();
+            long permit = circuit.tryAcquire();
+            if (permit == Circuit.REJECTED) {
+                throw new CircuitBreakerOpenException(circuit.name());
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                circuit.record(permit, System.nanoTime() - start, false);
+                return result;
+            } catch (Throwable e) {
+                // Interrumpida: cancelada por quien la llamó (plazo vencido, hedging), no dice
+                // nada de la API remota, como en @AdaptiveConcurrencyLimit
+                if (guard.ignores(e) || Thread.currentThread().isInterrupted()) {
+                    circuit.release(permit);
+                } else {
+                    circuit.record(permit, System.nanoTime() - start, true);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Circuito de un método y las excepciones que no cuentan como fallo
+     */
+    private record Guard(Circuit circuit, Class<? extends Throwable>[] ignore) {
+
+        boolean ignores(Throwable e) {
+            for (Class<? extends Throwable> type : ignore) {
+                if (type.isInstance(e)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
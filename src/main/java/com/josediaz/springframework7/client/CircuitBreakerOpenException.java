@@ -0,0 +1,19 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Se lanza cuando un método con @CircuitBreaker se llama con el circuito abierto
+ *
+ * Los controladores la convierten en 503 si nadie la trata antes; JokePool responde con
+ * el último chiste obtenido
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(@NonNull String name) {
+        super("Circuit breaker " + name + " is open");
+    }
+}
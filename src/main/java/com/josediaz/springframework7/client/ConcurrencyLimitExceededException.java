@@ -0,0 +1,20 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Se lanza cuando un método con @AdaptiveConcurrencyLimit está saturado y la llamada no
+ * consigue hueco dentro de maxQueueWait
+ *
+ * Los controladores la convierten en 503: es mejor rechazar enseguida que acumular
+ * peticiones detrás de una API remota lenta
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(@NonNull String name, int limit) {
+        super("Concurrency limit of " + name + " reached (" + limit + " in flight)");
+    }
+}
@@ -0,0 +1,65 @@
+package com.josediaz.springframework7.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Peticiones "hedged" para recortar la cola de latencia de un método idempotente
+ *
+ * Si el primer intento no ha respondido cuando pasa el percentil configurado de la latencia
+ * reciente, se lanza un segundo intento; gana el primero que responde y el otro se cancela
+ * (se interrumpe su hilo del executor, lo que aborta la petición HTTP en curso; el hilo del
+ * llamante solo espera al resultado y nunca se interrumpe)
+ *
+ * - Hasta reunir unas cuantas muestras de latencia no se lanza ningún intento extra
+ * - La espera se acota entre minDelay y maxDelay
+ * - Los intentos extra están limitados a maxHedgeRatio de las llamadas: si todo va lento,
+ *   duplicar las peticiones solo añadiría carga
+ *
+ * Se aplica por dentro de @RetryWithBudget y por fuera de @AdaptiveConcurrencyLimit
+ * (HedgedBeanPostProcessor): cada intento ocupa su propio hueco del límite. Solo está activo
+ * con quotes.hedging.enabled=true
+ *
+ * Los atributos *String admiten placeholders y tienen prioridad sobre los numéricos
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Hedged {
+
+    /**
+     * Nombre en las métricas; por defecto, Clase.método
+     */
+    String name() default "";
+
+    /**
+     * Percentil de la latencia reciente tras el que se lanza el segundo intento (0.95 = p95)
+     */
+    double percentile() default 0.95;
+
+    String percentileString() default "";
+
+    /**
+     * Espera mínima antes del segundo intento, en milisegundos
+     */
+    long minDelay() default 10;
+
+    String minDelayString() default "";
+
+    /**
+     * Espera máxima antes del segundo intento, en milisegundos
+     */
+    long maxDelay() default 1000;
+
+    String maxDelayString() default "";
+
+    /**
+     * Intentos extra permitidos por llamada (0.1 = como mucho uno de cada diez llamadas)
+     */
+    double maxHedgeRatio() default 0.1;
+
+    String maxHedgeRatioString() default "";
+}
@@ -0,0 +1,341 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aplica @Hedged a los beans con métodos anotados (también en sus interfaces)
+ *
+ * El advisor se añade después de los existentes con orden LOWEST_PRECEDENCE - 1: queda por
+ * dentro de @RetryWithBudget (LOWEST_PRECEDENCE - 2, también al final) y por fuera de
+ * @AdaptiveConcurrencyLimit, que se procesa después (LOWEST_PRECEDENCE) y se añade al final.
+ * @CircuitBreaker se inserta delante y cuenta la llamada una sola vez, con la latencia del
+ * intento que gana
+ *
+ * Los dos intentos, y la espera previa al segundo, se ejecutan en el executor indicado
+ * (quoteTaskExecutor: hilos virtuales con los TaskDecorator de la aplicación, así que conservan
+ * el MDC y se miden como el resto de tareas); el llamante solo espera al resultado. Gana el
+ * primero que responde y el perdedor se cancela con su Future, lo que interrumpe su hilo del
+ * executor y nunca el del llamante, que vuelve sin esperarlo. Un intento que falla no gana: se
+ * espera al otro, y la llamada solo falla si fallan todos los lanzados. Si el llamante se
+ * interrumpe mientras espera, se cancelan los intentos y falla con CancellationException
+ *
+ * Los Hedger se crean en la primera llamada a cada método y se comparten por nombre
+ */
+public class HedgedBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor implements MeterBinder {
+
+    private final Map<Method, Hedger> methods = new ConcurrentHashMap<>();
+    private final Map<String, Hedger> hedgers = new ConcurrentHashMap<>();
+    private final String executorName;
+    private @Nullable ConfigurableBeanFactory beanFactory;
+    private volatile @Nullable AsyncTaskExecutor executor;
+    private volatile @Nullable MeterRegistry registry;
+
+    /**
+     * @param executorName bean AsyncTaskExecutor de los intentos; se busca en la
+     *                     primera llamada, no al crear el post-processor
+     */
+    public HedgedBeanPostProcessor(@NonNull String executorName) {
+        this.executorName = executorName;
+        setBeforeExistingAdvisors(false);
+        setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        // Como RetryWithBudgetBeanPostProcessor: proxy de interfaz si el bean tiene alguna
+        setProxyTargetClass(false);
+        this.advisor = new DefaultPointcutAdvisor(
+                ResilientMethodPointcut.forAnnotation(Hedged.class), new HedgedInterceptor());
+    }
+
+    @Override
+    public void setBeanFactory(@NonNull BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory instanceof ConfigurableBeanFactory configurable ? configurable : null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        // Los Hedger creados después se registran al crearse
+        hedgers.values().forEach(hedger -> hedger.bindTo(registry));
+    }
+
+    /**
+     * Hedger con ese nombre, null si ninguno de sus métodos se ha llamado aún
+     */
+    public @Nullable Hedger hedger(@NonNull String name) {
+        return hedgers.get(name);
+    }
+
+    private AsyncTaskExecutor executor() {
+        AsyncTaskExecutor current = executor;
+        if (current == null) {
+            if (beanFactory == null) {
+                throw new IllegalStateException("No bean factory to look up " + executorName);
+            }
+            current = beanFactory.getBean(executorName, AsyncTaskExecutor.class);
+            executor = current;
+        }
+        return current;
+    }
+
+    private Hedger hedgerFor(Method method) {
+        Hedger hedger = methods.get(method);
+        if (hedger != null) {
+            return hedger;
+        }
+        return methods.computeIfAbsent(method, this::createHedger);
+    }
+
+    private Hedger createHedger(Method method) {
+        Hedged annotation = AnnotatedElementUtils.findMergedAnnotation(method, Hedged.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @Hedged on " + method);
+        }
+        String name = annotation.name().isEmpty()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : annotation.name();
+        return hedgers.computeIfAbsent(name, key -> {
+            Hedger created = new Hedger(key,
+                    resolveDouble(annotation.percentileString(), annotation.percentile()),
+                    resolveDuration(annotation.minDelayString(), annotation.minDelay()),
+                    resolveDuration(annotation.maxDelayString(), annotation.maxDelay()),
+                    resolveDouble(annotation.maxHedgeRatioString(), annotation.maxHedgeRatio()));
+            MeterRegistry current = registry;
+            if (current != null) {
+                created.bindTo(current);
+            }
+            return created;
+        });
+    }
+
+    private double resolveDouble(String value, double defaultValue) {
+        return value.isEmpty() ? defaultValue : Double.parseDouble(resolve(value).trim());
+    }
+
+    private Duration resolveDuration(String value, long defaultMillis) {
+        return value.isEmpty() ? Duration.ofMillis(defaultMillis) : DurationStyle.detectAndParse(resolve(value).trim(), ChronoUnit.MILLIS);
+    }
+
+    private String resolve(String value) {
+        String resolved = beanFactory != null ? beanFactory.resolveEmbeddedValue(value) : value;
+        return resolved != null ? resolved : value;
+    }
+
+    private final class HedgedInterceptor implements MethodInterceptor {
+
+        @Override
+        public @Nullable Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            Hedger hedger = hedgerFor(invocation.getMethod());
+            long delayNanos = hedger.startCall();
+            if (!(invocation instanceof ProxyMethodInvocation proxyInvocation)) {
+                // Sin invocableClone() no se puede recorrer la cadena dos veces
+                hedger.recordNotHedged();
+                return invocation.proceed();
+            }
+            Race race = new Race(hedger);
+            if (!race.start(proxyInvocation, delayNanos)) {
+                // Executor cerrado: la llamada se hace en este hilo, sin hedging
+                hedger.recordNotHedged();
+                return invocation.proceed();
+            }
+            try {
+                return race.await(invocation.getMethod());
+            } finally {
+                race.finish();
+            }
+        }
+    }
+
+    /**
+     * Intentos de una llamada, ambos en el executor; result se completa con el primero que
+     * responde o, si fallan todos, con el fallo del último
+     */
+    private final class Race {
+
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        final Hedger hedger;
+        final long start = System.nanoTime();
+        final ReentrantLock lock = new ReentrantLock();
+        @Nullable Future<?> primary;
+        @Nullable Future<?> hedge;
+        int running = 1;
+        boolean delayPassed;
+        boolean finished;
+
+        Race(Hedger hedger) {
+            this.hedger = hedger;
+        }
+
+        /**
+         * Lanza el primer intento y, con delayNanos >= 0, programa el segundo
+         *
+         * @return false si el executor rechaza el primer intento
+         */
+        boolean start(ProxyMethodInvocation invocation, long delayNanos) {
+            // Clonadas antes de que ningún intento avance: cada una recorre el resto de la cadena
+            // desde este punto
+            MethodInvocation first = invocation.invocableClone();
+            MethodInvocation second = delayNanos >= 0 ? invocation.invocableClone() : null;
+            AsyncTaskExecutor current = executor();
+            try {
+                Future<?> task = current.submit(() -> attempt(first, true));
+                lock.lock();
+                try {
+                    primary = task;
+                } finally {
+                    lock.unlock();
+                }
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+            if (second != null) {
+                try {
+                    Future<?> task = current.submit(() -> hedgeAfter(second, delayNanos));
+                    lock.lock();
+                    try {
+                        hedge = task;
+                    } finally {
+                        lock.unlock();
+                    }
+                } catch (RejectedExecutionException e) {
+                    // La llamada sigue solo con el primer intento
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Espera al resultado; si el llamante se interrumpe (lo cancela quien lo llamó), deja
+         * de esperar, conserva la interrupción y finish() cancela los intentos
+         */
+        @Nullable Object await(Method method) throws Throwable {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CancellationException cancelled = new CancellationException("Interrupted waiting for " + method.getName());
+                cancelled.initCause(e);
+                throw cancelled;
+            }
+        }
+
+        /**
+         * Segundo intento: espera delayNanos y, si la llamada sigue en curso y queda cupo, lo
+         * ejecuta en el mismo hilo del executor
+         */
+        void hedgeAfter(MethodInvocation second, long delayNanos) {
+            try {
+                result.get(delayNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (TimeoutException e) {
+                // Sin respuesta en la espera: toca el segundo intento
+            } catch (InterruptedException | ExecutionException e) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (finished) {
+                    return;
+                }
+                delayPassed = true;
+            } finally {
+                lock.unlock();
+            }
+            if (!hedger.tryHedge()) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (result.isDone()) {
+                    return;
+                }
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            attempt(second, false);
+        }
+
+        void attempt(MethodInvocation invocation, boolean first) {
+            try {
+                complete(invocation.proceed(), first);
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        void complete(@Nullable Object value, boolean first) {
+            if (!result.complete(value)) {
+                return;
+            }
+            // Si gana el segundo, lo que llevaba el primero es una cota inferior de su latencia
+            hedger.recordLatency(System.nanoTime() - start);
+            if (!first) {
+                hedger.recordHedgeWin();
+            }
+        }
+
+        void fail(Throwable e) {
+            lock.lock();
+            try {
+                if (--running == 0) {
+                    result.completeExceptionally(e);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Cancela (interrumpiendo su hilo del executor) el intento que siga en curso y cuenta la
+         * llamada como no hedged si terminó antes de la espera
+         */
+        void finish() {
+            boolean hedged;
+            lock.lock();
+            try {
+                finished = true;
+                hedged = delayPassed;
+                if (primary != null) {
+                    primary.cancel(true);
+                }
+                if (hedge != null) {
+                    hedge.cancel(true);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!hedged) {
+                hedger.recordNotHedged();
+            }
+        }
+    }
+}
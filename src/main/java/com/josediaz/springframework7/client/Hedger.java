@@ -0,0 +1,185 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado de @Hedged para un método: latencia reciente del primer intento y cupo de intentos extra
+ *
+ * - La latencia se guarda en una ventana circular de WINDOW muestras; la espera antes del
+ *   segundo intento es su percentil, acotado entre minDelay y maxDelay, y se recalcula cada
+ *   RECOMPUTE_EVERY muestras (ordenar la ventana en cada llamada sería demasiado caro)
+ * - Cada llamada añade maxHedgeRatio al cupo, hasta MAX_TOKENS; cada intento extra gasta uno.
+ *   El cupo empieza vacío: no hay intentos extra hasta después de unas cuantas llamadas
+ *
+ * Se usa ReentrantLock y no synchronized, como en Circuit
+ *
+ * Métricas (tag name): hedge.calls (tag result: not-hedged, hedged o denied si el cupo no
+ * permitió el intento extra), hedge.wins (el intento extra respondió antes) y hedge.delay
+ * (espera actual en milisegundos, 0 sin muestras suficientes)
+ */
+public final class Hedger implements MeterBinder {
+
+    private static final int WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 16;
+    private static final double MAX_TOKENS = 10;
+
+    private final String name;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double maxHedgeRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] latencies = new long[WINDOW];
+    private int latencyCount;
+    private int latencyNext;
+    private int sinceRecompute;
+    private double tokens;
+    private volatile long delayNanos = -1;
+
+    private final LongAdder notHedged = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public Hedger(@NonNull String name, double percentile, @NonNull Duration minDelay, @NonNull Duration maxDelay,
+                  double maxHedgeRatio) {
+        if (percentile <= 0 || percentile > 1 || minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0
+                || maxHedgeRatio < 0) {
+            throw new IllegalArgumentException("Invalid hedging " + name + ": percentile " + percentile
+                    + ", delays " + minDelay + ", " + maxDelay + ", max hedge ratio " + maxHedgeRatio);
+        }
+        this.name = name;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    public @NonNull String name() {
+        return name;
+    }
+
+    /**
+     * Registra el inicio de una llamada, que amplía el cupo de intentos extra
+     *
+     * @return espera en nanosegundos antes del segundo intento, -1 si aún no hay muestras suficientes
+     */
+    public long startCall() {
+        lock.lock();
+        try {
+            tokens = Math.min(MAX_TOKENS, tokens + maxHedgeRatio);
+        } finally {
+            lock.unlock();
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Pide permiso para el segundo intento de una llamada que ya superó la espera
+     *
+     * @return false si el cupo está agotado y la llamada sigue solo con el primer intento
+     */
+    public boolean tryHedge() {
+        lock.lock();
+        try {
+            if (tokens < 1) {
+                denied.increment();
+                return false;
+            }
+            tokens--;
+        } finally {
+            lock.unlock();
+        }
+        hedged.increment();
+        return true;
+    }
+
+    /**
+     * Latencia del primer intento; si se canceló porque ganó el segundo, la que llevaba
+     * hasta entonces, que es una cota inferior
+     */
+    public void recordLatency(long nanos) {
+        lock.lock();
+        try {
+            latencies[latencyNext] = nanos;
+            latencyNext = (latencyNext + 1) % WINDOW;
+            latencyCount = Math.min(WINDOW, latencyCount + 1);
+            if (latencyCount >= MIN_SAMPLES && (++sinceRecompute >= RECOMPUTE_EVERY || delayNanos < 0)) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(latencies, latencyCount);
+                Arrays.sort(sorted);
+                int index = Math.min(latencyCount - 1, Math.max(0, (int) Math.ceil(percentile * latencyCount) - 1));
+                delayNanos = Math.clamp(sorted[index], minDelayNanos, maxDelayNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * La llamada terminó sin segundo intento: respondió antes de la espera o no había muestras
+     */
+    public void recordNotHedged() {
+        notHedged.increment();
+    }
+
+    public void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Espera actual antes del segundo intento, Duration.ZERO sin muestras suficientes
+     */
+    public @NonNull Duration delay() {
+        long current = delayNanos;
+        return current < 0 ? Duration.ZERO : Duration.ofNanos(current);
+    }
+
+    public long hedgedCount() {
+        return hedged.sum();
+    }
+
+    public long hedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    public long deniedCount() {
+        return denied.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        registerCalls(registry, notHedged, "not-hedged");
+        registerCalls(registry, hedged, "hedged");
+        registerCalls(registry, denied, "denied");
+        FunctionCounter.builder("hedge.wins", hedgeWins, LongAdder::sum)
+                .tag("name", name)
+                .description("Llamadas en las que el segundo intento respondió antes")
+                .register(registry);
+        Gauge.builder("hedge.delay", this, hedger -> (double) hedger.delay().toNanos() / TimeUnit.MILLISECONDS.toNanos(1))
+                .tag("name", name)
+                .baseUnit("milliseconds")
+                .description("Espera antes del segundo intento")
+                .register(registry);
+    }
+
+    private void registerCalls(MeterRegistry registry, LongAdder counter, String result) {
+        FunctionCounter.builder("hedge.calls", counter, LongAdder::sum)
+                .tag("name", name)
+                .tag("result", result)
+                .description("Llamadas a métodos @Hedged")
+                .register(registry);
+    }
+}
@@ -1,6 +1,6 @@
 package com.josediaz.springframework7.client;
 
-import org.springframework.resilience.annotation.Retryable;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 
@@ -11,8 +11,19 @@ import org.springframework.web.service.annotation.HttpExchange;
  * 
  * Este cliente consume la API pública de Chuck Norris: https://api.chucknorris.io/
  * 
- * Demuestra el uso de anotaciones de resiliencia (@Retryable, @ConcurrencyLimit)
- * que son nuevas características de Spring Framework 7
+ * Demuestra el uso de anotaciones de resiliencia sobre un cliente declarativo: reintentos
+ * con presupuesto (@RetryWithBudget), un límite de concurrencia adaptativo
+ * (@AdaptiveConcurrencyLimit), un circuit breaker (@CircuitBreaker) y peticiones hedged
+ * (@Hedged) para recortar la cola de latencia
+ * 
+ * @SingleFlight agrupa las llamadas concurrentes idénticas en una sola llamada remota;
+ * la clave de cada método se configura con quotes.single-flight.* y las llamadas agrupadas
+ * esperan como mucho quotes.single-flight.max-wait (503 si se agota)
+ * 
+ * Los tres métodos comparten el circuit breaker "chucknorris": si la API remota falla o va
+ * lenta, las llamadas fallan enseguida con CircuitBreakerOpenException durante
+ * quotes.circuit-breaker.open-duration, sin reintentos. Ni los 4xx (por ejemplo, una categoría
+ * que no existe) ni los rechazos del límite de concurrencia, que son locales, cuentan como fallo
  */
 @HttpExchange
 public interface QuoteClient {
@@ -21,29 +32,72 @@ public interface QuoteClient {
      * Obtiene un chiste aleatorio de Chuck Norris
      * 
      * Con anotaciones de resiliencia:
-     * - @Retryable: Reintenta automáticamente si falla la llamada
-     * - @ConcurrencyLimit(3): Limita a 3 llamadas concurrentes
+     * - @CircuitBreaker: con el circuito abierto falla enseguida, sin llegar a los reintentos
+     * - @RetryWithBudget: Reintenta automáticamente si falla la llamada, salvo si el límite la
+     *   rechaza, con esperas aleatorias y mientras quede presupuesto de reintentos
+     * - @AdaptiveConcurrencyLimit: Limita las llamadas concurrentes; empieza en
+     *   quotes.random.concurrency-limit (3 por defecto) y se ajusta con la latencia hasta
+     *   quotes.random.max-concurrency-limit; sin hueco en quotes.random.max-queue-wait, responde 503
+     * - @SingleFlight: sin agrupar por defecto (quotes.single-flight.random=none), porque las
+     *   llamadas agrupadas reciben el mismo chiste; con method esperan fuera del límite
+     * - @Hedged: con quotes.hedging.enabled=true, si no responde en el percentil
+     *   quotes.hedging.percentile de la latencia reciente, lanza un segundo intento y se queda
+     *   con el primero que responde; el chiste es aleatorio, así que cualquiera de los dos vale
      * 
      * @return Respuesta completa con el chiste
      */
     @GetExchange("/jokes/random")
-    @Retryable
-    @org.springframework.resilience.annotation.ConcurrencyLimit(3)
+    @SingleFlight(keyString = "${quotes.single-flight.random:none}", maxWaitString = "${quotes.single-flight.max-wait:5s}")
+    @CircuitBreaker(name = "chucknorris",
+            slowCallDurationString = "${quotes.circuit-breaker.slow-call-duration:2s}",
+            openDurationString = "${quotes.circuit-breaker.open-duration:10s}",
+            ignore = {HttpClientErrorException.class, ConcurrencyLimitExceededException.class})
+    @RetryWithBudget(excludes = ConcurrencyLimitExceededException.class)
+    @Hedged(name = "chucknorris.random",
+            percentileString = "${quotes.hedging.percentile:0.95}",
+            minDelayString = "${quotes.hedging.min-delay:10ms}",
+            maxDelayString = "${quotes.hedging.max-delay:1s}",
+            maxHedgeRatioString = "${quotes.hedging.max-hedge-ratio:0.1}")
+    @AdaptiveConcurrencyLimit(
+            initialLimitString = "${quotes.random.concurrency-limit:3}",
+            maxLimitString = "${quotes.random.max-concurrency-limit:50}",
+            maxQueueWaitString = "${quotes.random.max-queue-wait:100ms}")
     ChuckNorrisJoke getRandomJoke();
 
     /**
      * Obtiene un chiste aleatorio de una categoría específica
+     * 
+     * Las llamadas concurrentes con la misma categoría comparten la llamada remota
+     * (quotes.single-flight.random-by-category=arguments)
+     * 
      * @param category La categoría del chiste
      * @return Respuesta completa con el chiste
      */
     @GetExchange("/jokes/random")
+    @SingleFlight(keyString = "${quotes.single-flight.random-by-category:arguments}", maxWaitString = "${quotes.single-flight.max-wait:5s}")
+    @CircuitBreaker(name = "chucknorris",
+            slowCallDurationString = "${quotes.circuit-breaker.slow-call-duration:2s}",
+            openDurationString = "${quotes.circuit-breaker.open-duration:10s}",
+            ignore = {HttpClientErrorException.class, ConcurrencyLimitExceededException.class})
     ChuckNorrisJoke getRandomJokeByCategory(@org.springframework.web.bind.annotation.RequestParam("category") String category);
 
     /**
      * Obtiene la lista de categorías disponibles
+     * 
+     * Las llamadas concurrentes comparten la llamada remota (quotes.single-flight.categories=method).
+     * El bean QuoteClient de la aplicación es CachingQuoteClient, que sirve los aciertos sin
+     * pasar por estas anotaciones: solo los fallos de caché y los refrescos llegan al proxy
+     * HTTP, al single-flight y al circuito. Con el circuito abierto se siguen sirviendo las
+     * categorías cacheadas
+     * 
      * @return Array de categorías
      */
     @GetExchange("/jokes/categories")
+    @SingleFlight(keyString = "${quotes.single-flight.categories:method}", maxWaitString = "${quotes.single-flight.max-wait:5s}")
+    @CircuitBreaker(name = "chucknorris",
+            slowCallDurationString = "${quotes.circuit-breaker.slow-call-duration:2s}",
+            openDurationString = "${quotes.circuit-breaker.open-duration:10s}",
+            ignore = {HttpClientErrorException.class, ConcurrencyLimitExceededException.class})
     String[] getCategories();
 
     /**
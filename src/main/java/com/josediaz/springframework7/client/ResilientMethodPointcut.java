@@ -0,0 +1,27 @@
+package com.josediaz.springframework7.client;
+
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.annotation.AnnotationMethodMatcher;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Pointcut de las anotaciones de resiliencia de QuoteClient
+ *
+ * Como AnnotationMatchingPointcut, encuentra la anotación también en las interfaces, pero deja
+ * fuera CachingQuoteClient: implementa QuoteClient y heredaría sus anotaciones, de modo que los
+ * aciertos de caché pasarían por el single-flight y el circuito. Las anotaciones se aplican al
+ * proxy HTTP que envuelve (HttpClientConfig.quoteHttpClient)
+ */
+final class ResilientMethodPointcut {
+
+    private ResilientMethodPointcut() {
+    }
+
+    static Pointcut forAnnotation(Class<? extends Annotation> annotationType) {
+        ClassFilter notCaching = clazz -> !CachingQuoteClient.class.isAssignableFrom(clazz);
+        return new ComposablePointcut(notCaching, new AnnotationMethodMatcher(annotationType, true));
+    }
+}
@@ -0,0 +1,169 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Presupuesto de reintentos compartido por toda la aplicación
+ *
+ * Los reintentos permitidos en la ventana son una fracción (ratio) de las llamadas correctas
+ * de esa misma ventana, más una reserva de minRetriesPerSecond para que con poco tráfico aún
+ * se pueda reintentar. La reserva es por segundo: no se acumula, así que una ráfaga de fallos
+ * no gasta en un segundo la de toda la ventana. Si la API remota empieza a fallar, las
+ * llamadas correctas dejan de llegar y el presupuesto se agota enseguida: los reintentos no
+ * multiplican la carga sobre un servicio que ya está degradado
+ *
+ * La ventana se divide en cubetas de un segundo que se reutilizan al avanzar el tiempo
+ *
+ * Métricas: retry.budget.balance (gauge), retry.budget.deposits (llamadas correctas) y
+ * retry.budget.withdrawals con result=allowed o result=denied
+ */
+public final class RetryBudget implements MeterBinder {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double ratio;
+    private final int minRetriesPerSecond;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] seconds;
+    private final long[] successes;
+    private final long[] retries;
+    private final long[] reserveRetries;
+
+    private final LongAdder deposits = new LongAdder();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public RetryBudget(double ratio, int minRetriesPerSecond, @NonNull Duration window) {
+        if (ratio < 0 || minRetriesPerSecond < 0 || window.toSeconds() < 1) {
+            throw new IllegalArgumentException("Invalid retry budget: ratio " + ratio
+                    + ", min retries per second " + minRetriesPerSecond + ", window " + window);
+        }
+        int buckets = (int) window.toSeconds();
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.seconds = new long[buckets];
+        this.successes = new long[buckets];
+        this.retries = new long[buckets];
+        this.reserveRetries = new long[buckets];
+        Arrays.fill(seconds, Long.MIN_VALUE);
+    }
+
+    /**
+     * Registra una llamada correcta, que amplía el presupuesto
+     */
+    public void recordSuccess() {
+        deposits.increment();
+        lock.lock();
+        try {
+            successes[bucket(now())]++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserva un reintento si queda presupuesto: primero de la parte proporcional a las
+     * llamadas correctas y, si no queda, de la reserva del segundo actual
+     *
+     * @return false si el reintento superaría el presupuesto y la llamada debe fallar ya
+     */
+    public boolean tryRetry() {
+        lock.lock();
+        try {
+            long now = now();
+            int bucket = bucket(now);
+            if (earned(now) >= 1) {
+                retries[bucket]++;
+            } else if (reserveRetries[bucket] < minRetriesPerSecond) {
+                reserveRetries[bucket]++;
+            } else {
+                denied.increment();
+                return false;
+            }
+            allowed.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reintentos disponibles ahora mismo
+     */
+    public long balance() {
+        lock.lock();
+        try {
+            long now = now();
+            int bucket = bucket(now);
+            return (long) Math.floor(Math.max(0, earned(now))) + minRetriesPerSecond - reserveRetries[bucket];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long deniedCount() {
+        return denied.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("retry.budget.balance", this, RetryBudget::balance)
+                .description("Reintentos disponibles en la ventana actual")
+                .register(registry);
+        FunctionCounter.builder("retry.budget.deposits", deposits, LongAdder::sum)
+                .description("Llamadas correctas que amplían el presupuesto de reintentos")
+                .register(registry);
+        FunctionCounter.builder("retry.budget.withdrawals", allowed, LongAdder::sum)
+                .tag("result", "allowed")
+                .description("Reintentos pedidos al presupuesto")
+                .register(registry);
+        FunctionCounter.builder("retry.budget.withdrawals", denied, LongAdder::sum)
+                .tag("result", "denied")
+                .description("Reintentos pedidos al presupuesto")
+                .register(registry);
+    }
+
+    /**
+     * Reintentos ganados con las llamadas correctas de la ventana y aún sin gastar
+     */
+    private double earned(long now) {
+        long windowSuccesses = 0;
+        long windowRetries = 0;
+        for (int i = 0; i < seconds.length; i++) {
+            if (seconds[i] > now - seconds.length) {
+                windowSuccesses += successes[i];
+                windowRetries += retries[i];
+            }
+        }
+        return ratio * windowSuccesses - windowRetries;
+    }
+
+    /**
+     * Cubeta del segundo actual, vaciada si todavía guarda un segundo que ya salió de la ventana
+     */
+    private int bucket(long now) {
+        int index = Math.floorMod(now, seconds.length);
+        if (seconds[index] != now) {
+            seconds[index] = now;
+            successes[index] = 0;
+            retries[index] = 0;
+            reserveRetries[index] = 0;
+        }
+        return index;
+    }
+
+    private static long now() {
+        return System.nanoTime() / SECOND_NANOS;
+    }
+}
@@ -0,0 +1,57 @@
+package com.josediaz.springframework7.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Reintenta un método que falla, con espera "decorrelated jitter" y un presupuesto de
+ * reintentos compartido por toda la aplicación (RetryBudget)
+ *
+ * Alternativa a @Retryable para las llamadas a la API remota:
+ * - Cada espera es aleatoria entre delay y tres veces la anterior, con maxDelay como tope:
+ *   las llamadas que fallan a la vez no reintentan a la vez
+ * - Antes de cada reintento se pide permiso al RetryBudget; si no queda presupuesto, la
+ *   llamada falla enseguida con la última excepción
+ *
+ * Se aplica por dentro de @CircuitBreaker y por fuera de @AdaptiveConcurrencyLimit
+ * (RetryWithBudgetBeanPostProcessor)
+ *
+ * Va en un solo nivel, el más cercano a la llamada remota: un método @RetryWithBudget que llama
+ * a otro multiplicaría los intentos (con 3 reintentos en cada uno, hasta 16 por llamada)
+ *
+ * Los atributos *String admiten placeholders y tienen prioridad sobre los numéricos
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryWithBudget {
+
+    /**
+     * Reintentos como máximo por llamada, sin contar el primer intento
+     */
+    int maxRetries() default 3;
+
+    String maxRetriesString() default "";
+
+    /**
+     * Espera mínima antes de cada reintento, en milisegundos
+     */
+    long delay() default 100;
+
+    String delayString() default "";
+
+    /**
+     * Espera máxima antes de cada reintento, en milisegundos
+     */
+    long maxDelay() default 2000;
+
+    String maxDelayString() default "";
+
+    /**
+     * Excepciones que no se reintentan
+     */
+    Class<? extends Throwable>[] excludes() default {};
+}
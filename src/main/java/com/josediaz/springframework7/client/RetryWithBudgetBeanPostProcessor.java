@@ -0,0 +1,149 @@
+package com.josediaz.springframework7.client;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Aplica @RetryWithBudget a los beans con métodos anotados (también en sus interfaces)
+ *
+ * El advisor se añade después de los existentes con orden LOWEST_PRECEDENCE - 2: queda por
+ * dentro de @CircuitBreaker, que se inserta delante, y por fuera de @AdaptiveConcurrencyLimit,
+ * que se procesa después (LOWEST_PRECEDENCE) y también se añade al final
+ *
+ * El RetryBudget se busca en el contexto en la primera llamada, no al crear el post-processor,
+ * para no inicializarlo antes que el resto de beans; si no hay ninguno
+ * (quotes.retry-budget.enabled=false) solo limita maxRetries
+ */
+public class RetryWithBudgetBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private final Map<Method, Spec> specs = new ConcurrentHashMap<>();
+    private @Nullable ConfigurableBeanFactory beanFactory;
+    private @Nullable ObjectProvider<RetryBudget> budget;
+
+    public RetryWithBudgetBeanPostProcessor() {
+        setBeforeExistingAdvisors(false);
+        setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        // Como @EnableResilientMethods: proxy de interfaz si el bean tiene alguna, para que los
+        // métodos de QuoteClient lleguen a los advisors como QuoteClient.método
+        setProxyTargetClass(false);
+        this.advisor = new DefaultPointcutAdvisor(
+                ResilientMethodPointcut.forAnnotation(RetryWithBudget.class), new RetryWithBudgetInterceptor());
+    }
+
+    @Override
+    public void setBeanFactory(@NonNull BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory instanceof ConfigurableBeanFactory configurable ? configurable : null;
+        this.budget = beanFactory.getBeanProvider(RetryBudget.class);
+    }
+
+    private Spec specFor(Method method) {
+        Spec spec = specs.get(method);
+        if (spec != null) {
+            return spec;
+        }
+        return specs.computeIfAbsent(method, this::createSpec);
+    }
+
+    private Spec createSpec(Method method) {
+        RetryWithBudget annotation = AnnotatedElementUtils.findMergedAnnotation(method, RetryWithBudget.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @RetryWithBudget on " + method);
+        }
+        Duration delay = resolveDuration(annotation.delayString(), annotation.delay());
+        Duration maxDelay = resolveDuration(annotation.maxDelayString(), annotation.maxDelay());
+        if (delay.isNegative() || maxDelay.compareTo(delay) < 0) {
+            throw new IllegalStateException("Invalid @RetryWithBudget delays on " + method + ": " + delay + ", " + maxDelay);
+        }
+        String maxRetries = annotation.maxRetriesString();
+        return new Spec(maxRetries.isEmpty() ? annotation.maxRetries() : Integer.parseInt(resolve(maxRetries).trim()),
+                delay.toMillis(), maxDelay.toMillis(), annotation.excludes());
+    }
+
+    private Duration resolveDuration(String value, long defaultMillis) {
+        return value.isEmpty() ? Duration.ofMillis(defaultMillis) : DurationStyle.detectAndParse(resolve(value).trim(), ChronoUnit.MILLIS);
+    }
+
+    private String resolve(String value) {
+        String resolved = beanFactory != null ? beanFactory.resolveEmbeddedValue(value) : value;
+        return resolved != null ? resolved : value;
+    }
+
+    private final class RetryWithBudgetInterceptor implements MethodInterceptor {
+
+        @Override
+        public @Nullable Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            Spec spec = specFor(invocation.getMethod());
+            RetryBudget retryBudget = budget != null ? budget.getIfAvailable() : null;
+            long previousDelay = spec.delay();
+            for (int retry = 0; ; retry++) {
+                try {
+                    // Cada intento recorre el resto de la cadena de advisors desde este punto
+                    Object result = invocation instanceof ProxyMethodInvocation proxyInvocation
+                            ? proxyInvocation.invocableClone().proceed()
+                            : invocation.proceed();
+                    if (retryBudget != null) {
+                        retryBudget.recordSuccess();
+                    }
+                    return result;
+                } catch (Throwable e) {
+                    // Interrumpida: la llamada se canceló y no hay que gastar presupuesto en reintentarla
+                    if (retry >= spec.maxRetries() || spec.excludes(e) || Thread.currentThread().isInterrupted()
+                            || (retryBudget != null && !retryBudget.tryRetry())) {
+                        throw e;
+                    }
+                    previousDelay = spec.nextDelay(previousDelay);
+                    try {
+                        Thread.sleep(previousDelay);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Configuración resuelta de un método
+     */
+    private record Spec(int maxRetries, long delay, long maxDelay, Class<? extends Throwable>[] excludes) {
+
+        boolean excludes(Throwable e) {
+            // Una llamada agrupada por @SingleFlight falla con la excepción original como causa
+            Throwable cause = SingleFlightException.unwrap(e);
+            for (Class<? extends Throwable> type : excludes) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Decorrelated jitter: aleatoria entre delay y tres veces la anterior, como mucho maxDelay
+         */
+        long nextDelay(long previous) {
+            long upper = Math.min(maxDelay, Math.max(delay, previous) * 3);
+            return upper > delay ? ThreadLocalRandom.current().nextLong(delay, upper + 1) : delay;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita las peticiones simultáneas por ruta (scheme://host:port)
+ *
+ * El HttpClient del JDK no tiene límite por ruta: abre una conexión nueva por cada
+ * petición concurrente. Este interceptor acota esa concurrencia y, si no hay hueco
+ * dentro de acquireTimeout, falla rápido en lugar de encolar sin límite
+ */
+public class RouteConcurrencyInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int maxPerRoute;
+    private final long acquireTimeoutNanos;
+    private final Map<String, Semaphore> routes = new ConcurrentHashMap<>();
+
+    public RouteConcurrencyInterceptor(int maxPerRoute, @NonNull Duration acquireTimeout) {
+        if (maxPerRoute < 1) {
+            throw new IllegalArgumentException("maxPerRoute must be at least 1");
+        }
+        this.maxPerRoute = maxPerRoute;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, byte @NonNull [] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+        String route = request.getURI().getScheme() + "://" + request.getURI().getAuthority();
+        Semaphore permits = routes.computeIfAbsent(route, key -> new Semaphore(maxPerRoute));
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IOException("Too many concurrent requests to " + route + " (limit " + maxPerRoute + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + route);
+        }
+        try {
+            // El hueco se libera al cerrar la respuesta, cuando la conexión vuelve al pool
+            return new ReleasingResponse(execution.execute(request, body), permits);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private static final class ReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public @NonNull HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public @NonNull String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public @NonNull HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public @NonNull InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.josediaz.springframework7.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Agrupa las llamadas concurrentes idénticas a un método en una sola (single-flight)
+ *
+ * Mientras una llamada está en curso, las que llegan con la misma clave no ejecutan el
+ * método: esperan como mucho maxWait y reciben el mismo resultado o una SingleFlightException
+ * propia cuya causa es la excepción de la llamada (si la esperan más de maxWait,
+ * SingleFlightTimeoutException). Al terminar, la siguiente llamada vuelve a ejecutarlo; no es
+ * una caché
+ *
+ * Se aplica por delante de @AdaptiveConcurrencyLimit y @RetryWithBudget (SingleFlightBeanPostProcessor),
+ * así que las llamadas agrupadas no ocupan un hueco del límite ni repiten los reintentos
+ *
+ * Requiere quotes.single-flight.enabled (activo por defecto)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * Qué llamadas se consideran idénticas
+     */
+    Key key() default Key.ARGUMENTS;
+
+    /**
+     * Clave como texto, con placeholders (por ejemplo "${quotes.single-flight.random:none}");
+     * si se indica, tiene prioridad sobre key
+     */
+    String keyString() default "";
+
+    /**
+     * Espera máxima de las llamadas agrupadas, en milisegundos; la que ejecuta el método no
+     * tiene límite (lo ponen los timeouts del propio método)
+     */
+    long maxWait() default 10000;
+
+    String maxWaitString() default "";
+
+    enum Key {
+        /**
+         * Sin agrupar: cada llamada ejecuta el método
+         */
+        NONE,
+        /**
+         * Todas las llamadas concurrentes al método se agrupan, sean cuales sean sus argumentos
+         */
+        METHOD,
+        /**
+         * Se agrupan las llamadas concurrentes con argumentos iguales (equals)
+         */
+        ARGUMENTS
+    }
+}
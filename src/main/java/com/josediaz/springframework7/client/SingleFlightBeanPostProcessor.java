@@ -0,0 +1,231 @@
+package com.josediaz.springframework7.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aplica @SingleFlight a los beans con métodos anotados (también en sus interfaces)
+ *
+ * Con el orden por defecto (LOWEST_PRECEDENCE) se procesa después de los post-processors
+ * de @RetryWithBudget y de @CircuitBreaker y se inserta delante de sus advisors:
+ * las llamadas agrupadas esperan fuera de @AdaptiveConcurrencyLimit y solo la que se ejecuta
+ * pasa por el circuito, el límite y los reintentos
+ *
+ * Las llamadas agrupadas esperan como mucho maxWait y cada una recibe su propia
+ * SingleFlightException (o SingleFlightTimeoutException), nunca la instancia de la que
+ * ejecutó el método. Si esta se cancela (su hilo se interrumpe, por ejemplo al vencer el plazo
+ * de CategoryJokeService), solo falla ella: una de las que esperaban la ejecuta de nuevo
+ *
+ * Métricas: single-flight.calls, por método y result=executed (llamadas que ejecutan el
+ * método) o result=coalesced (llamadas que reutilizan una en curso)
+ */
+public class SingleFlightBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor implements MeterBinder {
+
+    /**
+     * Resultado de una llamada cancelada por su llamante: las que la esperaban no reciben su
+     * fallo, vuelven a intentarlo
+     */
+    private static final Object ABANDONED = new Object();
+
+    private final Map<Method, Flights> flights = new ConcurrentHashMap<>();
+    private @Nullable ConfigurableBeanFactory beanFactory;
+    private volatile @Nullable MeterRegistry registry;
+
+    public SingleFlightBeanPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        this.advisor = new DefaultPointcutAdvisor(
+                ResilientMethodPointcut.forAnnotation(SingleFlight.class), new SingleFlightInterceptor());
+    }
+
+    @Override
+    public void setBeanFactory(@NonNull BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory instanceof ConfigurableBeanFactory configurable ? configurable : null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        // Los métodos llamados después se registran al crear su estado
+        flights.values().forEach(method -> method.register(registry));
+    }
+
+    private Flights flightsFor(Method method) {
+        Flights state = flights.get(method);
+        if (state != null) {
+            return state;
+        }
+        state = flights.computeIfAbsent(method, this::createFlights);
+        MeterRegistry current = registry;
+        if (current != null) {
+            state.register(current);
+        }
+        return state;
+    }
+
+    private Flights createFlights(Method method) {
+        SingleFlight annotation = AnnotatedElementUtils.findMergedAnnotation(method, SingleFlight.class);
+        if (annotation == null) {
+            return new Flights(method, SingleFlight.Key.NONE, Duration.ZERO);
+        }
+        Duration maxWait = resolveDuration(annotation.maxWaitString(), annotation.maxWait());
+        if (!maxWait.isPositive()) {
+            throw new IllegalStateException("Invalid @SingleFlight maxWait " + maxWait + " on " + method);
+        }
+        return new Flights(method, resolveKey(method, annotation), maxWait);
+    }
+
+    private SingleFlight.Key resolveKey(Method method, SingleFlight annotation) {
+        String keyString = annotation.keyString();
+        if (keyString.isEmpty()) {
+            return annotation.key();
+        }
+        if (beanFactory != null) {
+            keyString = beanFactory.resolveEmbeddedValue(keyString);
+        }
+        try {
+            return SingleFlight.Key.valueOf(keyString.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid @SingleFlight key '" + keyString + "' on " + method, e);
+        }
+    }
+
+    private Duration resolveDuration(String value, long defaultMillis) {
+        if (value.isEmpty()) {
+            return Duration.ofMillis(defaultMillis);
+        }
+        String resolved = beanFactory != null ? beanFactory.resolveEmbeddedValue(value) : value;
+        return DurationStyle.detectAndParse((resolved != null ? resolved : value).trim(), ChronoUnit.MILLIS);
+    }
+
+    private final class SingleFlightInterceptor implements MethodInterceptor {
+
+        @Override
+        public @Nullable Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            Flights method = flightsFor(invocation.getMethod());
+            if (method.key == SingleFlight.Key.NONE) {
+                return invocation.proceed();
+            }
+            // Arrays.asList compara los argumentos con equals y admite null
+            Object key = method.key == SingleFlight.Key.METHOD ? method : Arrays.asList(invocation.getArguments());
+            long deadline = System.nanoTime() + method.maxWaitNanos;
+            while (true) {
+                CompletableFuture<Object> call = new CompletableFuture<>();
+                CompletableFuture<Object> inFlight = method.calls.putIfAbsent(key, call);
+                if (inFlight == null) {
+                    return lead(invocation, method, key, call);
+                }
+                Object result = method.await(inFlight, deadline);
+                if (result != ABANDONED) {
+                    return result;
+                }
+                // La llamada en curso se canceló: una de las que esperaban la ejecuta de nuevo
+            }
+        }
+
+        private @Nullable Object lead(MethodInvocation invocation, Flights method, Object key,
+                                      CompletableFuture<Object> call) throws Throwable {
+            method.executed.increment();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                // Se retira antes de completar: quien llegue después ejecuta una llamada nueva
+                method.calls.remove(key, call);
+                if (Thread.currentThread().isInterrupted()) {
+                    // Cancelada por su llamante (interrupción): el fallo es solo suyo, no de la API
+                    call.complete(ABANDONED);
+                } else {
+                    call.completeExceptionally(e);
+                }
+                throw e;
+            }
+            method.calls.remove(key, call);
+            call.complete(result);
+            return result;
+        }
+    }
+
+    /**
+     * Llamadas en curso y contadores de un método
+     */
+    private static final class Flights {
+
+        final String name;
+        final SingleFlight.Key key;
+        final long maxWaitNanos;
+        final Map<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+        final LongAdder executed = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+
+        Flights(Method method, SingleFlight.Key key, Duration maxWait) {
+            this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            this.key = key;
+            this.maxWaitNanos = maxWait.toNanos();
+        }
+
+        /**
+         * Resultado de la llamada en curso, esperando como mucho hasta deadline; los arrays se
+         * copian, como en CachingQuoteClient, para que ningún llamante vea los cambios de otro
+         *
+         * @return ABANDONED si quien la ejecutaba se canceló y hay que volver a intentarlo
+         */
+        @Nullable Object await(CompletableFuture<Object> call, long deadline) {
+            try {
+                Object result = call.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (result == ABANDONED) {
+                    return result;
+                }
+                coalesced.increment();
+                return result instanceof Object[] array ? array.clone() : result;
+            } catch (ExecutionException e) {
+                coalesced.increment();
+                throw new SingleFlightException("In-flight call to " + name + " failed", e.getCause());
+            } catch (TimeoutException e) {
+                coalesced.increment();
+                throw new SingleFlightTimeoutException(name, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            } catch (InterruptedException e) {
+                coalesced.increment();
+                Thread.currentThread().interrupt();
+                throw new SingleFlightException("Interrupted waiting for the in-flight call to " + name, e);
+            }
+        }
+
+        void register(MeterRegistry registry) {
+            FunctionCounter.builder("single-flight.calls", executed, LongAdder::sum)
+                    .tag("method", name)
+                    .tag("result", "executed")
+                    .description("Llamadas a métodos @SingleFlight")
+                    .register(registry);
+            FunctionCounter.builder("single-flight.calls", coalesced, LongAdder::sum)
+                    .tag("method", name)
+                    .tag("result", "coalesced")
+                    .description("Llamadas a métodos @SingleFlight")
+                    .register(registry);
+        }
+    }
+}
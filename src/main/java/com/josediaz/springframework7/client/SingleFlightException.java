@@ -0,0 +1,26 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Fallo de una llamada agrupada por @SingleFlight: la causa es la excepción de la llamada que
+ * ejecutó el método, compartida por todas las que la esperaban
+ *
+ * Cada llamada agrupada recibe su propia instancia, con su traza, así que nadie modifica la
+ * excepción de otro (addSuppressed, initCause...). Sin @ResponseStatus: Spring MVC resuelve
+ * el estado con la causa
+ */
+public class SingleFlightException extends RuntimeException {
+
+    public SingleFlightException(@NonNull String message, @Nullable Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * La excepción original si e viene de una llamada agrupada; si no, e
+     */
+    public static @NonNull Throwable unwrap(@NonNull Throwable e) {
+        return e instanceof SingleFlightException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,17 @@
+package com.josediaz.springframework7.client;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Se lanza cuando una llamada agrupada por @SingleFlight espera más de maxWait a la que
+ * ejecuta el método; esta sigue en curso y su resultado lo recibe quien aún espere
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SingleFlightTimeoutException extends SingleFlightException {
+
+    public SingleFlightTimeoutException(@NonNull String name, long maxWaitMillis) {
+        super("Timed out after " + maxWaitMillis + "ms waiting for the in-flight call to " + name, null);
+    }
+}
@@ -0,0 +1,32 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.repository.LogAccountStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Almacenamiento persistente de AccountRepository
+ *
+ * Con accounts.storage.enabled las cuentas se guardan en un log append-only con índice
+ * mapeado en memoria (LogAccountStorage) y se recuperan al arrancar; sin él, AccountRepository
+ * trabaja solo en memoria. El bean se cierra al parar la aplicación, dejando un checkpoint
+ * del índice para que el siguiente arranque no tenga que recorrer el log
+ *
+ * Métricas: accounts.storage.syncs, accounts.storage.records, accounts.storage.compactions,
+ * accounts.storage.log.size y accounts.storage.log.dead
+ */
+@Configuration
+@EnableConfigurationProperties(AccountStorageProperties.class)
+public class AccountStorageConfiguration {
+
+    @Bean
+    @ConditionalOnBooleanProperty("accounts.storage.enabled")
+    public LogAccountStorage accountStorage(AccountStorageProperties properties) throws IOException {
+        return new LogAccountStorage(properties.directory(), properties.compactionRatio(),
+                properties.compactionMinSize().toBytes());
+    }
+}
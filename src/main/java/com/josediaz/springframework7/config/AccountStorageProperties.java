@@ -0,0 +1,23 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Propiedades del almacenamiento persistente de cuentas (prefijo accounts.storage)
+ *
+ * @param enabled Guarda las cuentas en disco; con false solo se guardan en memoria
+ * @param directory Directorio del log (accounts.log) y su índice (accounts.idx)
+ * @param compactionRatio Fracción de bytes obsoletos del log que lanza la compactación (0 la desactiva)
+ * @param compactionMinSize Tamaño mínimo del log para compactar automáticamente
+ */
+@ConfigurationProperties(prefix = "accounts.storage")
+public record AccountStorageProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/accounts") Path directory,
+        @DefaultValue("0.5") double compactionRatio,
+        @DefaultValue("64MB") DataSize compactionMinSize) {
+}
@@ -0,0 +1,28 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.client.AdaptiveConcurrencyLimitBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Límite de concurrencia adaptativo para los métodos anotados con @AdaptiveConcurrencyLimit
+ * (QuoteClient.getRandomJoke y ResilientQuoteService)
+ *
+ * Con quotes.adaptive-limit.enabled=false los métodos se llaman sin límite
+ *
+ * Métricas (tag name): concurrency.adaptive.limit, concurrency.adaptive.in-flight,
+ * concurrency.adaptive.queue.wait y concurrency.adaptive.rejected
+ */
+@Configuration
+public class AdaptiveConcurrencyLimitConfiguration {
+
+    /**
+     * Estático: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+     */
+    @Bean
+    @ConditionalOnBooleanProperty(name = "quotes.adaptive-limit.enabled", matchIfMissing = true)
+    public static AdaptiveConcurrencyLimitBeanPostProcessor adaptiveConcurrencyLimitBeanPostProcessor() {
+        return new AdaptiveConcurrencyLimitBeanPostProcessor();
+    }
+}
@@ -1,9 +1,14 @@
 package com.josediaz.springframework7.config;
 
 import org.jspecify.annotations.NonNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.webmvc.autoconfigure.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.accept.SemanticApiVersionParser;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.ApiVersionConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 /**
  * Configuración para habilitar el versionado de API
@@ -14,10 +19,20 @@ import org.springframework.web.servlet.config.annotation.ApiVersionConfigurer;
  * 
  * NOTA: El versionado solo se aplica a endpoints que especifican el atributo 'version'
  * Los endpoints sin 'version' funcionan normalmente sin requerir el header
+ *
+ * Resolver la versión forma parte de cada petición, así que se hace por la vía rápida:
+ * - Las versiones parseadas se internan (CachingApiVersionParser)
+ * - El handler se elige en una tabla precalculada por versión (VersionDispatchHandlerMapping);
+ *   api.versioning.dispatch-table.enabled=false vuelve a la búsqueda estándar de Spring
  */
 @Configuration
 public class ApiVersioningConfig implements WebMvcConfigurer {
 
+    /**
+     * Máximo de textos de versión distintos que se internan
+     */
+    private static final int MAX_INTERNED_VERSIONS = 64;
+
     /**
      * Configura el versionado de API usando JSpecify @NonNull
      * 
@@ -29,7 +44,21 @@ public class ApiVersioningConfig implements WebMvcConfigurer {
         // Usar header X-API-Version para determinar la versión
         // NOTA: Los endpoints con atributo 'version' requieren este header
         // Los endpoints sin 'version' deberían funcionar sin el header
-        configurer.useRequestHeader("X-API-Version");
+        configurer.useRequestHeader("X-API-Version")
+                .setVersionParser(new CachingApiVersionParser<>(new SemanticApiVersionParser(), MAX_INTERNED_VERSIONS));
     }
-}
 
+    /**
+     * Sustituye el RequestMappingHandlerMapping de Spring Boot por la versión con tabla de despacho
+     */
+    @Bean
+    @ConditionalOnBooleanProperty(name = "api.versioning.dispatch-table.enabled", matchIfMissing = true)
+    public WebMvcRegistrations versionDispatchRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new VersionDispatchHandlerMapping();
+            }
+        };
+    }
+}
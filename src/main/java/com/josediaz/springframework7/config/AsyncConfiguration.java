@@ -1,17 +1,150 @@
 package com.josediaz.springframework7.config;
 
+import com.josediaz.springframework7.event.BatchEventListener;
+import com.josediaz.springframework7.event.EventBatcher;
+import com.josediaz.springframework7.config.EventExecutorProperties.RejectionPolicy;
+import com.josediaz.springframework7.event.HelloWorldEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Configuración para habilitar el procesamiento asíncrono
- * 
+ *
  * @EnableAsync habilita el uso de @Async en métodos
  * Los TaskDecorator definidos en TaskDecoratorConfiguration
  * se aplicarán automáticamente a todas las tareas asíncronas
+ *
+ * Modo de ejecución (spring.threads.virtual.enabled):
+ * - false: @Async usa un ThreadPoolTaskExecutor y Tomcat su pool de hilos de plataforma
+ * - true: @Async usa un SimpleAsyncTaskExecutor con un hilo virtual por tarea y Tomcat
+ *   atiende cada petición en un hilo virtual, así las llamadas bloqueantes a QuoteClient
+ *   no ocupan hilos de plataforma
+ *
+ * En ambos modos el executor es applicationTaskExecutor y Spring Boot compone los
+ * TaskDecorator en el orden de @Order
+ *
+ * Los listeners de eventos usan su propio executor acotado (eventTaskExecutor), así una
+ * ráfaga de eventos no acumula tareas sin límite ni compite con applicationTaskExecutor
+ *
+ * HelloWorldEvent llega a sus listeners (BatchEventListener) a través de EventBatcher: con
+ * events.batch.enabled (por defecto) se agrupa en micro-lotes y cada lote es una sola tarea de
+ * eventTaskExecutor; con false, cada evento es una tarea
  */
 @Configuration
 @EnableAsync
+@EnableConfigurationProperties({EventExecutorProperties.class, EventBatchProperties.class})
 public class AsyncConfiguration {
-}
 
+    public static final String EVENT_TASK_EXECUTOR = "eventTaskExecutor";
+
+    /**
+     * Executor acotado para la entrega de eventos (EventBatcher)
+     *
+     * - coreSize/maxSize/queueCapacity limitan hilos y eventos pendientes
+     * - Con la cola llena se aplica rejectionPolicy (caller-runs, drop-oldest o reject)
+     * - Con events.batch.enabled cada tarea es un lote: un lote no se descarta ni se rechaza,
+     *   se ejecuta en el hilo de agrupación (caller-runs) y la política configurada se aplica
+     *   evento a evento en la cola de EventBatcher
+     * - Aplica la misma cadena de TaskDecorator que applicationTaskExecutor
+     * - En modo de hilos virtuales, los hilos del pool son virtuales pero los límites se mantienen
+     *
+     * Métricas: events.executor.queue.depth, events.executor.active y events.executor.rejected
+     */
+    @Bean(name = EVENT_TASK_EXECUTOR)
+    public ThreadPoolTaskExecutor eventTaskExecutor(EventExecutorProperties properties,
+                                                    EventBatchProperties batchProperties,
+                                                    ObjectProvider<TaskDecorator> taskDecorators,
+                                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("event-");
+        executor.setCorePoolSize(properties.coreSize());
+        executor.setMaxPoolSize(properties.maxSize());
+        executor.setQueueCapacity(properties.queueCapacity());
+        executor.setKeepAliveSeconds((int) properties.keepAlive().toSeconds());
+        executor.setVirtualThreads(virtualThreads);
+        executor.setTaskDecorator(new CompositeTaskDecorator(taskDecorators.orderedStream().toList()));
+
+        RejectionPolicy rejectionPolicy = batchProperties.enabled() ? RejectionPolicy.CALLER_RUNS : properties.rejectionPolicy();
+        CountingRejectionHandler rejectionHandler = new CountingRejectionHandler(rejectionPolicy);
+        executor.setRejectedExecutionHandler(rejectionHandler);
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("events.executor.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Eventos pendientes en la cola del executor")
+                    .register(registry);
+            Gauge.builder("events.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .description("Hilos procesando eventos")
+                    .register(registry);
+            FunctionCounter.builder("events.executor.rejected", rejectionHandler.rejected, LongAdder::sum)
+                    .tag("policy", rejectionPolicy.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                    .description("Eventos que encontraron la cola llena")
+                    .register(registry);
+        });
+        return executor;
+    }
+
+    /**
+     * Entrega HelloWorldEvent a los BatchEventListener (HelloWorldEventLogger) en eventTaskExecutor
+     *
+     * Con events.batch.enabled agrupa los eventos en lotes y, con la cola de agrupación llena,
+     * aplica la misma política que eventTaskExecutor; con false, una tarea por evento
+     */
+    @Bean
+    public EventBatcher<HelloWorldEvent> helloWorldEventBatcher(EventBatchProperties batchProperties,
+                                                                EventExecutorProperties executorProperties,
+                                                                ObjectProvider<BatchEventListener<HelloWorldEvent>> listeners,
+                                                                @Qualifier(EVENT_TASK_EXECUTOR) Executor eventTaskExecutor,
+                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        EventBatcher<HelloWorldEvent> batcher = batchProperties.enabled()
+                ? new EventBatcher<>(HelloWorldEvent.class,
+                        () -> listeners.orderedStream().toList(), eventTaskExecutor,
+                        batchProperties.maxSize(), batchProperties.linger(), batchProperties.queueCapacity(),
+                        executorProperties.rejectionPolicy())
+                : EventBatcher.unbatched(HelloWorldEvent.class,
+                        () -> listeners.orderedStream().toList(), eventTaskExecutor,
+                        executorProperties.rejectionPolicy());
+        meterRegistry.ifAvailable(batcher::bindTo);
+        return batcher;
+    }
+
+    /**
+     * Cuenta los rechazos y delega en la política de ThreadPoolExecutor correspondiente
+     */
+    private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler policy;
+        private final LongAdder rejected = new LongAdder();
+
+        CountingRejectionHandler(RejectionPolicy policy) {
+            this.policy = switch (policy) {
+                case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+                case DROP_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+                case REJECT -> new ThreadPoolExecutor.AbortPolicy();
+            };
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejected.increment();
+            policy.rejectedExecution(task, executor);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.josediaz.springframework7.config;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.web.accept.ApiVersionParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ApiVersionParser que interna las versiones ya parseadas
+ *
+ * El parser semántico de Spring aplica una expresión regular a la cabecera en cada petición,
+ * aunque en la práctica solo llegan unas pocas versiones distintas ("1", "2", "1.0", "2.0"...):
+ * - Cada texto de versión se parsea una sola vez y la instancia resultante se reutiliza
+ * - Las lecturas consultan un mapa inmutable sin locks; añadir una versión lo copia (copy-on-write)
+ * - Como mucho se internan maxEntries textos, para que cabeceras arbitrarias no hagan crecer
+ *   la tabla; el resto se parsea en cada petición como antes
+ * - Los textos que no se pueden parsear nunca se internan (el delegado lanza la excepción)
+ */
+public final class CachingApiVersionParser<V extends Comparable<V>> implements ApiVersionParser<V> {
+
+    private final ApiVersionParser<V> delegate;
+    private final int maxEntries;
+    private final Object writeLock = new Object();
+    private volatile Map<String, V> interned = Map.of();
+
+    public CachingApiVersionParser(@NonNull ApiVersionParser<V> delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public @NonNull V parseVersion(@NonNull String version) {
+        V cached = interned.get(version);
+        if (cached != null) {
+            return cached;
+        }
+        V parsed = delegate.parseVersion(version);
+        synchronized (writeLock) {
+            Map<String, V> current = interned;
+            V existing = current.get(version);
+            if (existing != null) {
+                return existing;
+            }
+            if (current.size() < maxEntries) {
+                Map<String, V> copy = new HashMap<>(current);
+                copy.put(version, parsed);
+                interned = Map.copyOf(copy);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Número de versiones internadas
+     */
+    public int size() {
+        return interned.size();
+    }
+}
@@ -0,0 +1,26 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.client.CircuitBreakerBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Circuit breaker para los métodos anotados con @CircuitBreaker (QuoteClient)
+ *
+ * Con quotes.circuit-breaker.enabled=false los métodos se llaman siempre
+ *
+ * Métricas (tag name): circuit-breaker.state, circuit-breaker.transitions y circuit-breaker.calls
+ */
+@Configuration
+public class CircuitBreakerConfiguration {
+
+    /**
+     * Estático: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+     */
+    @Bean
+    @ConditionalOnBooleanProperty(name = "quotes.circuit-breaker.enabled", matchIfMissing = true)
+    public static CircuitBreakerBeanPostProcessor circuitBreakerBeanPostProcessor() {
+        return new CircuitBreakerBeanPostProcessor();
+    }
+}
@@ -0,0 +1,23 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del envío de eventos por lotes (prefijo events.batch)
+ *
+ * @param enabled Agrupa los eventos en lotes; con false cada evento es una tarea del executor de eventos
+ * @param maxSize Eventos como máximo por lote; un lote lleno se envía sin esperar
+ * @param linger Espera máxima desde el primer evento de un lote hasta enviarlo
+ * @param queueCapacity Eventos pendientes de agrupar como máximo antes de aplicar
+ *                      events.executor.rejection-policy
+ */
+@ConfigurationProperties(prefix = "events.batch")
+public record EventBatchProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("256") int maxSize,
+        @DefaultValue("5ms") Duration linger,
+        @DefaultValue("10000") int queueCapacity) {
+}
@@ -0,0 +1,42 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del executor dedicado a los listeners de eventos (prefijo events.executor)
+ *
+ * @param coreSize Hilos que se mantienen vivos aunque no haya eventos
+ * @param maxSize Hilos como máximo; se crean por encima de coreSize solo cuando la cola está llena
+ * @param queueCapacity Eventos pendientes como máximo antes de aplicar la política de rechazo
+ * @param keepAlive Tiempo que un hilo por encima de coreSize espera trabajo antes de terminar
+ * @param rejectionPolicy Qué hacer con un evento cuando la cola y los hilos están llenos
+ */
+@ConfigurationProperties(prefix = "events.executor")
+public record EventExecutorProperties(
+        @DefaultValue("2") int coreSize,
+        @DefaultValue("8") int maxSize,
+        @DefaultValue("1000") int queueCapacity,
+        @DefaultValue("60s") Duration keepAlive,
+        @DefaultValue("caller-runs") RejectionPolicy rejectionPolicy) {
+
+    public enum RejectionPolicy {
+
+        /**
+         * El hilo que publica el evento ejecuta el listener (frena al productor)
+         */
+        CALLER_RUNS,
+
+        /**
+         * Se descarta el evento más antiguo de la cola para hacer sitio al nuevo
+         */
+        DROP_OLDEST,
+
+        /**
+         * Se rechaza el evento; el controlador responde 429 Too Many Requests
+         */
+        REJECT
+    }
+}
@@ -0,0 +1,29 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.client.HedgedBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Peticiones hedged para los métodos anotados con @Hedged (QuoteClient.getRandomJoke)
+ *
+ * Desactivado por defecto: solo con quotes.hedging.enabled=true se lanza el segundo intento,
+ * porque duplica algunas peticiones a la API remota
+ *
+ * Los dos intentos van en quoteTaskExecutor; el llamante solo espera al que gane
+ *
+ * Métricas (tag name): hedge.calls, hedge.wins y hedge.delay
+ */
+@Configuration
+public class HedgingConfiguration {
+
+    /**
+     * Estático: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+     */
+    @Bean
+    @ConditionalOnBooleanProperty(name = "quotes.hedging.enabled")
+    public static HedgedBeanPostProcessor hedgedBeanPostProcessor() {
+        return new HedgedBeanPostProcessor(HttpClientConfig.QUOTE_TASK_EXECUTOR);
+    }
+}
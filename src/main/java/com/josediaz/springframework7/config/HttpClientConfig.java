@@ -1,14 +1,30 @@
 package com.josediaz.springframework7.config;
 
+import com.josediaz.springframework7.client.AsyncQuoteClient;
+import com.josediaz.springframework7.client.CachingQuoteClient;
 import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.client.RouteConcurrencyInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.resilience.annotation.EnableResilientMethods;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.support.RestClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
 /**
  * Configuración para clientes HTTP declarativos - Nueva característica de Spring Framework 7
  * 
@@ -17,23 +33,58 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
  * 
  * Usa la API pública de Chuck Norris: https://api.chucknorris.io/
  * 
- * @EnableResilientMethods habilita las anotaciones de resiliencia (@Retryable, @ConcurrencyLimit)
- * que son nuevas características de Spring Framework 7
+ * Las anotaciones de resiliencia de QuoteClient (@SingleFlight, @CircuitBreaker,
+ * @RetryWithBudget, @Hedged y @AdaptiveConcurrencyLimit) las aplican sus propios
+ * post-processors (SingleFlightConfiguration, CircuitBreakerConfiguration...), no
+ * @EnableResilientMethods: @RetryWithBudget y @AdaptiveConcurrencyLimit sustituyen a
+ * @Retryable y @ConcurrencyLimit (ver la Característica 5 del README)
+ * 
+ * El transporte usa el HttpClient del JDK con pool de conexiones keep-alive, timeouts,
+ * HTTP/2 y límite por ruta, configurable con las propiedades quotes.http.*
+ * 
+ * AsyncQuoteClient ofrece los mismos métodos devolviendo CompletableFuture: con RestClient,
+ * HttpServiceProxyFactory solo admite tipos de retorno bloqueantes (CompletableFuture, Mono
+ * y Flux necesitan WebClient y Reactor), así que las llamadas se ejecutan en quoteTaskExecutor
  */
 @Configuration
-@EnableResilientMethods
+@EnableConfigurationProperties({QuoteHttpProperties.class, QuoteFanOutProperties.class, QuoteStreamProperties.class})
 public class HttpClientConfig {
 
+    public static final String QUOTE_TASK_EXECUTOR = "quoteTaskExecutor";
+
+    /**
+     * Crea el ClientHttpRequestFactory ajustado para QuoteClient
+     * 
+     * El tamaño del pool y la expiración de conexiones inactivas no se configuran aquí: son
+     * propiedades de sistema de toda la JVM (ver SpringFramework7SamplesApplication.main)
+     */
+    public static JdkClientHttpRequestFactory quoteRequestFactory(QuoteHttpProperties properties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.connectTimeout())
+                .version(properties.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.readTimeout());
+        return requestFactory;
+    }
+
     /**
-     * Bean del cliente HTTP declarativo QuoteClient
+     * Proxy HTTP de QuoteClient, creado con RestClient y HttpServiceProxyFactory
      * 
-     * Crea un proxy del cliente HTTP usando RestClient y HttpServiceProxyFactory
+     * Es el que reciben las anotaciones de resiliencia (@SingleFlight, @CircuitBreaker...):
+     * solo lo llama quoteClient, así que los aciertos de la caché no pasan por ellas
      */
     @Bean
-    public QuoteClient quoteClient(@Value("${chucknorris.api.base-url:https://api.chucknorris.io}") String baseUrl) {
-        // Crear RestClient con URL base
+    public QuoteClient quoteHttpClient(
+            @Value("${chucknorris.api.base-url:https://api.chucknorris.io}") String baseUrl,
+            QuoteHttpProperties httpProperties) {
+        // Crear RestClient con URL base sobre el transporte ajustado
         RestClient restClient = RestClient.builder()
                 .baseUrl(baseUrl)
+                .requestFactory(quoteRequestFactory(httpProperties))
+                .requestInterceptor(new RouteConcurrencyInterceptor(
+                        httpProperties.maxConnectionsPerRoute(), httpProperties.acquireTimeout()))
                 .build();
         
         // Crear HttpServiceProxyFactory usando RestClientAdapter
@@ -43,4 +94,50 @@ public class HttpClientConfig {
         
         return factory.createClient(QuoteClient.class);
     }
+
+    /**
+     * Bean del cliente HTTP declarativo QuoteClient que usa la aplicación
+     * 
+     * Envuelve quoteHttpClient en CachingQuoteClient para cachear getCategories() con TTL
+     * y refresco en segundo plano (todos los consumidores comparten la misma caché)
+     */
+    @Bean
+    @Primary
+    public QuoteClient quoteClient(
+            @Qualifier("quoteHttpClient") QuoteClient httpClient,
+            @Value("${quotes.categories.cache.ttl:1h}") Duration categoriesTtl,
+            @Value("${quotes.categories.cache.refresh-after:45m}") Duration categoriesRefreshAfter,
+            @Value("${quotes.categories.cache.warm-up:true}") boolean categoriesWarmUp,
+            @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        // Caché de categorías compartida por QuoteController y ResilientQuoteService
+        CachingQuoteClient cachingClient = new CachingQuoteClient(
+                httpClient, categoriesTtl, categoriesRefreshAfter, refreshExecutor);
+        meterRegistry.ifAvailable(cachingClient::bindTo);
+        if (categoriesWarmUp) {
+            cachingClient.warmUp();
+        }
+        return cachingClient;
+    }
+
+    /**
+     * Executor de AsyncQuoteClient: un hilo virtual por llamada, porque cada una pasa casi todo
+     * su tiempo esperando a la API remota; el límite lo ponen @AdaptiveConcurrencyLimit y
+     * quotes.http.max-connections-per-route, no el executor
+     *
+     * Aplica la misma cadena de TaskDecorator que applicationTaskExecutor
+     */
+    @Bean(name = QUOTE_TASK_EXECUTOR)
+    public SimpleAsyncTaskExecutor quoteTaskExecutor(ObjectProvider<TaskDecorator> taskDecorators) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("quote-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new CompositeTaskDecorator(taskDecorators.orderedStream().toList()));
+        return executor;
+    }
+
+    @Bean
+    public AsyncQuoteClient asyncQuoteClient(QuoteClient quoteClient,
+                                             @Qualifier(QUOTE_TASK_EXECUTOR) AsyncTaskExecutor quoteTaskExecutor) {
+        return new AsyncQuoteClient(quoteClient, quoteTaskExecutor);
+    }
 }
@@ -0,0 +1,18 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de GET /quotes/random/per-category (prefijo quotes.fan-out)
+ *
+ * @param maxParallel Llamadas a QuoteClient en curso a la vez como máximo por petición (1 = una tras otra)
+ * @param deadline Plazo de toda la petición; las categorías que no han respondido se omiten
+ */
+@ConfigurationProperties(prefix = "quotes.fan-out")
+public record QuoteFanOutProperties(
+        @DefaultValue("4") int maxParallel,
+        @DefaultValue("2s") Duration deadline) {
+}
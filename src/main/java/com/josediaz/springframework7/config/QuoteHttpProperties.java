@@ -0,0 +1,28 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del transporte HTTP de QuoteClient (prefijo quotes.http)
+ *
+ * El tamaño del pool keep-alive y la expiración de conexiones inactivas no están aquí: el
+ * HttpClient del JDK solo los lee de propiedades de sistema de toda la JVM
+ * (SpringFramework7SamplesApplication.main)
+ *
+ * @param connectTimeout Tiempo máximo para establecer la conexión TCP/TLS
+ * @param readTimeout Tiempo máximo de espera de la respuesta
+ * @param http2 Usa HTTP/2 (multiplexa peticiones sobre una conexión; cae a HTTP/1.1 si el servidor no lo soporta)
+ * @param maxConnectionsPerRoute Peticiones simultáneas como máximo por host
+ * @param acquireTimeout Espera máxima por un hueco en la ruta antes de fallar rápido
+ */
+@ConfigurationProperties(prefix = "quotes.http")
+public record QuoteHttpProperties(
+        @DefaultValue("2s") Duration connectTimeout,
+        @DefaultValue("5s") Duration readTimeout,
+        @DefaultValue("true") boolean http2,
+        @DefaultValue("20") int maxConnectionsPerRoute,
+        @DefaultValue("1s") Duration acquireTimeout) {
+}
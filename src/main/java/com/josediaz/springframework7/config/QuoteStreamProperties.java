@@ -0,0 +1,42 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades de GET /quotes/stream (prefijo quotes.stream)
+ *
+ * @param interval Tiempo entre chistes; el chiste se obtiene una vez y se envía a todos los suscriptores
+ * @param heartbeat Tiempo entre comentarios de heartbeat, que mantienen viva la conexión en
+ *                  proxies y detectan los clientes que ya se fueron
+ * @param backpressure Qué hacer con un suscriptor que no consume tan rápido como llegan los eventos
+ * @param bufferSize Eventos pendientes por suscriptor como máximo con backpressure=buffer
+ * @param maxSubscribers Conexiones abiertas como máximo; por encima se responde 503
+ * @param timeout Duración máxima de una conexión; el navegador (EventSource) se reconecta solo
+ */
+@ConfigurationProperties(prefix = "quotes.stream")
+public record QuoteStreamProperties(
+        @DefaultValue("1s") Duration interval,
+        @DefaultValue("15s") Duration heartbeat,
+        @DefaultValue("drop") Backpressure backpressure,
+        @DefaultValue("16") int bufferSize,
+        @DefaultValue("30000") int maxSubscribers,
+        @DefaultValue("30m") Duration timeout) {
+
+    public enum Backpressure {
+
+        /**
+         * Como mucho un evento pendiente: si llega un chiste antes de enviarlo, sustituye al
+         * anterior y el suscriptor se salta chistes; un heartbeat nunca sustituye a un chiste
+         */
+        DROP,
+
+        /**
+         * Hasta bufferSize eventos pendientes, en orden; un suscriptor que llena el buffer se
+         * desconecta para que no acumule memoria sin límite
+         */
+        BUFFER
+    }
+}
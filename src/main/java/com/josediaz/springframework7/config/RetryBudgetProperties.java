@@ -0,0 +1,23 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Propiedades del presupuesto de reintentos de @RetryWithBudget (prefijo quotes.retry-budget)
+ *
+ * @param enabled Limita los reintentos con el presupuesto; con false solo los limita maxRetries
+ * @param ratio Reintentos permitidos por cada llamada correcta en la ventana (0.2 = 20 %)
+ * @param minRetriesPerSecond Reintentos por segundo permitidos aunque no haya llamadas correctas;
+ *                            no se acumulan de un segundo a otro
+ * @param window Ventana en la que se cuentan llamadas correctas y reintentos (en segundos enteros)
+ */
+@ConfigurationProperties(prefix = "quotes.retry-budget")
+public record RetryBudgetProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.2") double ratio,
+        @DefaultValue("1") int minRetriesPerSecond,
+        @DefaultValue("10s") Duration window) {
+}
@@ -0,0 +1,36 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.client.RetryBudget;
+import com.josediaz.springframework7.client.RetryWithBudgetBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reintentos de los métodos anotados con @RetryWithBudget (QuoteClient.getRandomJoke), que
+ * sustituye a @Retryable de Spring Framework 7 para limitar los reintentos con un presupuesto
+ *
+ * Todos comparten un RetryBudget: con quotes.retry-budget.enabled=false solo los limita
+ * su maxRetries
+ *
+ * Métricas: retry.budget.balance, retry.budget.deposits y retry.budget.withdrawals
+ */
+@Configuration
+@EnableConfigurationProperties(RetryBudgetProperties.class)
+public class RetryConfiguration {
+
+    /**
+     * Estático: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+     */
+    @Bean
+    public static RetryWithBudgetBeanPostProcessor retryWithBudgetBeanPostProcessor() {
+        return new RetryWithBudgetBeanPostProcessor();
+    }
+
+    @Bean
+    @ConditionalOnBooleanProperty(name = "quotes.retry-budget.enabled", matchIfMissing = true)
+    public RetryBudget retryBudget(RetryBudgetProperties properties) {
+        return new RetryBudget(properties.ratio(), properties.minRetriesPerSecond(), properties.window());
+    }
+}
@@ -0,0 +1,27 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.client.SingleFlightBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Single-flight para los métodos anotados con @SingleFlight (QuoteClient)
+ *
+ * Con quotes.single-flight.enabled (activo por defecto) las llamadas concurrentes idénticas
+ * comparten una sola ejecución; la clave de cada método se configura con quotes.single-flight.*
+ *
+ * Métricas: single-flight.calls con result=executed y result=coalesced
+ */
+@Configuration
+public class SingleFlightConfiguration {
+
+    /**
+     * Estático: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+     */
+    @Bean
+    @ConditionalOnBooleanProperty(name = "quotes.single-flight.enabled", matchIfMissing = true)
+    public static SingleFlightBeanPostProcessor singleFlightBeanPostProcessor() {
+        return new SingleFlightBeanPostProcessor();
+    }
+}
@@ -1,64 +1,90 @@
 package com.josediaz.springframework7.config;
 
+import com.josediaz.springframework7.metrics.TaskMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.task.TaskDecorator;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Configuración que demuestra el uso de múltiples TaskDecorator beans
- * 
+ *
  * Nueva característica de Spring Framework 7:
  * - Puedes definir múltiples TaskDecorator beans
  * - Spring los compone automáticamente en una cadena
  * - Se aplican en el orden especificado por @Order
- * 
+ *
  * Esto elimina la necesidad de crear decoradores compuestos manualmente
+ *
+ * Los decoradores se ejecutan en cada tarea asíncrona, así que su coste se paga en cada una:
+ * la medición registra en histogramas sin bloqueos (GET /actuator/tasks) y el logging
+ * por tarea es opcional y muestreado (tasks.logging.sample-rate)
  */
 @Configuration
 public class TaskDecoratorConfiguration {
 
     private static final Logger log = LoggerFactory.getLogger(TaskDecoratorConfiguration.class);
 
+    /**
+     * Histogramas de duración por tipo de tarea
+     */
+    @Bean
+    public TaskMetrics taskMetrics() {
+        return new TaskMetrics();
+    }
+
     /**
      * TaskDecorator para logging
-     * 
+     *
      * @Order(2): Se aplica después del decorador de medición
-     * Registra el inicio y fin de cada tarea asíncrona
+     * Registra el inicio y fin de una fracción de las tareas asíncronas
+     *
+     * @param sampleRate Fracción de tareas registradas (0.0 = ninguna, 1.0 = todas); la decisión
+     *                   se toma al decorar, así las tareas no muestreadas no llevan envoltorio
      */
     @Bean
     @Order(2)
-    public TaskDecorator loggingTaskDecorator() {
-        return runnable -> () -> {
-            log.info("Running Task: {}", runnable);
-            try {
-                runnable.run();
-            } finally {
-                log.info("Finished Task: {}", runnable);
+    public TaskDecorator loggingTaskDecorator(@Value("${tasks.logging.sample-rate:0.0}") double sampleRate) {
+        if (sampleRate <= 0) {
+            return runnable -> runnable;
+        }
+        return runnable -> {
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return runnable;
             }
+            return () -> {
+                log.info("Running Task: {}", runnable);
+                final long startTime = System.nanoTime();
+                try {
+                    runnable.run();
+                } finally {
+                    log.info("Finished Task: {} within {}µs", runnable, (System.nanoTime() - startTime) / 1_000);
+                }
+            };
         };
     }
 
     /**
      * TaskDecorator para medición de tiempo
-     * 
-     * @Order(1): Se aplica primero (más externo en la cadena)
-     * Mide el tiempo de ejecución de cada tarea asíncrona
+     *
+     * @Order(1): Se aplica primero (más cerca de la tarea real)
+     * Mide con System.nanoTime() y registra la duración en el histograma del tipo de tarea
      */
     @Bean
     @Order(1)
-    public TaskDecorator measuringTaskDecorator() {
+    public TaskDecorator measuringTaskDecorator(TaskMetrics taskMetrics) {
         return runnable -> () -> {
-            final var startTime = System.currentTimeMillis();
+            final long startTime = System.nanoTime();
             try {
                 runnable.run();
             } finally {
-                final var endTime = System.currentTimeMillis();
-                log.info("Finished within {}ms (Task: {})", endTime - startTime, runnable);
+                taskMetrics.record(runnable, System.nanoTime() - startTime);
             }
         };
     }
 }
-
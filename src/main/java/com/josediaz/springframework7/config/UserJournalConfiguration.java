@@ -0,0 +1,30 @@
+package com.josediaz.springframework7.config;
+
+import com.josediaz.springframework7.service.UserJournal;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Persistencia de UserService
+ *
+ * Con users.journal.enabled los usuarios se guardan como snapshots periódicos más un WAL
+ * (UserJournal) y se recuperan al arrancar; sin él, UserService trabaja solo en memoria y
+ * vuelve a crear los usuarios de ejemplo en cada arranque
+ *
+ * Métricas: users.journal.syncs, users.journal.records, users.journal.snapshots y
+ * users.journal.wal.size
+ */
+@Configuration
+@EnableConfigurationProperties(UserJournalProperties.class)
+public class UserJournalConfiguration {
+
+    @Bean
+    @ConditionalOnBooleanProperty("users.journal.enabled")
+    public UserJournal userJournal(UserJournalProperties properties) throws IOException {
+        return new UserJournal(properties.directory(), properties.snapshotWalSize().toBytes());
+    }
+}
@@ -0,0 +1,21 @@
+package com.josediaz.springframework7.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Propiedades de la persistencia de usuarios (prefijo users.journal)
+ *
+ * @param enabled Guarda los usuarios en disco; con false solo se guardan en memoria
+ * @param directory Directorio de los segmentos del WAL (users-N.wal) y los snapshots (users-N.snap)
+ * @param snapshotWalSize Tamaño del WAL a partir del cual se escribe un snapshot (0 los desactiva)
+ */
+@ConfigurationProperties(prefix = "users.journal")
+public record UserJournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/users") Path directory,
+        @DefaultValue("16MB") DataSize snapshotWalSize) {
+}
@@ -0,0 +1,258 @@
+package com.josediaz.springframework7.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RequestMappingHandlerMapping con una tabla de despacho precalculada por versión de API
+ *
+ * Con rutas que tienen variables (/accounts/{id}) Spring compara cada petición con todos los
+ * mappings registrados, así que el coste de enrutar crece con cada handler versionado nuevo.
+ * Esta subclase reparte los mappings en tablas inmutables:
+ * - La primera petición con una versión construye la tabla de esa versión: los mappings que
+ *   la aceptan, agrupados por el primer segmento literal de su patrón ("accounts", "hello"...)
+ * - Cada petición toma la tabla de su versión (ya resuelta por Spring) y el grupo de su primer
+ *   segmento; solo esos pocos candidatos pasan por el matching de Spring, así que el resultado
+ *   (patrón, variables de URI, media types) es el mismo
+ * - Sin coincidencias, con empates, en preflight CORS o con segmentos codificados se delega
+ *   en la búsqueda de Spring, que produce las mismas respuestas de error
+ * - Registrar o eliminar mappings descarta las tablas
+ */
+public class VersionDispatchHandlerMapping extends RequestMappingHandlerMapping {
+
+    /**
+     * Clave de la tabla para peticiones sin versión
+     */
+    private static final Object NO_VERSION = new Object();
+
+    /**
+     * Solo llegan versiones ya validadas por la estrategia, así que el límite es holgado
+     */
+    private static final int MAX_VERSIONS = 64;
+
+    private final Object tableLock = new Object();
+    private volatile @Nullable DispatchTable table;
+
+    @Override
+    public void registerMapping(@NonNull RequestMappingInfo mapping, @NonNull Object handler, @NonNull Method method) {
+        super.registerMapping(mapping, handler, method);
+        invalidate();
+    }
+
+    @Override
+    public void unregisterMapping(@NonNull RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        invalidate();
+    }
+
+    @Override
+    protected void registerHandlerMethod(@NonNull Object handler, @NonNull Method method, @NonNull RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        invalidate();
+    }
+
+    @Override
+    protected @Nullable HandlerMethod lookupHandlerMethod(@NonNull String lookupPath, @NonNull HttpServletRequest request)
+            throws Exception {
+        Route[] candidates = candidates(lookupPath, request);
+        if (candidates == null) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        // Mismo orden que Spring: primero los mappings con esa ruta exacta, luego el resto
+        List<Match> matches = new ArrayList<>(2);
+        addMatches(candidates, lookupPath, request, true, matches);
+        if (matches.isEmpty()) {
+            addMatches(candidates, lookupPath, request, false, matches);
+        }
+        if (matches.isEmpty()) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        Match best = matches.getFirst();
+        if (matches.size() > 1) {
+            Comparator<RequestMappingInfo> comparator = getMappingComparator(request);
+            matches.sort((first, second) -> comparator.compare(first.mapping(), second.mapping()));
+            best = matches.getFirst();
+            if (comparator.compare(best.mapping(), matches.get(1).mapping()) == 0) {
+                return super.lookupHandlerMethod(lookupPath, request);
+            }
+        }
+        request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, best.handlerMethod());
+        handleMatch(best.mapping(), lookupPath, request);
+        return best.handlerMethod();
+    }
+
+    private Route @Nullable [] candidates(String lookupPath, HttpServletRequest request) {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return null;
+        }
+        String segment = firstSegment(lookupPath);
+        DispatchTable current = table();
+        if (segment == null || current == null) {
+            return null;
+        }
+        Object version = request.getAttribute(API_VERSION_ATTRIBUTE);
+        VersionRoutes routes = current.forVersion(version != null ? version : NO_VERSION, request);
+        return routes != null ? routes.candidates(segment) : null;
+    }
+
+    private void addMatches(Route[] routes, String lookupPath, HttpServletRequest request,
+                            boolean directPathsOnly, List<Match> matches) {
+        for (Route route : routes) {
+            if (directPathsOnly && !route.directPaths().contains(lookupPath)) {
+                continue;
+            }
+            RequestMappingInfo match = getMatchingMapping(route.mapping(), request);
+            if (match != null) {
+                matches.add(new Match(match, route.handlerMethod()));
+            }
+        }
+    }
+
+    /**
+     * Tabla actual, o null si los mappings no admiten despacho por segmento
+     * (patrones AntPathMatcher o rutas sin distinguir mayúsculas)
+     */
+    private @Nullable DispatchTable table() {
+        DispatchTable current = table;
+        if (current == null) {
+            synchronized (tableLock) {
+                current = table;
+                if (current == null) {
+                    current = buildTable();
+                    table = current;
+                }
+            }
+        }
+        return current.enabled() ? current : null;
+    }
+
+    private void invalidate() {
+        synchronized (tableLock) {
+            table = null;
+        }
+    }
+
+    private DispatchTable buildTable() {
+        PathPatternParser parser = getPatternParser();
+        if (parser == null || !parser.isCaseSensitive()) {
+            return new DispatchTable(false, List.of());
+        }
+        List<Route> routes = new ArrayList<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : getHandlerMethods().entrySet()) {
+            RequestMappingInfo mapping = entry.getKey();
+            PathPatternsRequestCondition patterns = mapping.getPathPatternsCondition();
+            if (patterns == null) {
+                return new DispatchTable(false, List.of());
+            }
+            routes.add(new Route(mapping, entry.getValue(), getDirectPaths(mapping), literalFirstSegments(patterns)));
+        }
+        return new DispatchTable(true, List.copyOf(routes));
+    }
+
+    /**
+     * Primeros segmentos de los patrones, o null si alguno no es literal ("/{id}", "/**")
+     */
+    private static @Nullable Set<String> literalFirstSegments(PathPatternsRequestCondition condition) {
+        Set<String> segments = new HashSet<>();
+        for (PathPattern pattern : condition.getPatterns()) {
+            String segment = firstSegment(pattern.getPatternString());
+            if (segment == null || segment.indexOf('{') >= 0 || segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0) {
+                return null;
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * Primer segmento de la ruta, o null si está codificado o lleva parámetros de matriz:
+     * esos casos los resuelve Spring tras decodificar
+     */
+    private static @Nullable String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        String segment = end < 0 ? path.substring(start) : path.substring(start, end);
+        return segment.indexOf('%') >= 0 || segment.indexOf(';') >= 0 ? null : segment;
+    }
+
+    private record Route(RequestMappingInfo mapping, HandlerMethod handlerMethod,
+                         Set<String> directPaths, @Nullable Set<String> segments) {
+    }
+
+    private record Match(RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+    }
+
+    private record DispatchTable(boolean enabled, List<Route> routes,
+                                 ConcurrentHashMap<Object, VersionRoutes> byVersion) {
+
+        DispatchTable(boolean enabled, List<Route> routes) {
+            this(enabled, routes, new ConcurrentHashMap<>());
+        }
+
+        /**
+         * Tabla de la versión, construida en la primera petición que la usa: la condición
+         * de versión de cada mapping se evalúa con esa petición, que ya lleva la versión resuelta
+         */
+        @Nullable VersionRoutes forVersion(Object version, HttpServletRequest request) {
+            VersionRoutes cached = byVersion.get(version);
+            if (cached == null && byVersion.size() < MAX_VERSIONS) {
+                cached = byVersion.computeIfAbsent(version, key -> VersionRoutes.of(routes, request));
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Mappings que aceptan una versión, por primer segmento literal; los patrones que empiezan
+     * con una variable están en todos los grupos
+     */
+    private record VersionRoutes(Map<String, Route[]> bySegment, Route[] anySegment) {
+
+        static VersionRoutes of(List<Route> routes, HttpServletRequest request) {
+            Map<String, List<Route>> bySegment = new HashMap<>();
+            List<Route> anySegment = new ArrayList<>();
+            for (Route route : routes) {
+                if (route.mapping().getVersionCondition().getMatchingCondition(request) == null) {
+                    continue;
+                }
+                Set<String> segments = route.segments();
+                if (segments == null) {
+                    anySegment.add(route);
+                    bySegment.values().forEach(group -> group.add(route));
+                } else {
+                    for (String segment : segments) {
+                        bySegment.computeIfAbsent(segment, key -> new ArrayList<>(anySegment)).add(route);
+                    }
+                }
+            }
+            Map<String, Route[]> table = new HashMap<>();
+            bySegment.forEach((segment, group) -> table.put(segment, group.toArray(Route[]::new)));
+            return new VersionRoutes(Map.copyOf(table), anySegment.toArray(Route[]::new));
+        }
+
+        Route[] candidates(String segment) {
+            Route[] routes = bySegment.get(segment);
+            return routes != null ? routes : anySegment;
+        }
+    }
+}
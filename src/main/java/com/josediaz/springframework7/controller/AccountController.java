@@ -1,13 +1,19 @@
 package com.josediaz.springframework7.controller;
 
 import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.model.AccountViews;
+import com.josediaz.springframework7.service.AccountJsonCache;
 import com.josediaz.springframework7.service.AccountService;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -15,58 +21,60 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final JsonMapper jsonMapper;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, JsonMapper jsonMapper) {
         this.accountService = accountService;
+        this.jsonMapper = jsonMapper;
     }
 
     // Nueva característica: Versionado de API nativo en Spring Framework 7
     // Usando el atributo 'version' directamente en las anotaciones
     
-    // Versión 1.0 - Retorna solo información básica
+    // Las tres versiones escriben el JSON de la cuenta almacenada en la vista de su versión
+    // (AccountViews), precalculado en AccountJsonCache; con If-None-Match igual al ETag
+    // Spring responde 304 sin cuerpo
+
+    // Versión 1.0 - Retorna solo información básica (sin teléfono)
     @GetMapping(path = "/{id}", version = "1.0")
-    public ResponseEntity<Account> getAccountV1_0(@PathVariable Long id) {
-        Account account = accountService.getAccountById(id);
-        if (account != null) {
-            // En v1.0, ocultamos el teléfono
-            Account response = new Account(account.getId(), account.getName(), account.getEmail(), null);
-            return ResponseEntity.ok(response);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<byte[]> getAccountV1_0(@PathVariable long id) {
+        return accountJson(id, AccountViews.V1_0.class);
     }
 
     // Versión 1.1 - Retorna información completa incluyendo teléfono
     @GetMapping(path = "/{id}", version = "1.1")
-    public ResponseEntity<Account> getAccountV1_1(@PathVariable Long id) {
-        Account account = accountService.getAccountById(id);
-        if (account != null) {
-            return ResponseEntity.ok(account);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<byte[]> getAccountV1_1(@PathVariable long id) {
+        return accountJson(id, AccountViews.V1_1.class);
     }
 
-    // Versión 2.0 - Retorna información con formato mejorado
+    // Versión 2.0 - Retorna información con formato mejorado (mismos campos que v1.1)
     @GetMapping(path = "/{id}", version = "2.0")
-    public ResponseEntity<AccountResponseV2> getAccountV2_0(@PathVariable Long id) {
-        Account account = accountService.getAccountById(id);
-        if (account != null) {
-            AccountResponseV2 response = new AccountResponseV2(
-                    account.getId(),
-                    account.getName(),
-                    account.getEmail(),
-                    account.getPhone(),
-                    account.getCreatedAt()
-            );
-            return ResponseEntity.ok(response);
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<byte[]> getAccountV2_0(@PathVariable long id) {
+        return accountJson(id, AccountViews.V1_1.class);
     }
 
     // Endpoint sin versión específica - funciona sin header cuando no hay configuración de versionado
     // Si el versionado está activo, puede requerir un header por defecto
+    // Con limit usa paginación por cursor: ?limit=50&after=<último id visto>
+    // La siguiente página se anuncia en el header Link rel="next"
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        return ResponseEntity.ok(accountService.getAllAccounts());
+    public ResponseEntity<List<Account>> getAllAccounts(
+            @RequestParam(required = false) @Nullable Integer limit,
+            @RequestParam(defaultValue = "0") long after) {
+        if (limit == null) {
+            return ResponseEntity.ok(accountService.getAllAccounts());
+        }
+        int pageSize = Paging.clampLimit(limit);
+        List<Account> page = accountService.getAccountsPage(after, pageSize);
+        long lastId = page.isEmpty() ? after : page.getLast().getId();
+        return Paging.page(page.size(), pageSize, lastId).body(page);
+    }
+
+    // Exportación NDJSON (Accept: application/x-ndjson): una cuenta por línea,
+    // escrita mientras se recorre el almacén, sin copiar la lista completa
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAccounts(@RequestParam(defaultValue = "0") long after) {
+        return Paging.ndjson(jsonMapper, accountService.streamAccounts(after));
     }
 
     @PostMapping
@@ -80,7 +88,7 @@ public class AccountController {
 
     @PutMapping("/{id}")
     public ResponseEntity<Account> updateAccount(
-            @PathVariable Long id,
+            @PathVariable long id,
             @RequestParam @NonNull String name,
             @RequestParam @NonNull String email,
             @RequestParam(required = false) @Nullable String phone) {
@@ -92,35 +100,36 @@ public class AccountController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteAccount(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteAccount(@PathVariable long id) {
         if (accountService.deleteAccount(id)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
 
-    // Clase de respuesta para la versión 2.0
-    public static class AccountResponseV2 {
-        private Long id;
-        private String name;
-        private String email;
-        private String phone;
-        private java.time.LocalDateTime createdAt;
-
-        public AccountResponseV2(Long id, String name, String email, String phone, java.time.LocalDateTime createdAt) {
-            this.id = id;
-            this.name = name;
-            this.email = email;
-            this.phone = phone;
-            this.createdAt = createdAt;
-        }
+    // Bulk: array JSON o NDJSON de operaciones create/update/delete (BulkOperation),
+    // aplicadas en lotes con un solo append al log y un solo fsync por lote.
+    // Responde 200 con un resultado por operación, en el mismo orden
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> bulk(InputStream body) {
+        return Bulk.apply(jsonMapper, body, MediaType.APPLICATION_JSON, accountService::applyBulk);
+    }
 
-        // Getters
-        public Long getId() { return id; }
-        public String getName() { return name; }
-        public String getEmail() { return email; }
-        public String getPhone() { return phone; }
-        public java.time.LocalDateTime getCreatedAt() { return createdAt; }
+    // Igual, con los resultados en NDJSON (Accept: application/x-ndjson)
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkNdjson(InputStream body) {
+        return Bulk.apply(jsonMapper, body, MediaType.APPLICATION_NDJSON, accountService::applyBulk);
     }
-}
 
+    private ResponseEntity<byte[]> accountJson(long id, Class<?> view) {
+        AccountJsonCache.CachedJson json = accountService.getAccountJson(id, view);
+        if (json == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(json.eTag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.body());
+    }
+}
@@ -0,0 +1,126 @@
+package com.josediaz.springframework7.controller;
+
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Endpoints bulk compartidos por cuentas y usuarios
+ *
+ * - Entrada: array JSON o NDJSON (una operación por línea), leídos en streaming
+ *   mientras se escribe la respuesta; nunca se guarda el cuerpo completo
+ * - Las operaciones se aplican en lotes de BATCH_SIZE, cada uno con una sola llamada al servicio
+ * - Salida: un resultado por operación y en el mismo orden, como array JSON o NDJSON según Accept;
+ *   se vuelca al terminar cada lote
+ * - Si el cuerpo deja de ser JSON válido se aplica lo leído hasta entonces y la respuesta
+ *   termina con un resultado invalid
+ * - Si el servicio falla a mitad (el 200 ya se ha enviado), la respuesta termina con un
+ *   resultado error y un documento completo; el lote que falló y los siguientes no tienen
+ *   resultado y puede que ese lote se aplicara en parte
+ */
+final class Bulk {
+
+    private static final Logger log = LoggerFactory.getLogger(Bulk.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    private Bulk() {
+    }
+
+    static @NonNull ResponseEntity<StreamingResponseBody> apply(@NonNull JsonMapper jsonMapper, @NonNull InputStream input,
+                                                                @NonNull MediaType contentType,
+                                                                @NonNull Function<List<BulkOperation>, List<BulkResult>> service) {
+        StreamingResponseBody body = out -> {
+            ResultWriter writer = new ResultWriter(jsonMapper, out, MediaType.APPLICATION_NDJSON.equals(contentType));
+            List<BulkOperation> batch = new ArrayList<>(BATCH_SIZE);
+            BulkResult last = null;
+            try {
+                // readValues recorre tanto los elementos de un array raíz como una secuencia de objetos
+                try (MappingIterator<BulkOperation> operations = jsonMapper.readerFor(BulkOperation.class).readValues(input)) {
+                    while (operations.hasNextValue()) {
+                        batch.add(operations.nextValue());
+                        if (batch.size() == BATCH_SIZE) {
+                            writer.write(service.apply(batch));
+                            batch.clear();
+                        }
+                    }
+                } catch (JacksonException e) {
+                    last = BulkResult.invalid("Malformed JSON: " + e.getOriginalMessage());
+                }
+                if (!batch.isEmpty()) {
+                    writer.write(service.apply(batch));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Bulk request failed after {} results: {}", writer.count(), e.toString());
+                last = BulkResult.error("Failed after " + writer.count() + " operations, the rest were not applied: "
+                        + e.getMessage());
+            }
+            if (last != null) {
+                writer.write(List.of(last));
+            }
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    /**
+     * Escribe los resultados como NDJSON o como los elementos de un único array JSON
+     */
+    private static final class ResultWriter {
+
+        private final JsonMapper jsonMapper;
+        private final OutputStream out;
+        private final boolean ndjson;
+        private boolean first = true;
+        private long count;
+
+        ResultWriter(JsonMapper jsonMapper, OutputStream out, boolean ndjson) {
+            this.jsonMapper = jsonMapper;
+            this.out = out;
+            this.ndjson = ndjson;
+        }
+
+        void write(List<BulkResult> results) throws IOException {
+            for (BulkResult result : results) {
+                if (ndjson) {
+                    out.write(jsonMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                } else {
+                    out.write(first ? '[' : ',');
+                    out.write(jsonMapper.writeValueAsBytes(result));
+                }
+                first = false;
+                count++;
+            }
+            out.flush();
+        }
+
+        long count() {
+            return count;
+        }
+
+        void finish() throws IOException {
+            if (!ndjson) {
+                if (first) {
+                    out.write('[');
+                }
+                out.write(']');
+            }
+        }
+    }
+}
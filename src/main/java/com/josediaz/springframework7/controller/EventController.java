@@ -2,7 +2,11 @@ package com.josediaz.springframework7.controller;
 
 import com.josediaz.springframework7.event.HelloWorldEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -27,12 +31,20 @@ public class EventController {
     /**
      * Publica un evento HelloWorldEvent
      * El listener asíncrono lo procesará y los TaskDecorator se aplicarán
+     * 
+     * Si el executor de eventos está lleno y la política es reject, responde 429
      */
     @GetMapping(value = "/hello", produces = MediaType.TEXT_PLAIN_VALUE)
-    public String publishHelloWorldEvent(@RequestParam(defaultValue = "Happy Spring Framework 7!") String message) {
+    public ResponseEntity<String> publishHelloWorldEvent(@RequestParam(defaultValue = "Happy Spring Framework 7!") String message) {
         HelloWorldEvent event = new HelloWorldEvent(message);
-        eventPublisher.publishEvent(event);
-        return "Event published: " + message;
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Event rejected: too many pending events");
+        }
+        return ResponseEntity.ok("Event published: " + message);
     }
 }
 
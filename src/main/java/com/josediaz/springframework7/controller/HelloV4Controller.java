@@ -1,6 +1,7 @@
 package com.josediaz.springframework7.controller;
 
 import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.service.JokePool;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,10 +17,10 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(path = "/hello", version = "4")
 public class HelloV4Controller {
 
-    private final QuoteClient quoteClient;
+    private final JokePool jokePool;
 
-    public HelloV4Controller(QuoteClient quoteClient) {
-        this.quoteClient = quoteClient;
+    public HelloV4Controller(JokePool jokePool) {
+        this.jokePool = jokePool;
     }
 
     /**
@@ -28,8 +29,8 @@ public class HelloV4Controller {
      */
     @GetMapping(produces = MediaType.TEXT_PLAIN_VALUE)
     public String sayHello() {
-        // Usar el cliente HTTP declarativo para obtener un chiste aleatorio de Chuck Norris
-        QuoteClient.ChuckNorrisJoke joke = this.quoteClient.getRandomJoke();
+        // El pool precarga chistes con el cliente HTTP declarativo en segundo plano
+        QuoteClient.ChuckNorrisJoke joke = this.jokePool.take();
         return joke != null ? joke.getValue() : "Hello, World!";
     }
 }
@@ -0,0 +1,62 @@
+package com.josediaz.springframework7.controller;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Utilidades compartidas por los controladores para paginación por cursor y NDJSON
+ *
+ * - Paginación keyset: el cliente envía limit y after (último id visto);
+ *   la respuesta incluye un header Link rel="next" mientras la página esté llena
+ * - NDJSON: cada elemento se serializa y escribe en cuanto se lee del almacén,
+ *   así que la memoria usada no depende del número de elementos
+ */
+final class Paging {
+
+    static final int MAX_LIMIT = 1000;
+
+    private Paging() {
+    }
+
+    static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    /**
+     * Respuesta 200 con header Link a la siguiente página si la actual está llena
+     */
+    static ResponseEntity.BodyBuilder page(int size, int limit, long lastId) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (size == limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", lastId)
+                    .toUriString();
+            builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return builder;
+    }
+
+    /**
+     * Cuerpo NDJSON que recorre el stream mientras escribe la respuesta
+     */
+    static @NonNull ResponseEntity<StreamingResponseBody> ndjson(@NonNull JsonMapper jsonMapper, @NonNull Stream<?> items) {
+        StreamingResponseBody body = out -> {
+            try (items) {
+                Iterator<?> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    out.write(jsonMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -1,27 +1,56 @@
 package com.josediaz.springframework7.controller;
 
 import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.model.CategoryJokes;
+import com.josediaz.springframework7.service.CategoryJokeService;
+import com.josediaz.springframework7.service.JokePool;
+import com.josediaz.springframework7.service.JokeStream;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador que demuestra el uso de @HttpServiceClient
  * 
  * Este controlador usa un cliente HTTP declarativo para obtener chistes de Chuck Norris
  * desde la API pública: https://api.chucknorris.io/
+ * 
+ * Los chistes aleatorios se toman del JokePool, que los precarga en segundo plano
+ * 
+ * GET /random/per-category pide un chiste por categoría en paralelo (CategoryJokeService)
+ * 
+ * GET /stream envía chistes por Server-Sent Events a todos los suscriptores (JokeStream)
  */
 @RestController
 @RequestMapping("/quotes")
 public class QuoteController {
 
+    /**
+     * Categorías por petición como máximo: llegan del cliente y cada una es una llamada remota
+     */
+    private static final int MAX_CATEGORIES = 64;
+
     private final QuoteClient quoteClient;
+    private final JokePool jokePool;
+    private final CategoryJokeService categoryJokeService;
+    private final JokeStream jokeStream;
 
-    public QuoteController(QuoteClient quoteClient) {
+    public QuoteController(QuoteClient quoteClient, JokePool jokePool, CategoryJokeService categoryJokeService,
+                           JokeStream jokeStream) {
         this.quoteClient = quoteClient;
+        this.jokePool = jokePool;
+        this.categoryJokeService = categoryJokeService;
+        this.jokeStream = jokeStream;
     }
 
     /**
@@ -30,20 +59,24 @@ public class QuoteController {
      */
     @GetMapping(value = "/random", produces = MediaType.TEXT_PLAIN_VALUE)
     public String getRandomQuote() {
-        QuoteClient.ChuckNorrisJoke joke = quoteClient.getRandomJoke();
+        QuoteClient.ChuckNorrisJoke joke = jokePool.take();
         return joke != null && joke.getValue() != null ? joke.getValue() : "No joke available";
     }
 
     /**
      * Obtiene un chiste aleatorio de Chuck Norris en formato JSON completo
+     * 
+     * Sin chiste (circuito abierto y ninguno obtenido antes) responde 503, no un cuerpo vacío
      */
     @GetMapping(value = "/random/json", produces = MediaType.APPLICATION_JSON_VALUE)
     public QuoteClient.ChuckNorrisJoke getRandomQuoteJson() {
+        QuoteClient.ChuckNorrisJoke joke;
         try {
-            return quoteClient.getRandomJoke();
+            joke = jokePool.take();
         } catch (Exception e) {
             throw new RuntimeException("Error fetching joke: " + e.getMessage(), e);
         }
+        return requireJoke(joke);
     }
 
     /**
@@ -51,10 +84,46 @@ public class QuoteController {
      */
     @GetMapping(value = "/random/category", produces = MediaType.TEXT_PLAIN_VALUE)
     public String getRandomQuoteByCategory(@RequestParam String category) {
-        QuoteClient.ChuckNorrisJoke joke = quoteClient.getRandomJokeByCategory(category);
+        QuoteClient.ChuckNorrisJoke joke = jokePool.take(category);
         return joke != null ? joke.getValue() : "No joke available for category: " + category;
     }
 
+    /**
+     * Obtiene un chiste de cada categoría (de las indicadas o, si no se indica ninguna, de todas)
+     * 
+     * Las llamadas van en paralelo, como mucho quotes.fan-out.max-parallel a la vez, y la
+     * respuesta sale al llegar todas o al vencer quotes.fan-out.deadline, con las que falten en
+     * missing. El CompletableFuture libera el hilo de la petición mientras tanto
+     * 
+     * Contra un servidor local con 6 categorías y 50 ms por llamada (QuoteFanOutBenchmark, p50):
+     * una tras otra (max-parallel=1) tarda unos 375 ms, con max-parallel=3 unos 145 ms y con
+     * max-parallel=6 unos 85 ms
+     */
+    @GetMapping(value = "/random/per-category", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<CategoryJokes> getRandomQuotePerCategory(@RequestParam(required = false) List<String> categories) {
+        if (categories != null && categories.size() > MAX_CATEGORIES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_CATEGORIES + " categories");
+        }
+        return categoryJokeService.jokesPerCategory(categories);
+    }
+
+    /**
+     * Flujo de chistes (evento "joke", JSON de ChuckNorrisJoke) cada quotes.stream.interval, con un
+     * comentario de heartbeat cada quotes.stream.heartbeat
+     * 
+     * Todos los suscriptores reciben el mismo chiste, obtenido una sola vez. La conexión queda
+     * abierta como petición asíncrona y no ocupa un hilo mientras no hay nada que enviar. Con
+     * quotes.stream.max-subscribers conexiones abiertas responde 503
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = jokeStream.subscribe();
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many stream subscribers");
+        }
+        return emitter;
+    }
+
     /**
      * Obtiene la lista de categorías disponibles
      */
@@ -63,6 +132,16 @@ public class QuoteController {
         return quoteClient.getCategories();
     }
 
+    /**
+     * El chiste, o 503 si no hay ninguno que servir
+     */
+    static QuoteClient.ChuckNorrisJoke requireJoke(QuoteClient.@Nullable ChuckNorrisJoke joke) {
+        if (joke == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No joke available");
+        }
+        return joke;
+    }
+
     /**
      * Endpoint de prueba para verificar que el controlador funciona
      */
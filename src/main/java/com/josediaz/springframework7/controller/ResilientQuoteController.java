@@ -10,9 +10,9 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * Controlador que demuestra el uso de anotaciones de resiliencia
  * 
- * Este controlador usa ResilientQuoteService que tiene métodos anotados con
- * @Retryable y @ConcurrencyLimit para demostrar las nuevas características
- * de resiliencia de Spring Framework 7
+ * Este controlador usa ResilientQuoteService, con métodos anotados con
+ * @AdaptiveConcurrencyLimit, sobre QuoteClient, que reintenta con @RetryWithBudget, para
+ * demostrar reintentos y límites de concurrencia sobre los proxies AOP de Spring Framework 7
  */
 @RestController
 @RequestMapping("/resilient-quotes")
@@ -25,15 +25,17 @@ public class ResilientQuoteController {
     }
 
     /**
-     * Endpoint que usa @Retryable para reintentar automáticamente
+     * Endpoint cuyas llamadas remotas se reintentan automáticamente (@RetryWithBudget de QuoteClient)
+     * 
+     * Como /quotes/random/json, responde 503 si no hay ningún chiste que servir
      */
     @GetMapping(value = "/random", produces = MediaType.APPLICATION_JSON_VALUE)
     public QuoteClient.ChuckNorrisJoke getRandomJokeWithRetry() {
-        return resilientQuoteService.getRandomJokeWithRetry();
+        return QuoteController.requireJoke(resilientQuoteService.getRandomJokeWithRetry());
     }
 
     /**
-     * Endpoint que usa @ConcurrencyLimit para limitar llamadas concurrentes
+     * Endpoint que usa @AdaptiveConcurrencyLimit para limitar llamadas concurrentes
      */
     @GetMapping(value = "/categories", produces = MediaType.APPLICATION_JSON_VALUE)
     public String[] getCategoriesWithLimit() {
@@ -41,11 +43,11 @@ public class ResilientQuoteController {
     }
 
     /**
-     * Endpoint que combina ambas anotaciones de resiliencia
+     * Endpoint que combina el límite de concurrencia con los reintentos; 503 si no hay ningún chiste
      */
     @GetMapping(value = "/random-resilient", produces = MediaType.APPLICATION_JSON_VALUE)
     public QuoteClient.ChuckNorrisJoke getRandomJokeResilient() {
-        return resilientQuoteService.getRandomJokeResilient();
+        return QuoteController.requireJoke(resilientQuoteService.getRandomJokeResilient());
     }
 }
 
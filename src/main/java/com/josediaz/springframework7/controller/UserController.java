@@ -4,10 +4,15 @@ import com.josediaz.springframework7.service.UserService;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
 import java.util.Map;
+import java.util.SequencedMap;
 
 /**
  * Controlador que demuestra el uso de JSpecify para null safety
@@ -23,19 +28,43 @@ import java.util.Map;
 public class UserController {
 
     private final @NonNull UserService userService;
+    private final @NonNull JsonMapper jsonMapper;
 
-    public UserController(@NonNull UserService userService) {
+    public UserController(@NonNull UserService userService, @NonNull JsonMapper jsonMapper) {
         this.userService = userService;
+        this.jsonMapper = jsonMapper;
     }
 
     /**
-     * Obtiene todos los usuarios
+     * Obtiene todos los usuarios, o una página si se indica limit
      * 
-     * @return Lista de usuarios (nunca null)
+     * @param limit Tamaño de página (opcional, máximo 1000)
+     * @param after Cursor: último id visto (exclusivo)
+     * @return Usuarios ordenados por id (nunca null); con limit incluye header Link rel="next"
      */
     @GetMapping
-    public @NonNull ResponseEntity<Map<Long, UserService.User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public @NonNull ResponseEntity<Map<Long, UserService.User>> getAllUsers(
+            @RequestParam(required = false) @Nullable Integer limit,
+            @RequestParam(defaultValue = "0") long after) {
+        if (limit == null) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        int pageSize = Paging.clampLimit(limit);
+        SequencedMap<Long, UserService.User> page = userService.getUsersPage(after, pageSize);
+        long lastId = page.isEmpty() ? after : page.sequencedKeySet().getLast();
+        return Paging.page(page.size(), pageSize, lastId).body(page);
+    }
+
+    /**
+     * Exporta usuarios en NDJSON (Accept: application/x-ndjson)
+     * 
+     * Cada usuario se escribe en cuanto se lee, sin copiar el mapa completo
+     * 
+     * @param after Cursor: último id visto (exclusivo)
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public @NonNull ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(defaultValue = "0") long after) {
+        return Paging.ndjson(jsonMapper, userService.streamUsers(after));
     }
 
     /**
@@ -59,15 +88,19 @@ public class UserController {
      * @param name Nombre (requerido)
      * @param email Email (requerido)
      * @param phone Teléfono (opcional)
-     * @return Usuario creado
+     * @return Usuario creado, 409 si el email ya está registrado
      */
     @PostMapping
     public @NonNull ResponseEntity<UserService.User> createUser(
             @RequestParam @NonNull String name,
             @RequestParam @NonNull String email,
             @RequestParam(required = false) @Nullable String phone) {
-        UserService.User user = userService.createUser(name, email, phone);
-        return ResponseEntity.status(HttpStatus.CREATED).body(user);
+        try {
+            UserService.User user = userService.createUser(name, email, phone);
+            return ResponseEntity.status(HttpStatus.CREATED).body(user);
+        } catch (UserService.DuplicateEmailException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     /**
@@ -77,7 +110,7 @@ public class UserController {
      * @param name Nuevo nombre
      * @param email Nuevo email
      * @param phone Nuevo teléfono (opcional)
-     * @return Usuario actualizado o 404 si no existe
+     * @return Usuario actualizado, 404 si no existe, 409 si el email pertenece a otro usuario
      */
     @PutMapping("/{id}")
     public ResponseEntity<UserService.User> updateUser(
@@ -85,11 +118,15 @@ public class UserController {
             @RequestParam @NonNull String name,
             @RequestParam @NonNull String email,
             @RequestParam(required = false) @Nullable String phone) {
-        UserService.User user = userService.updateUser(id, name, email, phone);
-        if (user != null) {
-            return ResponseEntity.ok(user);
+        try {
+            UserService.User user = userService.updateUser(id, name, email, phone);
+            if (user != null) {
+                return ResponseEntity.ok(user);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (UserService.DuplicateEmailException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-        return ResponseEntity.notFound().build();
     }
 
     /**
@@ -107,7 +144,29 @@ public class UserController {
     }
 
     /**
-     * Busca un usuario por email
+     * Aplica operaciones create/update/delete en bloque
+     * 
+     * El cuerpo es un array JSON o NDJSON de BulkOperation; se aplican en lotes, cada uno con
+     * una sola toma de locks y un solo fsync del journal
+     * 
+     * @return 200 con un resultado por operación, en el mismo orden
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public @NonNull ResponseEntity<StreamingResponseBody> bulk(@NonNull InputStream body) {
+        return Bulk.apply(jsonMapper, body, MediaType.APPLICATION_JSON, userService::applyBulk);
+    }
+
+    /**
+     * Igual que bulk, con los resultados en NDJSON (Accept: application/x-ndjson)
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public @NonNull ResponseEntity<StreamingResponseBody> bulkNdjson(@NonNull InputStream body) {
+        return Bulk.apply(jsonMapper, body, MediaType.APPLICATION_NDJSON, userService::applyBulk);
+    }
+
+    /**
+     * Busca un usuario por email (sin distinguir mayúsculas)
      * 
      * @param email Email del usuario
      * @return Usuario si existe, 404 si no existe
@@ -0,0 +1,22 @@
+package com.josediaz.springframework7.event;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.List;
+
+/**
+ * Listener que recibe eventos agrupados en micro-lotes en lugar de uno a uno
+ *
+ * EventBatcher entrega cada lote en una sola tarea del executor de eventos, así el cambio
+ * de hilo y la cadena de TaskDecorator se pagan una vez por lote y no una vez por evento
+ *
+ * @param <E> Tipo de evento
+ */
+@FunctionalInterface
+public interface BatchEventListener<E> {
+
+    /**
+     * Procesa un lote de eventos en orden de publicación (nunca vacío)
+     */
+    void onEvents(@NonNull List<E> events);
+}
@@ -0,0 +1,287 @@
+package com.josediaz.springframework7.event;
+
+import com.josediaz.springframework7.config.EventExecutorProperties.RejectionPolicy;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.GenericApplicationListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa eventos publicados con ApplicationEventPublisher en micro-lotes y los entrega
+ * a los BatchEventListener en una sola tarea del executor por lote
+ *
+ * - publishEvent() solo encola el evento (cola acotada de queueCapacity)
+ * - Un hilo de agrupación cierra el lote al llegar a maxSize eventos o cuando pasa
+ *   linger desde el primer evento, lo que ocurra antes
+ * - Con la cola llena se aplica la misma política de rechazo que el executor de eventos,
+ *   evento a evento: caller-runs entrega el evento en el hilo que publica, drop-oldest
+ *   descarta el evento más antiguo y reject lanza TaskRejectedException
+ * - Un lote nunca se descarta: si el executor lo rechaza, lo entrega el propio hilo de
+ *   agrupación, que mientras tanto no vacía la cola; así la presión llega hasta quien publica
+ *
+ * - Antes de start() y después de stop() no hay hilo de agrupación: cada evento se envía al
+ *   executor como un lote de uno (pasando por su TaskDecorator, como el resto), y solo si lo
+ *   rechaza se entrega en el hilo que publica
+ *
+ * unbatched() crea un EventBatcher sin cola ni hilo de agrupación: cada evento es una tarea
+ * del executor y la política de rechazo del executor se aplica a cada evento
+ *
+ * Los listeners @EventListener de un solo evento siguen recibiendo los eventos como siempre
+ *
+ * Métricas: events.batch.size, events.batch.queue.depth y events.batch.rejected
+ *
+ * @param <E> Tipo de evento (el payload publicado)
+ */
+public class EventBatcher<E> implements GenericApplicationListener, SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBatcher.class);
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Class<E> eventType;
+    private final Supplier<List<BatchEventListener<E>>> listenersSupplier;
+    private final Executor executor;
+    private final int maxSize;
+    private final long lingerNanos;
+    private final RejectionPolicy rejectionPolicy;
+    private final BlockingQueue<E> queue;
+    private final boolean batching;
+
+    private final LongAdder rejected = new LongAdder();
+    private volatile @Nullable DistributionSummary batchSizes;
+
+    private volatile @Nullable List<BatchEventListener<E>> listeners;
+    private volatile boolean running;
+    private @Nullable Thread flusher;
+
+    public EventBatcher(@NonNull Class<E> eventType,
+                        @NonNull Supplier<List<BatchEventListener<E>>> listeners,
+                        @NonNull Executor executor,
+                        int maxSize, @NonNull Duration linger, int queueCapacity,
+                        @NonNull RejectionPolicy rejectionPolicy) {
+        this(eventType, listeners, executor, maxSize, linger, queueCapacity, rejectionPolicy, true);
+    }
+
+    private EventBatcher(Class<E> eventType, Supplier<List<BatchEventListener<E>>> listeners, Executor executor,
+                         int maxSize, Duration linger, int queueCapacity, RejectionPolicy rejectionPolicy,
+                         boolean batching) {
+        if (maxSize < 1 || queueCapacity < 1 || linger.isNegative()) {
+            throw new IllegalArgumentException("Invalid batch settings: maxSize=" + maxSize
+                    + ", linger=" + linger + ", queueCapacity=" + queueCapacity);
+        }
+        this.eventType = eventType;
+        this.listenersSupplier = listeners;
+        this.executor = executor;
+        this.maxSize = maxSize;
+        this.lingerNanos = linger.toNanos();
+        this.rejectionPolicy = rejectionPolicy;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batching = batching;
+    }
+
+    /**
+     * Sin agrupar: cada evento se envía al executor como una tarea con un solo evento, y el
+     * rechazo lo decide la política del executor (TaskRejectedException llega a quien publica)
+     */
+    public static <E> @NonNull EventBatcher<E> unbatched(@NonNull Class<E> eventType,
+                                                         @NonNull Supplier<List<BatchEventListener<E>>> listeners,
+                                                         @NonNull Executor executor,
+                                                         @NonNull RejectionPolicy rejectionPolicy) {
+        return new EventBatcher<>(eventType, listeners, executor, 1, Duration.ZERO, 1, rejectionPolicy, false);
+    }
+
+    @Override
+    public boolean supportsEventType(@NonNull ResolvableType type) {
+        if (!PayloadApplicationEvent.class.isAssignableFrom(type.toClass())) {
+            return false;
+        }
+        Class<?> payloadType = type.as(PayloadApplicationEvent.class).getGeneric().resolve();
+        return payloadType == null || eventType.isAssignableFrom(payloadType);
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationEvent event) {
+        if (event instanceof PayloadApplicationEvent<?> payloadEvent && eventType.isInstance(payloadEvent.getPayload())) {
+            publish(eventType.cast(payloadEvent.getPayload()));
+        }
+    }
+
+    /**
+     * Encola un evento para el siguiente lote
+     *
+     * @throws TaskRejectedException si la cola está llena y la política es reject
+     */
+    public void publish(@NonNull E event) {
+        if (!batching && running) {
+            List<E> single = List.of(event);
+            executor.execute(() -> deliver(single));
+            return;
+        }
+        if (!running) {
+            // Antes de start() o durante el cierre: sin agrupar, pero sigue siendo asíncrono
+            submit(List.of(event));
+            return;
+        }
+        while (!queue.offer(event)) {
+            rejected.increment();
+            switch (rejectionPolicy) {
+                case CALLER_RUNS -> {
+                    deliver(List.of(event));
+                    return;
+                }
+                case DROP_OLDEST -> queue.poll();
+                case REJECT -> throw new TaskRejectedException(
+                        "Event batch queue is full (" + queue.size() + " pending events)");
+            }
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void start() {
+        listeners = List.copyOf(listenersSupplier.get());
+        running = true;
+        if (!batching) {
+            return;
+        }
+        Thread thread = Thread.ofPlatform().daemon().name("event-batcher-" + eventType.getSimpleName())
+                .unstarted(this::flushLoop);
+        flusher = thread;
+        thread.start();
+    }
+
+    /**
+     * Detiene el hilo de agrupación después de enviar los eventos pendientes
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Se detiene antes que el executor de eventos, así los últimos lotes aún tienen dónde ejecutarse
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("events.batch.size")
+                .tag("event", eventType.getSimpleName())
+                .description("Eventos por lote entregado")
+                .register(registry);
+        Gauge.builder("events.batch.queue.depth", queue, BlockingQueue::size)
+                .tag("event", eventType.getSimpleName())
+                .description("Eventos pendientes de agrupar")
+                .register(registry);
+        FunctionCounter.builder("events.batch.rejected", rejected, LongAdder::sum)
+                .tag("event", eventType.getSimpleName())
+                .tag("policy", rejectionPolicy.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                .description("Eventos que encontraron llena la cola de agrupación")
+                .register(registry);
+    }
+
+    private void flushLoop() {
+        List<E> batch = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                E first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxSize) {
+                    queue.drainTo(batch, maxSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxSize || remaining <= 0) {
+                        break;
+                    }
+                    E next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrumpe la espera de linger: se envía lo pendiente sin esperar más
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                submit(List.copyOf(batch));
+                batch.clear();
+            }
+        }
+    }
+
+    private void submit(List<E> batch) {
+        try {
+            // TaskRejectedException también es una RejectedExecutionException
+            executor.execute(() -> deliver(batch));
+        } catch (RejectedExecutionException e) {
+            // Executor saturado o cerrado: el lote se entrega aquí y la cola se llena mientras tanto
+            deliver(batch);
+        }
+    }
+
+    private void deliver(List<E> batch) {
+        DistributionSummary summary = batchSizes;
+        if (summary != null) {
+            summary.record(batch.size());
+        }
+        List<BatchEventListener<E>> current = listeners;
+        for (BatchEventListener<E> listener : current != null ? current : listenersSupplier.get()) {
+            try {
+                listener.onEvents(batch);
+            } catch (RuntimeException e) {
+                log.warn("Batch listener {} failed on {} events: {}", listener, batch.size(), e.getMessage());
+            }
+        }
+    }
+}
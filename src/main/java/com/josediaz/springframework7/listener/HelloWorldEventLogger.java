@@ -1,31 +1,36 @@
 package com.josediaz.springframework7.listener;
 
+import com.josediaz.springframework7.event.BatchEventListener;
 import com.josediaz.springframework7.event.HelloWorldEvent;
+import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Listener asíncrono que demuestra el uso de múltiples TaskDecorator beans
- * 
+ *
  * Los TaskDecorator se aplican automáticamente a las tareas asíncronas
  * en el orden especificado por @Order
+ *
+ * EventBatcher le entrega los eventos en eventTaskExecutor: en lotes con events.batch.enabled
+ * (una tarea por lote) o de uno en uno si no
  */
 @Component
-public class HelloWorldEventLogger {
+public class HelloWorldEventLogger implements BatchEventListener<HelloWorldEvent> {
 
     private static final Logger log = LoggerFactory.getLogger(HelloWorldEventLogger.class);
 
     /**
-     * Escucha eventos HelloWorldEvent de forma asíncrona
-     * Los TaskDecorator se aplicarán automáticamente a esta tarea
+     * Procesa un lote de HelloWorldEvent en una sola tarea del executor de eventos
+     * Los TaskDecorator se aplican automáticamente a esta tarea
      */
-    @Async
-    @EventListener
-    public void logHelloWorldEvent(HelloWorldEvent event) {
-        log.info("Hello World Event: {}", event.message());
+    @Override
+    public void onEvents(@NonNull List<HelloWorldEvent> events) {
+        for (HelloWorldEvent event : events) {
+            log.info("Hello World Event: {}", event.message());
+        }
     }
 }
-
@@ -0,0 +1,93 @@
+package com.josediaz.springframework7.metrics;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin bloqueos, con buckets log-lineales al estilo HdrHistogram
+ *
+ * - Cada potencia de dos se divide en 32 sub-buckets: el error relativo es menor del 3%
+ *   para cualquier valor, de nanosegundos a horas, con ~1900 contadores fijos
+ * - record() solo hace incrementos atómicos: no hay locks ni reservas de memoria
+ * - snapshot() copia los contadores sin detener a quien registra; el resultado puede
+ *   mezclar registros en curso, suficiente para percentiles
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra una duración en nanosegundos (los valores negativos cuentan como 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public @NonNull Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long maxNanos = max.get();
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+        return new Snapshot(count,
+                (double) total.sum() / count,
+                percentile(copy, count, 0.50, maxNanos),
+                percentile(copy, count, 0.90, maxNanos),
+                percentile(copy, count, 0.99, maxNanos),
+                percentile(copy, count, 0.999, maxNanos),
+                maxNanos);
+    }
+
+    static int bucketIndex(long value) {
+        int shift = Math.max(0, (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Mayor valor que cae en el bucket (el percentil nunca se subestima)
+     */
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long base = index - (long) shift * SUB_BUCKETS;
+        return ((base + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long count, double percentile, long maxNanos) {
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Percentiles de un histograma en nanosegundos
+     */
+    public record Snapshot(long count, double meanNanos, long p50Nanos, long p90Nanos,
+                           long p99Nanos, long p999Nanos, long maxNanos) {
+    }
+}
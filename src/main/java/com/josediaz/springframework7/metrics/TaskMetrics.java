@@ -0,0 +1,66 @@
+package com.josediaz.springframework7.metrics;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Histogramas de duración de tareas asíncronas por tipo de tarea
+ *
+ * El tipo es el nombre de la clase de la tarea sin el sufijo de lambda
+ * (por ejemplo EventBatcher, JokePool$Pool o FutureTask para métodos @Async);
+ * se calcula una sola vez por clase
+ */
+public class TaskMetrics {
+
+    /**
+     * Límite de tipos distintos; el resto se agrupa en "other"
+     */
+    private static final int MAX_TASK_TYPES = 256;
+    private static final String OTHER = "other";
+
+    private static final ClassValue<String> TASK_TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            if (lambda >= 0) {
+                name = name.substring(0, lambda);
+            }
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+    };
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Registra la duración de una tarea en el histograma de su tipo
+     */
+    public void record(@NonNull Runnable task, long nanos) {
+        record(TASK_TYPES.get(task.getClass()), nanos);
+    }
+
+    public void record(@NonNull String taskType, long nanos) {
+        histogram(taskType).record(nanos);
+    }
+
+    /**
+     * Percentiles de cada tipo de tarea, ordenados por tipo
+     */
+    public @NonNull Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> snapshot = new TreeMap<>();
+        histograms.forEach((type, histogram) -> snapshot.put(type, histogram.snapshot()));
+        return snapshot;
+    }
+
+    private LatencyHistogram histogram(String taskType) {
+        LatencyHistogram histogram = histograms.get(taskType);
+        if (histogram != null) {
+            return histogram;
+        }
+        String key = histograms.size() < MAX_TASK_TYPES ? taskType : OTHER;
+        return histograms.computeIfAbsent(key, type -> new LatencyHistogram());
+    }
+}
@@ -0,0 +1,46 @@
+package com.josediaz.springframework7.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de Actuator con los percentiles de duración de las tareas asíncronas
+ *
+ * GET /actuator/tasks → { "EventBatcher": { "count": ..., "p50Micros": ..., ... }, ... }
+ */
+@Component
+@Endpoint(id = "tasks")
+public class TaskMetricsEndpoint {
+
+    private final TaskMetrics taskMetrics;
+
+    public TaskMetricsEndpoint(TaskMetrics taskMetrics) {
+        this.taskMetrics = taskMetrics;
+    }
+
+    @ReadOperation
+    public @NonNull Map<String, TaskLatency> tasks() {
+        Map<String, TaskLatency> tasks = new LinkedHashMap<>();
+        taskMetrics.snapshot().forEach((type, snapshot) -> tasks.put(type, TaskLatency.of(snapshot)));
+        return tasks;
+    }
+
+    /**
+     * Percentiles en microsegundos
+     */
+    public record TaskLatency(long count, double meanMicros, double p50Micros, double p90Micros,
+                              double p99Micros, double p999Micros, double maxMicros) {
+
+        static TaskLatency of(LatencyHistogram.Snapshot snapshot) {
+            return new TaskLatency(snapshot.count(), snapshot.meanNanos() / 1_000.0,
+                    snapshot.p50Nanos() / 1_000.0, snapshot.p90Nanos() / 1_000.0,
+                    snapshot.p99Nanos() / 1_000.0, snapshot.p999Nanos() / 1_000.0,
+                    snapshot.maxNanos() / 1_000.0);
+        }
+    }
+}
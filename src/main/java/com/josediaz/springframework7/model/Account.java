@@ -1,15 +1,22 @@
 package com.josediaz.springframework7.model;
 
+import com.fasterxml.jackson.annotation.JsonView;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
 import java.time.LocalDateTime;
 
 public class Account {
+    // Sin vista activa (listados, POST, PUT) se serializan todos los campos
+    @JsonView(AccountViews.V1_0.class)
     private Long id;
+    @JsonView(AccountViews.V1_0.class)
     private @NonNull String name;
+    @JsonView(AccountViews.V1_0.class)
     private @NonNull String email;
+    @JsonView(AccountViews.V1_1.class)
     private @Nullable String phone;
+    @JsonView(AccountViews.V1_0.class)
     private LocalDateTime createdAt;
 
     public Account() {
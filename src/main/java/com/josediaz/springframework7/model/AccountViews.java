@@ -0,0 +1,21 @@
+package com.josediaz.springframework7.model;
+
+/**
+ * Vistas JSON de Account por versión de API
+ *
+ * Cada versión hereda los campos de la anterior; AccountJsonCache serializa la cuenta almacenada
+ * con la vista de cada versión, sin copiarla a un DTO
+ * - V1_0: id, nombre, email y fecha de alta
+ * - V1_1: añade el teléfono; v2.0 tiene los mismos campos y la usa también
+ */
+public final class AccountViews {
+
+    private AccountViews() {
+    }
+
+    public interface V1_0 {
+    }
+
+    public interface V1_1 extends V1_0 {
+    }
+}
@@ -0,0 +1,69 @@
+package com.josediaz.springframework7.model;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Una operación de POST /accounts/bulk o POST /users/bulk
+ *
+ * - create: name y email obligatorios, phone opcional
+ * - update: id, name y email obligatorios, phone opcional (null lo borra, como en PUT)
+ * - delete: id obligatorio
+ * - name, email y phone no pueden superar juntos MAX_TEXT_BYTES en UTF-8
+ *
+ * @param op create, update o delete
+ */
+public record BulkOperation(
+        @Nullable String op,
+        @Nullable Long id,
+        @Nullable String name,
+        @Nullable String email,
+        @Nullable String phone) {
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    /**
+     * Bytes UTF-8 de name, email y phone juntos; por debajo del registro más grande que aceptan
+     * LogAccountStorage y UserJournal (16 MB), así una operación válida siempre se puede guardar
+     */
+    public static final int MAX_TEXT_BYTES = 1 << 20;
+
+    /**
+     * Motivo por el que la operación no se puede aplicar, null si es válida
+     */
+    public @Nullable String validate() {
+        if (op == null) {
+            return "Missing op";
+        }
+        String error = switch (op) {
+            case CREATE -> name == null || email == null ? "create requires name and email" : null;
+            case UPDATE -> id == null || name == null || email == null ? "update requires id, name and email" : null;
+            case DELETE -> id == null ? "delete requires id" : null;
+            default -> "Unknown op: " + op;
+        };
+        if (error == null && !DELETE.equals(op) && textBytes() > MAX_TEXT_BYTES) {
+            return "name, email and phone exceed " + MAX_TEXT_BYTES + " bytes";
+        }
+        return error;
+    }
+
+    private long textBytes() {
+        // Cota superior barata (3 bytes por char); solo se codifica si puede pasarse
+        long upperBound = 3L * (length(name) + length(email) + length(phone));
+        if (upperBound <= MAX_TEXT_BYTES) {
+            return upperBound;
+        }
+        return utf8Length(name) + utf8Length(email) + utf8Length(phone);
+    }
+
+    private static int length(@Nullable String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static long utf8Length(@Nullable String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+}
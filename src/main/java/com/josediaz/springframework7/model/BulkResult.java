@@ -0,0 +1,62 @@
+package com.josediaz.springframework7.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Resultado de una operación de un lote; las respuestas bulk los devuelven en el mismo orden
+ * que las operaciones
+ *
+ * @param id Id afectado (el asignado en create), null si la operación no era válida
+ * @param error Motivo del fallo, solo con los estados conflict, invalid y error
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkResult(@NonNull Status status, @Nullable Long id, @Nullable String error) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, INVALID,
+
+        /**
+         * Último resultado de una respuesta cortada por un fallo del servicio: el resto de
+         * operaciones no se aplicó
+         */
+        ERROR;
+
+        @JsonValue
+        public String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public static @NonNull BulkResult created(long id) {
+        return new BulkResult(Status.CREATED, id, null);
+    }
+
+    public static @NonNull BulkResult updated(long id) {
+        return new BulkResult(Status.UPDATED, id, null);
+    }
+
+    public static @NonNull BulkResult deleted(long id) {
+        return new BulkResult(Status.DELETED, id, null);
+    }
+
+    public static @NonNull BulkResult notFound(long id) {
+        return new BulkResult(Status.NOT_FOUND, id, null);
+    }
+
+    public static @NonNull BulkResult conflict(@Nullable Long id, @NonNull String error) {
+        return new BulkResult(Status.CONFLICT, id, error);
+    }
+
+    public static @NonNull BulkResult invalid(@NonNull String error) {
+        return new BulkResult(Status.INVALID, null, error);
+    }
+
+    public static @NonNull BulkResult error(@NonNull String error) {
+        return new BulkResult(Status.ERROR, null, error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.josediaz.springframework7.model;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Un chiste por categoría, en el orden pedido
+ *
+ * @param jokes Texto del chiste de cada categoría que respondió a tiempo
+ * @param missing Categorías que fallaron o no respondieron antes del plazo
+ * @param elapsedMillis Tiempo total de la petición, incluido obtener las categorías si no se indicaron
+ */
+public record CategoryJokes(@NonNull Map<String, String> jokes, @NonNull List<String> missing, long elapsedMillis) {
+}
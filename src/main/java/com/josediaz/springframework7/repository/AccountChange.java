@@ -0,0 +1,12 @@
+package com.josediaz.springframework7.repository;
+
+import com.josediaz.springframework7.model.Account;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Un cambio de un lote de AccountStorage.appendAll
+ *
+ * @param account Versión nueva de la cuenta (alta o actualización), null si se borra
+ */
+public record AccountChange(long id, @Nullable Account account) {
+}
@@ -0,0 +1,200 @@
+package com.josediaz.springframework7.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Índice id → registro del log de cuentas, en un fichero mapeado en memoria
+ *
+ * Los ids son secuenciales, así que la entrada de cada id está en una posición fija
+ * (HEADER + id * 8) y buscarla es O(1), tanto al arrancar como en cada lectura:
+ * - 0: id sin registros
+ * - TOMBSTONE: cuenta borrada (el id sigue reservado)
+ * - (offset << 24) | longitud: último registro de la cuenta en el log
+ *
+ * La cabecera guarda la generación del log al que pertenece el índice y un checkpoint:
+ * todas las entradas de registros anteriores al checkpoint están en disco, así que al abrir
+ * solo se reaplica el log a partir de ahí. El fichero se mapea en tramos de 8 MB que se añaden
+ * según crecen los ids. Un solo hilo escribe a la vez (el líder de sync o la compactación);
+ * las lecturas no toman locks
+ */
+final class AccountIndexFile implements Closeable {
+
+    static final long TOMBSTONE = -1L;
+    static final int MAX_RECORD_LENGTH = (1 << 24) - 1;
+
+    private static final int MAGIC = 0x41434958; // "ACIX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int CHECKPOINT_OFFSET = 16;
+    private static final int LENGTH_BITS = 24;
+    private static final int CHUNK_SHIFT = 20;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    private static final long CHUNK_BYTES = (1L << CHUNK_SHIFT) * Long.BYTES;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] chunks;
+
+    private AccountIndexFile(FileChannel channel, MappedByteBuffer header, MappedByteBuffer[] chunks) {
+        this.channel = channel;
+        this.header = header;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Abre el índice del log con esa generación; si no existe o es de otro log
+     * se crea vacío con checkpoint 0 (hay que reaplicar el log completo)
+     */
+    static AccountIndexFile open(Path path, long generation) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            boolean valid = size >= HEADER;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            valid = valid && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getLong(GENERATION_OFFSET) == generation;
+            if (!valid) {
+                channel.truncate(HEADER);
+                header.putInt(0, MAGIC).putInt(4, VERSION).putLong(GENERATION_OFFSET, generation).putLong(CHECKPOINT_OFFSET, 0);
+                header.force();
+                size = HEADER;
+            }
+            int chunkCount = (int) ((size - HEADER + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = map(channel, i);
+            }
+            return new AccountIndexFile(channel, header, chunks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Crea un índice vacío nuevo, sustituyendo el fichero si existe
+     */
+    static AccountIndexFile create(Path path, long generation) throws IOException {
+        Files.deleteIfExists(path);
+        return open(path, generation);
+    }
+
+    static long entry(long offset, int length) {
+        return offset << LENGTH_BITS | length;
+    }
+
+    static long offset(long entry) {
+        return entry >>> LENGTH_BITS;
+    }
+
+    static int length(long entry) {
+        return (int) (entry & MAX_RECORD_LENGTH);
+    }
+
+    static boolean isLive(long entry) {
+        return entry > 0;
+    }
+
+    long get(long id) {
+        MappedByteBuffer[] current = chunks;
+        long chunk = id >>> CHUNK_SHIFT;
+        if (id < 0 || chunk >= current.length) {
+            return 0;
+        }
+        return (long) LONGS.getAcquire(current[(int) chunk], (int) ((id & CHUNK_MASK) << 3));
+    }
+
+    /**
+     * Escribe la entrada de un id
+     *
+     * @return Entrada anterior
+     */
+    long set(long id, long entry) throws IOException {
+        MappedByteBuffer chunk = chunk((int) (id >>> CHUNK_SHIFT));
+        int index = (int) ((id & CHUNK_MASK) << 3);
+        long previous = (long) LONGS.getAcquire(chunk, index);
+        LONGS.setRelease(chunk, index, entry);
+        return previous;
+    }
+
+    /**
+     * Offset del log hasta el que el índice está en disco
+     */
+    long checkpoint() {
+        return header.getLong(CHECKPOINT_OFFSET);
+    }
+
+    /**
+     * Lleva las entradas a disco y después registra logPosition como checkpoint
+     */
+    void checkpoint(long logPosition) {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.putLong(CHECKPOINT_OFFSET, logPosition);
+        header.force();
+    }
+
+    /**
+     * Recorre el índice completo: id más alto con entrada, cuentas vivas y bytes que ocupan en el log
+     */
+    Summary summarize() {
+        long maxId = 0;
+        long live = 0;
+        long liveBytes = 0;
+        MappedByteBuffer[] current = chunks;
+        for (int c = 0; c < current.length; c++) {
+            MappedByteBuffer chunk = current[c];
+            for (int i = 0; i < chunk.capacity(); i += Long.BYTES) {
+                long entry = chunk.getLong(i);
+                if (entry == 0) {
+                    continue;
+                }
+                maxId = ((long) c << CHUNK_SHIFT) + (i >>> 3);
+                if (isLive(entry)) {
+                    live++;
+                    liveBytes += length(entry);
+                }
+            }
+        }
+        return new Summary(maxId, live, liveBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer chunk(int index) throws IOException {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i <= index; i++) {
+            grown[i] = map(channel, i);
+        }
+        chunks = grown;
+        return grown[index];
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, int chunk) throws IOException {
+        // Mapear más allá del final amplía el fichero (con ceros: ids sin registros)
+        return channel.map(FileChannel.MapMode.READ_WRITE, HEADER + chunk * CHUNK_BYTES, CHUNK_BYTES);
+    }
+
+    record Summary(long maxId, long live, long liveBytes) {
+    }
+}
@@ -0,0 +1,528 @@
+package com.josediaz.springframework7.repository;
+
+import com.josediaz.springframework7.model.Account;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Almacén concurrente de cuentas indexado por un id primitivo long
+ *
+ * Los ids se asignan de forma atómica y secuencial, así que cada cuenta vive
+ * en la posición de su id dentro de páginas AtomicReferenceArray:
+ * - Búsquedas O(1) sin bloqueos y sin boxing del id
+ * - Actualizaciones y borrados atómicos con compareAndSet
+ * - Solo la creación de una página nueva toma un lock (una vez cada PAGE_SIZE ids)
+ *
+ * Con un AccountStorage (accounts.storage.enabled) los datos sobreviven a un reinicio:
+ * - Las escrituras se registran en el log con un lock, así que el orden del log es el de
+ *   memoria, y esperan al sync del almacenamiento (group commit) sin el lock
+ * - Una escritura solo se publica en memoria cuando es durable, en orden de secuencia; hasta
+ *   entonces las lecturas ven la versión anterior y solo las escrituras siguientes ven la nueva.
+ *   Si su sync falla, se publica cuando un sync posterior la hace durable
+ * - Al arrancar no se carga nada: cada cuenta se lee del almacenamiento la primera vez que se
+ *   pide y queda en su posición de memoria; las cuentas borradas se marcan con DELETED para
+ *   no volver a leerlas
+ * - writeAll aplica un lote de escrituras con una sola toma del lock, un solo append al log
+ *   y un solo sync
+ */
+@Repository
+public class AccountRepository {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * Marca de cuenta borrada (o inexistente) ya comprobada en el almacenamiento
+     */
+    private static final Account DELETED = new Account();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder size = new LongAdder();
+    private final Object resizeLock = new Object();
+    private volatile AtomicReferenceArray<AtomicReferenceArray<Account>> pages = new AtomicReferenceArray<>(16);
+
+    private final @Nullable AccountStorage storage;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Última versión registrada en el log y aún no publicada de cada cuenta (DELETED si se
+     * borra); se escribe con writeLock
+     */
+    private final Map<Long, Account> unpublished = new ConcurrentHashMap<>();
+    /**
+     * Escrituras registradas pendientes de publicar, en orden de secuencia
+     */
+    private final Queue<PendingWrite> publishQueue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    /**
+     * Repositorio solo en memoria
+     */
+    public AccountRepository() {
+        this((AccountStorage) null);
+    }
+
+    @Autowired
+    public AccountRepository(ObjectProvider<AccountStorage> storage) {
+        this(storage.getIfAvailable());
+    }
+
+    /**
+     * Repositorio persistente sobre storage, que continúa con sus ids y cuentas;
+     * solo en memoria si storage es null
+     */
+    public AccountRepository(@Nullable AccountStorage storage) {
+        this.storage = storage;
+        if (storage != null) {
+            nextId.set(storage.maxId() + 1);
+            size.add(storage.count());
+        }
+    }
+
+    /**
+     * Asigna un id nuevo y guarda la cuenta construida para ese id
+     *
+     * @param factory Construye la cuenta a partir del id asignado
+     * @return Cuenta guardada (nunca null)
+     */
+    public @NonNull Account create(@NonNull LongFunction<Account> factory) {
+        if (storage != null) {
+            return createPersistent(storage, factory);
+        }
+        long id = nextId.getAndIncrement();
+        Account account = factory.apply(id);
+        page(id, true).set(slot(id), account);
+        size.increment();
+        return account;
+    }
+
+    /**
+     * Busca una cuenta por id en O(1)
+     *
+     * @return Cuenta si existe, null si no existe
+     */
+    public @Nullable Account findById(long id) {
+        AtomicReferenceArray<Account> page = page(id, storage != null && id < nextId.get());
+        return page != null ? resolve(page, id) : null;
+    }
+
+    /**
+     * Reemplaza atómicamente la cuenta con el resultado de updater
+     *
+     * updater recibe la versión actual y debe devolver una instancia nueva;
+     * si otro hilo modifica la cuenta mientras tanto, se reintenta con la versión más reciente
+     *
+     * @return Cuenta actualizada, null si no existe
+     */
+    public @Nullable Account update(long id, @NonNull UnaryOperator<Account> updater) {
+        if (storage != null) {
+            return updatePersistent(storage, id, updater);
+        }
+        AtomicReferenceArray<Account> page = page(id, false);
+        if (page == null) {
+            return null;
+        }
+        int slot = slot(id);
+        while (true) {
+            Account current = page.get(slot);
+            if (current == null) {
+                return null;
+            }
+            Account updated = updater.apply(current);
+            if (page.compareAndSet(slot, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Elimina una cuenta
+     *
+     * @return Cuenta eliminada, null si no existía
+     */
+    public @Nullable Account delete(long id) {
+        if (storage != null) {
+            return deletePersistent(storage, id);
+        }
+        AtomicReferenceArray<Account> page = page(id, false);
+        if (page == null) {
+            return null;
+        }
+        Account removed = page.getAndSet(slot(id), null);
+        if (removed != null) {
+            size.decrement();
+        }
+        return removed;
+    }
+
+    /**
+     * Una escritura de un lote de writeAll
+     */
+    public sealed interface Write {
+
+        record Create(@NonNull LongFunction<Account> factory) implements Write {
+        }
+
+        record Update(long id, @NonNull UnaryOperator<Account> updater) implements Write {
+        }
+
+        record Delete(long id) implements Write {
+        }
+    }
+
+    /**
+     * Aplica un lote de escrituras en orden, con el mismo efecto que llamar a create, update y
+     * delete una a una
+     *
+     * Con almacenamiento el lote se registra con un solo append y espera a un solo sync; se
+     * publica en memoria después del sync, como las escrituras sueltas
+     *
+     * @return Resultado de cada escritura, en el mismo orden: la cuenta creada, actualizada o
+     *         borrada, null si no existía
+     */
+    public @NonNull List<@Nullable Account> writeAll(@NonNull List<? extends Write> writes) {
+        if (storage != null) {
+            return writeAllPersistent(storage, writes);
+        }
+        List<@Nullable Account> results = new ArrayList<>(writes.size());
+        for (Write write : writes) {
+            results.add(switch (write) {
+                case Write.Create create -> create(create.factory());
+                case Write.Update update -> update(update.id(), update.updater());
+                case Write.Delete delete -> delete(delete.id());
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Retorna una copia de todas las cuentas ordenadas por id
+     */
+    public @NonNull List<Account> findAll() {
+        List<Account> result = new ArrayList<>((int) Math.max(0, size.sum()));
+        new AscendingIterator(1).forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * Recorre las cuentas con id mayor que afterId en orden ascendente
+     *
+     * El recorrido es perezoso y no copia el almacén: ve las cuentas tal como están
+     * al llegar a cada posición (igual que los iteradores de ConcurrentHashMap)
+     *
+     * @param afterId Cursor exclusivo, 0 para empezar desde el principio
+     */
+    public @NonNull Stream<Account> streamAfter(long afterId) {
+        Iterator<Account> iterator = new AscendingIterator(Math.max(afterId, 0) + 1);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    /**
+     * Último id asignado, incluidas cuentas borradas (0 si nunca se ha creado ninguna)
+     */
+    public long lastId() {
+        return nextId.get() - 1;
+    }
+
+    /**
+     * Número de cuentas almacenadas
+     */
+    public long count() {
+        return size.sum();
+    }
+
+    private final class AscendingIterator implements Iterator<Account> {
+
+        private long cursor;
+        private @Nullable Account next;
+
+        AscendingIterator(long fromId) {
+            this.cursor = fromId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            long limit = nextId.get();
+            while (cursor < limit) {
+                AtomicReferenceArray<Account> page = page(cursor, storage != null);
+                if (page == null) {
+                    // Página inexistente: saltar directamente a la siguiente
+                    cursor = ((cursor >>> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+                    continue;
+                }
+                Account account = resolve(page, cursor++);
+                if (account != null) {
+                    next = account;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Account next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Account account = next;
+            next = null;
+            return account;
+        }
+    }
+
+    private Account createPersistent(AccountStorage storage, LongFunction<Account> factory) {
+        Account account;
+        long sequence;
+        writeLock.lock();
+        try {
+            long id = nextId.getAndIncrement();
+            account = factory.apply(id);
+            sequence = storage.append(account);
+            enqueue(sequence, List.of(new AccountChange(id, account)), 1);
+        } finally {
+            writeLock.unlock();
+        }
+        storage.sync(sequence);
+        publish(sequence);
+        return account;
+    }
+
+    private @Nullable Account updatePersistent(AccountStorage storage, long id, UnaryOperator<Account> updater) {
+        Account updated;
+        long sequence;
+        writeLock.lock();
+        try {
+            Account current = latest(id);
+            if (current == null) {
+                return null;
+            }
+            updated = updater.apply(current);
+            sequence = storage.append(updated);
+            enqueue(sequence, List.of(new AccountChange(id, updated)), 0);
+        } finally {
+            writeLock.unlock();
+        }
+        storage.sync(sequence);
+        publish(sequence);
+        return updated;
+    }
+
+    private @Nullable Account deletePersistent(AccountStorage storage, long id) {
+        Account removed;
+        long sequence;
+        writeLock.lock();
+        try {
+            removed = latest(id);
+            if (removed == null) {
+                return null;
+            }
+            sequence = storage.appendDeletion(id);
+            enqueue(sequence, List.of(new AccountChange(id, null)), -1);
+        } finally {
+            writeLock.unlock();
+        }
+        storage.sync(sequence);
+        publish(sequence);
+        return removed;
+    }
+
+    private List<@Nullable Account> writeAllPersistent(AccountStorage storage, List<? extends Write> writes) {
+        List<@Nullable Account> results = new ArrayList<>(writes.size());
+        long sequence;
+        writeLock.lock();
+        try {
+            // Versiones del lote aún sin registrar (DELETED si se borran), para que cada escritura
+            // vea las anteriores del mismo lote
+            Map<Long, Account> batch = new HashMap<>();
+            List<AccountChange> changes = new ArrayList<>(writes.size());
+            int sizeDelta = 0;
+            for (Write write : writes) {
+                switch (write) {
+                    case Write.Create create -> {
+                        long id = nextId.getAndIncrement();
+                        Account account = create.factory().apply(id);
+                        batch.put(id, account);
+                        changes.add(new AccountChange(id, account));
+                        results.add(account);
+                        sizeDelta++;
+                    }
+                    case Write.Update update -> {
+                        Account current = batchVersion(batch, update.id());
+                        if (current == null) {
+                            results.add(null);
+                            continue;
+                        }
+                        Account updated = update.updater().apply(current);
+                        batch.put(update.id(), updated);
+                        changes.add(new AccountChange(update.id(), updated));
+                        results.add(updated);
+                    }
+                    case Write.Delete delete -> {
+                        Account current = batchVersion(batch, delete.id());
+                        if (current != null) {
+                            batch.put(delete.id(), DELETED);
+                            changes.add(new AccountChange(delete.id(), null));
+                            sizeDelta--;
+                        }
+                        results.add(current);
+                    }
+                }
+            }
+            if (changes.isEmpty()) {
+                return results;
+            }
+            sequence = storage.appendAll(changes);
+            enqueue(sequence, changes, sizeDelta);
+        } finally {
+            writeLock.unlock();
+        }
+        storage.sync(sequence);
+        publish(sequence);
+        return results;
+    }
+
+    private @Nullable Account batchVersion(Map<Long, Account> batch, long id) {
+        Account pending = batch.get(id);
+        if (pending != null) {
+            return pending == DELETED ? null : pending;
+        }
+        return latest(id);
+    }
+
+    /**
+     * Última versión registrada de la cuenta, publicada o no; solo con writeLock
+     */
+    private @Nullable Account latest(long id) {
+        Account pending = unpublished.get(id);
+        if (pending != null) {
+            return pending == DELETED ? null : pending;
+        }
+        AtomicReferenceArray<Account> page = page(id, id < nextId.get());
+        return page != null ? resolve(page, id) : null;
+    }
+
+    /**
+     * Deja pendiente de publicar una escritura ya registrada en el log; con writeLock, así que
+     * la cola queda en orden de secuencia
+     */
+    private void enqueue(long sequence, List<AccountChange> changes, int sizeDelta) {
+        for (AccountChange change : changes) {
+            unpublished.put(change.id(), change.account() != null ? change.account() : DELETED);
+        }
+        publishQueue.add(new PendingWrite(sequence, changes, sizeDelta));
+    }
+
+    /**
+     * Publica en memoria, en orden, las escrituras pendientes hasta sequence, que ya son durables
+     * (también las de escritores anteriores cuyo sync falló)
+     */
+    private void publish(long sequence) {
+        publishLock.lock();
+        try {
+            PendingWrite write;
+            while ((write = publishQueue.peek()) != null && write.sequence() <= sequence) {
+                for (AccountChange change : write.changes()) {
+                    Account account = change.account() != null ? change.account() : DELETED;
+                    page(change.id(), true).set(slot(change.id()), account);
+                    // Después de publicar: quien no la encuentre aquí la ve ya en su página
+                    unpublished.remove(change.id(), account);
+                }
+                size.add(write.sizeDelta());
+                publishQueue.poll();
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Escritura registrada en el log con su secuencia, pendiente de publicar
+     *
+     * @param sizeDelta Cuentas creadas menos cuentas borradas
+     */
+    private record PendingWrite(long sequence, List<AccountChange> changes, int sizeDelta) {
+    }
+
+    /**
+     * Cuenta de la posición de id; con almacenamiento, la primera lectura la carga de disco
+     */
+    private @Nullable Account resolve(AtomicReferenceArray<Account> page, long id) {
+        int slot = slot(id);
+        Account account = page.get(slot);
+        if (account == null && storage != null && id < nextId.get()) {
+            Account stored = storage.read(id);
+            // Si una escritura ocupó la posición mientras tanto, gana la escritura
+            page.compareAndSet(slot, null, stored != null ? stored : DELETED);
+            account = page.get(slot);
+        }
+        return account == DELETED ? null : account;
+    }
+
+    private static int slot(long id) {
+        return (int) (id & PAGE_MASK);
+    }
+
+    private @Nullable AtomicReferenceArray<Account> page(long id, boolean create) {
+        if (id < 0) {
+            return null;
+        }
+        long index = id >>> PAGE_SHIFT;
+        if (index >= Integer.MAX_VALUE) {
+            return null;
+        }
+        AtomicReferenceArray<AtomicReferenceArray<Account>> directory = pages;
+        AtomicReferenceArray<Account> page = index < directory.length() ? directory.get((int) index) : null;
+        if (page != null || !create) {
+            return page;
+        }
+        synchronized (resizeLock) {
+            directory = pages;
+            if (index >= directory.length()) {
+                int length = directory.length();
+                while (index >= length) {
+                    length <<= 1;
+                }
+                AtomicReferenceArray<AtomicReferenceArray<Account>> grown = new AtomicReferenceArray<>(length);
+                for (int i = 0; i < directory.length(); i++) {
+                    grown.set(i, directory.get(i));
+                }
+                pages = grown;
+                directory = grown;
+            }
+            page = directory.get((int) index);
+            if (page == null) {
+                page = new AtomicReferenceArray<>(PAGE_SIZE);
+                directory.set((int) index, page);
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.josediaz.springframework7.repository;
+
+import com.josediaz.springframework7.model.Account;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Almacenamiento persistente detrás de AccountRepository
+ *
+ * AccountRepository sigue sirviendo las lecturas desde memoria; el almacenamiento guarda cada
+ * cambio y carga bajo demanda las cuentas que aún no están en memoria (por ejemplo, tras
+ * reiniciar). Sin almacenamiento el repositorio es solo en memoria, como antes
+ *
+ * Las escrituras son en dos pasos para permitir group commit: append registra el cambio y
+ * devuelve un número de secuencia; sync bloquea hasta que ese cambio es durable. AccountRepository
+ * serializa las llamadas a append, así que el orden del log es el de las escrituras en memoria
+ */
+public interface AccountStorage extends Closeable {
+
+    /**
+     * Id más alto asignado alguna vez, incluidas las cuentas borradas (0 si no hay ninguna):
+     * los ids no se reutilizan tras reiniciar
+     */
+    long maxId();
+
+    /**
+     * Número de cuentas vivas
+     */
+    long count();
+
+    /**
+     * Última versión durable de la cuenta
+     *
+     * @return Cuenta, null si no existe o está borrada
+     */
+    @Nullable Account read(long id);
+
+    /**
+     * Registra la versión nueva de una cuenta (alta o actualización)
+     *
+     * @return Secuencia que se pasa a sync
+     */
+    long append(@NonNull Account account);
+
+    /**
+     * Registra el borrado de una cuenta
+     *
+     * @return Secuencia que se pasa a sync
+     */
+    long appendDeletion(long id);
+
+    /**
+     * Registra en orden un lote de cambios, como una sola escritura si el almacenamiento lo permite
+     *
+     * @return Secuencia que se pasa a sync para esperar a todo el lote
+     */
+    long appendAll(@NonNull List<AccountChange> changes);
+
+    /**
+     * Bloquea hasta que todos los cambios hasta sequence (incluido) son durables
+     */
+    void sync(long sequence);
+}
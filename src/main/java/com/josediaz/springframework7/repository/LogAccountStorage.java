@@ -0,0 +1,810 @@
+package com.josediaz.springframework7.repository;
+
+import com.josediaz.springframework7.model.Account;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * AccountStorage sobre un log append-only y un índice mapeado en memoria (AccountIndexFile)
+ *
+ * Ficheros en el directorio configurado:
+ * - accounts.log: cabecera y registros [longitud][CRC32C][id][tipo][campos], uno por alta,
+ *   actualización o borrado, siempre añadidos al final
+ * - accounts.idx: posición del último registro de cada id
+ *
+ * Escritura con group commit: append escribe el registro en el log y sync espera a que sea
+ * durable. El primer hilo que llega a sync hace fsync para todos los registros escritos hasta
+ * ese momento y actualiza el índice; los demás esperan a ese fsync en lugar de hacer el suyo,
+ * así que con muchos escritores concurrentes se hace un fsync por lote y no por registro.
+ * El índice solo apunta a registros ya durables
+ *
+ * Recuperación al abrir: se reaplica el log desde el checkpoint del índice (o completo si el
+ * índice falta o es de otra generación) y se descarta una cola incompleta o con CRC incorrecto,
+ * que solo puede contener registros cuyo sync no había terminado
+ *
+ * Compactación: reescribe solo el último registro de cada cuenta viva en un log nuevo con su
+ * índice y los sustituye con renombrados atómicos. Se lanza en segundo plano cuando los bytes
+ * obsoletos (versiones anteriores y borrados) superan compactionRatio del log y el log ocupa
+ * al menos compactionMinBytes; mientras dura, las escrituras esperan
+ */
+public class LogAccountStorage implements AccountStorage, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(LogAccountStorage.class);
+
+    static final String LOG_FILE = "accounts.log";
+    static final String INDEX_FILE = "accounts.idx";
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private static final int MAGIC = 0x41434C47; // "ACLG"
+    private static final int VERSION = 1;
+    /**
+     * magic, versión, generación e id más alto en el momento de compactar
+     */
+    static final int LOG_HEADER = 24;
+    /**
+     * longitud del resto del registro y CRC32C
+     */
+    private static final int RECORD_PREFIX = 8;
+    private static final int DELETE_RECORD_LENGTH = RECORD_PREFIX + Long.BYTES + 1;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final long CHECKPOINT_INTERVAL = 64L << 20;
+    private static final int IO_BUFFER = 1 << 20;
+
+    private final Path directory;
+    private final double compactionRatio;
+    private final long compactionMinBytes;
+
+    /**
+     * Lectura: cualquier acceso a los ficheros; escritura: compactación y cierre, que los sustituyen
+     */
+    private final ReentrantReadWriteLock filesLock = new ReentrantReadWriteLock();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+
+    private FileChannel logChannel;
+    private AccountIndexFile index;
+    private boolean closed;
+
+    // Protegidos por appendLock
+    private volatile long position;
+    private long appendedSequence;
+    private PendingUpdates pending = new PendingUpdates();
+
+    // Solo el líder de sync, o compactación y cierre con filesLock de escritura
+    private PendingUpdates spare = new PendingUpdates();
+    private long lastCheckpoint;
+
+    // Protegidos por syncLock
+    private boolean syncing;
+    private volatile long durableSequence;
+
+    private final AtomicLong maxId = new AtomicLong();
+    private final AtomicLong liveCount = new AtomicLong();
+    private final AtomicLong deadBytes = new AtomicLong();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder syncedRecords = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    /**
+     * Abre (o crea) el almacenamiento del directorio y recupera su estado
+     *
+     * @param compactionRatio Fracción de bytes obsoletos que lanza la compactación (0 la desactiva)
+     * @param compactionMinBytes Tamaño mínimo del log para compactar automáticamente
+     */
+    public LogAccountStorage(@NonNull Path directory, double compactionRatio, long compactionMinBytes) throws IOException {
+        if (compactionRatio < 0 || compactionRatio > 1) {
+            throw new IllegalArgumentException("Invalid compaction ratio: " + compactionRatio);
+        }
+        this.directory = directory;
+        this.compactionRatio = compactionRatio;
+        this.compactionMinBytes = compactionMinBytes;
+
+        Files.createDirectories(directory);
+        // Restos de una compactación interrumpida: los ficheros originales siguen siendo válidos
+        Files.deleteIfExists(directory.resolve(LOG_FILE + COMPACT_SUFFIX));
+        Files.deleteIfExists(directory.resolve(INDEX_FILE + COMPACT_SUFFIX));
+
+        Path logPath = directory.resolve(LOG_FILE);
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long generation;
+            long baseMaxId;
+            if (logChannel.size() < LOG_HEADER) {
+                generation = newGeneration();
+                baseMaxId = 0;
+                logChannel.truncate(0);
+                writeFully(logChannel, logHeader(generation, 0), 0);
+                logChannel.force(true);
+                syncDirectory(directory);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+                readFully(logChannel, header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not an account log: " + logPath);
+                }
+                generation = header.getLong(8);
+                baseMaxId = header.getLong(16);
+            }
+
+            index = AccountIndexFile.open(directory.resolve(INDEX_FILE), generation);
+            long start = index.checkpoint();
+            if (start < LOG_HEADER || start > logChannel.size()) {
+                if (start != 0) {
+                    index.close();
+                    index = AccountIndexFile.create(directory.resolve(INDEX_FILE), generation);
+                }
+                start = LOG_HEADER;
+            }
+            position = replay(start);
+
+            AccountIndexFile.Summary summary = index.summarize();
+            maxId.set(Math.max(baseMaxId, summary.maxId()));
+            liveCount.set(summary.live());
+            deadBytes.set(position - LOG_HEADER - summary.liveBytes());
+            index.checkpoint(position);
+            lastCheckpoint = position;
+        } catch (IOException | RuntimeException e) {
+            logChannel.close();
+            if (index != null) {
+                index.close();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public long maxId() {
+        return maxId.get();
+    }
+
+    @Override
+    public long count() {
+        return liveCount.get();
+    }
+
+    @Override
+    public @Nullable Account read(long id) {
+        filesLock.readLock().lock();
+        try {
+            ensureOpen();
+            long entry = index.get(id);
+            if (!AccountIndexFile.isLive(entry)) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(AccountIndexFile.length(entry));
+            readFully(logChannel, record, AccountIndexFile.offset(entry));
+            return decodeAccount(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read account " + id, e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long append(@NonNull Account account) {
+        byte[] record = encodeAccount(account);
+        return write(new long[]{account.getId()}, new byte[][]{record}, ByteBuffer.wrap(record));
+    }
+
+    @Override
+    public long appendDeletion(long id) {
+        byte[] record = encodeDeletion(id);
+        return write(new long[]{id}, new byte[][]{record}, ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Escribe todo el lote en el log con una sola escritura
+     */
+    @Override
+    public long appendAll(@NonNull List<AccountChange> changes) {
+        long[] ids = new long[changes.size()];
+        byte[][] records = new byte[changes.size()][];
+        int length = 0;
+        for (int i = 0; i < records.length; i++) {
+            AccountChange change = changes.get(i);
+            Account account = change.account();
+            ids[i] = change.id();
+            records[i] = account != null ? encodeAccount(account) : encodeDeletion(change.id());
+            length += records[i].length;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(length);
+        for (byte[] record : records) {
+            batch.put(record);
+        }
+        return write(ids, records, batch.flip());
+    }
+
+    @Override
+    public void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncing) {
+                    // Otro hilo está haciendo fsync: su lote puede incluir este registro
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long durable = durableSequence;
+                syncLock.unlock();
+                try {
+                    durable = flush();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    durableSequence = Math.max(durableSequence, durable);
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Reescribe el log con solo la última versión de cada cuenta viva
+     */
+    public void compact() {
+        filesLock.writeLock().lock();
+        try {
+            ensureOpen();
+            flushLocked();
+            compactLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Account log compaction failed", e);
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes del log, incluida la cabecera
+     */
+    public long logSize() {
+        return position;
+    }
+
+    /**
+     * Bytes del log ocupados por versiones anteriores y borrados
+     */
+    public long deadBytes() {
+        return deadBytes.get();
+    }
+
+    public long syncCount() {
+        return syncs.sum();
+    }
+
+    public long syncedRecordCount() {
+        return syncedRecords.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        filesLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                flushLocked();
+                index.checkpoint(position);
+            } finally {
+                closed = true;
+                logChannel.close();
+                index.close();
+            }
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("accounts.storage.syncs", syncs, LongAdder::sum)
+                .description("fsync del log de cuentas (uno por lote de group commit)")
+                .register(registry);
+        FunctionCounter.builder("accounts.storage.records", syncedRecords, LongAdder::sum)
+                .description("Registros del log de cuentas hechos durables")
+                .register(registry);
+        FunctionCounter.builder("accounts.storage.compactions", compactions, LongAdder::sum)
+                .description("Compactaciones del log de cuentas")
+                .register(registry);
+        Gauge.builder("accounts.storage.log.size", this, LogAccountStorage::logSize)
+                .description("Bytes del log de cuentas")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("accounts.storage.log.dead", this, LogAccountStorage::deadBytes)
+                .description("Bytes obsoletos del log de cuentas, recuperables al compactar")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Añade al log los registros ya codificados (contenidos en orden en data) y deja pendientes
+     * sus entradas de índice hasta el siguiente sync
+     */
+    private long write(long[] ids, byte[][] records, ByteBuffer data) {
+        for (int i = 0; i < records.length; i++) {
+            if (records[i].length > AccountIndexFile.MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Account " + ids[i] + " is too large to store: "
+                        + records[i].length + " bytes");
+            }
+        }
+        filesLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                ensureOpen();
+                long offset = position;
+                writeFully(logChannel, data, offset);
+                position = offset + data.limit();
+                for (int i = 0; i < records.length; i++) {
+                    boolean put = records[i][RECORD_PREFIX + Long.BYTES] == PUT;
+                    pending.add(ids[i], put ? AccountIndexFile.entry(offset, records[i].length) : AccountIndexFile.TOMBSTONE);
+                    maxId.accumulateAndGet(ids[i], Math::max);
+                    offset += records[i].length;
+                }
+                return ++appendedSequence;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(ids.length == 1 ? "Failed to append account " + ids[0]
+                    : "Failed to append " + ids.length + " account records", e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * fsync del log y actualización del índice para todo lo escrito hasta ahora
+     *
+     * @return Secuencia que queda durable
+     */
+    private long flush() {
+        filesLock.readLock().lock();
+        try {
+            ensureOpen();
+            return flushLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync account log", e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    private long flushLocked() throws IOException {
+        PendingUpdates batch;
+        long sequence;
+        long end;
+        appendLock.lock();
+        try {
+            batch = pending;
+            pending = spare;
+            sequence = appendedSequence;
+            end = position;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            if (batch.size > 0) {
+                logChannel.force(false);
+                for (int i = 0; i < batch.size; i++) {
+                    apply(batch.ids[i], batch.entries[i]);
+                }
+                syncs.increment();
+                syncedRecords.add(batch.size);
+            }
+        } catch (IOException | RuntimeException e) {
+            // El lote vuelve a la cola, delante de lo escrito mientras tanto
+            appendLock.lock();
+            try {
+                batch.addAll(pending);
+                pending.clear();
+                spare = pending;
+                pending = batch;
+            } finally {
+                appendLock.unlock();
+            }
+            throw e;
+        }
+        batch.clear();
+        spare = batch;
+        if (end - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+            index.checkpoint(end);
+            lastCheckpoint = end;
+        }
+        return sequence;
+    }
+
+    private void apply(long id, long entry) throws IOException {
+        long previous = index.set(id, entry);
+        if (AccountIndexFile.isLive(previous)) {
+            deadBytes.addAndGet(AccountIndexFile.length(previous));
+        }
+        if (entry == AccountIndexFile.TOMBSTONE) {
+            deadBytes.addAndGet(DELETE_RECORD_LENGTH);
+            if (AccountIndexFile.isLive(previous)) {
+                liveCount.decrementAndGet();
+            }
+        } else if (!AccountIndexFile.isLive(previous)) {
+            liveCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reaplica los registros desde start y descarta una cola incompleta
+     *
+     * @return Final de los registros válidos
+     */
+    private long replay(long start) throws IOException {
+        long size = logChannel.size();
+        long offset = start;
+        ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+        long bufferStart = fill(buffer, offset, size);
+        while (offset + RECORD_PREFIX <= size) {
+            if (offset + RECORD_PREFIX > bufferStart + buffer.limit()) {
+                bufferStart = fill(buffer, offset, size);
+            }
+            int length = buffer.getInt((int) (offset - bufferStart));
+            int total = RECORD_PREFIX + length;
+            if (length < Long.BYTES + 1 || total > AccountIndexFile.MAX_RECORD_LENGTH || offset + total > size) {
+                break;
+            }
+            ByteBuffer record;
+            if (total > buffer.capacity()) {
+                record = ByteBuffer.allocate(total);
+                readFully(logChannel, record, offset);
+            } else {
+                if (offset + total > bufferStart + buffer.limit()) {
+                    bufferStart = fill(buffer, offset, size);
+                }
+                record = buffer.slice((int) (offset - bufferStart), total);
+            }
+            if (!replayRecord(record, offset)) {
+                break;
+            }
+            offset += total;
+        }
+        if (offset < size) {
+            log.warn("Discarding {} bytes of incomplete records at the end of {}", size - offset, directory.resolve(LOG_FILE));
+            logChannel.truncate(offset);
+            logChannel.force(true);
+        }
+        return offset;
+    }
+
+    /**
+     * Llena el buffer con el log a partir de offset
+     *
+     * @return offset, inicio del contenido del buffer
+     */
+    private long fill(ByteBuffer buffer, long offset, long size) throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), size - offset));
+        readFully(logChannel, buffer, offset);
+        return offset;
+    }
+
+    private boolean replayRecord(ByteBuffer record, long offset) throws IOException {
+        if (!verify(record)) {
+            return false;
+        }
+        long id = record.getLong(RECORD_PREFIX);
+        byte type = record.get(RECORD_PREFIX + Long.BYTES);
+        if (type == PUT) {
+            index.set(id, AccountIndexFile.entry(offset, record.remaining()));
+        } else if (type == DELETE) {
+            index.set(id, AccountIndexFile.TOMBSTONE);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void compactLocked() throws IOException {
+        long before = position;
+        long generation = newGeneration();
+        long highestId = maxId.get();
+        Path compactLog = directory.resolve(LOG_FILE + COMPACT_SUFFIX);
+        Path compactIndex = directory.resolve(INDEX_FILE + COMPACT_SUFFIX);
+
+        FileChannel newLog = FileChannel.open(compactLog, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        AccountIndexFile newIndex = null;
+        long end;
+        try {
+            newIndex = AccountIndexFile.create(compactIndex, generation);
+            ByteBuffer out = ByteBuffer.allocate(IO_BUFFER);
+            out.put(logHeader(generation, highestId));
+            end = 0;
+            for (long id = 1; id <= highestId; id++) {
+                long entry = index.get(id);
+                if (entry == 0) {
+                    continue;
+                }
+                if (!AccountIndexFile.isLive(entry)) {
+                    newIndex.set(id, entry);
+                    continue;
+                }
+                int length = AccountIndexFile.length(entry);
+                if (out.remaining() < length) {
+                    out.flip();
+                    end += writeFully(newLog, out, end);
+                    out.clear();
+                }
+                long recordOffset = end + out.position();
+                if (length > out.capacity()) {
+                    ByteBuffer record = ByteBuffer.allocate(length);
+                    readFully(logChannel, record, AccountIndexFile.offset(entry));
+                    end += writeFully(newLog, record, end);
+                } else {
+                    readFully(logChannel, out.slice(out.position(), length), AccountIndexFile.offset(entry));
+                    out.position(out.position() + length);
+                }
+                newIndex.set(id, AccountIndexFile.entry(recordOffset, length));
+            }
+            out.flip();
+            end += writeFully(newLog, out, end);
+            newLog.force(true);
+            newIndex.checkpoint(end);
+            Files.move(compactLog, directory.resolve(LOG_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            newLog.close();
+            if (newIndex != null) {
+                newIndex.close();
+            }
+            Files.deleteIfExists(compactLog);
+            Files.deleteIfExists(compactIndex);
+            throw e;
+        }
+
+        // El log nuevo ya está en su sitio: a partir de aquí se usa aunque falle el índice,
+        // que al abrir se reconstruye si su generación no coincide
+        FileChannel oldLog = logChannel;
+        AccountIndexFile oldIndex = index;
+        logChannel = newLog;
+        index = newIndex;
+        position = end;
+        lastCheckpoint = end;
+        deadBytes.set(0);
+        compactions.increment();
+        oldLog.close();
+        oldIndex.close();
+        try {
+            Files.move(compactIndex, directory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Account index could not be replaced after compaction; it will be rebuilt on restart", e);
+        }
+        syncDirectory(directory);
+        log.info("Compacted account log from {} to {} bytes", before, end);
+    }
+
+    private void compactIfNeeded() {
+        if (compactionRatio == 0) {
+            return;
+        }
+        long size = position;
+        if (size < compactionMinBytes || deadBytes.get() < size * compactionRatio) {
+            return;
+        }
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofPlatform().name("account-log-compaction").daemon().start(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                log.warn("Background compaction of the account log failed: {}", e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Account storage is closed: " + directory);
+        }
+    }
+
+    private static byte[] encodeAccount(Account account) {
+        byte[] name = account.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = account.getEmail().getBytes(StandardCharsets.UTF_8);
+        String phoneValue = account.getPhone();
+        byte[] phone = phoneValue != null ? phoneValue.getBytes(StandardCharsets.UTF_8) : null;
+        int length = RECORD_PREFIX + Long.BYTES + 1
+                + Integer.BYTES + name.length
+                + Integer.BYTES + email.length
+                + Integer.BYTES + (phone != null ? phone.length : 0)
+                + Long.BYTES + Integer.BYTES;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.position(RECORD_PREFIX);
+        record.putLong(account.getId()).put(PUT);
+        putBytes(record, name);
+        putBytes(record, email);
+        putBytes(record, phone);
+        LocalDateTime createdAt = account.getCreatedAt();
+        if (createdAt != null) {
+            record.putLong(createdAt.toEpochSecond(ZoneOffset.UTC)).putInt(createdAt.getNano());
+        } else {
+            record.putLong(0).putInt(-1);
+        }
+        return seal(record);
+    }
+
+    private static byte[] encodeDeletion(long id) {
+        ByteBuffer record = ByteBuffer.allocate(DELETE_RECORD_LENGTH);
+        record.position(RECORD_PREFIX);
+        record.putLong(id).put(DELETE);
+        return seal(record);
+    }
+
+    private static Account decodeAccount(ByteBuffer record) throws IOException {
+        if (!verify(record) || record.get(RECORD_PREFIX + Long.BYTES) != PUT) {
+            throw new IOException("Corrupted account record");
+        }
+        record.position(RECORD_PREFIX);
+        Account account = new Account();
+        account.setId(record.getLong());
+        record.get();
+        account.setName(getString(record));
+        account.setEmail(getString(record));
+        account.setPhone(getString(record));
+        long epochSecond = record.getLong();
+        int nano = record.getInt();
+        if (nano >= 0) {
+            account.setCreatedAt(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+        }
+        return account;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte @Nullable [] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static @Nullable String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Completa longitud y CRC32C de un registro cuyo cuerpo empieza en RECORD_PREFIX
+     */
+    private static byte[] seal(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), RECORD_PREFIX, record.capacity() - RECORD_PREFIX);
+        record.putInt(0, record.capacity() - RECORD_PREFIX);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    private static boolean verify(ByteBuffer record) {
+        int start = record.position();
+        int length = record.getInt(start);
+        if (length != record.remaining() - RECORD_PREFIX) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(start + RECORD_PREFIX, length));
+        return (int) crc.getValue() == record.getInt(start + 4);
+    }
+
+    private static ByteBuffer logHeader(long generation, long baseMaxId) {
+        return ByteBuffer.allocate(LOG_HEADER).putInt(MAGIC).putInt(VERSION).putLong(generation).putLong(baseMaxId).flip();
+    }
+
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        return generation;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, offset + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position() - start);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of account log at " + offset);
+            }
+        }
+        buffer.position(start);
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Hace durables los renombrados y la creación de ficheros
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory {} cannot be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Cambios de índice escritos en el log y pendientes de fsync, en orden
+     */
+    private static final class PendingUpdates {
+
+        private long[] ids = new long[64];
+        private long[] entries = new long[64];
+        private int size;
+
+        void add(long id, long entry) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            ids[size] = id;
+            entries[size] = entry;
+            size++;
+        }
+
+        void addAll(PendingUpdates other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.ids[i], other.entries[i]);
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.josediaz.springframework7.service;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.model.AccountViews;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché del JSON ya serializado de cada cuenta por versión de API
+ *
+ * Las cuentas se leen mucho más de lo que cambian, así que GET /accounts/{id} escribe los bytes
+ * guardados en lugar de pasar la cuenta por Jackson en cada petición:
+ * - Tabla de acceso directo de tamaño fijo (capacity, potencia de 2): cada par (id, vista) tiene
+ *   una posición; una colisión reemplaza la entrada anterior, así que la memoria está acotada
+ *   y las cuentas calientes se vuelven a cargar solas
+ * - Lecturas y escrituras sin locks sobre AtomicReferenceArray
+ * - Cada entrada recuerda la instancia de Account serializada: como las actualizaciones son
+ *   copy-on-write, una entrada de una instancia anterior nunca se sirve, aunque una petición
+ *   concurrente la guarde después de invalidar
+ * - AccountService invalida al actualizar y borrar, para liberar las entradas cuanto antes
+ * - El ETag (MD5 del cuerpo, como ShallowEtagHeaderFilter) se calcula una vez por entrada
+ *
+ * Con capacity 0 la caché se desactiva y cada petición serializa la cuenta
+ */
+@Component
+public class AccountJsonCache implements MeterBinder {
+
+    /**
+     * Vistas de AccountViews que se pueden pedir; v1.1 y v2.0 comparten V1_1 (y sus entradas)
+     */
+    private static final List<Class<?>> VIEWS = List.of(AccountViews.V1_0.class, AccountViews.V1_1.class);
+
+    private final ObjectWriter[] writers;
+    private final AtomicReferenceArray<CachedJson> slots;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AccountJsonCache(JsonMapper jsonMapper, @Value("${accounts.json-cache.capacity:4096}") int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid JSON cache capacity: " + capacity);
+        }
+        this.writers = VIEWS.stream().map(jsonMapper::writerWithView).toArray(ObjectWriter[]::new);
+        int size = capacity == 0 ? 0 : Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * JSON de la cuenta en la vista indicada, desde la caché o serializado y guardado
+     *
+     * @param view Una de las vistas de AccountViews
+     */
+    public @NonNull CachedJson get(@NonNull Account account, @NonNull Class<?> view) {
+        int viewIndex = viewIndex(view);
+        if (slots.length() == 0) {
+            misses.increment();
+            return serialize(account, viewIndex);
+        }
+        int slot = slot(account.getId(), viewIndex);
+        CachedJson cached = slots.get(slot);
+        if (cached != null && cached.source == account && cached.view == viewIndex) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        CachedJson fresh = serialize(account, viewIndex);
+        slots.set(slot, fresh);
+        return fresh;
+    }
+
+    /**
+     * Descarta el JSON de la cuenta en todas las vistas
+     */
+    public void invalidate(long id) {
+        if (slots.length() == 0) {
+            return;
+        }
+        for (int viewIndex = 0; viewIndex < writers.length; viewIndex++) {
+            int slot = slot(id, viewIndex);
+            CachedJson cached = slots.get(slot);
+            if (cached != null && cached.id == id) {
+                slots.compareAndSet(slot, cached, null);
+            }
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("accounts.json.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Accesos a la caché de JSON de cuentas")
+                .register(registry);
+        FunctionCounter.builder("accounts.json.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Accesos a la caché de JSON de cuentas")
+                .register(registry);
+    }
+
+    private CachedJson serialize(Account account, int viewIndex) {
+        byte[] body = writers[viewIndex].writeValueAsBytes(account);
+        String eTag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+        return new CachedJson(account.getId(), viewIndex, account, body, eTag);
+    }
+
+    private static int viewIndex(Class<?> view) {
+        int index = VIEWS.indexOf(view);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unsupported account view: " + view.getName());
+        }
+        return index;
+    }
+
+    private int slot(long id, int viewIndex) {
+        // Mezcla de Fibonacci: ids consecutivos se reparten por toda la tabla
+        long hash = (id * VIEWS.size() + viewIndex) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    /**
+     * Cuerpo JSON de una cuenta en una vista y su ETag
+     *
+     * El array es compartido entre peticiones: se escribe en la respuesta, nunca se modifica
+     */
+    public static final class CachedJson {
+
+        private final long id;
+        private final int view;
+        private final Account source;
+        private final byte[] body;
+        private final String eTag;
+
+        private CachedJson(long id, int view, Account source, byte[] body, String eTag) {
+            this.id = id;
+            this.view = view;
+            this.source = source;
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        public byte @NonNull [] body() {
+            return body;
+        }
+
+        /**
+         * ETag fuerte ya entrecomillado
+         */
+        public @NonNull String eTag() {
+            return eTag;
+        }
+    }
+}
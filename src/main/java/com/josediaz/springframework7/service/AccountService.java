@@ -1,55 +1,143 @@
 package com.josediaz.springframework7.service;
 
 import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
+import com.josediaz.springframework7.repository.AccountRepository;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 @Service
 public class AccountService {
 
-    private final List<Account> accounts = new ArrayList<>();
-    private Long nextId = 1L;
+    private final AccountRepository accountRepository;
+    private final AccountJsonCache jsonCache;
 
-    public AccountService() {
-        // Datos de ejemplo
-        accounts.add(new Account(1L, "Juan Pérez", "juan@example.com", "+34 600 123 456"));
-        accounts.add(new Account(2L, "María García", "maria@example.com", null));
-        accounts.add(new Account(3L, "Carlos López", "carlos@example.com", "+34 600 789 012"));
+    public AccountService(AccountRepository accountRepository, AccountJsonCache jsonCache) {
+        this.accountRepository = accountRepository;
+        this.jsonCache = jsonCache;
+        // Datos de ejemplo (reciben los ids 1, 2 y 3); con almacenamiento persistente,
+        // solo la primera vez
+        if (accountRepository.lastId() > 0) {
+            return;
+        }
+        createAccount("Juan Pérez", "juan@example.com", "+34 600 123 456");
+        createAccount("María García", "maria@example.com", null);
+        createAccount("Carlos López", "carlos@example.com", "+34 600 789 012");
     }
 
     public @NonNull List<Account> getAllAccounts() {
-        return new ArrayList<>(accounts);
+        return accountRepository.findAll();
+    }
+
+    /**
+     * Paginación por cursor (keyset): hasta limit cuentas con id mayor que afterId
+     */
+    public @NonNull List<Account> getAccountsPage(long afterId, int limit) {
+        try (Stream<Account> accounts = accountRepository.streamAfter(afterId)) {
+            return accounts.limit(limit).toList();
+        }
+    }
+
+    /**
+     * Recorrido perezoso de las cuentas con id mayor que afterId, sin copiar el almacén
+     */
+    public @NonNull Stream<Account> streamAccounts(long afterId) {
+        return accountRepository.streamAfter(afterId);
+    }
+
+    public @Nullable Account getAccountById(long id) {
+        return accountRepository.findById(id);
     }
 
-    public @Nullable Account getAccountById(@NonNull Long id) {
-        return accounts.stream()
-                .filter(account -> account.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+    /**
+     * JSON de la cuenta en la vista de su versión de API, servido desde AccountJsonCache
+     *
+     * @param view Una de las vistas de AccountViews
+     * @return JSON y ETag, null si la cuenta no existe
+     */
+    public AccountJsonCache.@Nullable CachedJson getAccountJson(long id, @NonNull Class<?> view) {
+        Account account = accountRepository.findById(id);
+        return account != null ? jsonCache.get(account, view) : null;
     }
 
     public @NonNull Account createAccount(@NonNull String name, @NonNull String email, @Nullable String phone) {
-        Account account = new Account(nextId++, name, email, phone);
-        accounts.add(account);
-        return account;
+        return accountRepository.create(id -> new Account(id, name, email, phone));
+    }
+
+    public @Nullable Account updateAccount(long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
+        Account updated = accountRepository.update(id, replace(name, email, phone));
+        jsonCache.invalidate(id);
+        return updated;
     }
 
-    public @Nullable Account updateAccount(@NonNull Long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
-        Account account = getAccountById(id);
-        if (account != null) {
-            account.setName(name);
-            account.setEmail(email);
-            account.setPhone(phone);
+    public boolean deleteAccount(long id) {
+        boolean deleted = accountRepository.delete(id) != null;
+        jsonCache.invalidate(id);
+        return deleted;
+    }
+
+    /**
+     * Aplica un lote de operaciones con una sola llamada a AccountRepository.writeAll
+     * (un lock, un append al log y un sync por lote)
+     *
+     * Las operaciones no válidas no se aplican y devuelven INVALID; el resto se aplica en orden
+     *
+     * @return Resultado de cada operación, en el mismo orden
+     */
+    public @NonNull List<BulkResult> applyBulk(@NonNull List<BulkOperation> operations) {
+        BulkResult[] results = new BulkResult[operations.size()];
+        List<AccountRepository.Write> writes = new ArrayList<>(operations.size());
+        for (int i = 0; i < results.length; i++) {
+            BulkOperation operation = operations.get(i);
+            String error = operation.validate();
+            if (error != null) {
+                results[i] = BulkResult.invalid(error);
+                continue;
+            }
+            writes.add(switch (operation.op()) {
+                case BulkOperation.CREATE -> new AccountRepository.Write.Create(
+                        id -> new Account(id, operation.name(), operation.email(), operation.phone()));
+                case BulkOperation.UPDATE -> new AccountRepository.Write.Update(operation.id(),
+                        replace(operation.name(), operation.email(), operation.phone()));
+                default -> new AccountRepository.Write.Delete(operation.id());
+            });
+        }
+        List<@Nullable Account> written = accountRepository.writeAll(writes);
+        int next = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BulkOperation operation = operations.get(i);
+            Account account = written.get(next++);
+            results[i] = switch (operation.op()) {
+                case BulkOperation.CREATE -> BulkResult.created(account.getId());
+                case BulkOperation.UPDATE -> account != null ? BulkResult.updated(operation.id()) : BulkResult.notFound(operation.id());
+                default -> account != null ? BulkResult.deleted(operation.id()) : BulkResult.notFound(operation.id());
+            };
+            if (!BulkOperation.CREATE.equals(operation.op())) {
+                jsonCache.invalidate(operation.id());
+            }
         }
-        return account;
+        return Arrays.asList(results);
     }
 
-    public boolean deleteAccount(@NonNull Long id) {
-        return accounts.removeIf(account -> account.getId().equals(id));
+    /**
+     * Copy-on-write: los lectores concurrentes nunca ven una cuenta a medio actualizar
+     */
+    private static UnaryOperator<Account> replace(@NonNull String name, @NonNull String email, @Nullable String phone) {
+        return current -> {
+            Account copy = new Account(current.getId(), name, email, phone);
+            copy.setCreatedAt(current.getCreatedAt());
+            return copy;
+        };
     }
 }
-
@@ -0,0 +1,136 @@
+package com.josediaz.springframework7.service;
+
+import com.josediaz.springframework7.client.AsyncQuoteClient;
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.config.QuoteFanOutProperties;
+import com.josediaz.springframework7.model.CategoryJokes;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un chiste por categoría con llamadas en paralelo a AsyncQuoteClient
+ *
+ * - Como mucho maxParallel llamadas en curso por petición: cada una que termina lanza la
+ *   siguiente categoría pendiente, sin ningún hilo esperando
+ * - Al vencer el plazo (deadline, contado desde el inicio) se responde con lo que haya
+ *   llegado, no se lanzan más llamadas y las que siguen en curso se cancelan; una llamada
+ *   cancelada no cuenta como fallo en @CircuitBreaker ni en @SingleFlight
+ * - Una categoría que falla (no existe, circuito abierto, etc.) aparece en missing y no
+ *   hace fallar al resto
+ *
+ * Con maxParallel=1 las categorías se piden una tras otra, como un bucle secuencial
+ */
+@Service
+public class CategoryJokeService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryJokeService.class);
+
+    private final AsyncQuoteClient asyncQuoteClient;
+    private final int maxParallel;
+    private final long deadlineNanos;
+
+    public CategoryJokeService(AsyncQuoteClient asyncQuoteClient, QuoteFanOutProperties properties) {
+        if (properties.maxParallel() < 1 || !properties.deadline().isPositive()) {
+            throw new IllegalArgumentException("Invalid fan-out: max parallel " + properties.maxParallel()
+                    + ", deadline " + properties.deadline());
+        }
+        this.asyncQuoteClient = asyncQuoteClient;
+        this.maxParallel = properties.maxParallel();
+        this.deadlineNanos = properties.deadline().toNanos();
+    }
+
+    /**
+     * Un chiste de cada categoría indicada, o de todas las de QuoteClient.getCategories()
+     * si no se indica ninguna
+     *
+     * @return se completa al responder todas las categorías o al vencer el plazo; solo falla
+     *         si no se pueden obtener las categorías a tiempo
+     */
+    public @NonNull CompletableFuture<CategoryJokes> jokesPerCategory(@Nullable List<String> categories) {
+        long start = System.nanoTime();
+        CompletableFuture<List<String>> names = categories == null || categories.isEmpty()
+                ? asyncQuoteClient.getCategories().orTimeout(deadlineNanos, TimeUnit.NANOSECONDS).thenApply(List::of)
+                : CompletableFuture.completedFuture(categories);
+        return names.thenCompose(list -> new FanOut(list, start).run());
+    }
+
+    /**
+     * Estado de una petición: un resultado por categoría, que se completa con null si falla
+     */
+    private final class FanOut {
+
+        final long start;
+        final Map<String, CompletableFuture<QuoteClient.ChuckNorrisJoke>> results = new LinkedHashMap<>();
+        final Queue<String> pending;
+        final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+        volatile boolean closed;
+
+        FanOut(List<String> categories, long start) {
+            this.start = start;
+            Set<String> distinct = new LinkedHashSet<>(categories);
+            distinct.forEach(category -> results.put(category, new CompletableFuture<>()));
+            this.pending = new ConcurrentLinkedQueue<>(distinct);
+        }
+
+        CompletableFuture<CategoryJokes> run() {
+            for (int i = 0; i < maxParallel; i++) {
+                launchNext();
+            }
+            long remaining = Math.max(0, deadlineNanos - (System.nanoTime() - start));
+            return CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+                    .completeOnTimeout(null, remaining, TimeUnit.NANOSECONDS)
+                    .thenApply(ignored -> finish());
+        }
+
+        void launchNext() {
+            String category = closed ? null : pending.poll();
+            if (category == null) {
+                return;
+            }
+            CompletableFuture<QuoteClient.ChuckNorrisJoke> call = asyncQuoteClient.getRandomJokeByCategory(category);
+            inFlight.add(call);
+            if (closed) {
+                call.cancel(true);
+            }
+            call.whenComplete((joke, e) -> {
+                inFlight.remove(call);
+                if (e != null) {
+                    log.debug("No joke for category {}: {}", category, e.toString());
+                }
+                results.get(category).complete(e == null ? joke : null);
+                launchNext();
+            });
+        }
+
+        CategoryJokes finish() {
+            closed = true;
+            inFlight.forEach(call -> call.cancel(true));
+            Map<String, String> jokes = new LinkedHashMap<>();
+            List<String> missing = new ArrayList<>();
+            results.forEach((category, result) -> {
+                QuoteClient.ChuckNorrisJoke joke = result.getNow(null);
+                if (joke != null && joke.getValue() != null) {
+                    jokes.put(category, joke.getValue());
+                } else {
+                    missing.add(category);
+                }
+            });
+            return new CategoryJokes(jokes, missing, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.josediaz.springframework7.service;
+
+import com.josediaz.springframework7.client.CircuitBreakerOpenException;
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.client.SingleFlightException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pool de chistes precargados para sacar la llamada remota del camino de cada petición
+ *
+ * - Cada pool es una cola acotada (highWatermark); take() la consume en O(1)
+ * - Cuando la profundidad baja de lowWatermark, un worker en segundo plano
+ *   la rellena hasta highWatermark
+ * - Si el pool está vacío (starvation) se llama a QuoteClient directamente
+ * - Hay un pool para chistes aleatorios y uno por categoría, creado bajo demanda solo para las
+ *   categorías de QuoteClient.getCategories(); con cualquier otra se llama a QuoteClient directamente
+ * - Si QuoteClient falla enseguida porque su circuit breaker está abierto, se responde con
+ *   el último chiste obtenido para ese pool, o null si aún no hay ninguno (HelloV4Controller
+ *   responde entonces "Hello, World!")
+ *
+ * Métricas: quotes.pool.depth (gauge), quotes.pool.starvations y quotes.pool.fallbacks
+ * (contadores), con tag category
+ */
+@Service
+public class JokePool {
+
+    private static final Logger log = LoggerFactory.getLogger(JokePool.class);
+
+    /**
+     * Límite de pools por categoría: la categoría llega del cliente y no debe crecer sin control
+     */
+    private static final int MAX_CATEGORY_POOLS = 64;
+    private static final String ANY_CATEGORY = "any";
+
+    private final QuoteClient quoteClient;
+    private final Executor refillExecutor;
+    private final boolean enabled;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final @Nullable MeterRegistry meterRegistry;
+
+    private final Pool randomPool;
+    private final Map<String, Pool> categoryPools = new ConcurrentHashMap<>();
+    private final AtomicInteger categoryPoolCount = new AtomicInteger();
+
+    public JokePool(QuoteClient quoteClient,
+                    @Qualifier("applicationTaskExecutor") Executor refillExecutor,
+                    @Value("${quotes.pool.enabled:true}") boolean enabled,
+                    @Value("${quotes.pool.low-watermark:5}") int lowWatermark,
+                    @Value("${quotes.pool.high-watermark:20}") int highWatermark,
+                    ObjectProvider<MeterRegistry> meterRegistry) {
+        if (lowWatermark < 0 || highWatermark < 1 || lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("Invalid pool watermarks: low=" + lowWatermark + ", high=" + highWatermark);
+        }
+        this.quoteClient = quoteClient;
+        this.refillExecutor = refillExecutor;
+        this.enabled = enabled;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+        this.randomPool = new Pool(ANY_CATEGORY, quoteClient::getRandomJoke);
+    }
+
+    /**
+     * Llena el pool de chistes aleatorios al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefill() {
+        if (enabled) {
+            randomPool.refill();
+        }
+    }
+
+    /**
+     * Retorna un chiste aleatorio del pool, o de QuoteClient si el pool está vacío
+     */
+    public QuoteClient.@Nullable ChuckNorrisJoke take() {
+        return enabled ? randomPool.take() : randomPool.fetch();
+    }
+
+    /**
+     * Retorna un chiste de la categoría indicada, usando el pool de esa categoría
+     */
+    public QuoteClient.@Nullable ChuckNorrisJoke take(@NonNull String category) {
+        Pool pool = categoryPool(category.toLowerCase(Locale.ROOT));
+        if (pool == null) {
+            return quoteClient.getRandomJokeByCategory(category);
+        }
+        return enabled ? pool.take() : pool.fetch();
+    }
+
+    public int depth() {
+        return randomPool.jokes.size();
+    }
+
+    public int depth(@NonNull String category) {
+        Pool pool = categoryPools.get(category.toLowerCase(Locale.ROOT));
+        return pool != null ? pool.jokes.size() : 0;
+    }
+
+    public long starvationCount() {
+        long total = randomPool.starvations.sum();
+        for (Pool pool : categoryPools.values()) {
+            total += pool.starvations.sum();
+        }
+        return total;
+    }
+
+    public long fallbackCount() {
+        long total = randomPool.fallbacks.sum();
+        for (Pool pool : categoryPools.values()) {
+            total += pool.fallbacks.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Pool de la categoría, creado al primer uso solo si la categoría está en
+     * QuoteClient.getCategories() (cacheada) y queda sitio; si no, null
+     */
+    private @Nullable Pool categoryPool(String category) {
+        Pool pool = categoryPools.get(category);
+        if (pool != null || categoryPoolCount.get() >= MAX_CATEGORY_POOLS || !isKnownCategory(category)) {
+            return pool;
+        }
+        // La función de computeIfAbsent se ejecuta una sola vez por categoría nueva: reservar ahí
+        // el hueco hace el límite exacto aunque varios hilos creen pools a la vez
+        return categoryPools.computeIfAbsent(category, key -> {
+            if (categoryPoolCount.incrementAndGet() > MAX_CATEGORY_POOLS) {
+                categoryPoolCount.decrementAndGet();
+                return null;
+            }
+            return new Pool(key, () -> quoteClient.getRandomJokeByCategory(key));
+        });
+    }
+
+    private boolean isKnownCategory(String category) {
+        try {
+            for (String known : quoteClient.getCategories()) {
+                if (category.equalsIgnoreCase(known)) {
+                    return true;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Sin lista de categorías no se crean pools; la llamada va directa a QuoteClient
+            log.debug("Categories unavailable for joke pool '{}': {}", category, e.toString());
+        }
+        return false;
+    }
+
+    /**
+     * Circuito abierto, también cuando llega como causa de una llamada agrupada por @SingleFlight
+     */
+    private static boolean isCircuitOpen(RuntimeException e) {
+        return SingleFlightException.unwrap(e) instanceof CircuitBreakerOpenException;
+    }
+
+    private final class Pool {
+
+        private final String category;
+        private final Supplier<QuoteClient.ChuckNorrisJoke> fetcher;
+        private final BlockingQueue<QuoteClient.ChuckNorrisJoke> jokes;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final LongAdder starvations = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private volatile QuoteClient.@Nullable ChuckNorrisJoke lastJoke;
+
+        Pool(String category, Supplier<QuoteClient.ChuckNorrisJoke> fetcher) {
+            this.category = category;
+            this.fetcher = fetcher;
+            this.jokes = new ArrayBlockingQueue<>(highWatermark);
+            if (meterRegistry != null) {
+                Gauge.builder("quotes.pool.depth", jokes, BlockingQueue::size)
+                        .tag("category", category)
+                        .description("Chistes disponibles en el pool")
+                        .register(meterRegistry);
+                FunctionCounter.builder("quotes.pool.starvations", starvations, LongAdder::sum)
+                        .tag("category", category)
+                        .description("Peticiones que encontraron el pool vacío")
+                        .register(meterRegistry);
+                FunctionCounter.builder("quotes.pool.fallbacks", fallbacks, LongAdder::sum)
+                        .tag("category", category)
+                        .description("Peticiones servidas con el último chiste por tener el circuito abierto")
+                        .register(meterRegistry);
+            }
+        }
+
+        QuoteClient.@Nullable ChuckNorrisJoke take() {
+            QuoteClient.ChuckNorrisJoke joke = jokes.poll();
+            if (jokes.size() < lowWatermark) {
+                refill();
+            }
+            if (joke != null) {
+                return joke;
+            }
+            starvations.increment();
+            return fetch();
+        }
+
+        /**
+         * Llama a QuoteClient; con el circuito abierto, retorna el último chiste obtenido
+         */
+        QuoteClient.@Nullable ChuckNorrisJoke fetch() {
+            try {
+                QuoteClient.ChuckNorrisJoke joke = fetcher.get();
+                if (joke != null) {
+                    lastJoke = joke;
+                }
+                return joke;
+            } catch (RuntimeException e) {
+                if (!isCircuitOpen(e)) {
+                    throw e;
+                }
+                fallbacks.increment();
+                return lastJoke;
+            }
+        }
+
+        /**
+         * Programa un único worker por pool que rellena hasta highWatermark
+         */
+        void refill() {
+            if (!refilling.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                refillExecutor.execute(() -> {
+                    try {
+                        while (jokes.size() < highWatermark) {
+                            QuoteClient.ChuckNorrisJoke joke = fetcher.get();
+                            if (joke == null || !jokes.offer(joke)) {
+                                break;
+                            }
+                            lastJoke = joke;
+                        }
+                    } catch (RuntimeException e) {
+                        if (isCircuitOpen(e)) {
+                            // Sin rellenar con el último chiste: el pool se llenaría de copias
+                            log.debug("Refill of joke pool '{}' skipped: {}", category, e.getMessage());
+                        } else {
+                            // El siguiente take() por debajo de lowWatermark lo volverá a intentar
+                            log.warn("Refill of joke pool '{}' failed: {}", category, e.getMessage());
+                        }
+                    } finally {
+                        refilling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                refilling.set(false);
+                log.warn("Refill of joke pool '{}' rejected: {}", category, e.getMessage());
+            }
+        }
+    }
+}
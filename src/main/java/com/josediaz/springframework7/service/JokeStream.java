@@ -0,0 +1,295 @@
+package com.josediaz.springframework7.service;
+
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.config.QuoteStreamProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flujo de chistes por Server-Sent Events para muchos suscriptores a la vez
+ *
+ * - Un solo bucle (hilos joke-stream) toma un chiste del JokePool cada interval, solo si hay
+ *   suscriptores, y lo envía a todos: el coste remoto no crece con los suscriptores. El JSON
+ *   se serializa una vez por chiste, no una por suscriptor
+ * - Cada heartbeat se envía un comentario SSE (": heartbeat"); si la conexión ya se cerró,
+ *   el envío falla y el suscriptor se elimina
+ * - Una conexión sin eventos pendientes no ocupa ningún hilo (petición asíncrona del servlet);
+ *   los envíos pendientes de cada suscriptor se hacen en un hilo virtual que termina al vaciarlos,
+ *   así un cliente lento no frena al bucle ni al resto
+ * - Back-pressure por suscriptor (quotes.stream.backpressure): drop se queda solo con el último
+ *   evento pendiente; buffer guarda hasta buffer-size y desconecta al suscriptor que lo llena.
+ *   Un heartbeat no se encola detrás de otro evento pendiente ni sustituye a un chiste: ese
+ *   envío ya detecta la conexión cerrada
+ * - Como mucho max-subscribers conexiones: la plaza se reserva antes de crear el emisor y se
+ *   libera una sola vez, al eliminar al suscriptor por cualquier motivo
+ *
+ * Métricas: quotes.stream.subscribers (gauge), quotes.stream.events con result=sent o
+ * result=dropped y quotes.stream.disconnects (suscriptores lentos desconectados)
+ */
+@Service
+public class JokeStream implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JokeStream.class);
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("heartbeat").build();
+
+    private final JokePool jokePool;
+    private final JsonMapper jsonMapper;
+    private final QuoteStreamProperties properties;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger slots = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("joke-stream-send-", 0).factory());
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private volatile @Nullable ScheduledExecutorService loop;
+
+    public JokeStream(JokePool jokePool, JsonMapper jsonMapper, QuoteStreamProperties properties) {
+        if (!properties.interval().isPositive() || !properties.heartbeat().isPositive()
+                || properties.bufferSize() < 1 || properties.maxSubscribers() < 1) {
+            throw new IllegalArgumentException("Invalid joke stream: " + properties);
+        }
+        this.jokePool = jokePool;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Nueva conexión SSE; recibe los chistes a partir del siguiente
+     *
+     * @return null si ya hay maxSubscribers conexiones abiertas
+     */
+    public @Nullable SseEmitter subscribe() {
+        // Comprobar size() y luego añadir dejaría pasar a varias conexiones a la vez por encima del límite
+        if (slots.incrementAndGet() > properties.maxSubscribers()) {
+            slots.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            // Sin complete() la petición asíncrona seguiría abierta tras el timeout
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void start() {
+        // Dos hilos: un upstream lento no retrasa los heartbeats
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(2,
+                Thread.ofPlatform().daemon().name("joke-stream-", 0).factory());
+        long interval = properties.interval().toNanos();
+        long heartbeat = properties.heartbeat().toNanos();
+        executor.scheduleWithFixedDelay(this::publishJoke, interval, interval, TimeUnit.NANOSECONDS);
+        executor.scheduleWithFixedDelay(() -> broadcast(HEARTBEAT), heartbeat, heartbeat, TimeUnit.NANOSECONDS);
+        loop = executor;
+    }
+
+    /**
+     * Detiene el bucle y cierra todas las conexiones; los clientes EventSource se reconectarán
+     */
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = loop;
+        if (executor != null) {
+            executor.shutdownNow();
+            loop = null;
+        }
+        // Antes que el apagado ordenado de Tomcat, que esperaría a estas peticiones asíncronas
+        subscribers.forEach(subscriber -> {
+            remove(subscriber);
+            subscriber.emitter.complete();
+        });
+        senders.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loop != null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("quotes.stream.subscribers", subscribers, Set::size)
+                .description("Conexiones SSE abiertas en /quotes/stream")
+                .register(registry);
+        FunctionCounter.builder("quotes.stream.events", sent, LongAdder::sum)
+                .tag("result", "sent")
+                .description("Eventos de /quotes/stream por suscriptor")
+                .register(registry);
+        FunctionCounter.builder("quotes.stream.events", dropped, LongAdder::sum)
+                .tag("result", "dropped")
+                .description("Eventos de /quotes/stream por suscriptor")
+                .register(registry);
+        FunctionCounter.builder("quotes.stream.disconnects", disconnects, LongAdder::sum)
+                .description("Suscriptores desconectados por llenar su buffer")
+                .register(registry);
+    }
+
+    private void publishJoke() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            QuoteClient.ChuckNorrisJoke joke = jokePool.take();
+            if (joke == null) {
+                return;
+            }
+            broadcast(SseEmitter.event()
+                    .id(Long.toString(eventIds.incrementAndGet()))
+                    .name("joke")
+                    .data(jsonMapper.writeValueAsString(joke), MediaType.APPLICATION_JSON)
+                    .build());
+        } catch (RuntimeException e) {
+            // El bucle sigue: scheduleWithFixedDelay cancela la tarea si se propaga la excepción
+            log.debug("No joke for the stream: {}", e.toString());
+        }
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    /**
+     * Deja de enviar a un suscriptor y libera su plaza; puede llamarse varias veces
+     */
+    private void remove(Subscriber subscriber) {
+        subscriber.close();
+        if (subscribers.remove(subscriber)) {
+            slots.decrementAndGet();
+        }
+    }
+
+    /**
+     * Eventos pendientes de una conexión; draining indica que hay un hilo enviándolos
+     */
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        final ReentrantLock lock = new ReentrantLock();
+        final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> pending = new ArrayDeque<>();
+        boolean draining;
+        boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            boolean overflow = false;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (event == HEARTBEAT && !pending.isEmpty()) {
+                    // Ya hay un envío pendiente: el heartbeat sobra y nunca desplaza a un chiste
+                    dropped.increment();
+                    return;
+                }
+                if (properties.backpressure() == QuoteStreamProperties.Backpressure.DROP && !pending.isEmpty()) {
+                    pending.poll();
+                    dropped.increment();
+                } else if (pending.size() >= properties.bufferSize()) {
+                    dropped.add(pending.size() + 1);
+                    pending.clear();
+                    closed = true;
+                    overflow = true;
+                }
+                if (!overflow) {
+                    pending.add(event);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (overflow) {
+                disconnects.increment();
+                remove(this);
+                emitter.complete();
+            } else {
+                senders.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                lock.lock();
+                try {
+                    event = closed ? null : pending.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    emitter.send(event);
+                    sent.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // Conexión cerrada por el cliente o emisor ya completado
+                    remove(this);
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                draining = false;
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
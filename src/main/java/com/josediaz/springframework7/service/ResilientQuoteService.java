@@ -1,57 +1,71 @@
 package com.josediaz.springframework7.service;
 
+import com.josediaz.springframework7.client.AdaptiveConcurrencyLimit;
 import com.josediaz.springframework7.client.QuoteClient;
-import org.springframework.resilience.annotation.Retryable;
-import org.springframework.resilience.annotation.ConcurrencyLimit;
+import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
 
 /**
- * Servicio que demuestra el uso de anotaciones de resiliencia de Spring Framework 7
+ * Servicio que demuestra el uso de anotaciones de resiliencia
  * 
- * Las anotaciones @Retryable y @ConcurrencyLimit están habilitadas mediante
- * @EnableResilientMethods en HttpClientConfig
+ * Usa @AdaptiveConcurrencyLimit en lugar de @ConcurrencyLimit de Spring Framework 7: el límite
+ * empieza en initialLimit y se ajusta con la latencia. Está habilitada mediante
+ * AdaptiveConcurrencyLimitConfiguration, no con @EnableResilientMethods
+ * 
+ * Los chistes no se reintentan aquí: QuoteClient.getRandomJoke ya tiene @RetryWithBudget, y
+ * reintentar también en este nivel multiplicaría las llamadas a la API remota
  */
 @Service
 public class ResilientQuoteService {
 
     private final QuoteClient quoteClient;
+    private final JokePool jokePool;
 
-    public ResilientQuoteService(QuoteClient quoteClient) {
+    public ResilientQuoteService(QuoteClient quoteClient, JokePool jokePool) {
         this.quoteClient = quoteClient;
+        this.jokePool = jokePool;
     }
 
     /**
      * Obtiene un chiste aleatorio con política de reintentos
      * 
-     * @Retryable: Reintenta automáticamente si falla la llamada
-     * Los parámetros específicos pueden variar según la versión de Spring Framework 7
+     * El chiste sale del JokePool; solo si el pool está vacío se llama a la API remota, con los
+     * reintentos de QuoteClient.getRandomJoke (@RetryWithBudget: esperas aleatorias mientras
+     * quede presupuesto). Con el circuit breaker de QuoteClient abierto, JokePool responde con
+     * el último chiste sin que haya nada que reintentar
+     * 
+     * @return null si el circuito está abierto y aún no se ha obtenido ningún chiste
      */
-    @Retryable
-    public QuoteClient.ChuckNorrisJoke getRandomJokeWithRetry() {
-        return quoteClient.getRandomJoke();
+    public QuoteClient.@Nullable ChuckNorrisJoke getRandomJokeWithRetry() {
+        return jokePool.take();
     }
 
     /**
      * Obtiene categorías con límite de concurrencia
      * 
-     * @ConcurrencyLimit(5): Permite máximo 5 llamadas concurrentes a este método
-     * Si hay más de 5 llamadas simultáneas, las adicionales esperarán
+     * @AdaptiveConcurrencyLimit(initialLimit = 5): empieza permitiendo 5 llamadas concurrentes
+     * y ajusta el límite con la latencia; las adicionales esperan como mucho maxQueueWait
+     * y después responden 503 (ConcurrencyLimitExceededException)
+     * 
+     * Usa la misma caché de categorías que QuoteController (ver CachingQuoteClient)
      */
-    @ConcurrencyLimit(5)
+    @AdaptiveConcurrencyLimit(initialLimit = 5)
     public String[] getCategoriesWithConcurrencyLimit() {
         return quoteClient.getCategories();
     }
 
     /**
-     * Método que combina ambas anotaciones de resiliencia
+     * Método que combina el límite de este servicio con los reintentos de QuoteClient
+     * 
+     * - @AdaptiveConcurrencyLimit(initialLimit = 3): empieza limitando a 3 llamadas concurrentes;
+     *   las rechazadas responden 503 sin reintentar
+     * - Los fallos de la API remota los reintenta QuoteClient.getRandomJoke (@RetryWithBudget)
      * 
-     * - @Retryable: Reintenta automáticamente si falla
-     * - @ConcurrencyLimit(3): Limita a 3 llamadas concurrentes
+     * @return null si el circuito está abierto y aún no se ha obtenido ningún chiste
      */
-    @Retryable
-    @ConcurrencyLimit(3)
-    public QuoteClient.ChuckNorrisJoke getRandomJokeResilient() {
-        return quoteClient.getRandomJoke();
+    @AdaptiveConcurrencyLimit(initialLimit = 3)
+    public QuoteClient.@Nullable ChuckNorrisJoke getRandomJokeResilient() {
+        return jokePool.take();
     }
 }
 
@@ -0,0 +1,769 @@
+package com.josediaz.springframework7.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistencia de UserService: snapshots binarios periódicos más un write-ahead log (WAL)
+ *
+ * Ficheros en el directorio configurado, numerados por segmento:
+ * - users-N.wal: registros [longitud][CRC32C][tipo][id][campos], uno por createUser y updateUser
+ *   (estado completo del usuario) o deleteUser, siempre añadidos al final
+ * - users-N.snap: todos los usuarios en el momento en que empezó el segmento N del WAL
+ *
+ * Un snapshot rota el WAL (los cambios siguientes van al segmento N+1), escribe los usuarios en
+ * users-(N+1).snap.tmp, lo renombra de forma atómica y borra los segmentos y snapshots anteriores.
+ * Al arrancar se lee el último snapshot con un FileChannel y se reaplican solo los segmentos del
+ * WAL posteriores; una cola incompleta o con CRC incorrecto en el último segmento, que solo puede
+ * contener registros cuyo sync no había terminado, se descarta
+ *
+ * Escritura con group commit, como LogAccountStorage: append escribe el registro y sync espera a
+ * un fsync que cubre a todos los escritores que llegan a la vez
+ */
+public class UserJournal implements Closeable, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserJournal.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("users-(\\d{20})\\.(wal|snap)");
+    private static final String WAL = "wal";
+    private static final String SNAPSHOT = "snap";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final int WAL_MAGIC = 0x5553574C; // "USWL"
+    private static final int SNAPSHOT_MAGIC = 0x5553534E; // "USSN"
+    private static final int VERSION = 1;
+    /**
+     * magic, versión y número de segmento
+     */
+    private static final int WAL_HEADER = 16;
+    /**
+     * magic, versión, número de segmento, id más alto asignado y número de usuarios
+     */
+    private static final int SNAPSHOT_HEADER = 32;
+    /**
+     * longitud del resto del registro y CRC32C
+     */
+    private static final int RECORD_PREFIX = 8;
+    private static final int MIN_RECORD_LENGTH = 1 + Long.BYTES;
+    private static final int MAX_RECORD_LENGTH = 16 << 20;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int IO_BUFFER = 1 << 20;
+
+    private final Path directory;
+    private final long snapshotWalBytes;
+
+    /**
+     * Lectura: escrituras y fsync del segmento activo; escritura: recuperación, rotación y cierre
+     */
+    private final ReentrantReadWriteLock filesLock = new ReentrantReadWriteLock();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+
+    private @Nullable FileChannel channel;
+    private long segment;
+    private boolean closed;
+    private long recoveredMaxId;
+
+    // Protegidos por appendLock
+    private volatile long position;
+    private long appendedSequence;
+
+    // Protegidos por syncLock
+    private boolean syncing;
+    private volatile long durableSequence;
+
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder syncedRecords = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    /**
+     * Abre (o crea) el directorio del journal; el estado se carga con recover
+     *
+     * @param snapshotWalBytes Tamaño del segmento activo del WAL a partir del cual conviene un
+     *                         snapshot (0 desactiva los snapshots periódicos)
+     */
+    public UserJournal(@NonNull Path directory, long snapshotWalBytes) throws IOException {
+        if (snapshotWalBytes < 0) {
+            throw new IllegalArgumentException("Invalid snapshot WAL size: " + snapshotWalBytes);
+        }
+        this.directory = directory;
+        this.snapshotWalBytes = snapshotWalBytes;
+        Files.createDirectories(directory);
+        // Restos de un snapshot interrumpido: el snapshot anterior y el WAL siguen siendo válidos
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(TMP_SUFFIX)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Recibe el estado recuperado: el último snapshot y después el WAL, en orden
+     */
+    public interface Listener {
+
+        void put(long id, @NonNull String name, @NonNull String email, @Nullable String phone);
+
+        void remove(long id);
+    }
+
+    /**
+     * Carga el último snapshot, reaplica el WAL posterior y deja el journal listo para escribir
+     *
+     * @return Id más alto asignado alguna vez, incluidos los usuarios borrados (0 si no hay ninguno)
+     */
+    public long recover(@NonNull Listener listener) throws IOException {
+        filesLock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (channel != null) {
+                throw new IllegalStateException("User journal already recovered: " + directory);
+            }
+            NavigableMap<Long, Path> wals = new TreeMap<>();
+            NavigableMap<Long, Path> snapshotFiles = new TreeMap<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        (WAL.equals(matcher.group(2)) ? wals : snapshotFiles).put(Long.parseLong(matcher.group(1)), file);
+                    }
+                }
+            }
+
+            recoveredMaxId = 0;
+            long first = 1;
+            Map.Entry<Long, Path> snapshot = snapshotFiles.lastEntry();
+            if (snapshot != null) {
+                first = snapshot.getKey();
+                loadSnapshot(snapshot.getValue(), first, listener);
+            }
+            // Restos de un snapshot que terminó sin llegar a borrar los ficheros anteriores
+            deleteBefore(first);
+
+            NavigableMap<Long, Path> tail = wals.tailMap(first, true);
+            if (tail.isEmpty()) {
+                channel = createSegment(first);
+                segment = first;
+                position = WAL_HEADER;
+            } else {
+                long expected = first;
+                for (Map.Entry<Long, Path> wal : tail.entrySet()) {
+                    if (wal.getKey() != expected) {
+                        throw new IOException("Missing user journal segment " + expected + " in " + directory);
+                    }
+                    boolean active = wal.getKey().equals(tail.lastKey());
+                    FileChannel replayed = FileChannel.open(wal.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    try {
+                        long end = replaySegment(replayed, wal.getValue(), expected, listener, active);
+                        if (active) {
+                            channel = replayed;
+                            segment = expected;
+                            position = end;
+                        }
+                    } finally {
+                        if (!active) {
+                            replayed.close();
+                        }
+                    }
+                    expected++;
+                }
+            }
+            return recoveredMaxId;
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registra el estado completo de un usuario creado o actualizado
+     *
+     * @return Secuencia que se pasa a sync
+     * @throws IllegalArgumentException si el registro supera MAX_RECORD_LENGTH
+     */
+    public long appendPut(long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        byte[] phoneBytes = phone != null ? phone.getBytes(StandardCharsets.UTF_8) : null;
+        int length = putLength(nameBytes, emailBytes, phoneBytes);
+        if (length - RECORD_PREFIX > MAX_RECORD_LENGTH) {
+            // La recuperación descartaría el registro como corrupto, junto con todo lo posterior
+            throw new IllegalArgumentException("User " + id + " is too large to store: "
+                    + (length - RECORD_PREFIX) + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        putRecord(record, id, nameBytes, emailBytes, phoneBytes);
+        return write(id, record.flip());
+    }
+
+    /**
+     * Registra el borrado de un usuario
+     *
+     * @return Secuencia que se pasa a sync
+     */
+    public long appendDelete(long id) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_PREFIX + MIN_RECORD_LENGTH);
+        record.position(RECORD_PREFIX);
+        record.put(DELETE).putLong(id);
+        seal(record, 0);
+        return write(id, record.flip());
+    }
+
+    /**
+     * Bloquea hasta que todos los cambios hasta sequence (incluido) son durables
+     */
+    public void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncing) {
+                    // Otro hilo está haciendo fsync: su lote puede incluir este registro
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long durable = durableSequence;
+                syncLock.unlock();
+                try {
+                    durable = flush();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    durableSequence = Math.max(durableSequence, durable);
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Indica si el segmento activo del WAL ha superado el tamaño que lanza un snapshot
+     */
+    public boolean snapshotDue() {
+        return snapshotWalBytes > 0 && position - WAL_HEADER >= snapshotWalBytes;
+    }
+
+    /**
+     * Cierra el segmento activo del WAL (tras hacerlo durable) y abre el siguiente
+     *
+     * UserService la llama sin escrituras en curso, así que el snapshot que se escriba a continuación
+     * con writeSnapshot contiene al menos todos los cambios de los segmentos anteriores
+     *
+     * @return Número del segmento nuevo, que es el del snapshot
+     */
+    long rotate() {
+        filesLock.writeLock().lock();
+        try {
+            FileChannel current = ensureRecovered();
+            markDurable(flushLocked());
+            long next = segment + 1;
+            channel = createSegment(next);
+            segment = next;
+            position = WAL_HEADER;
+            current.close();
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rotate user journal", e);
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Escribe el snapshot del segmento y borra los segmentos y snapshots anteriores
+     *
+     * Los usuarios se recorren mientras siguen llegando escrituras: un usuario modificado durante
+     * el recorrido puede quedar con cualquier versión, porque su cambio está también en el WAL del
+     * segmento y al recuperar se reaplica encima
+     *
+     * @param maxId Id más alto asignado en el momento de rotar
+     */
+    void writeSnapshot(long snapshotSegment, long maxId, @NonNull Iterable<UserService.User> users) {
+        Path target = directory.resolve(fileName(snapshotSegment, SNAPSHOT));
+        Path temporary = directory.resolve(fileName(snapshotSegment, SNAPSHOT) + TMP_SUFFIX);
+        filesLock.readLock().lock();
+        try {
+            ensureOpen();
+            long count = 0;
+            long end = 0;
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+                // La cabecera se escribe al final, cuando se conoce el número de usuarios
+                buffer.position(SNAPSHOT_HEADER);
+                for (UserService.User user : users) {
+                    byte[] name = user.getName().getBytes(StandardCharsets.UTF_8);
+                    byte[] email = user.getEmail().getBytes(StandardCharsets.UTF_8);
+                    String phoneValue = user.getPhone();
+                    byte[] phone = phoneValue != null ? phoneValue.getBytes(StandardCharsets.UTF_8) : null;
+                    int length = putLength(name, email, phone);
+                    if (buffer.remaining() < length) {
+                        end += writeFully(out, buffer.flip(), end);
+                        buffer = length > buffer.capacity() ? ByteBuffer.allocate(length) : buffer.clear();
+                    }
+                    putRecord(buffer, user.getId(), name, email, phone);
+                    count++;
+                }
+                end += writeFully(out, buffer.flip(), end);
+                ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER).putInt(SNAPSHOT_MAGIC).putInt(VERSION)
+                        .putLong(snapshotSegment).putLong(maxId).putLong(count).flip();
+                writeFully(out, header, 0);
+                out.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(directory);
+            snapshots.increment();
+            deleteBefore(snapshotSegment);
+            log.info("Wrote user snapshot {} with {} users ({} bytes)", snapshotSegment, count, end);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Failed to write user snapshot " + snapshotSegment, e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes del segmento activo del WAL, incluida la cabecera
+     */
+    public long walSize() {
+        return position;
+    }
+
+    public long syncCount() {
+        return syncs.sum();
+    }
+
+    public long snapshotCount() {
+        return snapshots.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        filesLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            FileChannel current = channel;
+            if (current != null) {
+                try {
+                    markDurable(flushLocked());
+                } finally {
+                    current.close();
+                }
+            }
+        } finally {
+            filesLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("users.journal.syncs", syncs, LongAdder::sum)
+                .description("fsync del WAL de usuarios (uno por lote de group commit)")
+                .register(registry);
+        FunctionCounter.builder("users.journal.records", syncedRecords, LongAdder::sum)
+                .description("Registros del WAL de usuarios hechos durables")
+                .register(registry);
+        FunctionCounter.builder("users.journal.snapshots", snapshots, LongAdder::sum)
+                .description("Snapshots de usuarios escritos")
+                .register(registry);
+        Gauge.builder("users.journal.wal.size", this, UserJournal::walSize)
+                .description("Bytes del segmento activo del WAL de usuarios")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private long write(long id, ByteBuffer record) {
+        filesLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                FileChannel current = ensureRecovered();
+                long offset = position;
+                position = offset + writeFully(current, record, offset);
+                return ++appendedSequence;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append user " + id, e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * fsync del segmento activo para todo lo escrito hasta ahora
+     *
+     * @return Secuencia que queda durable
+     */
+    private long flush() {
+        filesLock.readLock().lock();
+        try {
+            ensureRecovered();
+            return flushLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync user journal", e);
+        } finally {
+            filesLock.readLock().unlock();
+        }
+    }
+
+    private long flushLocked() throws IOException {
+        long sequence;
+        appendLock.lock();
+        try {
+            sequence = appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        long durable = durableSequence;
+        if (sequence > durable && channel != null) {
+            channel.force(false);
+            syncs.increment();
+            syncedRecords.add(sequence - durable);
+        }
+        return sequence;
+    }
+
+    private void markDurable(long sequence) {
+        syncLock.lock();
+        try {
+            durableSequence = Math.max(durableSequence, sequence);
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void loadSnapshot(Path path, long snapshotSegment, Listener listener) throws IOException {
+        try (FileChannel snapshot = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER);
+            if (snapshot.size() < SNAPSHOT_HEADER) {
+                throw new IOException("Corrupted user snapshot: " + path);
+            }
+            readFully(snapshot, header, 0);
+            if (header.getInt(0) != SNAPSHOT_MAGIC || header.getInt(4) != VERSION || header.getLong(8) != snapshotSegment) {
+                throw new IOException("Not a user snapshot: " + path);
+            }
+            recoveredMaxId = header.getLong(16);
+            long count = header.getLong(24);
+            RecordReader reader = new RecordReader(snapshot, SNAPSHOT_HEADER);
+            for (long i = 0; i < count; i++) {
+                ByteBuffer record = reader.next();
+                if (record == null || record.get(RECORD_PREFIX) != PUT) {
+                    throw new IOException("Corrupted user snapshot: " + path);
+                }
+                apply(record, listener);
+            }
+        }
+    }
+
+    /**
+     * Reaplica los registros de un segmento del WAL
+     *
+     * @param active Último segmento: una cola incompleta se descarta; en los anteriores, que se
+     *               cerraron tras un fsync, es un error
+     * @return Final de los registros válidos
+     */
+    private long replaySegment(FileChannel wal, Path path, long walSegment, Listener listener, boolean active) throws IOException {
+        long size = wal.size();
+        if (size < WAL_HEADER && active) {
+            // Segmento creado justo antes de una caída, sin cabecera completa
+            writeHeader(wal, walSegment);
+            return WAL_HEADER;
+        }
+        ByteBuffer header = ByteBuffer.allocate(WAL_HEADER);
+        if (size < WAL_HEADER) {
+            throw new IOException("Corrupted user journal segment: " + path);
+        }
+        readFully(wal, header, 0);
+        if (header.getInt(0) != WAL_MAGIC || header.getInt(4) != VERSION || header.getLong(8) != walSegment) {
+            throw new IOException("Not a user journal segment: " + path);
+        }
+        RecordReader reader = new RecordReader(wal, WAL_HEADER);
+        ByteBuffer record;
+        while ((record = reader.next()) != null) {
+            apply(record, listener);
+        }
+        long end = reader.offset();
+        if (end < size) {
+            if (!active) {
+                throw new IOException("Corrupted user journal segment: " + path);
+            }
+            log.warn("Discarding {} bytes of incomplete records at the end of {}", size - end, path);
+            wal.truncate(end);
+            wal.force(true);
+        }
+        return end;
+    }
+
+    private void apply(ByteBuffer record, Listener listener) throws IOException {
+        byte type = record.get(RECORD_PREFIX);
+        long id = record.getLong(RECORD_PREFIX + 1);
+        recoveredMaxId = Math.max(recoveredMaxId, id);
+        if (type == DELETE) {
+            listener.remove(id);
+            return;
+        }
+        if (type != PUT) {
+            throw new IOException("Unknown user journal record type " + type);
+        }
+        record.position(RECORD_PREFIX + MIN_RECORD_LENGTH);
+        String name = getString(record);
+        String email = getString(record);
+        String phone = getString(record);
+        if (name == null || email == null) {
+            throw new IOException("Corrupted user record " + id);
+        }
+        listener.put(id, name, email, phone);
+    }
+
+    private FileChannel createSegment(long walSegment) throws IOException {
+        FileChannel created = FileChannel.open(directory.resolve(fileName(walSegment, WAL)), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            writeHeader(created, walSegment);
+        } catch (IOException e) {
+            created.close();
+            throw e;
+        }
+        syncDirectory(directory);
+        return created;
+    }
+
+    private static void writeHeader(FileChannel wal, long walSegment) throws IOException {
+        wal.truncate(0);
+        writeFully(wal, ByteBuffer.allocate(WAL_HEADER).putInt(WAL_MAGIC).putInt(VERSION).putLong(walSegment).flip(), 0);
+        wal.force(true);
+    }
+
+    /**
+     * Borra los segmentos del WAL y snapshots anteriores a un snapshot ya durable
+     */
+    private void deleteBefore(long snapshotSegment) throws IOException {
+        boolean deleted = false;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) < snapshotSegment) {
+                    deleted |= Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (deleted) {
+            syncDirectory(directory);
+        }
+    }
+
+    private FileChannel ensureRecovered() {
+        ensureOpen();
+        FileChannel current = channel;
+        if (current == null) {
+            throw new IllegalStateException("User journal has not been recovered: " + directory);
+        }
+        return current;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("User journal is closed: " + directory);
+        }
+    }
+
+    private static String fileName(long fileSegment, String extension) {
+        return String.format("users-%020d.%s", fileSegment, extension);
+    }
+
+    private static int putLength(byte[] name, byte[] email, byte @Nullable [] phone) {
+        return RECORD_PREFIX + MIN_RECORD_LENGTH
+                + Integer.BYTES + name.length
+                + Integer.BYTES + email.length
+                + Integer.BYTES + (phone != null ? phone.length : 0);
+    }
+
+    /**
+     * Escribe un registro PUT en la posición actual de buffer
+     */
+    private static void putRecord(ByteBuffer buffer, long id, byte[] name, byte[] email, byte @Nullable [] phone) {
+        int start = buffer.position();
+        buffer.position(start + RECORD_PREFIX);
+        buffer.put(PUT).putLong(id);
+        putBytes(buffer, name);
+        putBytes(buffer, email);
+        putBytes(buffer, phone);
+        seal(buffer, start);
+    }
+
+    /**
+     * Completa longitud y CRC32C del registro que empieza en start y termina en la posición actual
+     */
+    private static void seal(ByteBuffer buffer, int start) {
+        int length = buffer.position() - start - RECORD_PREFIX;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + RECORD_PREFIX, length);
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static boolean verify(ByteBuffer record) {
+        int length = record.getInt(0);
+        if (length != record.capacity() - RECORD_PREFIX) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), record.arrayOffset() + RECORD_PREFIX, length);
+        return (int) crc.getValue() == record.getInt(4);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte @Nullable [] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static @Nullable String getString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IOException("Corrupted user record");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, offset + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position() - start);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of user journal at " + offset);
+            }
+        }
+        buffer.position(start);
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Hace durables los renombrados y la creación y el borrado de ficheros
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory {} cannot be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Lectura secuencial de registros con un buffer de IO_BUFFER bytes
+     */
+    private static final class RecordReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+        private long bufferStart;
+        private long offset;
+
+        RecordReader(FileChannel channel, long offset) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.offset = offset;
+            this.bufferStart = offset;
+            buffer.limit(0);
+        }
+
+        /**
+         * @return Siguiente registro (con su prefijo), null al final o en un registro incompleto
+         *         o con CRC incorrecto
+         */
+        @Nullable ByteBuffer next() throws IOException {
+            if (offset + RECORD_PREFIX > size) {
+                return null;
+            }
+            ensureBuffered(RECORD_PREFIX);
+            int length = buffer.getInt((int) (offset - bufferStart));
+            if (length < MIN_RECORD_LENGTH || length > MAX_RECORD_LENGTH || offset + RECORD_PREFIX + length > size) {
+                return null;
+            }
+            int total = RECORD_PREFIX + length;
+            ensureBuffered(total);
+            ByteBuffer record = buffer.slice((int) (offset - bufferStart), total);
+            if (!verify(record)) {
+                return null;
+            }
+            offset += total;
+            return record;
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        private void ensureBuffered(int bytes) throws IOException {
+            if (offset + bytes <= bufferStart + buffer.limit()) {
+                return;
+            }
+            if (bytes > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(bytes);
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - offset));
+            readFully(channel, buffer, offset);
+            bufferStart = offset;
+        }
+    }
+}
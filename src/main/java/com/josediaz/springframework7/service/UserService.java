@@ -1,12 +1,32 @@
 package com.josediaz.springframework7.service;
 
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.SequencedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * Servicio que demuestra el uso de JSpecify para null safety
@@ -16,18 +36,105 @@ import java.util.Optional;
  * - Herramientas del IDE (detección de posibles NullPointerException)
  * - Interoperabilidad con Kotlin
  * - Seguridad de tipos en tiempo de compilación
+ *
+ * Es seguro para los hilos de Tomcat:
+ * - Los ids se asignan con un AtomicLong
+ * - update/delete toman un lock por franja (lock striping) según el id,
+ *   así que solo compiten entre sí las escrituras sobre el mismo usuario
+ * - La unicidad del email se resuelve con putIfAbsent sobre las reservas de email
+ * - Las lecturas nunca toman locks
+ *
+ * Con un UserJournal (users.journal.enabled) los usuarios sobreviven a un reinicio:
+ * - Cada escritura se registra en el WAL con sus locks y espera al fsync (group commit) ya sin ellos
+ * - Un cambio solo se publica en users y emailIndex cuando es durable, en orden de secuencia;
+ *   hasta entonces las lecturas ven la versión anterior, las escrituras siguientes ven la nueva
+ *   y su email sigue reservado. Si su fsync falla, se publica cuando uno posterior lo hace durable
+ * - Cuando el WAL crece lo suficiente se escribe un snapshot en segundo plano; las escrituras
+ *   toman la lectura de snapshotLock para que la rotación del WAL no quede entre el registro
+ *   de un cambio y su paso a la cola de publicación
+ * - Al arrancar se cargan el último snapshot y el WAL posterior, y solo se crean los usuarios
+ *   de ejemplo si nunca se ha asignado un id
  */
 @Service
 public class UserService {
 
-    private final Map<Long, User> users = new HashMap<>();
-    private Long nextId = 1L;
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    /**
+     * Ordenado por id para soportar paginación por cursor (keyset)
+     */
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+
+    /**
+     * Índice secundario email (normalizado) -> id para búsquedas O(1)
+     * Se mantiene al publicar los cambios, igual que users
+     */
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Reservas de email (normalizado) -> id de las escrituras: incluye los cambios registrados
+     * y aún no publicados, así un email pendiente de fsync no se puede registrar dos veces
+     */
+    private final Map<String, Long> emailOwners = new ConcurrentHashMap<>();
+
+    /**
+     * Dueño provisional de un email reservado por un alta que aún no tiene id (los ids empiezan en 1)
+     */
+    private static final Long RESERVING = 0L;
+
+    /**
+     * Marca de usuario borrado en unpublished y en las versiones de un lote
+     */
+    private static final User DELETED = new User(0L, "", "", null);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final @Nullable UserJournal journal;
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final ReentrantLock snapshotWriteLock = new ReentrantLock();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+
+    /**
+     * Última versión registrada en el WAL y aún no publicada de cada usuario (DELETED si se
+     * borra); se escribe con el lock de la franja del usuario
+     */
+    private final Map<Long, User> unpublished = new ConcurrentHashMap<>();
+    /**
+     * Cambios registrados pendientes de publicar, por secuencia del WAL
+     */
+    private final ConcurrentNavigableMap<Long, Change> publishQueue = new ConcurrentSkipListMap<>();
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    /**
+     * Servicio solo en memoria
+     */
     public UserService() {
-        // Datos de ejemplo
-        users.put(1L, new User(1L, "Alice", "alice@example.com", "123-456-7890"));
-        users.put(2L, new User(2L, "Bob", "bob@example.com", null));
-        users.put(3L, new User(3L, "Charlie", "charlie@example.com", "987-654-3210"));
+        this((UserJournal) null);
+    }
+
+    @Autowired
+    public UserService(ObjectProvider<UserJournal> journal) {
+        this(journal.getIfAvailable());
+    }
+
+    /**
+     * Servicio persistente: recupera los usuarios de journal y registra en él cada cambio;
+     * solo en memoria si journal es null
+     */
+    public UserService(@Nullable UserJournal journal) {
+        this.journal = journal;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        if (journal != null) {
+            recover(journal);
+        }
+        if (nextId.get() == 1) {
+            seed();
+        }
     }
 
     /**
@@ -39,6 +146,29 @@ public class UserService {
         return new HashMap<>(users);
     }
 
+    /**
+     * Paginación por cursor (keyset): hasta limit usuarios con id mayor que afterId
+     * 
+     * @return Usuarios ordenados por id (nunca null)
+     */
+    public @NonNull SequencedMap<Long, User> getUsersPage(long afterId, int limit) {
+        SequencedMap<Long, User> page = new LinkedHashMap<>();
+        for (User user : users.tailMap(afterId, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.put(user.getId(), user);
+        }
+        return page;
+    }
+
+    /**
+     * Recorrido perezoso de los usuarios con id mayor que afterId, sin copiar el mapa
+     */
+    public @NonNull Stream<User> streamUsers(long afterId) {
+        return users.tailMap(afterId, false).values().stream();
+    }
+
     /**
      * Busca un usuario por ID
      * 
@@ -56,10 +186,19 @@ public class UserService {
      * @param email Email del usuario (requerido, no null)
      * @param phone Teléfono del usuario (opcional, puede ser null)
      * @return Usuario creado (nunca null)
+     * @throws DuplicateEmailException si ya existe un usuario con ese email (sin distinguir mayúsculas)
      */
     public @NonNull User createUser(@NonNull String name, @NonNull String email, @Nullable String phone) {
-        User user = new User(nextId++, name, email, phone);
-        users.put(user.getId(), user);
+        Pending pending = new Pending();
+        User user;
+        beginWrite();
+        try {
+            user = insert(pending, name, email, phone);
+        } finally {
+            commit(pending);
+            endWrite();
+        }
+        awaitDurable(pending.sequence);
         return user;
     }
 
@@ -71,14 +210,22 @@ public class UserService {
      * @param email Nuevo email (requerido, no null)
      * @param phone Nuevo teléfono (opcional, puede ser null)
      * @return Usuario actualizado si existe, null si no existe
+     * @throws DuplicateEmailException si el nuevo email pertenece a otro usuario
      */
     public @Nullable User updateUser(@NonNull Long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
-        User user = users.get(id);
-        if (user != null) {
-            user.setName(name);
-            user.setEmail(email);
-            user.setPhone(phone);
+        Pending pending = new Pending();
+        User user;
+        ReentrantLock lock = lockFor(id);
+        beginWrite();
+        lock.lock();
+        try {
+            user = modify(pending, id, name, email, phone);
+        } finally {
+            commit(pending);
+            lock.unlock();
+            endWrite();
         }
+        awaitDurable(pending.sequence);
         return user;
     }
 
@@ -89,31 +236,429 @@ public class UserService {
      * @return true si se eliminó, false si no existía
      */
     public boolean deleteUser(@NonNull Long id) {
-        return users.remove(id) != null;
+        Pending pending = new Pending();
+        boolean deleted;
+        ReentrantLock lock = lockFor(id);
+        beginWrite();
+        lock.lock();
+        try {
+            deleted = remove(pending, id);
+        } finally {
+            commit(pending);
+            lock.unlock();
+            endWrite();
+        }
+        awaitDurable(pending.sequence);
+        return deleted;
     }
 
     /**
-     * Busca un usuario por email
+     * Aplica un lote de operaciones en orden
+     *
+     * El lote toma una sola vez los locks que necesita (las franjas de los ids que actualiza o
+     * borra, en orden ascendente para no bloquearse con otros lotes) y, con journal, espera a un
+     * solo fsync al final. Sus cambios, incluidos los usuarios que crea, no son visibles para
+     * nadie más hasta que termina con esos locks aún tomados: un usuario creado a mitad del lote
+     * no se puede modificar ni borrar con updateUser o deleteUser mientras el lote lo usa. Las
+     * operaciones no válidas devuelven INVALID y un email ya registrado CONFLICT, sin detener el
+     * resto del lote
+     *
+     * @return Resultado de cada operación, en el mismo orden
+     */
+    public @NonNull List<BulkResult> applyBulk(@NonNull List<BulkOperation> operations) {
+        List<BulkResult> results = new ArrayList<>(operations.size());
+        Pending pending = new Pending();
+        long stripes = 0;
+        for (BulkOperation operation : operations) {
+            if (operation.id() != null && !BulkOperation.CREATE.equals(operation.op())) {
+                stripes |= 1L << stripe(operation.id());
+            }
+        }
+        beginWrite();
+        lockStripes(stripes);
+        try {
+            for (BulkOperation operation : operations) {
+                String error = operation.validate();
+                if (error != null) {
+                    results.add(BulkResult.invalid(error));
+                    continue;
+                }
+                try {
+                    results.add(switch (operation.op()) {
+                        case BulkOperation.CREATE ->
+                                BulkResult.created(insert(pending, operation.name(), operation.email(), operation.phone()).getId());
+                        case BulkOperation.UPDATE ->
+                                modify(pending, operation.id(), operation.name(), operation.email(), operation.phone()) != null
+                                        ? BulkResult.updated(operation.id()) : BulkResult.notFound(operation.id());
+                        default -> remove(pending, operation.id())
+                                ? BulkResult.deleted(operation.id()) : BulkResult.notFound(operation.id());
+                    });
+                } catch (DuplicateEmailException e) {
+                    results.add(BulkResult.conflict(operation.id(), e.getMessage()));
+                }
+            }
+        } finally {
+            commit(pending);
+            unlockStripes(stripes);
+            endWrite();
+        }
+        awaitDurable(pending.sequence);
+        return results;
+    }
+
+    /**
+     * Busca un usuario por email en O(1) usando el índice secundario
+     * La búsqueda no distingue mayúsculas de minúsculas
      * 
      * @param email Email del usuario (requerido, no null)
      * @return Usuario si existe, null si no existe
      */
     public @Nullable User findByEmail(@NonNull String email) {
-        return users.values().stream()
-                .filter(user -> email.equals(user.getEmail()))
-                .findFirst()
-                .orElse(null);
+        Long id = emailIndex.get(normalize(email));
+        return id != null ? users.get(id) : null;
+    }
+
+    /**
+     * Escribe un snapshot de todos los usuarios y descarta el WAL anterior
+     *
+     * Se llama en segundo plano cuando el WAL supera users.journal.snapshot-wal-size; las
+     * escrituras solo esperan mientras se rota el WAL, no durante el recorrido de los usuarios.
+     * La rotación hace durable todo lo registrado, así que antes de recorrerlos se publican los
+     * cambios pendientes: el snapshot sustituye a los segmentos que los contienen
+     *
+     * @throws IllegalStateException si el servicio no tiene journal
+     */
+    public void snapshot() {
+        UserJournal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("UserService has no journal");
+        }
+        snapshotWriteLock.lock();
+        try {
+            long segment;
+            long maxId;
+            snapshotLock.writeLock().lock();
+            try {
+                segment = current.rotate();
+                publish(Long.MAX_VALUE);
+                maxId = nextId.get() - 1;
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+            current.writeSnapshot(segment, maxId, users.values());
+        } finally {
+            snapshotWriteLock.unlock();
+        }
+    }
+
+    private void recover(@NonNull UserJournal journal) {
+        long maxId;
+        try {
+            maxId = journal.recover(new Recovery(users));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover users", e);
+        }
+        nextId.set(maxId + 1);
+        for (User user : users.values()) {
+            emailIndex.put(normalize(user.getEmail()), user.getId());
+            emailOwners.put(normalize(user.getEmail()), user.getId());
+        }
+    }
+
+    /**
+     * Datos de ejemplo (reciben los ids 1, 2 y 3); solo desde el constructor, sin locks ni
+     * snapshot porque nadie más ve aún el servicio
+     */
+    private void seed() {
+        Pending pending = new Pending();
+        insert(pending, "Alice", "alice@example.com", "123-456-7890");
+        insert(pending, "Bob", "bob@example.com", null);
+        insert(pending, "Charlie", "charlie@example.com", "987-654-3210");
+        commit(pending);
+        if (journal != null) {
+            journal.sync(pending.sequence);
+            publish(pending.sequence);
+        }
+    }
+
+    private void beginWrite() {
+        if (journal != null) {
+            snapshotLock.readLock().lock();
+        }
+    }
+
+    private void endWrite() {
+        if (journal != null) {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Alta de un usuario, sin esperar al fsync; requiere beginWrite
+     */
+    private @NonNull User insert(@NonNull Pending pending, @NonNull String name, @NonNull String email, @Nullable String phone) {
+        String key = normalize(email);
+        // Reservar el email antes de asignar el id: un email duplicado no gasta ningún id
+        if (emailOwners.putIfAbsent(key, RESERVING) != null) {
+            throw new DuplicateEmailException(email);
+        }
+        long id = nextId.getAndIncrement();
+        emailOwners.put(key, id);
+        long sequence;
+        try {
+            sequence = logPut(id, name, email, phone);
+        } catch (RuntimeException e) {
+            emailOwners.remove(key, id);
+            throw e;
+        }
+        User user = new User(id, name, email, phone);
+        pending.stage(sequence, id, user);
+        return user;
+    }
+
+    /**
+     * Actualización de un usuario, sin esperar al fsync; requiere beginWrite y el lock de su franja
+     */
+    private @Nullable User modify(@NonNull Pending pending, @NonNull Long id, @NonNull String name,
+                                  @NonNull String email, @Nullable String phone) {
+        User user = latest(pending, id);
+        if (user == null) {
+            return null;
+        }
+        String oldKey = normalize(user.getEmail());
+        String newKey = normalize(email);
+        boolean reserved = false;
+        if (!oldKey.equals(newKey)) {
+            Long owner = emailOwners.putIfAbsent(newKey, id);
+            if (owner != null && !owner.equals(id)) {
+                throw new DuplicateEmailException(email);
+            }
+            reserved = owner == null;
+        }
+        long sequence;
+        try {
+            sequence = logPut(id, name, email, phone);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                emailOwners.remove(newKey, id);
+            }
+            throw e;
+        }
+        // El email anterior se libera después de registrar el cambio: quien lo reutilice
+        // queda detrás en el WAL
+        if (!oldKey.equals(newKey)) {
+            emailOwners.remove(oldKey, id);
+        }
+        User updated = new User(id, name, email, phone);
+        pending.stage(sequence, id, updated);
+        return updated;
+    }
+
+    /**
+     * Borrado de un usuario, sin esperar al fsync; requiere beginWrite y el lock de su franja
+     */
+    private boolean remove(@NonNull Pending pending, @NonNull Long id) {
+        User user = latest(pending, id);
+        if (user == null) {
+            return false;
+        }
+        long sequence = journal != null ? journal.appendDelete(id) : 0;
+        emailOwners.remove(normalize(user.getEmail()), id);
+        pending.stage(sequence, id, DELETED);
+        return true;
+    }
+
+    /**
+     * @return Secuencia del WAL, 0 sin journal
+     */
+    private long logPut(long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
+        return journal != null ? journal.appendPut(id, name, email, phone) : 0;
+    }
+
+    /**
+     * Última versión registrada del usuario, publicada o no, vista por una escritura que
+     * tiene el lock de su franja
+     */
+    private @Nullable User latest(@NonNull Pending pending, @NonNull Long id) {
+        User user = pending.staged.get(id);
+        if (user == null) {
+            user = unpublished.get(id);
+        }
+        if (user == null) {
+            user = users.get(id);
+        }
+        return user == DELETED ? null : user;
+    }
+
+    /**
+     * Cierra una escritura antes de soltar sus locks: sin journal publica sus cambios; con
+     * journal los deja en la cola de publicación hasta que sean durables
+     */
+    private void commit(@NonNull Pending pending) {
+        for (Change change : pending.changes) {
+            if (journal == null) {
+                apply(change);
+            } else {
+                unpublished.put(change.id(), change.user());
+                publishQueue.put(change.sequence(), change);
+            }
+        }
+        pending.changes.clear();
+    }
+
+    /**
+     * Publica en users y emailIndex, en orden de secuencia, los cambios pendientes hasta
+     * sequence, que ya son durables (también los de escritores anteriores cuyo fsync falló)
+     */
+    private void publish(long sequence) {
+        publishLock.lock();
+        try {
+            Map.Entry<Long, Change> next;
+            while ((next = publishQueue.firstEntry()) != null && next.getKey() <= sequence) {
+                Change change = next.getValue();
+                apply(change);
+                // Después de publicar: quien no lo encuentre aquí ya lo ve en users
+                unpublished.remove(change.id(), change.user());
+                publishQueue.remove(next.getKey());
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void apply(@NonNull Change change) {
+        User previous = users.get(change.id());
+        String previousKey = previous != null ? normalize(previous.getEmail()) : null;
+        if (change.user() == DELETED) {
+            users.remove(change.id());
+        } else {
+            String key = normalize(change.user().getEmail());
+            users.put(change.id(), change.user());
+            emailIndex.put(key, change.id());
+            if (key.equals(previousKey)) {
+                return;
+            }
+        }
+        if (previousKey != null) {
+            emailIndex.remove(previousKey, change.id());
+        }
+    }
+
+    /**
+     * Espera al fsync del cambio, lo publica y lanza un snapshot en segundo plano si el WAL ha
+     * crecido lo suficiente
+     */
+    private void awaitDurable(long sequence) {
+        UserJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        current.sync(sequence);
+        publish(sequence);
+        if (!current.snapshotDue() || !snapshotScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofPlatform().name("user-snapshot").daemon().start(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.warn("Background user snapshot failed: {}", e.getMessage());
+            } finally {
+                snapshotScheduled.set(false);
+            }
+        });
+    }
+
+    private @NonNull ReentrantLock lockFor(@NonNull Long id) {
+        return locks[stripe(id)];
+    }
+
+    private static int stripe(long id) {
+        return (int) (id & (LOCK_STRIPES - 1));
+    }
+
+    /**
+     * Toma en orden ascendente los locks de las franjas marcadas en la máscara (LOCK_STRIPES = 64 bits)
+     */
+    private void lockStripes(long stripes) {
+        for (long remaining = stripes; remaining != 0; remaining &= remaining - 1) {
+            locks[Long.numberOfTrailingZeros(remaining)].lock();
+        }
+    }
+
+    private void unlockStripes(long stripes) {
+        for (long remaining = stripes; remaining != 0; remaining &= remaining - 1) {
+            locks[Long.numberOfTrailingZeros(remaining)].unlock();
+        }
+    }
+
+    private static @NonNull String normalize(@NonNull String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cambios registrados por una escritura o un lote y aún no visibles para los demás
+     *
+     * sequence es la secuencia del WAL del último, a la que hay que esperar al terminar (0 sin
+     * cambios o sin journal); staged guarda sus versiones para que cada operación de un lote vea
+     * las anteriores
+     */
+    private static final class Pending {
+        long sequence;
+        final Map<Long, User> staged = new HashMap<>();
+        final List<Change> changes = new ArrayList<>();
+
+        void stage(long sequence, long id, @NonNull User user) {
+            this.sequence = Math.max(this.sequence, sequence);
+            staged.put(id, user);
+            changes.add(new Change(sequence, id, user));
+        }
+    }
+
+    /**
+     * Cambio de un usuario: su versión nueva o DELETED
+     */
+    private record Change(long sequence, long id, @NonNull User user) {
+    }
+
+    /**
+     * Carga en users lo que reproduce UserJournal.recover
+     */
+    private record Recovery(Map<Long, User> users) implements UserJournal.Listener {
+
+        @Override
+        public void put(long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
+            users.put(id, new User(id, name, email, phone));
+        }
+
+        @Override
+        public void remove(long id) {
+            users.remove(id);
+        }
+    }
+
+    /**
+     * Se lanza cuando un email ya está registrado por otro usuario
+     */
+    public static class DuplicateEmailException extends RuntimeException {
+
+        public DuplicateEmailException(@NonNull String email) {
+            super("Email already registered: " + email);
+        }
     }
 
     /**
      * Clase interna que representa un Usuario
      * Demuestra el uso de JSpecify en campos y métodos
+     *
+     * Es inmutable: updateUser publica un User nuevo, así que quien lo lea ve siempre
+     * nombre, email y teléfono de la misma escritura
      */
     public static class User {
         private final Long id;
-        private @NonNull String name;
-        private @NonNull String email;
-        private @Nullable String phone;
+        private final @NonNull String name;
+        private final @NonNull String email;
+        private final @Nullable String phone;
 
         public User(Long id, @NonNull String name, @NonNull String email, @Nullable String phone) {
             this.id = id;
@@ -130,26 +675,14 @@ public class UserService {
             return name;
         }
 
-        public void setName(@NonNull String name) {
-            this.name = name;
-        }
-
         public @NonNull String getEmail() {
             return email;
         }
 
-        public void setEmail(@NonNull String email) {
-            this.email = email;
-        }
-
         public @Nullable String getPhone() {
             return phone;
         }
 
-        public void setPhone(@Nullable String phone) {
-            this.phone = phone;
-        }
-
         /**
          * Retorna el teléfono o un valor por defecto si es null
          * 
@@ -161,4 +694,3 @@ public class UserService {
         }
     }
 }
-
@@ -0,0 +1,135 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.josediaz.springframework7.ConcurrentRunner.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de contención para AccountController
+ *
+ * Lanza cientos de hilos a la vez contra los endpoints de cuentas para verificar
+ * que los ids no se repiten y que update/delete concurrentes son atómicos
+ *
+ * @DirtiesContext: las cuentas creadas aquí no deben afectar a otros tests
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class AccountControllerConcurrencyTest {
+
+    private static final int THREADS = 300;
+
+    RestTestClient client;
+
+    @BeforeEach
+    void setUp(WebApplicationContext context) {
+        client = RestTestClient.bindToApplicationContext(context).build();
+    }
+
+    @Test
+    void testConcurrentCreateAssignsUniqueIds() throws Exception {
+        int perThread = 5;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                Account account = createAccount("user-" + thread + "-" + i);
+                ids.add(account.getId());
+            }
+        });
+
+        // Cada POST debe recibir un id distinto y cada cuenta debe poder leerse
+        assertThat(ids).hasSize(THREADS * perThread);
+        for (Long id : ids) {
+            client.get()
+                    .uri("/accounts/{id}", id)
+                    .header("X-API-Version", "1.1")
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+    }
+
+    @Test
+    void testConcurrentUpdatesAreNeverTorn() throws Exception {
+        long id = createAccount("contended").getId();
+        AtomicInteger tornReads = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            if (thread % 2 == 0) {
+                String name = "writer-" + thread;
+                client.put()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/accounts/{id}")
+                                .queryParam("name", name)
+                                .queryParam("email", name + "@example.com")
+                                .build(id))
+                        .header("X-API-Version", "1.1")
+                        .exchange()
+                        .expectStatus().isOk();
+            } else {
+                Account account = client.get()
+                        .uri("/accounts/{id}", id)
+                        .header("X-API-Version", "1.1")
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(Account.class)
+                        .returnResult()
+                        .getResponseBody();
+                // Nombre y email se escriben juntos: nunca deben mezclarse dos escrituras
+                if (account == null || !account.getEmail().equals(account.getName() + "@example.com")) {
+                    tornReads.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(tornReads).hasValue(0);
+    }
+
+    @Test
+    void testConcurrentDeleteSucceedsExactlyOnce() throws Exception {
+        long id = createAccount("to-delete").getId();
+        AtomicInteger deleted = new AtomicInteger();
+        AtomicInteger notFound = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            int status = client.delete()
+                    .uri("/accounts/{id}", id)
+                    .header("X-API-Version", "1.0")
+                    .exchange()
+                    .returnResult()
+                    .getStatus()
+                    .value();
+            (status == 204 ? deleted : notFound).incrementAndGet();
+        });
+
+        assertThat(deleted).hasValue(1);
+        assertThat(notFound).hasValue(THREADS - 1);
+    }
+
+    private Account createAccount(String name) {
+        Account account = client.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts")
+                        .queryParam("name", name)
+                        .queryParam("email", name + "@example.com")
+                        .build())
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Account.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(account).isNotNull();
+        return account;
+    }
+}
@@ -1,11 +1,16 @@
 package com.josediaz.springframework7;
 
+import com.josediaz.springframework7.model.Account;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.client.RestTestClient;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * Test usando RestTestClient - Nueva característica de Spring Framework 7
  * RestTestClient es un cliente ligero para probar endpoints REST sin dependencias reactivas
@@ -52,6 +57,33 @@ class AccountControllerTest {
                 .jsonPath("$.phone").doesNotExist(); // v1.0 no incluye teléfono
     }
 
+    @Test
+    void testGetAccountV1_0SerializesStoredAccount() {
+        AtomicReference<String> createdAt = new AtomicReference<>();
+        client.get()
+                .uri("/accounts/1")
+                .header("X-API-Version", "1.1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.createdAt").value(String.class, createdAt::set);
+
+        // La vista omite la propiedad (no la escribe como null) y conserva la fecha de alta real
+        client.get()
+                .uri("/accounts/1")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> assertThat(body).doesNotContain("\"phone\""));
+        client.get()
+                .uri("/accounts/1")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.createdAt").isEqualTo(createdAt.get());
+    }
+
     @Test
     void testGetAccountV1_1() {
         client.get()
@@ -81,6 +113,88 @@ class AccountControllerTest {
                 .jsonPath("$.createdAt").exists(); // v2.0 incluye fecha de creación
     }
 
+    @Test
+    void testUnchangedAccountReturnsNotModified() {
+        AtomicReference<String> eTag = new AtomicReference<>();
+        client.get()
+                .uri("/accounts/2")
+                .header("X-API-Version", "1.1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", eTag::set);
+
+        client.get()
+                .uri("/accounts/2")
+                .header("X-API-Version", "1.1")
+                .header("If-None-Match", eTag.get())
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", eTag.get())
+                .expectBody().isEmpty();
+
+        // Cada versión tiene su propia representación y su propio ETag
+        client.get()
+                .uri("/accounts/2")
+                .header("X-API-Version", "1.0")
+                .header("If-None-Match", eTag.get())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testUpdateChangesETag() {
+        Long id = client.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts")
+                        .queryParam("name", "ETag User")
+                        .queryParam("email", "etag@example.com")
+                        .build())
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Account.class)
+                .returnResult().getResponseBody().getId();
+        AtomicReference<String> eTag = new AtomicReference<>();
+        client.get()
+                .uri("/accounts/{id}", id)
+                .header("X-API-Version", "2.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", eTag::set);
+
+        client.put()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts/{id}")
+                        .queryParam("name", "ETag User")
+                        .queryParam("email", "etag@example.com")
+                        .queryParam("phone", "+34 600 111 222")
+                        .build(id))
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get()
+                .uri("/accounts/{id}", id)
+                .header("X-API-Version", "2.0")
+                .header("If-None-Match", eTag.get())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", value -> assertThat(value).isNotEqualTo(eTag.get()))
+                .expectBody()
+                .jsonPath("$.phone").isEqualTo("+34 600 111 222");
+
+        client.delete()
+                .uri("/accounts/{id}", id)
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isNoContent();
+        client.get()
+                .uri("/accounts/{id}", id)
+                .header("X-API-Version", "2.0")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     void testCreateAccount() {
         client.post()
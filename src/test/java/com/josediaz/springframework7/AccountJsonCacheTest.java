@@ -0,0 +1,86 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.model.AccountViews;
+import com.josediaz.springframework7.service.AccountJsonCache;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test de la caché de JSON de cuentas por versión
+ */
+class AccountJsonCacheTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AccountJsonCache cache = new AccountJsonCache(jsonMapper, 16);
+    private final Account account = new Account(1L, "Juan Pérez", "juan@example.com", "+34 600 123 456");
+
+    @Test
+    void testSecondReadIsServedFromCache() {
+        AccountJsonCache.CachedJson first = cache.get(account, AccountViews.V1_1.class);
+
+        assertThat(cache.get(account, AccountViews.V1_1.class)).isSameAs(first);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(first.body()).isEqualTo(jsonMapper.writeValueAsBytes(account));
+    }
+
+    @Test
+    void testEachViewHasItsOwnEntry() {
+        AccountJsonCache.CachedJson v1 = cache.get(account, AccountViews.V1_0.class);
+        AccountJsonCache.CachedJson v1_1 = cache.get(account, AccountViews.V1_1.class);
+
+        assertThat(new String(v1.body(), StandardCharsets.UTF_8)).doesNotContain("phone");
+        assertThat(new String(v1_1.body(), StandardCharsets.UTF_8)).contains("\"phone\":\"+34 600 123 456\"");
+        assertThat(v1.eTag()).isNotEqualTo(v1_1.eTag()).startsWith("\"").endsWith("\"");
+        assertThat(cache.get(account, AccountViews.V1_0.class)).isSameAs(v1);
+    }
+
+    @Test
+    void testNewInstanceOfSameAccountIsReserialized() {
+        // Las actualizaciones son copy-on-write: otra instancia nunca recibe el JSON de la anterior
+        AccountJsonCache.CachedJson before = cache.get(account, AccountViews.V1_1.class);
+        Account updated = new Account(1L, "Juan Pérez", "juan@example.com", null);
+        updated.setCreatedAt(account.getCreatedAt());
+
+        AccountJsonCache.CachedJson after = cache.get(updated, AccountViews.V1_1.class);
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.eTag()).isNotEqualTo(before.eTag());
+    }
+
+    @Test
+    void testInvalidateDropsAllViews() {
+        cache.get(account, AccountViews.V1_0.class);
+        cache.get(account, AccountViews.V1_1.class);
+
+        cache.invalidate(1L);
+        cache.get(account, AccountViews.V1_0.class);
+        cache.get(account, AccountViews.V1_1.class);
+
+        assertThat(cache.missCount()).isEqualTo(4);
+        assertThat(cache.hitCount()).isZero();
+    }
+
+    @Test
+    void testZeroCapacityDisablesCache() {
+        AccountJsonCache disabled = new AccountJsonCache(jsonMapper, 0);
+
+        AccountJsonCache.CachedJson first = disabled.get(account, AccountViews.V1_1.class);
+        AccountJsonCache.CachedJson second = disabled.get(account, AccountViews.V1_1.class);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.eTag()).isEqualTo(first.eTag());
+        disabled.invalidate(1L);
+    }
+
+    @Test
+    void testUnknownViewIsRejected() {
+        assertThatThrownBy(() -> cache.get(account, String.class)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,329 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.Account;
+import com.josediaz.springframework7.repository.AccountRepository;
+import com.josediaz.springframework7.repository.LogAccountStorage;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del almacenamiento persistente de cuentas: log append-only, índice mapeado,
+ * recuperación y compactación
+ */
+class AccountStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAccountsSurviveRestart() throws IOException {
+        Account juan;
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            juan = repository.create(id -> new Account(id, "Juan", "juan@example.com", "+34 600 123 456"));
+            repository.create(id -> new Account(id, "María", "maria@example.com", null));
+            Account carlos = repository.create(id -> new Account(id, "Carlos", "carlos@example.com", null));
+            repository.update(juan.getId(), current -> new Account(current.getId(), "Juan Pérez", current.getEmail(), null));
+            repository.delete(carlos.getId());
+        }
+
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+
+            Account restored = repository.findById(juan.getId());
+            assertThat(restored).isNotNull();
+            assertThat(restored.getName()).isEqualTo("Juan Pérez");
+            assertThat(restored.getPhone()).isNull();
+            assertThat(repository.findById(3)).isNull();
+            assertThat(repository.count()).isEqualTo(2);
+            assertThat(repository.findAll()).extracting(Account::getName).containsExactly("Juan Pérez", "María");
+            // Los ids borrados no se reutilizan
+            assertThat(repository.create(id -> new Account(id, "Ana", "ana@example.com", null)).getId()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void testCreatedAtIsPreserved() throws IOException {
+        Account created;
+        try (LogAccountStorage storage = open()) {
+            created = new AccountRepository(storage).create(id -> new Account(id, "Juan", "juan@example.com", null));
+        }
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.read(created.getId()).getCreatedAt()).isEqualTo(created.getCreatedAt());
+        }
+    }
+
+    @Test
+    void testSyncedWritesSurviveCrash() throws IOException {
+        Path copy = directory.resolveSibling(directory.getFileName() + "-crash");
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            for (int i = 0; i < 100; i++) {
+                repository.create(id -> new Account(id, "Account " + id, "account" + id + "@example.com", null));
+            }
+            // Copia de los ficheros sin cerrar el almacenamiento: sin checkpoint final
+            copyDirectory(directory, copy);
+        }
+
+        try (LogAccountStorage storage = new LogAccountStorage(copy, 0.5, 0)) {
+            assertThat(storage.count()).isEqualTo(100);
+            assertThat(storage.read(100).getName()).isEqualTo("Account 100");
+        } finally {
+            deleteDirectory(copy);
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            repository.create(id -> new Account(id, "Juan", "juan@example.com", null));
+            repository.create(id -> new Account(id, "María", "maria@example.com", null));
+        }
+        Path log = directory.resolve("accounts.log");
+        long validSize = Files.size(log);
+        // Un registro a medio escribir: longitud de 60 bytes y solo 4 presentes
+        Files.write(log, new byte[]{0, 0, 0, 60, 1, 2, 3, 4}, StandardOpenOption.APPEND);
+        // Y el índice sin checkpoint, como tras una caída
+        Files.delete(directory.resolve("accounts.idx"));
+
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.count()).isEqualTo(2);
+            assertThat(storage.read(2).getName()).isEqualTo("María");
+            assertThat(storage.logSize()).isEqualTo(validSize);
+        }
+        assertThat(Files.size(log)).isEqualTo(validSize);
+    }
+
+    @Test
+    void testCompactionKeepsOnlyLiveRecords() throws IOException {
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            for (int i = 0; i < 10; i++) {
+                repository.create(id -> new Account(id, "Account " + id, "account@example.com", null));
+            }
+            for (int round = 0; round < 5; round++) {
+                String name = "Round " + round;
+                for (long id = 1; id <= 10; id++) {
+                    repository.update(id, current -> new Account(current.getId(), name, current.getEmail(), null));
+                }
+            }
+            repository.delete(10);
+            long before = storage.logSize();
+            assertThat(storage.deadBytes()).isPositive();
+
+            storage.compact();
+
+            assertThat(storage.logSize()).isLessThan(before / 4);
+            assertThat(storage.deadBytes()).isZero();
+            assertThat(storage.read(1).getName()).isEqualTo("Round 4");
+            assertThat(storage.read(10)).isNull();
+            // El log compactado sigue admitiendo escrituras
+            repository.update(1, current -> new Account(current.getId(), "After", current.getEmail(), null));
+        }
+
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.count()).isEqualTo(9);
+            assertThat(storage.maxId()).isEqualTo(10);
+            assertThat(storage.read(1).getName()).isEqualTo("After");
+            assertThat(storage.read(9).getName()).isEqualTo("Round 4");
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString())).containsExactlyInAnyOrder("accounts.log", "accounts.idx");
+        }
+    }
+
+    @Test
+    void testLostIndexIsRebuiltFromCompactedLog() throws IOException {
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            repository.create(id -> new Account(id, "Juan", "juan@example.com", null));
+            repository.create(id -> new Account(id, "María", "maria@example.com", null));
+            repository.delete(2);
+            storage.compact();
+        }
+        Files.delete(directory.resolve("accounts.idx"));
+
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.count()).isEqualTo(1);
+            // El id más alto se guarda en la cabecera del log compactado
+            assertThat(storage.maxId()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testConcurrentWritersShareSyncs() throws Exception {
+        int writers = 8;
+        int perWriter = 50;
+        try (LogAccountStorage storage = open(); ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            AccountRepository repository = new AccountRepository(storage);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        repository.create(id -> new Account(id, "Account " + id, "account@example.com", null));
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            assertThat(storage.syncedRecordCount()).isEqualTo(writers * perWriter);
+            assertThat(storage.syncCount()).isLessThanOrEqualTo(writers * perWriter);
+        }
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.count()).isEqualTo(writers * perWriter);
+        }
+    }
+
+    @Test
+    void testWriteAllAppendsBatchWithSingleSync() throws IOException {
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            repository.create(id -> new Account(id, "Juan", "juan@example.com", null));
+            long syncs = storage.syncCount();
+
+            List<Account> written = repository.writeAll(List.of(
+                    new AccountRepository.Write.Create(id -> new Account(id, "María", "maria@example.com", null)),
+                    new AccountRepository.Write.Update(1, current -> new Account(current.getId(), "Juan Pérez", current.getEmail(), null)),
+                    // Las operaciones ven las anteriores del mismo lote
+                    new AccountRepository.Write.Update(2, current -> new Account(current.getId(), current.getName() + " López", current.getEmail(), null)),
+                    new AccountRepository.Write.Delete(1),
+                    new AccountRepository.Write.Delete(1),
+                    new AccountRepository.Write.Update(99, current -> current)));
+
+            assertThat(written).extracting(account -> account == null ? null : account.getName())
+                    .containsExactly("María", "Juan Pérez", "María López", "Juan Pérez", null, null);
+            assertThat(storage.syncCount()).isEqualTo(syncs + 1);
+            assertThat(repository.count()).isEqualTo(1);
+        }
+
+        try (LogAccountStorage storage = open()) {
+            AccountRepository repository = new AccountRepository(storage);
+            assertThat(repository.findById(1)).isNull();
+            assertThat(repository.findById(2).getName()).isEqualTo("María López");
+            assertThat(repository.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testWritesArePublishedOnlyOnceDurable() throws Exception {
+        try (GatedStorage storage = new GatedStorage(directory)) {
+            AccountRepository repository = new AccountRepository(storage);
+            storage.gate = new CountDownLatch(1);
+            CompletableFuture<Account> created = CompletableFuture.supplyAsync(
+                    () -> repository.create(id -> new Account(id, "Juan", "juan@example.com", null)));
+            assertThat(storage.syncing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Registrada en el log pero sin fsync: las lecturas aún no la ven
+            assertThat(repository.findById(1)).isNull();
+            assertThat(repository.count()).isZero();
+
+            storage.gate.countDown();
+            assertThat(created.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1);
+            assertThat(repository.findById(1)).isNotNull();
+            assertThat(repository.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testFailedSyncIsPublishedByNextDurableWrite() throws IOException {
+        try (GatedStorage storage = new GatedStorage(directory)) {
+            AccountRepository repository = new AccountRepository(storage);
+            storage.failNextSync = true;
+
+            assertThatThrownBy(() -> repository.create(id -> new Account(id, "Juan", "juan@example.com", null)))
+                    .isInstanceOf(UncheckedIOException.class);
+            assertThat(repository.findById(1)).isNull();
+
+            // Las escrituras siguientes ven la pendiente; el siguiente sync hace durables las dos
+            repository.update(1, current -> new Account(current.getId(), "Juan Pérez", current.getEmail(), null));
+
+            assertThat(repository.findById(1).getName()).isEqualTo("Juan Pérez");
+            assertThat(repository.count()).isEqualTo(1);
+        }
+        try (LogAccountStorage storage = open()) {
+            assertThat(storage.read(1).getName()).isEqualTo("Juan Pérez");
+        }
+    }
+
+    @Test
+    void testClosedStorageRejectsWrites() throws IOException {
+        LogAccountStorage storage = open();
+        storage.close();
+
+        assertThatThrownBy(() -> storage.append(new Account(1L, "Juan", "juan@example.com", null)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Almacenamiento cuyo sync puede esperar a gate o fallar una vez sin hacer fsync
+     */
+    private static final class GatedStorage extends LogAccountStorage {
+
+        final CountDownLatch syncing = new CountDownLatch(1);
+        volatile @Nullable CountDownLatch gate;
+        volatile boolean failNextSync;
+
+        GatedStorage(Path directory) throws IOException {
+            super(directory, 0.5, Long.MAX_VALUE);
+        }
+
+        @Override
+        public void sync(long sequence) {
+            if (failNextSync) {
+                failNextSync = false;
+                throw new UncheckedIOException(new IOException("fsync failed"));
+            }
+            CountDownLatch latch = gate;
+            if (latch != null) {
+                syncing.countDown();
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.sync(sequence);
+        }
+    }
+
+    private LogAccountStorage open() throws IOException {
+        return new LogAccountStorage(directory, 0.5, Long.MAX_VALUE);
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
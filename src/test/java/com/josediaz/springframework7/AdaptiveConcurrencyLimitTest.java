@@ -0,0 +1,164 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.AdaptiveConcurrencyLimitBeanPostProcessor;
+import com.josediaz.springframework7.client.AdaptiveLimiter;
+import com.josediaz.springframework7.client.ConcurrencyLimitExceededException;
+import com.josediaz.springframework7.client.QuoteClient;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test de @AdaptiveConcurrencyLimit sobre QuoteClient.getRandomJoke contra un servidor local
+ * con latencia inyectada
+ *
+ * El límite máximo queda por debajo de quotes.http.max-connections-per-route (20) para que
+ * el pool de conexiones no añada latencia propia
+ */
+@SpringBootTest(properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.random.concurrency-limit=3",
+        "quotes.random.max-concurrency-limit=16",
+        "quotes.random.max-queue-wait=100ms"
+})
+class AdaptiveConcurrencyLimitTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final String LIMITER = "QuoteClient.getRandomJoke";
+    static final int CALLERS = 16;
+
+    @Autowired
+    QuoteClient quoteClient;
+
+    @Autowired
+    AdaptiveConcurrencyLimitBeanPostProcessor adaptiveLimits;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstream.latency(10);
+        upstream.failureRate(0);
+        upstream.resetHits();
+    }
+
+    @Test
+    void testLimitFollowsUpstreamLatency() {
+        // Con latencia estable y todos los huecos ocupados el límite sube
+        callConcurrently(40);
+        int grown = limiter().limit();
+        assertThat(grown).isGreaterThan(3);
+
+        // Al subir la latencia de la API remota el límite baja
+        upstream.latency(150);
+        callConcurrently(3);
+        assertThat(limiter().limit()).isLessThan(grown);
+    }
+
+    @Test
+    void testSaturatedCallsAreRejectedFast() {
+        quoteClient.getRandomJoke();
+        long rejectedBefore = limiter().rejectedCount();
+        upstream.latency(1000);
+
+        List<Duration> rejections = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Duration>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS * 2; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        quoteClient.getRandomJoke();
+                        return null;
+                    } catch (ConcurrencyLimitExceededException e) {
+                        return Duration.ofNanos(System.nanoTime() - start);
+                    }
+                }, executor));
+            }
+            calls.stream().map(CompletableFuture::join).filter(duration -> duration != null).forEach(rejections::add);
+        }
+
+        // Como mucho 16 llamadas en curso: el resto se rechaza tras la espera máxima, sin reintentos
+        assertThat(rejections).hasSizeGreaterThanOrEqualTo(CALLERS);
+        assertThat(rejections).allSatisfy(waited -> assertThat(waited).isLessThan(Duration.ofMillis(500)));
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(CALLERS + 1);
+        assertThat(limiter().rejectedCount() - rejectedBefore).isEqualTo(rejections.size());
+
+        assertThat(meterRegistry.get("concurrency.adaptive.limit").tag("name", LIMITER).gauge().value())
+                .isEqualTo(limiter().limit());
+        assertThat(meterRegistry.get("concurrency.adaptive.rejected").tag("name", LIMITER).functionCounter().count())
+                .isEqualTo(limiter().rejectedCount());
+        FunctionTimer queueWait = meterRegistry.get("concurrency.adaptive.queue.wait").tag("name", LIMITER).functionTimer();
+        assertThat(queueWait.count()).isGreaterThanOrEqualTo(CALLERS * 2);
+    }
+
+    @Test
+    void testLimiterShedsWithoutWaitingForLongerThanMaxQueueWait() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 4, Duration.ofMillis(50), 2.0);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(40), Duration.ofMillis(500));
+
+        // Una llamada fallida reduce el límite, pero nunca por debajo del mínimo
+        limiter.release(permit, false);
+        assertThat(limiter.limit()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.rejectedCount()).isEqualTo(1);
+    }
+
+    private AdaptiveLimiter limiter() {
+        AdaptiveLimiter limiter = adaptiveLimits.limiter(LIMITER);
+        assertThat(limiter).isNotNull();
+        return limiter;
+    }
+
+    /**
+     * CALLERS hilos virtuales que hacen rounds llamadas seguidas cada uno; los rechazos se ignoran
+     */
+    private void callConcurrently(int rounds) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        try {
+                            quoteClient.getRandomJoke();
+                        } catch (ConcurrencyLimitExceededException e) {
+                            // Esperado mientras el límite crece
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
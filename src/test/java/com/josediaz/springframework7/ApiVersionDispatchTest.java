@@ -0,0 +1,128 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.config.CachingApiVersionParser;
+import com.josediaz.springframework7.config.VersionDispatchHandlerMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.accept.SemanticApiVersionParser;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del despacho por versión: tabla precalculada e internado de versiones
+ */
+@SpringBootTest
+class ApiVersionDispatchTest {
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    RestTestClient client;
+
+    @BeforeEach
+    void setUp(WebApplicationContext context) {
+        client = RestTestClient.bindToApplicationContext(context).build();
+    }
+
+    @Test
+    void testDispatchTableMappingIsInstalled() {
+        assertThat(handlerMapping).isInstanceOf(VersionDispatchHandlerMapping.class);
+    }
+
+    @Test
+    void testEachVersionRoutesToItsHandler() {
+        client.get().uri("/accounts/1").header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.phone").doesNotExist();
+        client.get().uri("/accounts/1").header("X-API-Version", "2.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.createdAt").exists();
+        client.get().uri("/hello").header("X-API-Version", "2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Hi World");
+    }
+
+    @Test
+    void testUnversionedHandlersAcceptAnyVersion() {
+        client.get().uri("/accounts?limit=1").header("X-API-Version", "1.1")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testErrorsMatchSpringLookup() {
+        // Versión no soportada: la estrategia la rechaza antes de buscar el handler
+        client.get().uri("/accounts/1").header("X-API-Version", "9.9")
+                .exchange()
+                .expectStatus().isBadRequest();
+        // Sin candidato en la tabla: se delega en Spring, que responde 405
+        client.post().uri("/hello").header("X-API-Version", "1")
+                .exchange()
+                .expectStatus().isEqualTo(405);
+    }
+
+    @Test
+    void testRegisteringMappingRebuildsTable() throws NoSuchMethodException {
+        // Construir la tabla de la versión 1.0 antes de registrar
+        client.get().uri("/accounts/1").header("X-API-Version", "1.0").exchange().expectStatus().isOk();
+
+        RequestMappingInfo mapping = RequestMappingInfo.paths("/dispatch-test/{id}")
+                .methods(RequestMethod.GET)
+                .version("1.0")
+                .produces(MediaType.TEXT_PLAIN_VALUE)
+                .options(handlerMapping.getBuilderConfiguration())
+                .build();
+        handlerMapping.registerMapping(mapping, new DispatchTestHandler(),
+                DispatchTestHandler.class.getMethod("handle"));
+        try {
+            client.get().uri("/dispatch-test/7").header("X-API-Version", "1.0")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class).isEqualTo("registered");
+        } finally {
+            handlerMapping.unregisterMapping(mapping);
+        }
+        client.get().uri("/dispatch-test/7").header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testParserInternsUpToLimit() {
+        CachingApiVersionParser<SemanticApiVersionParser.Version> parser =
+                new CachingApiVersionParser<>(new SemanticApiVersionParser(), 2);
+
+        SemanticApiVersionParser.Version first = parser.parseVersion("1.0");
+        assertThat(parser.parseVersion("1.0")).isSameAs(first);
+        parser.parseVersion("2.0");
+        parser.parseVersion("3.0");
+
+        assertThat(parser.size()).isEqualTo(2);
+        assertThat(parser.parseVersion("3.0")).isEqualTo(new SemanticApiVersionParser().parseVersion("3.0"));
+        assertThatThrownBy(() -> parser.parseVersion("not-a-version")).isInstanceOf(IllegalStateException.class);
+        assertThat(parser.size()).isEqualTo(2);
+    }
+
+    @ResponseBody
+    static class DispatchTestHandler {
+
+        public String handle() {
+            return "registered";
+        }
+    }
+}
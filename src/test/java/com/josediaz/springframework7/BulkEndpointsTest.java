@@ -0,0 +1,200 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
+import com.josediaz.springframework7.service.UserService;
+import org.jspecify.annotations.NonNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de POST /accounts/bulk y POST /users/bulk: array JSON y NDJSON de entrada y salida,
+ * resultados por operación, lotes mayores que Bulk.BATCH_SIZE y fallos del servicio a mitad de respuesta
+ *
+ * La respuesta se escribe con StreamingResponseBody, así que se usa el servidor real;
+ * @DirtiesContext: las cuentas y usuarios creados aquí no deben afectar a otros tests
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class BulkEndpointsTest {
+
+    static final String FAILING_NAME = "Fail the batch";
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    RestTestClient serverClient;
+
+    @LocalServerPort
+    int port;
+
+    @BeforeEach
+    void setUp() {
+        serverClient = RestTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @Test
+    void testAccountsBulkJsonArray() {
+        JsonNode created = readTree(post("/accounts/bulk", MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON, """
+                [{"op": "create", "name": "Bulk 1", "email": "bulk1@example.com"},
+                 {"op": "create", "name": "Bulk 2", "email": "bulk2@example.com", "phone": "+34 600 000 000"}]
+                """));
+        assertThat(created.size()).isEqualTo(2);
+        assertThat(created.get(0).get("status").asString()).isEqualTo("created");
+        long first = created.get(0).get("id").asLong();
+        long second = created.get(1).get("id").asLong();
+        assertThat(second).isEqualTo(first + 1);
+
+        JsonNode results = readTree(post("/accounts/bulk", MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON, """
+                [{"op": "update", "id": %d, "name": "Bulk 1 renamed", "email": "bulk1@example.com"},
+                 {"op": "delete", "id": %d},
+                 {"op": "delete", "id": %d},
+                 {"op": "update", "id": 999999, "name": "Nobody", "email": "nobody@example.com"},
+                 {"op": "rename", "id": 1},
+                 {"op": "create", "name": "No email"}]
+                """.formatted(first, second, second)));
+        assertThat(statuses(results)).containsExactly("updated", "deleted", "not_found", "not_found", "invalid", "invalid");
+        assertThat(results.get(4).get("error").asString()).contains("rename");
+
+        serverClient.get().uri("/accounts/{id}", first).header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Bulk 1 renamed");
+        serverClient.get().uri("/accounts/{id}", second).header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testUsersBulkNdjsonReportsConflicts() {
+        String body = post("/users/bulk", MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON, """
+                {"op": "create", "name": "Bulk", "email": "bulk-user@example.com"}
+                {"op": "create", "name": "Bulk again", "email": "BULK-USER@example.com"}
+                {"op": "delete", "id": 999999}
+                """);
+        List<JsonNode> results = body.lines().map(this::readTree).toList();
+
+        assertThat(results).extracting(result -> result.get("status").asString())
+                .containsExactly("created", "conflict", "not_found");
+        assertThat(results.get(1).get("error").asString()).contains("BULK-USER@example.com");
+
+        long id = results.get(0).get("id").asLong();
+        serverClient.get().uri("/users/search?email=bulk-user@example.com").header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(id);
+    }
+
+    @Test
+    void testMalformedInputStopsAfterValidOperations() {
+        String body = post("/users/bulk", MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON, """
+                {"op": "create", "name": "Before", "email": "before-malformed@example.com"}
+                {"op": "create", "name":
+                """);
+        List<JsonNode> results = body.lines().map(this::readTree).toList();
+
+        assertThat(results).extracting(result -> result.get("status").asString()).containsExactly("created", "invalid");
+        assertThat(results.get(1).get("error").asString()).startsWith("Malformed JSON");
+    }
+
+    @Test
+    void testLargeRequestIsAppliedInBatches() {
+        StringBuilder request = new StringBuilder();
+        int count = 2500;
+        for (int i = 0; i < count; i++) {
+            request.append("{\"op\": \"create\", \"name\": \"Batch ").append(i)
+                    .append("\", \"email\": \"batch").append(i).append("@example.com\"}\n");
+        }
+        String body = post("/users/bulk", MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_NDJSON, request.toString());
+        List<JsonNode> results = body.lines().map(this::readTree).toList();
+
+        assertThat(results).hasSize(count);
+        assertThat(results).allSatisfy(result -> assertThat(result.get("status").asString()).isEqualTo("created"));
+        // Los ids siguen el orden de las operaciones
+        for (int i = 1; i < count; i++) {
+            assertThat(results.get(i).get("id").asLong()).isEqualTo(results.get(i - 1).get("id").asLong() + 1);
+        }
+    }
+
+    @Test
+    void testServiceFailureEndsWithErrorResult() {
+        StringBuilder request = new StringBuilder("[");
+        for (int i = 0; i < 1500; i++) {
+            // La primera operación del segundo lote hace fallar al servicio
+            String name = i == 1000 ? FAILING_NAME : "Failing batch " + i;
+            request.append(i == 0 ? "" : ",").append("{\"op\": \"create\", \"name\": \"").append(name)
+                    .append("\", \"email\": \"failing-batch").append(i).append("@example.com\"}");
+        }
+        String body = post("/users/bulk", MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON, request.append(']').toString());
+
+        // Un array JSON completo: el primer lote y un resultado error, no una respuesta cortada
+        JsonNode results = readTree(body);
+        assertThat(results.size()).isEqualTo(1001);
+        assertThat(statuses(results).subList(0, 1000)).containsOnly("created");
+        assertThat(results.get(1000).get("status").asString()).isEqualTo("error");
+        assertThat(results.get(1000).get("error").asString()).contains("after 1000 operations", "Journal unavailable");
+    }
+
+    @Test
+    void testEmptyArray() {
+        String body = post("/accounts/bulk", MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON, "[]");
+        assertThat(body).isEqualTo("[]");
+    }
+
+    /**
+     * UserService que falla en el lote que contiene una operación con FAILING_NAME, como lo
+     * haría con el journal caído
+     */
+    @TestConfiguration
+    static class FailingUserServiceConfiguration {
+
+        @Bean
+        @Primary
+        UserService failingUserService() {
+            return new UserService() {
+                @Override
+                public @NonNull List<BulkResult> applyBulk(@NonNull List<BulkOperation> operations) {
+                    if (operations.stream().anyMatch(operation -> FAILING_NAME.equals(operation.name()))) {
+                        throw new IllegalStateException("Journal unavailable");
+                    }
+                    return super.applyBulk(operations);
+                }
+            };
+        }
+    }
+
+    private String post(String uri, MediaType contentType, MediaType accept, String body) {
+        return serverClient.post()
+                .uri(uri)
+                .header("X-API-Version", "1.0")
+                .contentType(contentType)
+                .accept(accept)
+                .body(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(accept)
+                .returnResult(String.class)
+                .getResponseBody();
+    }
+
+    private JsonNode readTree(String json) {
+        return jsonMapper.readTree(json);
+    }
+
+    private static List<String> statuses(JsonNode results) {
+        return results.valueStream().map(result -> result.get("status").asString()).toList();
+    }
+}
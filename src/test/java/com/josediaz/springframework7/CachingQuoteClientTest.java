@@ -0,0 +1,132 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.CachingQuoteClient;
+import com.josediaz.springframework7.client.QuoteClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de la caché de categorías con TTL y refresco en segundo plano
+ */
+class CachingQuoteClientTest {
+
+    private final CountingQuoteClient delegate = new CountingQuoteClient();
+
+    @Test
+    void testSecondCallIsServedFromCache() {
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ofMinutes(1), Duration.ofMinutes(1), Runnable::run);
+
+        assertThat(client.getCategories()).containsExactly("v1");
+        assertThat(client.getCategories()).containsExactly("v1");
+
+        assertThat(delegate.calls).hasValue(1);
+        assertThat(client.missCount()).isEqualTo(1);
+        assertThat(client.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testRefreshAheadServesCachedValueAndReloadsInBackground() {
+        List<Runnable> background = new ArrayList<>();
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ofMinutes(1), Duration.ZERO, background::add);
+
+        client.getCategories();
+        // Pasado refreshAfter, el acceso responde desde caché y programa un único refresco
+        assertThat(client.getCategories()).containsExactly("v1");
+        assertThat(client.getCategories()).containsExactly("v1");
+        assertThat(background).hasSize(1);
+        assertThat(delegate.calls).hasValue(1);
+
+        background.getFirst().run();
+        assertThat(client.getCategories()).containsExactly("v2");
+        assertThat(delegate.calls).hasValue(2);
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ZERO, Duration.ZERO, Runnable::run);
+
+        client.getCategories();
+        client.getCategories();
+
+        assertThat(delegate.calls).hasValue(2);
+        assertThat(client.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testFailedBackgroundRefreshKeepsCachedValue() {
+        List<Runnable> background = new ArrayList<>();
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ofMinutes(1), Duration.ZERO, background::add);
+        client.getCategories();
+
+        delegate.failing = true;
+        client.getCategories();
+        background.getFirst().run();
+
+        assertThat(client.getCategories()).containsExactly("v1");
+    }
+
+    @Test
+    void testWarmUpLoadsBeforeFirstRequest() {
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ofMinutes(1), Duration.ofMinutes(1), Runnable::run);
+
+        client.warmUp();
+
+        assertThat(client.getCategories()).containsExactly("v1");
+        assertThat(client.missCount()).isZero();
+    }
+
+    @Test
+    void testConcurrentColdCallsLoadOnce() {
+        delegate.delayMillis = 100;
+        CachingQuoteClient client = new CachingQuoteClient(delegate, Duration.ofMinutes(1), Duration.ofMinutes(1), Runnable::run);
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<CompletableFuture<String[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(CompletableFuture.supplyAsync(client::getCategories, executor));
+            }
+            futures.forEach(future -> assertThat(future.join()).containsExactly("v1"));
+        }
+        assertThat(delegate.calls).hasValue(1);
+    }
+
+    private static class CountingQuoteClient implements QuoteClient {
+
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+        volatile long delayMillis;
+
+        @Override
+        public ChuckNorrisJoke getRandomJoke() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ChuckNorrisJoke getRandomJokeByCategory(String category) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String[] getCategories() {
+            if (failing) {
+                throw new IllegalStateException("upstream down");
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new String[] {"v" + calls.incrementAndGet()};
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.Circuit;
+import com.josediaz.springframework7.client.CircuitBreakerBeanPostProcessor;
+import com.josediaz.springframework7.client.CircuitBreakerOpenException;
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.service.JokePool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test de @CircuitBreaker sobre QuoteClient contra un servidor local con errores y latencia
+ * inyectados
+ *
+ * Los fallos se provocan con getRandomJokeByCategory, que no tiene @RetryWithBudget; el circuito
+ * "chucknorris" es el mismo para los tres métodos de QuoteClient
+ */
+@SpringBootTest(properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.circuit-breaker.slow-call-duration=300ms",
+        "quotes.circuit-breaker.open-duration=300ms"
+})
+class CircuitBreakerTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final int MINIMUM_CALLS = 10;
+
+    @Autowired
+    QuoteClient quoteClient;
+
+    @Autowired
+    JokePool jokePool;
+
+    @Autowired
+    CircuitBreakerBeanPostProcessor circuitBreakers;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        upstream.latency(0);
+        upstream.failureRate(0);
+        // Cada test empieza con el circuito cerrado: pasado open-duration, las llamadas de prueba lo cierran
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (circuitBreakers.circuit("chucknorris") != null && circuit().state() != Circuit.State.CLOSED
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            try {
+                quoteClient.getRandomJokeByCategory("dev");
+            } catch (CircuitBreakerOpenException e) {
+                // Sigue abierto
+            }
+        }
+        upstream.resetHits();
+    }
+
+    @Test
+    void testOpensOnErrorsAndServesLastJoke() throws InterruptedException {
+        QuoteClient.ChuckNorrisJoke lastGood = jokePool.take();
+        long opened = circuit().transitionCount(Circuit.State.OPEN);
+
+        // Con la llamada correcta anterior, la ventana llega a las 10 llamadas mínimas con 9 fallos
+        upstream.failureRate(1.0);
+        for (int i = 1; i < MINIMUM_CALLS; i++) {
+            assertThatThrownBy(() -> quoteClient.getRandomJokeByCategory("dev")).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(circuit().state()).isEqualTo(Circuit.State.OPEN);
+        assertThat(circuit().transitionCount(Circuit.State.OPEN)).isEqualTo(opened + 1);
+
+        // Abierto: ni la llamada ni sus reintentos llegan a la API remota
+        upstream.resetHits();
+        long start = System.nanoTime();
+        assertThatThrownBy(quoteClient::getRandomJoke).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(System.nanoTime() - start).isLessThan(100_000_000L);
+        assertThat(jokePool.take().getValue()).isEqualTo(lastGood.getValue());
+        assertThat(upstream.hits("/jokes/random")).isZero();
+
+        // Pasado open-duration, las llamadas de prueba correctas lo cierran
+        upstream.failureRate(0);
+        Thread.sleep(400);
+        for (int i = 0; i < 3; i++) {
+            quoteClient.getRandomJokeByCategory("dev");
+        }
+        assertThat(circuit().state()).isEqualTo(Circuit.State.CLOSED);
+        assertThat(meterRegistry.get("circuit-breaker.state").tag("name", "chucknorris").tag("state", "closed").gauge().value())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("circuit-breaker.transitions").tag("name", "chucknorris").tag("to", "half_open")
+                .functionCounter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("circuit-breaker.calls").tag("name", "chucknorris").tag("result", "rejected")
+                .functionCounter().count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void testOpensOnSlowCalls() {
+        String[] categories = quoteClient.getCategories();
+        upstream.latency(400);
+        // Categorías distintas: @SingleFlight no agrupa las llamadas
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<QuoteClient.ChuckNorrisJoke>> calls = new ArrayList<>();
+            for (int i = 0; i < MINIMUM_CALLS; i++) {
+                String category = "slow-" + i;
+                calls.add(CompletableFuture.supplyAsync(() -> quoteClient.getRandomJokeByCategory(category), executor));
+            }
+            // Las llamadas lentas terminan bien: solo cuentan para abrir el circuito
+            calls.forEach(call -> assertThat(call.join().getValue()).isNotNull());
+        }
+
+        assertThat(circuit().state()).isEqualTo(Circuit.State.OPEN);
+        assertThat(meterRegistry.get("circuit-breaker.calls").tag("name", "chucknorris").tag("result", "slow")
+                .functionCounter().count()).isGreaterThanOrEqualTo(MINIMUM_CALLS);
+        // La caché de categorías está por fuera del circuito: sigue respondiendo sin llamar a la API
+        upstream.resetHits();
+        assertThat(quoteClient.getCategories()).containsExactly(categories);
+        assertThat(upstream.hits("/jokes/categories")).isZero();
+        assertThatThrownBy(() -> quoteClient.getRandomJokeByCategory("dev")).isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    @Test
+    void testCancelledCallsAreNeutral() throws InterruptedException {
+        upstream.latency(500);
+        double failuresBefore = calls("failure");
+        // Categorías distintas: cada hilo hace su propia llamada y la cancela, como CategoryJokeService
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            String category = "cancelled-" + i;
+            callers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    quoteClient.getRandomJokeByCategory(category);
+                } catch (RuntimeException e) {
+                    // Interrumpida por el test
+                }
+            }));
+        }
+        Thread.sleep(100);
+        for (Thread caller : callers) {
+            caller.interrupt();
+            caller.join();
+        }
+
+        assertThat(calls("failure")).isEqualTo(failuresBefore);
+        assertThat(circuit().state()).isEqualTo(Circuit.State.CLOSED);
+    }
+
+    @Test
+    void testHalfOpenCountsOnlyProbes() throws InterruptedException {
+        Circuit circuit = new Circuit("probes", 0.5, 0.5, Duration.ofSeconds(1), 2, 2, Duration.ofMillis(50), 1);
+        long startedClosed = circuit.tryAcquire();
+        circuit.record(circuit.tryAcquire(), 0, true);
+        circuit.record(circuit.tryAcquire(), 0, true);
+        assertThat(circuit.state()).isEqualTo(Circuit.State.OPEN);
+
+        Thread.sleep(60);
+        long probe = circuit.tryAcquire();
+        assertThat(probe).isNotEqualTo(Circuit.REJECTED);
+        assertThat(circuit.state()).isEqualTo(Circuit.State.HALF_OPEN);
+
+        // La llamada que empezó cerrado no decide nada ni ocupa el hueco de la prueba
+        circuit.record(startedClosed, 0, true);
+        assertThat(circuit.state()).isEqualTo(Circuit.State.HALF_OPEN);
+        assertThat(circuit.tryAcquire()).isEqualTo(Circuit.REJECTED);
+        circuit.record(probe, 0, false);
+        assertThat(circuit.state()).isEqualTo(Circuit.State.CLOSED);
+    }
+
+    private double calls(String result) {
+        FunctionCounter counter = meterRegistry.find("circuit-breaker.calls").tag("name", "chucknorris")
+                .tag("result", result).functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private Circuit circuit() {
+        Circuit circuit = circuitBreakers.circuit("chucknorris");
+        assertThat(circuit).isNotNull();
+        return circuit;
+    }
+}
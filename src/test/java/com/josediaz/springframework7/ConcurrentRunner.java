@@ -0,0 +1,49 @@
+package com.josediaz.springframework7;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecuta una tarea en muchos hilos que arrancan a la vez, para los tests de contención
+ */
+final class ConcurrentRunner {
+
+    private ConcurrentRunner() {
+    }
+
+    /**
+     * Lanza threads hilos, los suelta a la vez para maximizar la contención y espera a
+     * que terminen todos; propaga el primer fallo
+     */
+    static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
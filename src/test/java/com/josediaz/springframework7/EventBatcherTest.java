@@ -0,0 +1,273 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.config.EventExecutorProperties.RejectionPolicy;
+import com.josediaz.springframework7.event.BatchEventListener;
+import com.josediaz.springframework7.event.EventBatcher;
+import com.josediaz.springframework7.event.HelloWorldEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del envío de HelloWorldEvent por lotes: cierre de lote por tamaño y por linger,
+ * políticas con la cola llena y convivencia con listeners de un solo evento
+ */
+@SpringBootTest
+class EventBatcherTest {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RecordingListeners recordingListeners;
+
+    private final BlockingQueue<List<HelloWorldEvent>> batches = new LinkedBlockingQueue<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private EventBatcher<HelloWorldEvent> batcher;
+
+    @AfterEach
+    void stopBatcher() {
+        release.countDown();
+        if (batcher != null) {
+            batcher.stop();
+        }
+    }
+
+    private EventBatcher<HelloWorldEvent> batcher(int maxSize, Duration linger, int queueCapacity,
+                                                  RejectionPolicy policy, BatchEventListener<HelloWorldEvent> listener) {
+        // Executor directo: el lote se entrega en el hilo de agrupación
+        batcher = new EventBatcher<>(HelloWorldEvent.class, () -> List.of(listener), Runnable::run,
+                maxSize, linger, queueCapacity, policy);
+        batcher.start();
+        return batcher;
+    }
+
+    private static HelloWorldEvent event(int i) {
+        return new HelloWorldEvent("event " + i);
+    }
+
+    /**
+     * Listener que se bloquea en el primer lote, así el hilo de agrupación no vacía la cola
+     */
+    private BatchEventListener<HelloWorldEvent> blockingListener(CountDownLatch blocked) {
+        return events -> {
+            batches.add(events);
+            blocked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    void testBatchClosesWhenFull() throws InterruptedException {
+        EventBatcher<HelloWorldEvent> batcher = batcher(3, Duration.ofSeconds(10), 100, RejectionPolicy.REJECT, batches::add);
+
+        for (int i = 0; i < 3; i++) {
+            batcher.publish(event(i));
+        }
+
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(0), event(1), event(2));
+    }
+
+    @Test
+    void testBatchClosesAfterLinger() throws InterruptedException {
+        EventBatcher<HelloWorldEvent> batcher = batcher(100, Duration.ofMillis(50), 100, RejectionPolicy.REJECT, batches::add);
+
+        batcher.publish(event(0));
+        batcher.publish(event(1));
+
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(0), event(1));
+        assertThat(batches).isEmpty();
+    }
+
+    @Test
+    void testStopFlushesPendingEvents() throws InterruptedException {
+        EventBatcher<HelloWorldEvent> batcher = batcher(100, Duration.ofSeconds(10), 100, RejectionPolicy.REJECT, batches::add);
+        batcher.publish(event(0));
+
+        batcher.stop();
+
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(0));
+    }
+
+    @Test
+    void testRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        EventBatcher<HelloWorldEvent> batcher = batcher(1, Duration.ZERO, 2, RejectionPolicy.REJECT, blockingListener(blocked));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        batcher.bindTo(meterRegistry);
+        batcher.publish(event(0));
+        assertThat(blocked.await(2, TimeUnit.SECONDS)).isTrue();
+
+        batcher.publish(event(1));
+        batcher.publish(event(2));
+        assertThatThrownBy(() -> batcher.publish(event(3))).isInstanceOf(TaskRejectedException.class);
+
+        assertThat(meterRegistry.get("events.batch.queue.depth").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("events.batch.rejected").tag("policy", "reject").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDropOldestKeepsNewestEvents() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        EventBatcher<HelloWorldEvent> batcher = batcher(10, Duration.ZERO, 2, RejectionPolicy.DROP_OLDEST, blockingListener(blocked));
+        batcher.publish(event(0));
+        assertThat(blocked.await(2, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i <= 4; i++) {
+            batcher.publish(event(i));
+        }
+        release.countDown();
+        batcher.stop();
+
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(0));
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(3), event(4));
+        assertThat(batcher.rejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testCallerRunsDeliversOnPublishingThread() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+        BatchEventListener<HelloWorldEvent> listener = blockingListener(blocked);
+        EventBatcher<HelloWorldEvent> batcher = batcher(1, Duration.ZERO, 1, RejectionPolicy.CALLER_RUNS, events -> {
+            threads.add(Thread.currentThread());
+            if (threads.size() == 1) {
+                listener.onEvents(events);
+            }
+        });
+        batcher.publish(event(0));
+        assertThat(blocked.await(2, TimeUnit.SECONDS)).isTrue();
+        batcher.publish(event(1));
+
+        batcher.publish(event(2));
+
+        assertThat(threads).hasSize(2).last().isEqualTo(Thread.currentThread());
+    }
+
+    @Test
+    void testRejectedBatchIsDeliveredByFlusher() throws InterruptedException {
+        BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+        batcher = new EventBatcher<>(HelloWorldEvent.class, () -> List.of(events -> {
+            threads.add(Thread.currentThread());
+            batches.add(events);
+        }), task -> {
+            throw new TaskRejectedException("full");
+        }, 2, Duration.ZERO, 100, RejectionPolicy.REJECT);
+        batcher.start();
+
+        batcher.publish(event(0));
+
+        // El executor lleno no descarta el lote: lo entrega el hilo de agrupación
+        assertThat(batches.poll(2, TimeUnit.SECONDS)).containsExactly(event(0));
+        assertThat(threads.poll()).isNotEqualTo(Thread.currentThread());
+        assertThat(batcher.rejectedCount()).isZero();
+    }
+
+    @Test
+    void testEventsOutsideLifecycleGoThroughExecutor() {
+        BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        batcher = new EventBatcher<>(HelloWorldEvent.class, () -> List.of(batches::add), tasks::add,
+                2, Duration.ofSeconds(1), 100, RejectionPolicy.REJECT);
+
+        // Antes de start() y después de stop(): una tarea del executor por evento, nada en este hilo
+        batcher.publish(event(0));
+        batcher.start();
+        batcher.stop();
+        batcher.publish(event(1));
+
+        assertThat(batches).isEmpty();
+        assertThat(tasks).hasSize(2);
+        tasks.forEach(Runnable::run);
+        assertThat(batches).containsExactly(List.of(event(0)), List.of(event(1)));
+    }
+
+    @Test
+    void testEventsOutsideLifecycleFallBackToCallerWhenRejected() {
+        batcher = new EventBatcher<>(HelloWorldEvent.class, () -> List.of(batches::add), task -> {
+            throw new TaskRejectedException("closed");
+        }, 2, Duration.ofSeconds(1), 100, RejectionPolicy.REJECT);
+
+        batcher.publish(event(0));
+
+        assertThat(batches).containsExactly(List.of(event(0)));
+    }
+
+    @Test
+    void testUnbatchedDeliversOneEventPerTask() throws InterruptedException {
+        BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        batcher = EventBatcher.unbatched(HelloWorldEvent.class, () -> List.of(batches::add), tasks::add,
+                RejectionPolicy.REJECT);
+        batcher.start();
+
+        batcher.publish(event(0));
+        batcher.publish(event(1));
+
+        assertThat(tasks).hasSize(2);
+        tasks.forEach(Runnable::run);
+        assertThat(batches).containsExactly(List.of(event(0)), List.of(event(1)));
+    }
+
+    @Test
+    void testContextDeliversBatchesAndSingleEvents() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            eventPublisher.publishEvent(event(i));
+        }
+
+        int received = 0;
+        while (received < 5) {
+            List<HelloWorldEvent> batch = recordingListeners.batches.poll(5, TimeUnit.SECONDS);
+            assertThat(batch).isNotNull();
+            received += batch.size();
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThat(recordingListeners.singles.poll(5, TimeUnit.SECONDS)).isEqualTo(event(i));
+        }
+    }
+
+    static class RecordingListeners implements BatchEventListener<HelloWorldEvent> {
+
+        final BlockingQueue<List<HelloWorldEvent>> batches = new LinkedBlockingQueue<>();
+        final BlockingQueue<HelloWorldEvent> singles = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onEvents(List<HelloWorldEvent> events) {
+            batches.add(events);
+        }
+
+        @EventListener
+        public void onEvent(HelloWorldEvent event) {
+            singles.add(event);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RecordingListeners recordingListeners() {
+            return new RecordingListeners();
+        }
+    }
+}
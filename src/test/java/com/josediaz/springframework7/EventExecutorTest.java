@@ -0,0 +1,174 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.config.AsyncConfiguration;
+import com.josediaz.springframework7.config.EventBatchProperties;
+import com.josediaz.springframework7.config.EventExecutorProperties;
+import com.josediaz.springframework7.config.EventExecutorProperties.RejectionPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del executor acotado de eventos: políticas de rechazo, métricas y 429 en /events/hello
+ *
+ * El contexto usa 1 hilo y cola de 1 con política reject para poder saturarlo,
+ * con una tarea por evento (sin envío por lotes)
+ */
+@SpringBootTest(properties = {
+        "events.executor.core-size=1",
+        "events.executor.max-size=1",
+        "events.executor.queue-capacity=1",
+        "events.executor.rejection-policy=reject",
+        "events.batch.enabled=false"
+})
+class EventExecutorTest {
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.EVENT_TASK_EXECUTOR)
+    private ThreadPoolTaskExecutor eventTaskExecutor;
+
+    @Autowired
+    private MeterRegistry contextMeterRegistry;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void releaseBlockedTasks() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private ThreadPoolTaskExecutor executor(RejectionPolicy policy) {
+        EventExecutorProperties properties = new EventExecutorProperties(1, 1, 2, Duration.ofSeconds(60), policy);
+        executor = new AsyncConfiguration().eventTaskExecutor(properties,
+                new EventBatchProperties(false, 256, Duration.ofMillis(5), 10_000),
+                new StaticListableBeanFactory().getBeanProvider(TaskDecorator.class), false,
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry)).getBeanProvider(MeterRegistry.class));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Ocupa el único hilo con una tarea bloqueada y llena la cola
+     */
+    private void saturate(ThreadPoolTaskExecutor executor, int queued, List<String> ran) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < queued; i++) {
+            String name = "queued-" + i;
+            executor.execute(() -> ran.add(name));
+        }
+    }
+
+    private void await() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testCallerRunsExecutesOnPublishingThreadWhenFull() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = executor(RejectionPolicy.CALLER_RUNS);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        saturate(executor, 2, ran);
+
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        executor.execute(() -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).containsExactly(caller);
+        assertThat(meterRegistry.get("events.executor.rejected").tag("policy", "caller-runs")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDropOldestDiscardsOldestQueuedEvent() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = executor(RejectionPolicy.DROP_OLDEST);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        saturate(executor, 2, ran);
+
+        executor.execute(() -> ran.add("newest"));
+        assertThat(meterRegistry.get("events.executor.queue.depth").gauge().value()).isEqualTo(2);
+        release.countDown();
+        // Cierre ordenado: ThreadPoolTaskExecutor.shutdown() descartaría la cola
+        executor.getThreadPoolExecutor().shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ran).containsExactly("queued-1", "newest");
+        assertThat(meterRegistry.get("events.executor.rejected").tag("policy", "drop-oldest")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRejectThrowsAndExposesMetrics() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = executor(RejectionPolicy.REJECT);
+        saturate(executor, 2, new CopyOnWriteArrayList<>());
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(TaskRejectedException.class);
+        assertThat(meterRegistry.get("events.executor.active").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("events.executor.queue.depth").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("events.executor.rejected").tag("policy", "reject")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testHelloEndpointReturns429WhenEventExecutorIsFull(WebApplicationContext context) throws InterruptedException {
+        RestTestClient client = RestTestClient.bindToApplicationContext(context).build();
+        saturate(eventTaskExecutor, 1, new CopyOnWriteArrayList<>());
+        double rejectedBefore = contextMeterRegistry.get("events.executor.rejected").functionCounter().count();
+
+        client.get()
+                .uri("/events/hello?message=burst")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+
+        assertThat(contextMeterRegistry.get("events.executor.rejected").functionCounter().count())
+                .isEqualTo(rejectedBefore + 1);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((eventTaskExecutor.getActiveCount() > 0 || eventTaskExecutor.getQueueSize() > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        client.get()
+                .uri("/events/hello?message=after")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,143 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.AdaptiveConcurrencyLimitBeanPostProcessor;
+import com.josediaz.springframework7.client.AdaptiveLimiter;
+import com.josediaz.springframework7.client.HedgedBeanPostProcessor;
+import com.josediaz.springframework7.client.Hedger;
+import com.josediaz.springframework7.client.QuoteClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de @Hedged sobre QuoteClient.getRandomJoke contra un servidor local con latencia inyectada
+ *
+ * Con max-delay=20ms, una llamada que tarda 100 ms o más siempre supera la espera: o lanza el
+ * segundo intento o el cupo se lo niega. Con max-hedge-ratio=0.5 el cupo se llena (10) con
+ * las llamadas de calentamiento
+ */
+@SpringBootTest(properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.hedging.enabled=true",
+        "quotes.hedging.max-delay=20ms",
+        "quotes.hedging.max-hedge-ratio=0.5"
+})
+class HedgingTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final String HEDGER = "chucknorris.random";
+
+    @Autowired
+    QuoteClient quoteClient;
+
+    @Autowired
+    HedgedBeanPostProcessor hedging;
+
+    @Autowired
+    AdaptiveConcurrencyLimitBeanPostProcessor adaptiveLimits;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        upstream.failureRate(0);
+        upstream.latency(5);
+        // Muestras de latencia para el percentil y cupo de intentos extra lleno. En dos hilos,
+        // para que el segundo intento encuentre una conexión abierta: abrirla alargaría su
+        // latencia y el límite adaptativo bajaría sin que nada haya fallado
+        ConcurrentRunner.runConcurrently(2, thread -> {
+            for (int i = 0; i < 15; i++) {
+                assertThat(quoteClient.getRandomJoke().getValue()).isNotNull();
+            }
+        });
+        // Un segundo intento cancelado puede tener ya la petición en camino: que llegue antes de
+        // poner a cero los contadores y no se lleve la respuesta lenta del test
+        Thread.sleep(100);
+        upstream.resetHits();
+    }
+
+    @Test
+    void testSlowCallIsHedged() throws InterruptedException {
+        long hedgedBefore = hedger().hedgedCount();
+        int limitBefore = limiter().limit();
+        AtomicBoolean slowNext = new AtomicBoolean(true);
+        upstream.latency(() -> slowNext.getAndSet(false) ? 3000 : 5);
+
+        long start = System.nanoTime();
+        assertThat(quoteClient.getRandomJoke().getValue()).isNotNull();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // La respuesta lenta le toca a la primera petición que llega al servidor, que casi
+        // siempre es el primer intento; sea cual sea, gana el otro
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(1));
+        // Los intentos van en quoteTaskExecutor: cancelar el perdedor no interrumpe a este hilo
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(2);
+        assertThat(hedger().hedgedCount() - hedgedBefore).isEqualTo(1);
+        assertThat(meterRegistry.get("hedge.calls").tag("name", HEDGER).tag("result", "hedged").functionCounter().count())
+                .isEqualTo(hedger().hedgedCount());
+
+        // El intento cancelado libera su hueco sin contar como fallo del límite adaptativo
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (limiter().inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(limiter().inFlight()).isZero();
+        assertThat(limiter().limit()).isGreaterThanOrEqualTo(limitBefore);
+    }
+
+    @Test
+    void testHedgesAreCappedByRatio() {
+        long hedgedBefore = hedger().hedgedCount();
+        long deniedBefore = hedger().deniedCount();
+        upstream.latency(100);
+
+        int calls = 40;
+        for (int i = 0; i < calls; i++) {
+            assertThat(quoteClient.getRandomJoke().getValue()).isNotNull();
+        }
+
+        long hedged = hedger().hedgedCount() - hedgedBefore;
+        long denied = hedger().deniedCount() - deniedBefore;
+        assertThat(hedged + denied).isEqualTo(calls);
+        // Cupo inicial de 10 más 0.5 por llamada
+        assertThat(hedged).isLessThanOrEqualTo(10 + calls / 2);
+        assertThat(denied).isGreaterThanOrEqualTo(calls / 2 - 10);
+        assertThat(upstream.hits("/jokes/random")).isBetween(calls, calls + (int) hedged);
+    }
+
+    private Hedger hedger() {
+        Hedger hedger = hedging.hedger(HEDGER);
+        assertThat(hedger).isNotNull();
+        return hedger;
+    }
+
+    private AdaptiveLimiter limiter() {
+        AdaptiveLimiter limiter = adaptiveLimits.limiter("QuoteClient.getRandomJoke");
+        assertThat(limiter).isNotNull();
+        return limiter;
+    }
+}
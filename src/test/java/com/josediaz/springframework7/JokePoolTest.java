@@ -0,0 +1,183 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.CircuitBreakerOpenException;
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.service.JokePool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test del pool de chistes precargados: marcas de agua, starvation y pools por categoría
+ */
+class JokePoolTest {
+
+    private final CountingQuoteClient quoteClient = new CountingQuoteClient();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> workers = new ArrayList<>();
+
+    private JokePool pool(boolean enabled, int low, int high) {
+        return new JokePool(quoteClient, workers::add, enabled, low, high,
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry)).getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void testPrefillFillsUpToHighWatermark() {
+        JokePool pool = pool(true, 2, 5);
+
+        pool.prefill();
+        runWorkers();
+
+        assertThat(pool.depth()).isEqualTo(5);
+        assertThat(meterRegistry.get("quotes.pool.depth").tag("category", "any").gauge().value()).isEqualTo(5);
+    }
+
+    @Test
+    void testTakePopsWithoutRemoteCall() {
+        JokePool pool = pool(true, 2, 5);
+        pool.prefill();
+        runWorkers();
+        int callsAfterPrefill = quoteClient.calls.get();
+
+        QuoteClient.ChuckNorrisJoke joke = pool.take();
+
+        assertThat(joke.getValue()).isEqualTo("joke 1");
+        assertThat(quoteClient.calls).hasValue(callsAfterPrefill);
+        assertThat(pool.depth()).isEqualTo(4);
+        assertThat(workers).isEmpty();
+    }
+
+    @Test
+    void testRefillStartsBelowLowWatermark() {
+        JokePool pool = pool(true, 3, 5);
+        pool.prefill();
+        runWorkers();
+
+        pool.take();
+        pool.take();
+        assertThat(workers).isEmpty();
+        pool.take();
+        // Profundidad 2 < lowWatermark 3: se programa un único worker
+        pool.take();
+        assertThat(workers).hasSize(1);
+
+        runWorkers();
+        assertThat(pool.depth()).isEqualTo(5);
+    }
+
+    @Test
+    void testEmptyPoolFallsBackToClientAndCountsStarvation() {
+        JokePool pool = pool(true, 1, 3);
+
+        QuoteClient.ChuckNorrisJoke joke = pool.take();
+
+        assertThat(joke).isNotNull();
+        assertThat(pool.starvationCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("quotes.pool.starvations").tag("category", "any").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCategoryPoolsAreSeparate() {
+        JokePool pool = pool(true, 1, 3);
+
+        assertThat(pool.take("Dev").getValue()).endsWith("(dev)");
+        runWorkers();
+
+        assertThat(pool.depth("dev")).isEqualTo(3);
+        assertThat(pool.depth()).isZero();
+        assertThat(pool.take("dev").getValue()).endsWith("(dev)");
+    }
+
+    @Test
+    void testUnknownCategoryGetsNoPool() {
+        JokePool pool = pool(true, 1, 3);
+
+        // Solo "dev" está en getCategories(): el resto va directo a QuoteClient, sin pool ni métricas
+        assertThat(pool.take("nope").getValue()).endsWith("(nope)");
+        runWorkers();
+
+        assertThat(pool.depth("nope")).isZero();
+        assertThat(meterRegistry.find("quotes.pool.depth").tag("category", "nope").gauge()).isNull();
+        assertThat(quoteClient.calls).hasValue(1);
+    }
+
+    @Test
+    void testDisabledPoolCallsClientDirectly() {
+        JokePool pool = pool(false, 1, 3);
+
+        pool.prefill();
+        pool.take();
+
+        assertThat(workers).isEmpty();
+        assertThat(quoteClient.calls).hasValue(1);
+        assertThat(pool.starvationCount()).isZero();
+    }
+
+    @Test
+    void testOpenCircuitServesLastJoke() {
+        JokePool pool = pool(true, 1, 3);
+        quoteClient.open = true;
+        // Sin ningún chiste obtenido aún no hay con qué responder
+        assertThat(pool.take()).isNull();
+        // El relleno tampoco añade nada mientras el circuito esté abierto
+        runWorkers();
+        assertThat(pool.depth()).isZero();
+
+        quoteClient.open = false;
+        pool.take();
+        runWorkers();
+        while (pool.depth() > 0) {
+            pool.take();
+        }
+        workers.clear();
+        quoteClient.open = true;
+
+        assertThat(pool.take().getValue()).isEqualTo("joke 4");
+        assertThat(pool.fallbackCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("quotes.pool.fallbacks").tag("category", "any").functionCounter().count()).isEqualTo(2);
+    }
+
+    private void runWorkers() {
+        while (!workers.isEmpty()) {
+            workers.removeFirst().run();
+        }
+    }
+
+    private static class CountingQuoteClient implements QuoteClient {
+
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean open;
+
+        @Override
+        public ChuckNorrisJoke getRandomJoke() {
+            if (open) {
+                throw new CircuitBreakerOpenException("test");
+            }
+            return joke("joke " + calls.incrementAndGet());
+        }
+
+        @Override
+        public ChuckNorrisJoke getRandomJokeByCategory(String category) {
+            return joke("joke " + calls.incrementAndGet() + " (" + category + ")");
+        }
+
+        @Override
+        public String[] getCategories() {
+            return new String[] {"dev"};
+        }
+
+        private static ChuckNorrisJoke joke(String value) {
+            ChuckNorrisJoke joke = new ChuckNorrisJoke();
+            joke.setValue(value);
+            return joke;
+        }
+    }
+}
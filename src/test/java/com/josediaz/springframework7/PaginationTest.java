@@ -0,0 +1,110 @@
+package com.josediaz.springframework7;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de paginación por cursor (limit + after) y exportación NDJSON
+ * para GET /accounts y GET /users
+ *
+ * NDJSON se escribe con StreamingResponseBody (procesamiento asíncrono),
+ * por eso esos tests usan el servidor real en lugar del contexto de MockMvc
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PaginationTest {
+
+    RestTestClient client;
+    RestTestClient serverClient;
+
+    @LocalServerPort
+    int port;
+
+    @BeforeEach
+    void setUp(WebApplicationContext context) {
+        client = RestTestClient.bindToApplicationContext(context).build();
+        serverClient = RestTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @Test
+    void testAccountsFirstPageHasNextLink() {
+        client.get()
+                .uri("/accounts?limit=2")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> assertThat(link).contains("after=2").contains("rel=\"next\""))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[1].id").isEqualTo(2);
+    }
+
+    @Test
+    void testAccountsPageAfterCursor() {
+        client.get()
+                .uri("/accounts?limit=1&after=2")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(3);
+    }
+
+    @Test
+    void testAccountsNdjsonStream() {
+        String body = serverClient.get()
+                .uri("/accounts")
+                .header("X-API-Version", "1.0")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(body).isNotNull();
+        String[] lines = body.split("\n");
+        assertThat(lines.length).isGreaterThanOrEqualTo(3);
+        assertThat(lines[0]).startsWith("{").contains("\"id\":1");
+    }
+
+    @Test
+    void testUsersPage() {
+        client.get()
+                .uri("/users?limit=2&after=1")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LINK)
+                .expectBody()
+                .jsonPath("$['2'].id").isEqualTo(2)
+                .jsonPath("$['3'].id").isEqualTo(3)
+                .jsonPath("$['1']").doesNotExist();
+    }
+
+    @Test
+    void testUsersNdjsonStreamAfterCursor() {
+        String body = serverClient.get()
+                .uri("/users?after=2")
+                .header("X-API-Version", "1.0")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(body).isNotNull();
+        assertThat(body.split("\n")[0]).contains("\"id\":3");
+    }
+}
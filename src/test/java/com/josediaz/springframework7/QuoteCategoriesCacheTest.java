@@ -0,0 +1,55 @@
+package com.josediaz.springframework7;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que /quotes/categories y /resilient-quotes/categories comparten
+ * la caché de categorías, usando un servidor local en lugar de la API real
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class QuoteCategoriesCacheTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    RestTestClient client;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+        registry.add("quotes.categories.cache.warm-up", () -> "false");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp(WebApplicationContext context) {
+        client = RestTestClient.bindToApplicationContext(context).build();
+    }
+
+    @Test
+    void testCategoriesEndpointsShareOneUpstreamCall() {
+        for (String path : new String[] {"/quotes/categories", "/resilient-quotes/categories", "/quotes/categories"}) {
+            client.get()
+                    .uri(path)
+                    .header("X-API-Version", "1.0")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$[0]").isEqualTo("animal");
+        }
+
+        assertThat(upstream.hits("/jokes/categories")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.AsyncQuoteClient;
+import com.josediaz.springframework7.model.CategoryJokes;
+import com.josediaz.springframework7.service.CategoryJokeService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.client.RestTestClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de AsyncQuoteClient y de GET /quotes/random/per-category contra un servidor local con
+ * latencia inyectada
+ *
+ * Con max-parallel=3, las 6 categorías del servidor local se piden en dos tandas
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.fan-out.max-parallel=3",
+        "quotes.fan-out.deadline=1s"
+})
+class QuoteFanOutTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final List<String> CATEGORIES = List.of("animal", "career", "celebrity", "dev", "food", "science");
+
+    @Autowired
+    AsyncQuoteClient asyncQuoteClient;
+
+    @Autowired
+    CategoryJokeService categoryJokeService;
+
+    @LocalServerPort
+    int port;
+
+    RestTestClient serverClient;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstream.latency(0);
+        upstream.failureRate(0);
+        upstream.resetHits();
+        serverClient = RestTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @Test
+    void testAsyncVariantsRunConcurrently() {
+        upstream.latency(300);
+        long start = System.nanoTime();
+        CompletableFuture<?> joke = asyncQuoteClient.getRandomJoke();
+        CompletableFuture<?> byCategory = asyncQuoteClient.getRandomJokeByCategory("dev");
+        CompletableFuture<String[]> categories = asyncQuoteClient.getCategories();
+        CompletableFuture.allOf(joke, byCategory, categories).join();
+
+        assertThat(System.nanoTime() - start).isLessThan(3 * 300_000_000L);
+        assertThat(categories.join()).contains("dev");
+    }
+
+    @Test
+    void testFansOutWithBoundedParallelism() {
+        upstream.latency(200);
+
+        CategoryJokes result = categoryJokeService.jokesPerCategory(CATEGORIES).join();
+
+        assertThat(result.jokes()).containsOnlyKeys(CATEGORIES);
+        assertThat(result.missing()).isEmpty();
+        // Dos tandas de tres: más que una llamada y bastante menos que seis seguidas
+        assertThat(result.elapsedMillis()).isBetween(400L, 900L);
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(CATEGORIES.size());
+    }
+
+    @Test
+    void testDeadlineReturnsPartialResult() {
+        AtomicInteger requests = new AtomicInteger();
+        upstream.latency(() -> requests.incrementAndGet() == 1 ? 5000 : 50);
+
+        serverClient.get().uri("/quotes/random/per-category?categories={categories}", String.join(",", CATEGORIES))
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.jokes.length()").isEqualTo(CATEGORIES.size() - 1)
+                .jsonPath("$.missing.length()").isEqualTo(1)
+                .jsonPath("$.elapsedMillis").value(elapsed -> assertThat(((Number) elapsed).longValue()).isBetween(1000L, 2000L));
+    }
+
+    @Test
+    void testUsesAllCategoriesByDefault() {
+        serverClient.get().uri("/quotes/random/per-category")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.jokes.dev").exists()
+                .jsonPath("$.jokes.length()").isEqualTo(CATEGORIES.size())
+                .jsonPath("$.missing").isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.RouteConcurrencyInterceptor;
+import com.josediaz.springframework7.config.HttpClientConfig;
+import com.josediaz.springframework7.config.QuoteHttpProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del transporte HTTP ajustado de QuoteClient contra un servidor local
+ */
+class QuoteHttpTransportTest {
+
+    private final StubQuoteServer upstream = StubQuoteServer.start();
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.close();
+    }
+
+    private RestClient restClient(Duration readTimeout, int maxPerRoute, Duration acquireTimeout) {
+        QuoteHttpProperties properties = new QuoteHttpProperties(
+                Duration.ofSeconds(1), readTimeout, true, maxPerRoute, acquireTimeout);
+        return RestClient.builder()
+                .baseUrl(upstream.baseUrl())
+                .requestFactory(HttpClientConfig.quoteRequestFactory(properties))
+                .requestInterceptor(new RouteConcurrencyInterceptor(maxPerRoute, acquireTimeout))
+                .build();
+    }
+
+    @Test
+    void testRequestsSucceedOverTunedTransport() {
+        RestClient client = restClient(Duration.ofSeconds(2), 4, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 10; i++) {
+            String categories = client.get().uri("/jokes/categories").retrieve().body(String.class);
+            assertThat(categories).contains("animal");
+        }
+        assertThat(upstream.hits("/jokes/categories")).isEqualTo(10);
+    }
+
+    @Test
+    void testReadTimeoutFailsSlowUpstream() {
+        upstream.latency(1000);
+        RestClient client = restClient(Duration.ofMillis(100), 4, Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> client.get().uri("/jokes/random").retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    void testPerRouteLimitFailsFastWhenSaturated() {
+        upstream.latency(500);
+        RestClient client = restClient(Duration.ofSeconds(2), 2, Duration.ofMillis(50));
+        AtomicInteger rejected = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(6)) {
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                calls.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        client.get().uri("/jokes/random").retrieve().body(String.class);
+                    } catch (ResourceAccessException e) {
+                        rejected.incrementAndGet();
+                    }
+                }, executor));
+            }
+            calls.forEach(CompletableFuture::join);
+        }
+
+        // Solo 2 peticiones caben en la ruta; el resto no espera más de acquireTimeout
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(2);
+        assertThat(rejected).hasValue(4);
+    }
+}
@@ -0,0 +1,169 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.service.JokeStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de GET /quotes/stream contra un servidor local
+ *
+ * Con interval=100ms y heartbeat=200ms, unos segundos bastan para ver chistes y heartbeats;
+ * cada conexión dura como mucho 4s y hay 4 como máximo
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.stream.interval=100ms",
+        "quotes.stream.heartbeat=200ms",
+        "quotes.stream.timeout=4s",
+        "quotes.stream.max-subscribers=4"
+})
+class QuoteStreamTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    @Autowired
+    JokeStream jokeStream;
+
+    @LocalServerPort
+    int port;
+
+    HttpClient client;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstream.latency(0);
+        upstream.failureRate(0);
+        client = HttpClient.newHttpClient();
+    }
+
+    @Test
+    void testSubscribersShareOneUpstreamFetch() throws InterruptedException {
+        CompletableFuture<List<String>> first = subscribe(12);
+        CompletableFuture<List<String>> second = subscribe(12);
+        awaitSubscribers(2);
+        upstream.resetHits();
+
+        List<String> firstIds = eventIds(first.join());
+        List<String> secondIds = eventIds(second.join());
+
+        // Cada chiste lleva un id; los que ambos recibieron son los mismos eventos
+        assertThat(firstIds).isNotEmpty();
+        assertThat(firstIds).containsAnyElementsOf(secondIds);
+        // Una llamada remota por chiste emitido, no una por suscriptor
+        int published = Math.max(Integer.parseInt(firstIds.getLast()), Integer.parseInt(secondIds.getLast()))
+                - Math.min(Integer.parseInt(firstIds.getFirst()), Integer.parseInt(secondIds.getFirst())) + 1;
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(published + 1);
+    }
+
+    @Test
+    void testSendsJokesAndHeartbeats() {
+        List<String> lines = subscribe(20).join();
+
+        assertThat(lines).contains("event:joke");
+        assertThat(lines).anyMatch(line -> line.startsWith("data:") && line.contains("\"value\""));
+        assertThat(lines).contains(":heartbeat");
+    }
+
+    @Test
+    void testRemovesSubscriberWhenClientLeaves() throws InterruptedException {
+        subscribe(4).join();
+
+        // El siguiente envío falla al haberse cerrado la conexión
+        awaitSubscribers(0);
+        assertThat(jokeStream.subscriberCount()).isZero();
+    }
+
+    @Test
+    void testLimitsSubscribers() throws InterruptedException {
+        awaitSubscribers(0);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/quotes/stream"))
+                .header("X-API-Version", "1.0")
+                .header("Accept", "text/event-stream")
+                .build();
+        List<CompletableFuture<HttpResponse<Stream<String>>>> calls = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            calls.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofLines()));
+        }
+        List<HttpResponse<Stream<String>>> responses = calls.stream().map(CompletableFuture::join).toList();
+
+        // Las conexiones llegan a la vez: ninguna pasa del límite
+        assertThat(responses).filteredOn(response -> response.statusCode() == 200).hasSize(4);
+        assertThat(responses).filteredOn(response -> response.statusCode() == 503).hasSize(12);
+        assertThat(jokeStream.subscriberCount()).isEqualTo(4);
+        responses.forEach(response -> response.body().close());
+        awaitSubscribers(0);
+        assertThat(jokeStream.subscriberCount()).isZero();
+    }
+
+    @Test
+    void testCompletesConnectionOnTimeout() throws InterruptedException {
+        awaitSubscribers(0);
+        long start = System.nanoTime();
+        // Lee hasta que el servidor cierra la respuesta
+        List<String> lines = subscribe(Integer.MAX_VALUE).join();
+
+        assertThat(lines).contains("event:joke");
+        assertThat(System.nanoTime() - start).isLessThan(10_000_000_000L);
+        awaitSubscribers(0);
+        assertThat(jokeStream.subscriberCount()).isZero();
+    }
+
+    /**
+     * Abre /quotes/stream, lee las primeras líneas no vacías y cierra la conexión
+     */
+    private CompletableFuture<List<String>> subscribe(int lines) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/quotes/stream"))
+                .header("X-API-Version", "1.0")
+                .header("Accept", "text/event-stream")
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenApply(response -> {
+                    assertThat(response.statusCode()).isEqualTo(200);
+                    try (Stream<String> body = response.body()) {
+                        return body.filter(line -> !line.isEmpty()).limit(lines).toList();
+                    }
+                });
+    }
+
+    private void awaitSubscribers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (jokeStream.subscriberCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> eventIds(List<String> lines) {
+        return lines.stream()
+                .filter(line -> line.startsWith("id:"))
+                .map(line -> line.substring("id:".length()))
+                .toList();
+    }
+}
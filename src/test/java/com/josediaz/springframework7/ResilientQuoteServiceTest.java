@@ -17,8 +17,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Test para demostrar el uso de anotaciones de resiliencia
  * 
- * Estas pruebas verifican que las anotaciones @Retryable y @ConcurrencyLimit
- * funcionan correctamente
+ * Estas pruebas verifican que los reintentos de QuoteClient (@RetryWithBudget) y el límite
+ * @AdaptiveConcurrencyLimit de ResilientQuoteService funcionan correctamente
  */
 @SpringBootTest
 class ResilientQuoteServiceTest {
@@ -28,7 +28,7 @@ class ResilientQuoteServiceTest {
 
     @Test
     void testGetRandomJokeWithRetry() {
-        // Este método tiene @Retryable, debería funcionar incluso si hay fallos temporales
+        // QuoteClient reintenta con @RetryWithBudget, debería funcionar incluso si hay fallos temporales
         QuoteClient.ChuckNorrisJoke joke = resilientQuoteService.getRandomJokeWithRetry();
         assertThat(joke).isNotNull();
         assertThat(joke.getValue()).isNotNull();
@@ -37,7 +37,7 @@ class ResilientQuoteServiceTest {
 
     @Test
     void testGetCategoriesWithConcurrencyLimit() {
-        // Este método tiene @ConcurrencyLimit(5), debería manejar múltiples llamadas concurrentes
+        // Este método tiene @AdaptiveConcurrencyLimit(initialLimit = 5), debería manejar múltiples llamadas concurrentes
         String[] categories = resilientQuoteService.getCategoriesWithConcurrencyLimit();
         assertThat(categories).isNotNull();
         assertThat(categories.length).isGreaterThan(0);
@@ -72,7 +72,7 @@ class ResilientQuoteServiceTest {
 
     @Test
     void testGetRandomJokeResilient() {
-        // Este método combina @Retryable y @ConcurrencyLimit
+        // Este método combina @AdaptiveConcurrencyLimit con los reintentos de QuoteClient
         QuoteClient.ChuckNorrisJoke joke = resilientQuoteService.getRandomJokeResilient();
         assertThat(joke).isNotNull();
         assertThat(joke.getValue()).isNotNull();
@@ -0,0 +1,124 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.client.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test de @RetryWithBudget sobre QuoteClient.getRandomJoke contra un servidor local con errores
+ * inyectados
+ *
+ * Sin reserva mínima y con ratio 0.1, cada 10 llamadas correctas permiten un reintento. El
+ * circuit breaker se desactiva para que no corte las llamadas fallidas antes que el presupuesto
+ */
+@SpringBootTest(properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.circuit-breaker.enabled=false",
+        "quotes.retry-budget.ratio=0.1",
+        "quotes.retry-budget.min-retries-per-second=0",
+        "quotes.retry-budget.window=60s"
+})
+class RetryBudgetTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final int MAX_RETRIES = 3;
+
+    @Autowired
+    QuoteClient quoteClient;
+
+    @Autowired
+    RetryBudget retryBudget;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstream.latency(0);
+        upstream.failureRate(0);
+    }
+
+    @Test
+    void testRetriesStopWhenBudgetIsSpent() {
+        succeed(20);
+        long balance = retryBudget.balance();
+        assertThat(balance).isBetween(2L, 5L);
+        long denied = retryBudget.deniedCount();
+
+        upstream.failureRate(1.0);
+        upstream.resetHits();
+        int calls = 5;
+        for (int i = 0; i < calls; i++) {
+            assertThatThrownBy(quoteClient::getRandomJoke).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // Sin presupuesto, cada llamada hace un solo intento en vez de 1 + MAX_RETRIES
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(calls + balance);
+        assertThat(retryBudget.balance()).isZero();
+        assertThat(retryBudget.deniedCount() - denied).isGreaterThanOrEqualTo(calls - 1);
+        assertThat(meterRegistry.get("retry.budget.withdrawals").tag("result", "denied").functionCounter().count())
+                .isEqualTo(retryBudget.deniedCount());
+    }
+
+    @Test
+    void testRetriesWaitWithDecorrelatedJitter() {
+        succeed(10 * (MAX_RETRIES + 1));
+        upstream.failureRate(1.0);
+        upstream.resetHits();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(quoteClient::getRandomJoke).isInstanceOf(HttpServerErrorException.class);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(1 + MAX_RETRIES);
+        // Cada espera está entre delay (100ms) y maxDelay (2s)
+        assertThat(elapsed).isBetween(Duration.ofMillis(100 * MAX_RETRIES), Duration.ofMillis(2000 * MAX_RETRIES + 1000));
+    }
+
+    @Test
+    void testReserveIsPerSecond() {
+        RetryBudget budget = new RetryBudget(0, 2, Duration.ofSeconds(10));
+
+        // La reserva de la ventana (2 x 10) no se gasta de golpe: como mucho 2 por segundo
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (budget.tryRetry()) {
+                allowed++;
+            }
+        }
+        // Las 20 peticiones pueden caer a caballo entre dos segundos
+        assertThat(allowed).isBetween(2, 4);
+        assertThat(budget.deniedCount()).isEqualTo(20 - allowed);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(quoteClient.getRandomJoke().getValue()).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.client.QuoteClient;
+import com.josediaz.springframework7.client.SingleFlightException;
+import com.josediaz.springframework7.client.SingleFlightTimeoutException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de @SingleFlight sobre QuoteClient contra un servidor local con latencia
+ *
+ * getRandomJoke se configura con clave method y límite de concurrencia 1: si las llamadas
+ * agrupadas esperasen dentro de @AdaptiveConcurrencyLimit, cada una haría su propia llamada remota
+ *
+ * Las llamadas agrupadas esperan como mucho 1s (quotes.single-flight.max-wait)
+ */
+@SpringBootTest(properties = {
+        "quotes.pool.enabled=false",
+        "quotes.categories.cache.warm-up=false",
+        "quotes.random.concurrency-limit=1",
+        "quotes.single-flight.random=method",
+        "quotes.single-flight.max-wait=1s"
+})
+class SingleFlightTest {
+
+    static final StubQuoteServer upstream = StubQuoteServer.start();
+
+    static final int CALLERS = 20;
+
+    @Autowired
+    QuoteClient quoteClient;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("chucknorris.api.base-url", upstream::baseUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        upstream.latency(300);
+        upstream.failureRate(0);
+        upstream.resetHits();
+    }
+
+    @Test
+    void testConcurrentRandomJokesShareOneCallOutsideConcurrencyLimit() {
+        double coalescedBefore = coalesced("QuoteClient.getRandomJoke");
+
+        List<QuoteClient.ChuckNorrisJoke> jokes = callConcurrently(quoteClient::getRandomJoke);
+
+        assertThat(jokes).extracting(QuoteClient.ChuckNorrisJoke::getValue).doesNotContainNull().containsOnly(jokes.getFirst().getValue());
+        // Las llamadas se lanzan a la vez, pero alguna puede llegar cuando la primera ya ha terminado
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(2);
+        assertThat(coalesced("QuoteClient.getRandomJoke") - coalescedBefore).isGreaterThanOrEqualTo(CALLERS - 2);
+    }
+
+    @Test
+    void testCallsAreGroupedByArguments() {
+        List<QuoteClient.ChuckNorrisJoke> jokes = callConcurrently(() -> quoteClient.getRandomJokeByCategory("dev"));
+        assertThat(jokes).hasSize(CALLERS);
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(2);
+
+        upstream.resetHits();
+        List<String> categories = List.of("animal", "career", "dev", "food");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<QuoteClient.ChuckNorrisJoke>> calls = new ArrayList<>();
+            for (String category : categories) {
+                calls.add(CompletableFuture.supplyAsync(() -> quoteClient.getRandomJokeByCategory(category), executor));
+            }
+            calls.forEach(CompletableFuture::join);
+        }
+        assertThat(upstream.hits("/jokes/random")).isEqualTo(categories.size());
+    }
+
+    @Test
+    void testFailuresAreSharedAndNotRemembered() {
+        upstream.failureRate(1.0);
+        List<Throwable> failures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<QuoteClient.ChuckNorrisJoke>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> quoteClient.getRandomJokeByCategory("food"), executor));
+            }
+            for (CompletableFuture<QuoteClient.ChuckNorrisJoke> call : calls) {
+                call.handle((joke, failure) -> failures.add(failure instanceof CompletionException e ? e.getCause() : failure)).join();
+            }
+        }
+        assertThat(failures).hasSize(CALLERS).doesNotContainNull();
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(2);
+
+        // Cada llamada agrupada recibe su propia excepción; la causa es la de la llamada remota
+        List<Throwable> followers = failures.stream().filter(SingleFlightException.class::isInstance).toList();
+        assertThat(followers).hasSizeGreaterThanOrEqualTo(CALLERS - 2);
+        Set<Throwable> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Throwable> causes = Collections.newSetFromMap(new IdentityHashMap<>());
+        failures.forEach(instances::add);
+        followers.forEach(follower -> causes.add(follower.getCause()));
+        assertThat(instances).hasSize(CALLERS);
+        assertThat(causes).doesNotContainNull().hasSizeLessThanOrEqualTo(2);
+
+        // El fallo no se guarda: la siguiente llamada vuelve a la API
+        upstream.failureRate(0);
+        assertThat(quoteClient.getRandomJokeByCategory("food").getValue()).isNotNull();
+    }
+
+    @Test
+    void testWaitIsBoundedByMaxWait() {
+        upstream.latency(1500);
+        List<Throwable> failures = new ArrayList<>();
+        List<QuoteClient.ChuckNorrisJoke> jokes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<QuoteClient.ChuckNorrisJoke>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> quoteClient.getRandomJokeByCategory("career"), executor));
+            }
+            for (CompletableFuture<QuoteClient.ChuckNorrisJoke> call : calls) {
+                call.handle((joke, failure) -> failure != null
+                        ? failures.add(failure instanceof CompletionException e ? e.getCause() : failure)
+                        : jokes.add(joke)).join();
+            }
+        }
+
+        // La llamada remota termina, pero las agrupadas dejan de esperarla al segundo
+        assertThat(jokes).isNotEmpty().hasSizeLessThanOrEqualTo(2);
+        assertThat(failures).hasSize(CALLERS - jokes.size()).allMatch(SingleFlightTimeoutException.class::isInstance);
+        assertThat(upstream.hits("/jokes/random")).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void testCancelledLeaderDoesNotFailFollowers() throws InterruptedException {
+        upstream.latency(500);
+        Thread leader = Thread.ofPlatform().start(() -> {
+            try {
+                quoteClient.getRandomJokeByCategory("animal");
+            } catch (RuntimeException e) {
+                // Interrumpida por el test
+            }
+        });
+        Thread.sleep(100);
+        List<Throwable> failures = new ArrayList<>();
+        List<QuoteClient.ChuckNorrisJoke> jokes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<QuoteClient.ChuckNorrisJoke>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> quoteClient.getRandomJokeByCategory("animal"), executor));
+            }
+            Thread.sleep(100);
+            // Como hace CategoryJokeService al cancelar una categoría lenta
+            leader.interrupt();
+            leader.join();
+            for (CompletableFuture<QuoteClient.ChuckNorrisJoke> call : calls) {
+                call.handle((joke, failure) -> failure != null ? failures.add(failure) : jokes.add(joke)).join();
+            }
+        }
+
+        // Solo falla la llamada cancelada; una de las agrupadas la repite y el resto la espera
+        assertThat(failures).isEmpty();
+        assertThat(jokes).hasSize(CALLERS).doesNotContainNull();
+        assertThat(upstream.hits("/jokes/random")).isBetween(2, 3);
+    }
+
+    private <T> List<T> callConcurrently(Supplier<T> call) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<T>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                calls.add(CompletableFuture.supplyAsync(call, executor));
+            }
+            return calls.stream().map(CompletableFuture::join).toList();
+        }
+    }
+
+    private double coalesced(String method) {
+        FunctionCounter counter = meterRegistry.find("single-flight.calls").tag("method", method).tag("result", "coalesced")
+                .functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.josediaz.springframework7;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Servidor local que imita la API de Chuck Norris para tests y benchmarks
+ *
+ * Permite inyectar latencia y errores para probar caches, pools y resiliencia
+ * sin depender de https://api.chucknorris.io/
+ */
+public class StubQuoteServer implements AutoCloseable {
+
+    private static final String CATEGORIES = "[\"animal\",\"career\",\"celebrity\",\"dev\",\"food\",\"science\"]";
+
+    static {
+        // Sin TCP_NODELAY, cabeceras y cuerpo van en escrituras separadas y Nagle + ACK retrasado
+        // añaden ~40ms a cada respuesta; se lee una sola vez, al crear el primer HttpServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final AtomicLong jokeSequence = new AtomicLong();
+    private volatile LongSupplier latencyMillis = () -> 0;
+    private volatile double failureRate;
+
+    private StubQuoteServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/jokes/random", exchange -> handle(exchange, this::joke));
+        server.createContext("/jokes/categories", exchange -> handle(exchange, query -> CATEGORIES));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static StubQuoteServer start() {
+        try {
+            return new StubQuoteServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Número de peticiones recibidas en una ruta (por ejemplo "/jokes/categories")
+     */
+    public int hits(String path) {
+        AtomicInteger counter = hits.get(path);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public void resetHits() {
+        hits.clear();
+    }
+
+    /**
+     * Latencia fija en milisegundos para cada respuesta
+     */
+    public void latency(long millis) {
+        latency(() -> millis);
+    }
+
+    /**
+     * Latencia en milisegundos calculada por petición (por ejemplo, una distribución de cola larga)
+     */
+    public void latency(LongSupplier millis) {
+        this.latencyMillis = millis;
+    }
+
+    /**
+     * Fracción de peticiones (0.0 a 1.0) que responden 503
+     */
+    public void failureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private String joke(String query) {
+        long n = jokeSequence.incrementAndGet();
+        String category = query != null && query.startsWith("category=") ? query.substring("category=".length()) : null;
+        return "{\"icon_url\":\"https://stub/icon.png\",\"id\":\"stub-" + n + "\",\"url\":\"https://stub/jokes/" + n
+                + "\",\"value\":\"Chuck Norris joke #" + n + (category != null ? " (" + category + ")" : "") + "\"}";
+    }
+
+    private void handle(HttpExchange exchange, Function<String, String> body) throws IOException {
+        hits.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+        try (exchange) {
+            long delay = latencyMillis.getAsLong();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            byte[] bytes = body.apply(exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -45,7 +45,7 @@ class TaskDecoratorTest {
         // Los TaskDecorator deberían aplicarse automáticamente en el orden correcto:
         // 1. measuringTaskDecorator (mide tiempo)
         // 2. loggingTaskDecorator (registra inicio/fin)
-        // 3. tarea real (logHelloWorldEvent)
+        // 3. tarea real (onEvents)
         Thread.sleep(500);
         
         // Si llegamos aquí sin excepciones, los decoradores funcionaron correctamente
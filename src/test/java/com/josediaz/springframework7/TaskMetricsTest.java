@@ -0,0 +1,111 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.config.TaskDecoratorConfiguration;
+import com.josediaz.springframework7.event.HelloWorldEvent;
+import com.josediaz.springframework7.metrics.LatencyHistogram;
+import com.josediaz.springframework7.metrics.TaskMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test de la medición de tareas asíncronas: histogramas de latencia, logging muestreado
+ * y percentiles en /actuator/tasks
+ */
+@SpringBootTest
+class TaskMetricsTest {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskMetrics taskMetrics;
+
+    @Test
+    void testHistogramPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count()).isEqualTo(10_000);
+        assertThat(snapshot.meanNanos()).isCloseTo(5_000_500.0, within(1.0));
+        assertThat(snapshot.p50Nanos()).isBetween(5_000_000L, (long) (5_000_000 * 1.04));
+        assertThat(snapshot.p90Nanos()).isBetween(9_000_000L, (long) (9_000_000 * 1.04));
+        assertThat(snapshot.p99Nanos()).isBetween(9_900_000L, 10_000_000L);
+        assertThat(snapshot.maxNanos()).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 64; nanos++) {
+            histogram.record(nanos);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.p50Nanos()).isEqualTo(31);
+        assertThat(snapshot.maxNanos()).isEqualTo(63);
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        assertThat(new LatencyHistogram().snapshot().count()).isZero();
+    }
+
+    @Test
+    void testTaskTypeStripsLambdaSuffix() {
+        TaskMetrics metrics = new TaskMetrics();
+        Runnable lambda = () -> { };
+
+        metrics.record(lambda, 1_000);
+        metrics.record(lambda, 2_000);
+
+        assertThat(metrics.snapshot()).containsOnlyKeys("TaskMetricsTest");
+        assertThat(metrics.snapshot().get("TaskMetricsTest").count()).isEqualTo(2);
+    }
+
+    @Test
+    void testLoggingDecoratorIsOptIn() {
+        TaskDecoratorConfiguration configuration = new TaskDecoratorConfiguration();
+        Runnable task = () -> { };
+
+        TaskDecorator disabled = configuration.loggingTaskDecorator(0.0);
+        TaskDecorator always = configuration.loggingTaskDecorator(1.0);
+
+        // Sin muestreo la tarea no se envuelve
+        assertThat(disabled.decorate(task)).isSameAs(task);
+        assertThat(always.decorate(task)).isNotSameAs(task);
+    }
+
+    @Test
+    void testTasksEndpointExposesPercentiles(WebApplicationContext context) throws InterruptedException {
+        eventPublisher.publishEvent(new HelloWorldEvent("Metrics Test"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!taskMetrics.snapshot().containsKey("EventBatcher") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        RestTestClient.bindToApplicationContext(context).build()
+                .get()
+                .uri("/actuator/tasks")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.EventBatcher.count").value(count -> assertThat(((Number) count).longValue()).isPositive())
+                .jsonPath("$.EventBatcher.p99Micros").exists();
+    }
+}
@@ -0,0 +1,372 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
+import com.josediaz.springframework7.service.UserJournal;
+import com.josediaz.springframework7.service.UserService;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test de la persistencia de UserService: snapshots, WAL, recuperación y caídas a mitad de escritura
+ */
+class UserJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUsersSurviveRestart() throws IOException {
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            userService.createUser("Dave", "dave@example.com", null);
+            userService.updateUser(1L, "Alice Smith", "alice.smith@example.com", null);
+            userService.deleteUser(2L);
+        }
+
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+
+            assertThat(userService.getAllUsers()).hasSize(3);
+            assertThat(userService.getUserById(1L).getName()).isEqualTo("Alice Smith");
+            assertThat(userService.getUserById(1L).getPhone()).isNull();
+            assertThat(userService.getUserById(2L)).isNull();
+            // El índice por email se reconstruye y los ejemplos no se vuelven a crear
+            assertThat(userService.findByEmail("alice.smith@example.com").getId()).isEqualTo(1L);
+            assertThat(userService.findByEmail("alice@example.com")).isNull();
+            assertThat(userService.findByEmail("bob@example.com")).isNull();
+            assertThat(userService.createUser("Eve", "eve@example.com", null).getId()).isEqualTo(5L);
+        }
+    }
+
+    @Test
+    void testStartupLoadsSnapshotAndReplaysTail() throws IOException {
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            for (int i = 0; i < 100; i++) {
+                userService.createUser("User " + i, "user" + i + "@example.com", i % 2 == 0 ? "555-0100" : null);
+            }
+            userService.deleteUser(103L);
+            userService.snapshot();
+            // Cola del WAL posterior al snapshot
+            userService.updateUser(4L, "Updated", "updated@example.com", null);
+            userService.deleteUser(5L);
+            assertThat(journal.snapshotCount()).isEqualTo(1);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactlyInAnyOrder("users-00000000000000000002.snap", "users-00000000000000000002.wal");
+        }
+
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+
+            assertThat(userService.getAllUsers()).hasSize(3 + 100 - 2);
+            assertThat(userService.getUserById(4L).getName()).isEqualTo("Updated");
+            assertThat(userService.getUserById(5L)).isNull();
+            assertThat(userService.getUserById(103L)).isNull();
+            assertThat(userService.getUserById(6L).getPhone()).isEqualTo("555-0100");
+            assertThat(userService.findByEmail("updated@example.com").getId()).isEqualTo(4L);
+            // El id más alto se guarda en el snapshot aunque su usuario esté borrado
+            assertThat(userService.createUser("Last", "last@example.com", null).getId()).isEqualTo(104L);
+        }
+    }
+
+    @Test
+    void testSnapshotsAreWrittenWhenWalGrows() throws Exception {
+        try (UserJournal journal = open(1024)) {
+            UserService userService = new UserService(journal);
+            for (int i = 0; i < 200; i++) {
+                userService.createUser("User " + i, "user" + i + "@example.com", null);
+            }
+            for (int attempt = 0; attempt < 100 && journal.snapshotCount() == 0; attempt++) {
+                Thread.sleep(50);
+            }
+            assertThat(journal.snapshotCount()).isPositive();
+        }
+
+        try (UserJournal journal = open(0)) {
+            assertThat(new UserService(journal).getAllUsers()).hasSize(203);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".snap")).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        try (UserJournal journal = open(0)) {
+            new UserService(journal).createUser("Dave", "dave@example.com", null);
+        }
+        Path wal = directory.resolve("users-00000000000000000001.wal");
+        long validSize = Files.size(wal);
+        // Un registro a medio escribir: longitud de 60 bytes y solo 4 presentes
+        Files.write(wal, new byte[]{0, 0, 0, 60, 1, 2, 3, 4}, StandardOpenOption.APPEND);
+
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            assertThat(userService.getAllUsers()).hasSize(4);
+            assertThat(journal.walSize()).isEqualTo(validSize);
+            userService.createUser("Eve", "eve@example.com", null);
+        }
+        try (UserJournal journal = open(0)) {
+            assertThat(new UserService(journal).findByEmail("eve@example.com")).isNotNull();
+        }
+    }
+
+    @Test
+    void testAcknowledgedWritesSurviveProcessKill() throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), CrashWriter.class.getName(), directory.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int acknowledged = -1;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged < 3000 && (line = output.readLine()) != null) {
+                if (line.startsWith(CrashWriter.ACK)) {
+                    acknowledged = Integer.parseInt(line.substring(CrashWriter.ACK.length()));
+                }
+            }
+        } finally {
+            // SIGKILL a mitad de las escrituras: sin cierre del journal ni shutdown hooks
+            process.destroyForcibly().waitFor();
+        }
+        assertThat(acknowledged).isEqualTo(3000);
+
+        try (UserJournal journal = open(0)) {
+            UserService recovered = new UserService(journal);
+            Map<Long, List<String>> state = state(recovered);
+
+            // El proceso pudo confirmar más pasos antes de morir, pero el estado recuperado tiene que
+            // ser exactamente el de algún paso a partir del último leído: nada confirmado se pierde
+            // y no aparecen cambios a medias
+            UserService expected = new UserService();
+            int step = 0;
+            for (; step <= acknowledged; step++) {
+                CrashWriter.step(expected, step);
+            }
+            for (; !state(expected).equals(state) && step < acknowledged + 100_000; step++) {
+                CrashWriter.step(expected, step);
+            }
+            assertThat(state).isEqualTo(state(expected));
+            for (UserService.User user : recovered.getAllUsers().values()) {
+                assertThat(recovered.findByEmail(user.getEmail()).getId()).isEqualTo(user.getId());
+            }
+        }
+    }
+
+    @Test
+    void testBulkWaitsForSingleSync() throws IOException {
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            long syncs = journal.syncCount();
+
+            List<BulkResult> results = userService.applyBulk(List.of(
+                    new BulkOperation(BulkOperation.CREATE, null, "Dave", "dave@example.com", null),
+                    new BulkOperation(BulkOperation.CREATE, null, "Dave again", "dave@example.com", null),
+                    new BulkOperation(BulkOperation.UPDATE, 1L, "Alice Smith", "alice.smith@example.com", null),
+                    new BulkOperation(BulkOperation.DELETE, 2L, null, null, null),
+                    new BulkOperation(BulkOperation.DELETE, 2L, null, null, null),
+                    new BulkOperation(BulkOperation.UPDATE, 3L, null, null, null)));
+
+            assertThat(results).extracting(BulkResult::status).containsExactly(BulkResult.Status.CREATED,
+                    BulkResult.Status.CONFLICT, BulkResult.Status.UPDATED, BulkResult.Status.DELETED,
+                    BulkResult.Status.NOT_FOUND, BulkResult.Status.INVALID);
+            assertThat(journal.syncCount()).isEqualTo(syncs + 1);
+        }
+
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            assertThat(userService.getAllUsers()).hasSize(3);
+            assertThat(userService.findByEmail("dave@example.com").getId()).isEqualTo(4L);
+            assertThat(userService.getUserById(1L).getName()).isEqualTo("Alice Smith");
+            assertThat(userService.getUserById(2L)).isNull();
+        }
+    }
+
+    @Test
+    void testOversizedUsersAreRejectedBeforeWriting() throws IOException {
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            String huge = "x".repeat(17 << 20);
+
+            assertThatThrownBy(() -> journal.appendPut(9L, huge, "huge@example.com", null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            List<BulkResult> results = userService.applyBulk(List.of(
+                    new BulkOperation(BulkOperation.CREATE, null, "x".repeat(BulkOperation.MAX_TEXT_BYTES), "big@example.com", null),
+                    new BulkOperation(BulkOperation.CREATE, null, "Dave", "dave@example.com", null)));
+
+            assertThat(results).extracting(BulkResult::status)
+                    .containsExactly(BulkResult.Status.INVALID, BulkResult.Status.CREATED);
+            assertThat(userService.findByEmail("big@example.com")).isNull();
+        }
+
+        // El WAL sigue siendo legible: nada se escribió para los usuarios rechazados
+        try (UserJournal journal = open(0)) {
+            UserService userService = new UserService(journal);
+            assertThat(userService.getAllUsers()).hasSize(4);
+            assertThat(userService.findByEmail("dave@example.com").getId()).isEqualTo(4L);
+        }
+    }
+
+    @Test
+    void testWritesArePublishedOnlyOnceDurable() throws Exception {
+        try (GatedJournal journal = new GatedJournal(directory)) {
+            UserService userService = new UserService(journal);
+            journal.syncing = new CountDownLatch(2);
+            journal.gate = new CountDownLatch(1);
+            CompletableFuture<UserService.User> created = CompletableFuture.supplyAsync(
+                    () -> userService.createUser("Dave", "dave@example.com", null));
+            CompletableFuture<UserService.User> updated = CompletableFuture.supplyAsync(
+                    () -> userService.updateUser(1L, "Alice Smith", "alice.smith@example.com", null));
+            assertThat(journal.syncing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Registrados en el WAL pero sin fsync: las lecturas ven la versión anterior
+            assertThat(userService.getUserById(4L)).isNull();
+            assertThat(userService.findByEmail("dave@example.com")).isNull();
+            assertThat(userService.getUserById(1L).getName()).isEqualTo("Alice");
+            assertThat(userService.findByEmail("alice@example.com").getId()).isEqualTo(1L);
+            assertThat(userService.findByEmail("alice.smith@example.com")).isNull();
+            // Los emails siguen reservados mientras tanto
+            assertThatThrownBy(() -> userService.createUser("Dave again", "DAVE@example.com", null))
+                    .isInstanceOf(UserService.DuplicateEmailException.class);
+            assertThatThrownBy(() -> userService.updateUser(2L, "Bob", "alice.smith@example.com", null))
+                    .isInstanceOf(UserService.DuplicateEmailException.class);
+
+            journal.gate.countDown();
+            assertThat(created.get(5, TimeUnit.SECONDS).getId()).isEqualTo(4L);
+            assertThat(updated.get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(userService.findByEmail("dave@example.com").getId()).isEqualTo(4L);
+            assertThat(userService.findByEmail("alice.smith@example.com").getId()).isEqualTo(1L);
+            assertThat(userService.findByEmail("alice@example.com")).isNull();
+        }
+    }
+
+    @Test
+    void testFailedSyncIsPublishedByNextDurableWrite() throws IOException {
+        try (GatedJournal journal = new GatedJournal(directory)) {
+            UserService userService = new UserService(journal);
+            journal.failNextSync = true;
+
+            assertThatThrownBy(() -> userService.createUser("Dave", "dave@example.com", null))
+                    .isInstanceOf(UncheckedIOException.class);
+            assertThat(userService.getUserById(4L)).isNull();
+
+            // Las escrituras siguientes ven el alta pendiente; el siguiente fsync hace durables las dos
+            userService.updateUser(4L, "Dave Smith", "dave@example.com", null);
+
+            assertThat(userService.getUserById(4L).getName()).isEqualTo("Dave Smith");
+            assertThat(userService.findByEmail("dave@example.com").getId()).isEqualTo(4L);
+        }
+        try (UserJournal journal = open(0)) {
+            assertThat(new UserService(journal).getUserById(4L).getName()).isEqualTo("Dave Smith");
+        }
+    }
+
+    @Test
+    void testClosedJournalRejectsWrites() throws IOException {
+        UserJournal journal = open(0);
+        UserService userService = new UserService(journal);
+        journal.close();
+
+        assertThatThrownBy(() -> userService.createUser("Dave", "dave@example.com", null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(userService.findByEmail("dave@example.com")).isNull();
+    }
+
+    /**
+     * Journal cuyo sync puede esperar a gate (tras contar en syncing) o fallar una vez sin hacer fsync
+     */
+    private static final class GatedJournal extends UserJournal {
+
+        volatile CountDownLatch syncing = new CountDownLatch(1);
+        volatile @Nullable CountDownLatch gate;
+        volatile boolean failNextSync;
+
+        GatedJournal(Path directory) throws IOException {
+            super(directory, 0);
+        }
+
+        @Override
+        public void sync(long sequence) {
+            if (failNextSync) {
+                failNextSync = false;
+                throw new UncheckedIOException(new IOException("fsync failed"));
+            }
+            CountDownLatch current = gate;
+            if (current != null) {
+                syncing.countDown();
+                try {
+                    current.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.sync(sequence);
+        }
+    }
+
+    private UserJournal open(long snapshotWalBytes) throws IOException {
+        return new UserJournal(directory, snapshotWalBytes);
+    }
+
+    private static Map<Long, List<String>> state(UserService userService) {
+        Map<Long, List<String>> state = new TreeMap<>();
+        userService.getAllUsers().forEach((id, user) ->
+                state.put(id, List.of(user.getName(), user.getEmail(), user.getPhoneOrDefault(""))));
+        return state;
+    }
+
+    /**
+     * Proceso que escribe sin parar sobre un journal con snapshots frecuentes e imprime cada
+     * paso confirmado; el test lo mata con SIGKILL
+     */
+    public static class CrashWriter {
+
+        static final String ACK = "ack ";
+
+        public static void main(String[] args) throws IOException {
+            UserJournal journal = new UserJournal(Path.of(args[0]), 8192);
+            UserService userService = new UserService(journal);
+            for (int step = 0; ; step++) {
+                step(userService, step);
+                System.out.println(ACK + step);
+            }
+        }
+
+        /**
+         * Una sola operación por paso: dos altas, una actualización y un borrado cada cuatro pasos
+         * (el usuario creado en el paso k recibe el id 4 + k / 4 * 2 + k % 4)
+         */
+        static void step(UserService userService, int step) {
+            int round = step / 4;
+            switch (step % 4) {
+                case 0, 1 -> userService.createUser("user-" + step, "user-" + step + "@example.com",
+                        step % 3 == 0 ? "555-0100" : null);
+                case 2 -> userService.updateUser(4L + round * 2L, "renamed-" + step, "renamed-" + step + "@example.com", null);
+                default -> userService.deleteUser(5L + round * 2L);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.model.BulkOperation;
+import com.josediaz.springframework7.model.BulkResult;
+import com.josediaz.springframework7.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test del índice secundario por email de UserService
+ *
+ * Verifica que el índice se mantiene consistente en create, update y delete,
+ * que la búsqueda no distingue mayúsculas y que el email es único incluso con escrituras concurrentes
+ */
+class UserServiceEmailIndexTest {
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService();
+    }
+
+    @Test
+    void testFindByEmailIsCaseInsensitive() {
+        UserService.User user = userService.findByEmail("ALICE@Example.com");
+        assertThat(user).isNotNull();
+        assertThat(user.getName()).isEqualTo("Alice");
+    }
+
+    @Test
+    void testCreateRejectsDuplicateEmail() {
+        assertThatThrownBy(() -> userService.createUser("Alice 2", "Alice@example.com", null))
+                .isInstanceOf(UserService.DuplicateEmailException.class);
+        assertThat(userService.getAllUsers()).hasSize(3);
+    }
+
+    @Test
+    void testDuplicateEmailsDoNotUseIds() {
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> userService.createUser("Alice 2", "alice@example.com", null))
+                    .isInstanceOf(UserService.DuplicateEmailException.class);
+        }
+        List<BulkResult> results = userService.applyBulk(List.of(
+                new BulkOperation(BulkOperation.CREATE, null, "Bob 2", "BOB@example.com", null),
+                new BulkOperation(BulkOperation.CREATE, null, "Dave", "dave@example.com", null)));
+
+        assertThat(results).extracting(BulkResult::status)
+                .containsExactly(BulkResult.Status.CONFLICT, BulkResult.Status.CREATED);
+        assertThat(results.getLast().id()).isEqualTo(4L);
+        assertThat(userService.createUser("Eve", "eve@example.com", null).getId()).isEqualTo(5L);
+    }
+
+    @Test
+    void testUpdateMovesIndexEntry() {
+        userService.updateUser(1L, "Alice", "alice.new@example.com", null);
+
+        assertThat(userService.findByEmail("alice@example.com")).isNull();
+        UserService.User user = userService.findByEmail("alice.new@example.com");
+        assertThat(user).isNotNull();
+        assertThat(user.getId()).isEqualTo(1L);
+
+        // El email anterior queda libre para otro usuario
+        assertThat(userService.createUser("Other", "alice@example.com", null)).isNotNull();
+    }
+
+    @Test
+    void testUpdateRejectsEmailOfAnotherUser() {
+        assertThatThrownBy(() -> userService.updateUser(1L, "Alice", "bob@example.com", null))
+                .isInstanceOf(UserService.DuplicateEmailException.class);
+        assertThat(userService.findByEmail("alice@example.com").getId()).isEqualTo(1L);
+        assertThat(userService.findByEmail("bob@example.com").getId()).isEqualTo(2L);
+    }
+
+    @Test
+    void testDeleteRemovesIndexEntry() {
+        assertThat(userService.deleteUser(2L)).isTrue();
+        assertThat(userService.findByEmail("bob@example.com")).isNull();
+    }
+
+    @Test
+    void testConcurrentCreatesWithSameEmailSucceedOnce() throws Exception {
+        int threads = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        userService.createUser("User " + n, n % 2 == 0 ? "same@example.com" : "SAME@example.com", null);
+                        created.incrementAndGet();
+                    } catch (UserService.DuplicateEmailException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(created).hasValue(1);
+        assertThat(rejected).hasValue(threads - 1);
+        assertThat(userService.findByEmail("same@example.com")).isNotNull();
+    }
+}
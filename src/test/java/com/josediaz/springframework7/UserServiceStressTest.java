@@ -0,0 +1,136 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.josediaz.springframework7.ConcurrentRunner.runConcurrently;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de estrés para UserService con muchos hilos concurrentes
+ *
+ * Tras cada ronda se comprueban los invariantes que solo se cumplen si
+ * create/update/delete son atómicos:
+ * - Ningún id se repite
+ * - Cada usuario tiene nombre y email de la misma escritura
+ * - El índice de emails apunta exactamente a los usuarios existentes
+ */
+class UserServiceStressTest {
+
+    private static final int THREADS = 128;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService();
+    }
+
+    @Test
+    void testConcurrentCreatesAssignUniqueIds() throws Exception {
+        int perThread = 200;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                String email = "user-" + thread + "-" + i + "@example.com";
+                ids.add(userService.createUser("user-" + thread + "-" + i, email, null).getId());
+            }
+        });
+
+        assertThat(ids).hasSize(THREADS * perThread);
+        assertThat(userService.getAllUsers()).hasSize(3 + THREADS * perThread);
+        assertIndexConsistent();
+    }
+
+    @Test
+    void testConcurrentUpdatesAndDeletesKeepUsersAndIndexConsistent() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            ids.add(userService.createUser("initial-" + i, "initial-" + i + "@example.com", null).getId());
+        }
+        AtomicInteger deletes = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 500; i++) {
+                long id = ids.get(random.nextInt(ids.size()));
+                if (random.nextInt(100) == 0) {
+                    if (userService.deleteUser(id)) {
+                        deletes.incrementAndGet();
+                    }
+                } else {
+                    // Emails compartidos entre hilos para forzar conflictos en el índice
+                    String name = "writer-" + random.nextInt(64);
+                    try {
+                        userService.updateUser(id, name, name + "@example.com", null);
+                    } catch (UserService.DuplicateEmailException e) {
+                        // Esperado: otro usuario ya tiene ese email
+                    }
+                }
+            }
+        });
+
+        assertThat(userService.getAllUsers()).hasSize(3 + ids.size() - deletes.get());
+        for (UserService.User user : userService.getAllUsers().values()) {
+            assertThat(user.getEmail()).startsWithIgnoringCase(user.getName() + "@");
+        }
+        assertIndexConsistent();
+    }
+
+    @Test
+    void testConcurrentDeleteSucceedsExactlyOnce() throws Exception {
+        long id = userService.createUser("victim", "victim@example.com", null).getId();
+        AtomicInteger deleted = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            if (userService.deleteUser(id)) {
+                deleted.incrementAndGet();
+            }
+        });
+
+        assertThat(deleted).hasValue(1);
+        assertThat(userService.getUserById(id)).isNull();
+        assertThat(userService.findByEmail("victim@example.com")).isNull();
+    }
+
+    @Test
+    void testCreateAndDeleteRacesReleaseEmails() throws Exception {
+        runConcurrently(THREADS, thread -> {
+            String email = "shared-" + (thread % 8) + "@example.com";
+            for (int i = 0; i < 200; i++) {
+                try {
+                    UserService.User user = userService.createUser("shared", email, null);
+                    userService.deleteUser(user.getId());
+                } catch (UserService.DuplicateEmailException e) {
+                    // Esperado: otro hilo tiene el email reservado en este momento
+                }
+            }
+        });
+
+        // Todos los usuarios creados fueron eliminados: el índice debe quedar limpio
+        for (int i = 0; i < 8; i++) {
+            assertThat(userService.findByEmail("shared-" + i + "@example.com")).isNull();
+        }
+        assertThat(userService.getAllUsers()).hasSize(3);
+        assertIndexConsistent();
+    }
+
+    private void assertIndexConsistent() {
+        Map<Long, UserService.User> users = userService.getAllUsers();
+        for (UserService.User user : users.values()) {
+            UserService.User found = userService.findByEmail(user.getEmail());
+            assertThat(found).isNotNull();
+            assertThat(found.getId()).isEqualTo(user.getId());
+        }
+    }
+}
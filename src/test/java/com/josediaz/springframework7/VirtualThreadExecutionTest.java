@@ -0,0 +1,121 @@
+package com.josediaz.springframework7;
+
+import com.josediaz.springframework7.event.HelloWorldEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.test.web.servlet.client.RestTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test del modo de ejecución con hilos virtuales (spring.threads.virtual.enabled=true)
+ *
+ * Un TaskDecorator adicional (@Order(3), el más interno de la cadena) registra el hilo
+ * en el que se ejecuta cada tarea, así se comprueba que la cadena de TaskDecorator
+ * se sigue aplicando y que las tareas corren en hilos virtuales
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadExecutionTest {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
+    @Autowired
+    private RecordingTaskDecorator recordingTaskDecorator;
+
+    @LocalServerPort
+    int port;
+
+    @BeforeEach
+    void setUp() {
+        recordingTaskDecorator.threads.clear();
+    }
+
+    @Test
+    void testAsyncListenerRunsOnVirtualThreadThroughDecorators() throws InterruptedException {
+        eventPublisher.publishEvent(new HelloWorldEvent("Virtual Thread Test"));
+
+        Thread thread = recordingTaskDecorator.threads.poll(5, TimeUnit.SECONDS);
+        assertThat(thread).isNotNull();
+        assertThat(thread.isVirtual()).isTrue();
+    }
+
+    @Test
+    void testApplicationTaskExecutorUsesVirtualThreads() throws InterruptedException {
+        BlockingQueue<Boolean> ran = new LinkedBlockingQueue<>();
+
+        applicationTaskExecutor.execute(() -> ran.add(Thread.currentThread().isVirtual()));
+
+        assertThat(ran.poll(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(recordingTaskDecorator.threads.poll(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void testServletRequestsRunOnVirtualThreads() {
+        RestTestClient.bindToServer().baseUrl("http://localhost:" + port).build()
+                .get()
+                .uri("/test/thread")
+                .header("X-API-Version", "1.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("virtual");
+    }
+
+    static class RecordingTaskDecorator implements TaskDecorator {
+
+        final BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            return () -> {
+                threads.add(Thread.currentThread());
+                runnable.run();
+            };
+        }
+    }
+
+    @RestController
+    static class ThreadController {
+
+        @GetMapping("/test/thread")
+        String thread() {
+            return Thread.currentThread().isVirtual() ? "virtual" : "platform";
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        @Order(3)
+        RecordingTaskDecorator recordingTaskDecorator() {
+            return new RecordingTaskDecorator();
+        }
+
+        @Bean
+        ThreadController threadController() {
+            return new ThreadController();
+        }
+    }
+}